@@ -88,6 +88,13 @@ dependencies {
     testImplementation(Config.Projects.JUNIT_JUPITER)
 }
 
+tasks.processResources {
+    // The helper library is bundled for the plain V8 mode and the mirror script is evaluated by the mirror.
+    from(files("scripts/node/jaspiler/jaspiler.js", "scripts/node/jaspiler/mirror.js")) {
+        into("com/caoccao/jaspiler/v8")
+    }
+}
+
 tasks.jar {
     manifest {
         attributes["Main-Class"] = "com.caoccao.jaspiler.JaspilerMain"
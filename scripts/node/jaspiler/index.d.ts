@@ -608,6 +608,13 @@ interface TransformOptions {
    * Default: `false`
    */
   ast?: boolean | null | undefined;
+  /**
+   * Include the binary AST in the returned object.
+   * It is encoded in one call and can be read by JTBinaryAst in jaspiler.js without calling back into Java.
+   *
+   * Default: `false`
+   */
+  binaryAst?: boolean | null | undefined;
   /**
    * Enable code generation
    *
@@ -620,18 +627,55 @@ interface TransformOptions {
    * Default: undefined
    */
   context?: object | null | undefined;
+  /**
+   * Include the unified diff against the original code in the returned object.
+   * Unchanged files produce no diff.
+   *
+   * Default: `false`
+   */
+  diff?: boolean | null | undefined;
+  /**
+   * Include the text edits against the original code in the returned object.
+   * Unchanged files produce no edits.
+   *
+   * Default: `false`
+   */
+  edits?: boolean | null | undefined;
   /**
    * Specify the file name in source type 'string' mode
    *
    * Default: `undefined`
    */
   fileName?: string | null | undefined;
+  /**
+   * Run the plugins against a plain JS mirror of the compilation unit.
+   * The mirror is materialized once and the changes are sent back to Java in one batched call.
+   * Only the properties with both a getter and a setter are mirrored,
+   * and toString() returns the code before the changes are applied.
+   *
+   * Default: `false`
+   */
+  mirror?: boolean | null | undefined;
   /**
    * List of plugins to load and use
    *
    * Default: `[]`
    */
   plugins?: TransformOptionsPlugin[] | null | undefined;
+  /**
+   * Maintain the scope stack during the traversal and expose the current scope as `context.scope`.
+   * `context.scope` is null after the compilation unit exits, e.g. in the batch plugins.
+   * The context is created if it is absent.
+   *
+   * Default: `false`
+   */
+  scope?: boolean | null | undefined;
+  /**
+   * Include the source map in the returned object
+   *
+   * Default: `false`
+   */
+  sourceMap?: boolean | null | undefined;
   /**
    * Type of the source
    *
@@ -647,77 +691,196 @@ interface TransformOptions {
 }
 
 interface TransformOptionsPlugin {
-  visitor: TransformOptionsPluginVisitor;
-}
-
+  /**
+   * Call each visitor function once per kind with an array of the nodes in traversal order after the traversal
+   * instead of once per node.
+   * The nodes are collected before the first batch call so that the mutations don't change the arrays.
+   * The return values are ignored.
+   *
+   * Default: `false`
+   */
+  batch?: boolean | null | undefined;
+  visitor: TransformOptionsPluginVisitor | TransformOptionsPluginBatchVisitor;
+}
+
+interface TransformOptionsPluginBatchVisitor {
+  AnnotatedType(nodes: JTAnnotatedType[], context?: object | null | undefined): void;
+  Annotation(nodes: JTAnnotation[], context?: object | null | undefined): void;
+  ArrayAccess(nodes: JTArrayAccess[], context?: object | null | undefined): void;
+  ArrayType(nodes: JTArrayType[], context?: object | null | undefined): void;
+  Assert(nodes: JTAssert[], context?: object | null | undefined): void;
+  Assignment(nodes: JTAssign[], context?: object | null | undefined): void;
+  Binary(nodes: JTBinary[], context?: object | null | undefined): void;
+  BindingPattern(nodes: JTBindingPattern[], context?: object | null | undefined): void;
+  Block(nodes: JTBlock[], context?: object | null | undefined): void;
+  Break(nodes: JTBreak[], context?: object | null | undefined): void;
+  Case(nodes: JTCase[], context?: object | null | undefined): void;
+  Catch(nodes: JTCatch[], context?: object | null | undefined): void;
+  Class(nodes: JTClassDecl[], context?: object | null | undefined): void;
+  CompilationUnit(nodes: JTCompilationUnit[], context?: object | null | undefined): void;
+  CompoundAssignment(nodes: JTAssignOp[], context?: object | null | undefined): void;
+  ConditionalExpression(nodes: JTConditional[], context?: object | null | undefined): void;
+  Continue(nodes: JTContinue[], context?: object | null | undefined): void;
+  DefaultCaseLabel(nodes: JTDefaultCaseLabel[], context?: object | null | undefined): void;
+  DoWhileLoop(nodes: JTDoWhileLoop[], context?: object | null | undefined): void;
+  EmptyStatement(nodes: JTSkip[], context?: object | null | undefined): void;
+  EnhancedForLoop(nodes: JTEnhancedForLoop[], context?: object | null | undefined): void;
+  Erroneous(nodes: JTErroneous[], context?: object | null | undefined): void;
+  Exports(nodes: JTExports[], context?: object | null | undefined): void;
+  ExpressionStatement(nodes: JTExpressionStatement[], context?: object | null | undefined): void;
+  ForLoop(nodes: JTForLoop[], context?: object | null | undefined): void;
+  GuardedPattern(nodes: JTGuardedPattern[], context?: object | null | undefined): void;
+  Identifier(nodes: JTIdent[], context?: object | null | undefined): void;
+  If(nodes: JTIf[], context?: object | null | undefined): void;
+  Import(nodes: JTImport[], context?: object | null | undefined): void;
+  InstanceOf(nodes: JTInstanceOf[], context?: object | null | undefined): void;
+  IntersectionType(nodes: JTTypeIntersection[], context?: object | null | undefined): void;
+  LabeledStatement(nodes: JTLabeledStatement[], context?: object | null | undefined): void;
+  LambdaExpression(nodes: JTLambda[], context?: object | null | undefined): void;
+  Literal(nodes: JTLiteral[], context?: object | null | undefined): void;
+  MemberReference(nodes: JTMemberReference[], context?: object | null | undefined): void;
+  MemberSelect(nodes: JTFieldAccess[], context?: object | null | undefined): void;
+  Method(nodes: JTMethodDecl[], context?: object | null | undefined): void;
+  MethodInvocation(nodes: JTMethodInvocation[], context?: object | null | undefined): void;
+  Modifiers(nodes: JTModifiers[], context?: object | null | undefined): void;
+  Module(nodes: JTModuleDecl[], context?: object | null | undefined): void;
+  NewArray(nodes: JTNewArray[], context?: object | null | undefined): void;
+  NewClass(nodes: JTNewClass[], context?: object | null | undefined): void;
+  Opens(nodes: JTOpens[], context?: object | null | undefined): void;
+  Other(nodes: JTTree[], context?: object | null | undefined): void;
+  Package(nodes: JTPackageDecl[], context?: object | null | undefined): void;
+  ParameterizedType(nodes: JTTypeApply[], context?: object | null | undefined): void;
+  Parenthesized(nodes: JTParens[], context?: object | null | undefined): void;
+  ParenthesizedPattern(nodes: JTParenthesizedPattern[], context?: object | null | undefined): void;
+  PrimitiveType(nodes: JTPrimitiveType[], context?: object | null | undefined): void;
+  Provides(nodes: JTProvides[], context?: object | null | undefined): void;
+  Requires(nodes: JTRequires[], context?: object | null | undefined): void;
+  Return(nodes: JTReturn[], context?: object | null | undefined): void;
+  Scan(nodes: JTTree[], context?: object | null | undefined): void;
+  Switch(nodes: JTSwitch[], context?: object | null | undefined): void;
+  SwitchExpression(nodes: JTSwitchExpression[], context?: object | null | undefined): void;
+  Synchronized(nodes: JTSynchronized[], context?: object | null | undefined): void;
+  Throw(nodes: JTThrow[], context?: object | null | undefined): void;
+  Try(nodes: JTTry[], context?: object | null | undefined): void;
+  TypeCast(nodes: JTTypeCast[], context?: object | null | undefined): void;
+  TypeParameter(nodes: JTTypeParameter[], context?: object | null | undefined): void;
+  Unary(nodes: JTUnary[], context?: object | null | undefined): void;
+  UnionType(nodes: JTTypeUnion[], context?: object | null | undefined): void;
+  Uses(nodes: JTUses[], context?: object | null | undefined): void;
+  Variable(nodes: JTVariableDecl[], context?: object | null | undefined): void;
+  WhileLoop(nodes: JTWhileLoop[], context?: object | null | undefined): void;
+  Wildcard(nodes: JTWildcard[], context?: object | null | undefined): void;
+  Yield(nodes: JTYield[], context?: object | null | undefined): void;
+}
+
+/**
+ * The path is passed to the visitor functions declaring the third parameter.
+ * The edits are applied to the list of the parent in place.
+ * The children of the removed or replaced node are not visited.
+ * The replacement and the nodes inserted before are not visited,
+ * while the nodes inserted after are visited as the following siblings.
+ */
+interface NodePath<T> {
+  /**
+   * Index of the node in the list of the parent, -1 if the node is not in a list
+   */
+  readonly index: number;
+  /**
+   * Name of the parent property holding the node
+   */
+  readonly key: string | null;
+  readonly node: T;
+  readonly parent: JTTree | null;
+  readonly removed: boolean;
+  insertAfter(...nodes: JTTree[]): void;
+  insertBefore(...nodes: JTTree[]): void;
+  remove(): void;
+  replaceWith(node: JTTree): void;
+}
+
+type TransformOptionsPluginVisitorFunction<T> = (
+  node: T, context?: object | null | undefined, path?: NodePath<T>) => boolean | void;
+
+interface TransformOptionsPluginVisitorHooks<T> {
+  enter?: TransformOptionsPluginVisitorFunction<T> | undefined;
+  exit?: ((node: T, context?: object | null | undefined, path?: NodePath<T>) => void) | undefined;
+}
+
+/**
+ * Returning false from a visitor function skips the children of the node.
+ * Returning false from Scan skips the node with its children.
+ * A visitor function can be replaced by { enter, exit } where exit is called
+ * after the children of the node are visited, e.g. for the bottom-up transforms in a single pass.
+ * The exit functions are not called if the children are skipped.
+ */
 interface TransformOptionsPluginVisitor {
-  AnnotatedType(node: JTAnnotatedType, context?: object | null | undefined): void;
-  Annotation(node: JTAnnotation, context?: object | null | undefined): void;
-  ArrayAccess(node: JTArrayAccess, context?: object | null | undefined): void;
-  ArrayType(node: JTArrayType, context?: object | null | undefined): void;
-  Assert(node: JTAssert, context?: object | null | undefined): void;
-  Assignment(node: JTAssign, context?: object | null | undefined): void;
-  Binary(node: JTBinary, context?: object | null | undefined): void;
-  BindingPattern(node: JTBindingPattern, context?: object | null | undefined): void;
-  Block(node: JTBlock, context?: object | null | undefined): void;
-  Break(node: JTBreak, context?: object | null | undefined): void;
-  Case(node: JTCase, context?: object | null | undefined): void;
-  Catch(node: JTCatch, context?: object | null | undefined): void;
-  Class(node: JTClassDecl, context?: object | null | undefined): void;
-  CompilationUnit(node: JTCompilationUnit, context?: object | null | undefined): void;
-  CompoundAssignment(node: JTAssignOp, context?: object | null | undefined): void;
-  ConditionalExpression(node: JTConditional, context?: object | null | undefined): void;
-  Continue(node: JTContinue, context?: object | null | undefined): void;
-  DefaultCaseLabel(node: JTDefaultCaseLabel, context?: object | null | undefined): void;
-  DoWhileLoop(node: JTDoWhileLoop, context?: object | null | undefined): void;
-  EmptyStatement(node: JTSkip, context?: object | null | undefined): void;
-  EnhancedForLoop(node: JTEnhancedForLoop, context?: object | null | undefined): void;
-  Erroneous(node: JTErroneous, context?: object | null | undefined): void;
-  Exports(node: JTExports, context?: object | null | undefined): void;
-  ExpressionStatement(node: JTExpressionStatement, context?: object | null | undefined): void;
-  ForLoop(node: JTForLoop, context?: object | null | undefined): void;
-  GuardedPattern(node: JTGuardedPattern, context?: object | null | undefined): void;
-  Identifier(node: JTIdent, context?: object | null | undefined): void;
-  If(node: JTIf, context?: object | null | undefined): void;
-  Import(node: JTImport, context?: object | null | undefined): void;
-  InstanceOf(node: JTInstanceOf, context?: object | null | undefined): void;
-  IntersectionType(node: JTTypeIntersection, context?: object | null | undefined): void;
-  LabeledStatement(node: JTLabeledStatement, context?: object | null | undefined): void;
-  LambdaExpression(node: JTLambda, context?: object | null | undefined): void;
-  Literal(node: JTLiteral, context?: object | null | undefined): void;
-  MemberReference(node: JTMemberReference, context?: object | null | undefined): void;
-  MemberSelect(node: JTFieldAccess, context?: object | null | undefined): void;
-  Method(node: JTMethodDecl, context?: object | null | undefined): void;
-  MethodInvocation(node: JTMethodInvocation, context?: object | null | undefined): void;
-  Modifiers(node: JTModifiers, context?: object | null | undefined): void;
-  Module(node: JTModuleDecl, context?: object | null | undefined): void;
-  NewArray(node: JTNewArray, context?: object | null | undefined): void;
-  NewClass(node: JTNewClass, context?: object | null | undefined): void;
-  Opens(node: JTOpens, context?: object | null | undefined): void;
-  Other(node: JTTree, context?: object | null | undefined): void;
-  Package(node: JTPackageDecl, context?: object | null | undefined): void;
-  ParameterizedType(node: JTTypeApply, context?: object | null | undefined): void;
-  Parenthesized(node: JTParens, context?: object | null | undefined): void;
-  ParenthesizedPattern(node: JTParenthesizedPattern, context?: object | null | undefined): void;
-  PrimitiveType(node: JTPrimitiveType, context?: object | null | undefined): void;
-  Provides(node: JTProvides, context?: object | null | undefined): void;
-  Requires(node: JTRequires, context?: object | null | undefined): void;
-  Return(node: JTReturn, context?: object | null | undefined): void;
-  Scan(node: JTTree, context?: object | null | undefined): void;
-  Switch(node: JTSwitch, context?: object | null | undefined): void;
-  SwitchExpression(node: JTSwitchExpression, context?: object | null | undefined): void;
-  Synchronized(node: JTSynchronized, context?: object | null | undefined): void;
-  Throw(node: JTThrow, context?: object | null | undefined): void;
-  Try(node: JTTry, context?: object | null | undefined): void;
-  TypeCast(node: JTTypeCast, context?: object | null | undefined): void;
-  TypeParameter(node: JTTypeParameter, context?: object | null | undefined): void;
-  Unary(node: JTUnary, context?: object | null | undefined): void;
-  UnionType(node: JTTypeUnion, context?: object | null | undefined): void;
-  Uses(node: JTUses, context?: object | null | undefined): void;
-  Variable(node: JTVariableDecl, context?: object | null | undefined): void;
-  WhileLoop(node: JTWhileLoop, context?: object | null | undefined): void;
-  Wildcard(node: JTWildcard, context?: object | null | undefined): void;
-  Yield(node: JTYield, context?: object | null | undefined): void;
+  AnnotatedType?: TransformOptionsPluginVisitorFunction<JTAnnotatedType> | TransformOptionsPluginVisitorHooks<JTAnnotatedType>;
+  Annotation?: TransformOptionsPluginVisitorFunction<JTAnnotation> | TransformOptionsPluginVisitorHooks<JTAnnotation>;
+  ArrayAccess?: TransformOptionsPluginVisitorFunction<JTArrayAccess> | TransformOptionsPluginVisitorHooks<JTArrayAccess>;
+  ArrayType?: TransformOptionsPluginVisitorFunction<JTArrayType> | TransformOptionsPluginVisitorHooks<JTArrayType>;
+  Assert?: TransformOptionsPluginVisitorFunction<JTAssert> | TransformOptionsPluginVisitorHooks<JTAssert>;
+  Assignment?: TransformOptionsPluginVisitorFunction<JTAssign> | TransformOptionsPluginVisitorHooks<JTAssign>;
+  Binary?: TransformOptionsPluginVisitorFunction<JTBinary> | TransformOptionsPluginVisitorHooks<JTBinary>;
+  BindingPattern?: TransformOptionsPluginVisitorFunction<JTBindingPattern> | TransformOptionsPluginVisitorHooks<JTBindingPattern>;
+  Block?: TransformOptionsPluginVisitorFunction<JTBlock> | TransformOptionsPluginVisitorHooks<JTBlock>;
+  Break?: TransformOptionsPluginVisitorFunction<JTBreak> | TransformOptionsPluginVisitorHooks<JTBreak>;
+  Case?: TransformOptionsPluginVisitorFunction<JTCase> | TransformOptionsPluginVisitorHooks<JTCase>;
+  Catch?: TransformOptionsPluginVisitorFunction<JTCatch> | TransformOptionsPluginVisitorHooks<JTCatch>;
+  Class?: TransformOptionsPluginVisitorFunction<JTClassDecl> | TransformOptionsPluginVisitorHooks<JTClassDecl>;
+  CompilationUnit?: TransformOptionsPluginVisitorFunction<JTCompilationUnit> | TransformOptionsPluginVisitorHooks<JTCompilationUnit>;
+  CompoundAssignment?: TransformOptionsPluginVisitorFunction<JTAssignOp> | TransformOptionsPluginVisitorHooks<JTAssignOp>;
+  ConditionalExpression?: TransformOptionsPluginVisitorFunction<JTConditional> | TransformOptionsPluginVisitorHooks<JTConditional>;
+  Continue?: TransformOptionsPluginVisitorFunction<JTContinue> | TransformOptionsPluginVisitorHooks<JTContinue>;
+  DefaultCaseLabel?: TransformOptionsPluginVisitorFunction<JTDefaultCaseLabel> | TransformOptionsPluginVisitorHooks<JTDefaultCaseLabel>;
+  DoWhileLoop?: TransformOptionsPluginVisitorFunction<JTDoWhileLoop> | TransformOptionsPluginVisitorHooks<JTDoWhileLoop>;
+  EmptyStatement?: TransformOptionsPluginVisitorFunction<JTSkip> | TransformOptionsPluginVisitorHooks<JTSkip>;
+  EnhancedForLoop?: TransformOptionsPluginVisitorFunction<JTEnhancedForLoop> | TransformOptionsPluginVisitorHooks<JTEnhancedForLoop>;
+  Erroneous?: TransformOptionsPluginVisitorFunction<JTErroneous> | TransformOptionsPluginVisitorHooks<JTErroneous>;
+  Exports?: TransformOptionsPluginVisitorFunction<JTExports> | TransformOptionsPluginVisitorHooks<JTExports>;
+  ExpressionStatement?: TransformOptionsPluginVisitorFunction<JTExpressionStatement> | TransformOptionsPluginVisitorHooks<JTExpressionStatement>;
+  ForLoop?: TransformOptionsPluginVisitorFunction<JTForLoop> | TransformOptionsPluginVisitorHooks<JTForLoop>;
+  GuardedPattern?: TransformOptionsPluginVisitorFunction<JTGuardedPattern> | TransformOptionsPluginVisitorHooks<JTGuardedPattern>;
+  Identifier?: TransformOptionsPluginVisitorFunction<JTIdent> | TransformOptionsPluginVisitorHooks<JTIdent>;
+  If?: TransformOptionsPluginVisitorFunction<JTIf> | TransformOptionsPluginVisitorHooks<JTIf>;
+  Import?: TransformOptionsPluginVisitorFunction<JTImport> | TransformOptionsPluginVisitorHooks<JTImport>;
+  InstanceOf?: TransformOptionsPluginVisitorFunction<JTInstanceOf> | TransformOptionsPluginVisitorHooks<JTInstanceOf>;
+  IntersectionType?: TransformOptionsPluginVisitorFunction<JTTypeIntersection> | TransformOptionsPluginVisitorHooks<JTTypeIntersection>;
+  LabeledStatement?: TransformOptionsPluginVisitorFunction<JTLabeledStatement> | TransformOptionsPluginVisitorHooks<JTLabeledStatement>;
+  LambdaExpression?: TransformOptionsPluginVisitorFunction<JTLambda> | TransformOptionsPluginVisitorHooks<JTLambda>;
+  Literal?: TransformOptionsPluginVisitorFunction<JTLiteral> | TransformOptionsPluginVisitorHooks<JTLiteral>;
+  MemberReference?: TransformOptionsPluginVisitorFunction<JTMemberReference> | TransformOptionsPluginVisitorHooks<JTMemberReference>;
+  MemberSelect?: TransformOptionsPluginVisitorFunction<JTFieldAccess> | TransformOptionsPluginVisitorHooks<JTFieldAccess>;
+  Method?: TransformOptionsPluginVisitorFunction<JTMethodDecl> | TransformOptionsPluginVisitorHooks<JTMethodDecl>;
+  MethodInvocation?: TransformOptionsPluginVisitorFunction<JTMethodInvocation> | TransformOptionsPluginVisitorHooks<JTMethodInvocation>;
+  Modifiers?: TransformOptionsPluginVisitorFunction<JTModifiers> | TransformOptionsPluginVisitorHooks<JTModifiers>;
+  Module?: TransformOptionsPluginVisitorFunction<JTModuleDecl> | TransformOptionsPluginVisitorHooks<JTModuleDecl>;
+  NewArray?: TransformOptionsPluginVisitorFunction<JTNewArray> | TransformOptionsPluginVisitorHooks<JTNewArray>;
+  NewClass?: TransformOptionsPluginVisitorFunction<JTNewClass> | TransformOptionsPluginVisitorHooks<JTNewClass>;
+  Opens?: TransformOptionsPluginVisitorFunction<JTOpens> | TransformOptionsPluginVisitorHooks<JTOpens>;
+  Other?: TransformOptionsPluginVisitorFunction<JTTree> | TransformOptionsPluginVisitorHooks<JTTree>;
+  Package?: TransformOptionsPluginVisitorFunction<JTPackageDecl> | TransformOptionsPluginVisitorHooks<JTPackageDecl>;
+  ParameterizedType?: TransformOptionsPluginVisitorFunction<JTTypeApply> | TransformOptionsPluginVisitorHooks<JTTypeApply>;
+  Parenthesized?: TransformOptionsPluginVisitorFunction<JTParens> | TransformOptionsPluginVisitorHooks<JTParens>;
+  ParenthesizedPattern?: TransformOptionsPluginVisitorFunction<JTParenthesizedPattern> | TransformOptionsPluginVisitorHooks<JTParenthesizedPattern>;
+  PrimitiveType?: TransformOptionsPluginVisitorFunction<JTPrimitiveType> | TransformOptionsPluginVisitorHooks<JTPrimitiveType>;
+  Provides?: TransformOptionsPluginVisitorFunction<JTProvides> | TransformOptionsPluginVisitorHooks<JTProvides>;
+  Requires?: TransformOptionsPluginVisitorFunction<JTRequires> | TransformOptionsPluginVisitorHooks<JTRequires>;
+  Return?: TransformOptionsPluginVisitorFunction<JTReturn> | TransformOptionsPluginVisitorHooks<JTReturn>;
+  Scan?: TransformOptionsPluginVisitorFunction<JTTree> | TransformOptionsPluginVisitorHooks<JTTree>;
+  Switch?: TransformOptionsPluginVisitorFunction<JTSwitch> | TransformOptionsPluginVisitorHooks<JTSwitch>;
+  SwitchExpression?: TransformOptionsPluginVisitorFunction<JTSwitchExpression> | TransformOptionsPluginVisitorHooks<JTSwitchExpression>;
+  Synchronized?: TransformOptionsPluginVisitorFunction<JTSynchronized> | TransformOptionsPluginVisitorHooks<JTSynchronized>;
+  Throw?: TransformOptionsPluginVisitorFunction<JTThrow> | TransformOptionsPluginVisitorHooks<JTThrow>;
+  Try?: TransformOptionsPluginVisitorFunction<JTTry> | TransformOptionsPluginVisitorHooks<JTTry>;
+  TypeCast?: TransformOptionsPluginVisitorFunction<JTTypeCast> | TransformOptionsPluginVisitorHooks<JTTypeCast>;
+  TypeParameter?: TransformOptionsPluginVisitorFunction<JTTypeParameter> | TransformOptionsPluginVisitorHooks<JTTypeParameter>;
+  Unary?: TransformOptionsPluginVisitorFunction<JTUnary> | TransformOptionsPluginVisitorHooks<JTUnary>;
+  UnionType?: TransformOptionsPluginVisitorFunction<JTTypeUnion> | TransformOptionsPluginVisitorHooks<JTTypeUnion>;
+  Uses?: TransformOptionsPluginVisitorFunction<JTUses> | TransformOptionsPluginVisitorHooks<JTUses>;
+  Variable?: TransformOptionsPluginVisitorFunction<JTVariableDecl> | TransformOptionsPluginVisitorHooks<JTVariableDecl>;
+  WhileLoop?: TransformOptionsPluginVisitorFunction<JTWhileLoop> | TransformOptionsPluginVisitorHooks<JTWhileLoop>;
+  Wildcard?: TransformOptionsPluginVisitorFunction<JTWildcard> | TransformOptionsPluginVisitorHooks<JTWildcard>;
+  Yield?: TransformOptionsPluginVisitorFunction<JTYield> | TransformOptionsPluginVisitorHooks<JTYield>;
 }
 
 interface TransformOptionStyle {
@@ -733,6 +896,19 @@ interface TransformOptionStyle {
    * Default: 4
    */
   indentSize?: number | null | undefined;
+  /**
+   * Serialize the type declarations and the class members in parallel or not.
+   * The output is identical to the sequential mode.
+   *
+   * Default: false
+   */
+  parallel?: boolean | null | undefined;
+  /**
+   * Minimum count of the type declarations or the class members to be serialized in parallel
+   *
+   * Default: 8
+   */
+  parallelThreshold?: number | null | undefined;
   /**
    * Preserve the copyrights or not
    *
@@ -741,10 +917,11 @@ interface TransformOptionStyle {
   preserveCopyrights?: boolean | null | undefined;
   /**
    * Style type
+   * 'pretty' lays out the long lines within the word wrap column with the continuation indent.
    *
    * Default: 'standard'
    */
-  type?: 'compact' | 'standard' | null | undefined;
+  type?: 'compact' | 'pretty' | 'standard' | null | undefined;
   /**
    * Wrap if the line length is greater than
    *
@@ -753,13 +930,160 @@ interface TransformOptionStyle {
   wordWrapColumn?: number | null | undefined;
 }
 
+interface HeapStats {
+  /**
+   * Count of the transformed files
+   */
+  fileCount: number;
+  /**
+   * Count of the garbage collections hinted by the heap policy
+   */
+  gcCount: number;
+  /**
+   * V8 heap size limit in bytes
+   */
+  heapLimit: number;
+  /**
+   * Peak of the used V8 heap size in bytes observed after the transforms
+   */
+  heapPeak: number;
+  /**
+   * Total V8 heap size in bytes
+   */
+  heapTotal: number;
+  /**
+   * Used V8 heap size in bytes
+   */
+  heapUsed: number;
+  /**
+   * Count of the recycled runtimes in the pool mode
+   */
+  recycleCount: number;
+}
+
+interface ProxyStats {
+  /**
+   * Count of the JS objects created for the nodes in the last transformSync
+   */
+  created: number;
+  /**
+   * Used V8 heap size in bytes
+   */
+  heapUsed: number;
+  /**
+   * Count of the JS objects reused for the nodes in the last transformSync
+   */
+  reused: number;
+}
+
+interface TransformBinaryAst {
+  /**
+   * Flat records of [kind, parent, end, startPosition, endPosition, lineNumber, columnNumber, name, value]
+   * in pre-order where end is the exclusive end index of the subtree
+   * and kind, name, value are indexes of the string table or -1
+   */
+  nodes: Int32Array;
+  /**
+   * Concatenated strings of the string table
+   */
+  stringData: string;
+  /**
+   * Offsets of the strings in the string data with the total length at the end
+   */
+  stringOffsets: Int32Array;
+}
+
 interface TransformResult {
   ast?: JTCompilationUnit | undefined;
+  binaryAst?: TransformBinaryAst | undefined;
   code?: string | undefined;
+  diff?: string | undefined;
+  edits?: TransformTextEdit[] | undefined;
+  /**
+   * Flat entries of [generatedStart, generatedEnd, originalStart, originalEnd]
+   * in pre-order of the serialized trees
+   */
+  sourceMap?: Int32Array | undefined;
+}
+
+/**
+ * A scope is opened by the compilation unit, the class, the method, the lambda expression, the block,
+ * the loops, the catch, the try and the switch.
+ * It holds the bindings declared in it by the variables (including the parameters) and the type parameters.
+ * The bindings are declared in the traversal order, so a scope holds the bindings declared so far,
+ * and it holds all its bindings in the exit function of the node opening it.
+ */
+interface Scope {
+  /**
+   * Depth of the scope, 0 for the compilation unit
+   */
+  readonly depth: number;
+  /**
+   * Names of the bindings declared in the scope in the declaration order
+   */
+  readonly names: string[];
+  /**
+   * Node opening the scope
+   */
+  readonly node: JTTree;
+  readonly parent: Scope | null;
+  /**
+   * Get the declaring node of the binding from the scope or the nearest parent scope in O(depth)
+   */
+  getBinding(name: string): JTVariableDecl | JTTypeParameter | null;
+  getOwnBinding(name: string): JTVariableDecl | JTTypeParameter | null;
+  hasBinding(name: string): boolean;
+  hasOwnBinding(name: string): boolean;
+}
+
+interface Transformer {
+  /**
+   * Whether the transformer is closed
+   */
+  readonly closed: boolean;
+  /**
+   * Count of the transforms in flight with the transformer
+   */
+  readonly inFlightCount: number;
+  /**
+   * Release the plugins held by the transformer.
+   * The transforms in flight are completed before the plugins are released.
+   */
+  close(): void;
+}
+
+interface TransformTextEdit {
+  /**
+   * Exclusive end position in the original code
+   */
+  end: number;
+  replacement: string;
+  /**
+   * Inclusive start position in the original code
+   */
+  start: number;
+}
+
+interface WriteStats {
+  skipped: number;
+  written: number;
 }
 
 declare namespace jaspiler {
   export const argv: Array<string>;
+  /**
+   * V8 heap statistics and the garbage collections hinted by the heap policy
+   */
+  export const heapStats: HeapStats;
+  /**
+   * Count of the JS objects created and reused for the nodes.
+   * Within a transformSync, repeated access to the same node returns the same JS object.
+   */
+  export const proxyStats: ProxyStats;
+  /**
+   * Count of the skipped and written files by writeFileSync
+   */
+  export const writeStats: WriteStats;
 
   export function createCharacter(value: string): JTCharacter;
   export function createFieldAccess(...values: string[]): JTFieldAccess;
@@ -767,6 +1091,11 @@ declare namespace jaspiler {
   export function createIdent(value: string): JTIdent;
   export function createLiteral(value: string): JTLiteral;
   export function createName(value: string): JTName;
+  /**
+   * Create a transformer holding the deserialized plugins and the dispatch tables
+   * which can be passed to transform and transformSync in place of the options
+   */
+  export function createTransformer(options: TransformOptions): Transformer;
 
   export function newAnnotatedType(): JTAnnotatedType;
   export function newAnnotation(): JTAnnotation;
@@ -833,5 +1162,24 @@ declare namespace jaspiler {
   export function newWildcard(): JTWildcard;
   export function newYield(): JTYield;
 
-  export function transformSync(source: string, options?: TransformOptions): TransformResult;
+  /**
+   * Register the transform options for the runtime pool (java -jar jaspiler.*.jar --pool=<size> ...)
+   * so that the files are transformed without calling back into the script
+   */
+  export function registerTransformOptions(options: TransformOptions): void;
+
+  /**
+   * Transform the source asynchronously
+   * Parsing, analysis and serialization run on a Java worker pool,
+   * and only the plugins are called in the JS thread,
+   * so that multiple transforms can be in flight
+   */
+  export function transform(source: string, options?: TransformOptions | Transformer): Promise<TransformResult>;
+  export function transformSync(source: string, options?: TransformOptions | Transformer): TransformResult;
+  /**
+   * Write the code to the file unless the file already has the same content
+   *
+   * @returns true if the file is written, false if the write is skipped
+   */
+  export function writeFileSync(filePath: string, code: string): boolean;
 }
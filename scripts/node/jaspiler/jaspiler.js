@@ -20,12 +20,10 @@
  *   and add the following lines selectively to your JS files.
  *   You will get the intellisense in VS Code.
  *
- *   const { JTBodyKind, JTCaseKind, JTKind, JTModifier, JTReferenceMode, JTTypeKind } = require('./jaspiler/jaspiler');
+ *   const { JTBinaryAst, JTBodyKind, JTCaseKind, JTKind, JTModifier, JTReferenceMode, JTTypeKind } = require('./jaspiler/jaspiler');
  *   const { PluginContractIgnore, PluginContractChangeMethod } = require('./jaspiler/jaspiler');
  */
 
-const vm = require('vm');
-
 const JTBodyKind = Object.freeze({
   EXPRESSION: 'EXPRESSION',
   STATEMENT: 'STATEMENT',
@@ -210,6 +208,8 @@ function evaluateAnnotationAttribute(annotation, context, attributeName, default
   if (annotation) {
     const attributeValue = getAnnotationAttributeValueByName(annotation, attributeName);
     if (attributeValue && attributeValue.kind == JTKind.STRING_LITERAL) {
+      // vm is required lazily so that the module stays snapshot friendly.
+      const vm = require('vm');
       const script = new vm.Script(attributeValue.value);
       if (!(context instanceof Object)) {
         context = {};
@@ -351,12 +351,133 @@ const PluginContractChangeMethod = Object.freeze({
   }),
 });
 
+/**
+ * Read-only accessor of the binary AST returned by transformSync with `binaryAst: true`.
+ * The nodes are addressed by their indexes in pre-order and the root is 0.
+ * It never calls back into Java.
+ */
+class JTBinaryAst {
+  static COLUMN_NUMBER = 6;
+  static END = 2;
+  static END_POSITION = 4;
+  static KIND = 0;
+  static LINE_NUMBER = 5;
+  static NAME = 7;
+  static PARENT = 1;
+  static START_POSITION = 3;
+  static STRIDE = 9;
+  static VALUE = 8;
+
+  constructor(binaryAst) {
+    this.nodes = binaryAst.nodes;
+    this.stringData = binaryAst.stringData;
+    this.stringOffsets = binaryAst.stringOffsets;
+    this.strings = new Array(this.stringOffsets.length - 1);
+  }
+
+  get length() {
+    return this.nodes.length / JTBinaryAst.STRIDE;
+  }
+
+  /**
+   * Call the callback with the index of every child of the node in order.
+   */
+  forEachChild(index, callback) {
+    const end = this.getEnd(index);
+    for (let child = index + 1; child < end; child = this.getEnd(child)) {
+      callback(child);
+    }
+  }
+
+  /**
+   * Call the callback with the index of the node and every descendant of it in pre-order.
+   */
+  forEachNode(index, callback) {
+    const end = this.getEnd(index);
+    for (let node = index; node < end; ++node) {
+      callback(node);
+    }
+  }
+
+  getChildren(index) {
+    const children = [];
+    this.forEachChild(index, child => children.push(child));
+    return children;
+  }
+
+  getColumnNumber(index) {
+    return this.nodes[index * JTBinaryAst.STRIDE + JTBinaryAst.COLUMN_NUMBER];
+  }
+
+  /**
+   * Get the exclusive end index of the subtree of the node.
+   */
+  getEnd(index) {
+    return this.nodes[index * JTBinaryAst.STRIDE + JTBinaryAst.END];
+  }
+
+  getEndPosition(index) {
+    return this.nodes[index * JTBinaryAst.STRIDE + JTBinaryAst.END_POSITION];
+  }
+
+  getKind(index) {
+    return this.getString(this.nodes[index * JTBinaryAst.STRIDE + JTBinaryAst.KIND]);
+  }
+
+  getLineNumber(index) {
+    return this.nodes[index * JTBinaryAst.STRIDE + JTBinaryAst.LINE_NUMBER];
+  }
+
+  getName(index) {
+    return this.getString(this.nodes[index * JTBinaryAst.STRIDE + JTBinaryAst.NAME]);
+  }
+
+  getParent(index) {
+    return this.nodes[index * JTBinaryAst.STRIDE + JTBinaryAst.PARENT];
+  }
+
+  getStartPosition(index) {
+    return this.nodes[index * JTBinaryAst.STRIDE + JTBinaryAst.START_POSITION];
+  }
+
+  getString(stringIndex) {
+    if (stringIndex < 0) {
+      return null;
+    }
+    let string = this.strings[stringIndex];
+    if (string === undefined) {
+      string = this.stringData.substring(this.stringOffsets[stringIndex], this.stringOffsets[stringIndex + 1]);
+      this.strings[stringIndex] = string;
+    }
+    return string;
+  }
+
+  getValue(index) {
+    return this.getString(this.nodes[index * JTBinaryAst.STRIDE + JTBinaryAst.VALUE]);
+  }
+
+  /**
+   * Get the indexes of the nodes of the kind in pre-order.
+   */
+  query(kind) {
+    const indexes = [];
+    const length = this.length;
+    for (let index = 0; index < length; ++index) {
+      if (this.getKind(index) === kind) {
+        indexes.push(index);
+      }
+    }
+    return indexes;
+  }
+}
+
 module.exports = Object.freeze({
   helpers: Object.freeze({
     evaluateAnnotationAttribute: evaluateAnnotationAttribute,
     findAnnotation: findAnnotation,
     getAnnotationAttributeValueByName: getAnnotationAttributeValueByName,
   }),
+  JTBinaryAst: JTBinaryAst,
   JTBodyKind: JTBodyKind,
   JTCaseKind: JTCaseKind,
   JTKind: JTKind,
@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2023-2025. caoccao.com Sam Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/*
+ * The mirror function is evaluated by V8JaspilerMirror and is bundled as a resource at build time.
+ * It builds the plain JS mirror of a compilation unit from the JSON, runs the plugins against it
+ * and returns the change log keyed by the node ids.
+ */
+(json, functions, batchFunctions, exitFunctions, context, nodeToString) => {
+  const META = new Set(['action', 'classSimpleName', 'id', 'parentTree']);
+  const TYPE_VALUE = 0, TYPE_NODE = 1, TYPE_NODES = 2, TYPE_NAME = 3, TYPE_ACTION = 4;
+  class MirrorName {
+    toString() { return this.value; }
+  }
+  class MirrorNode {
+    get className() { return 'com.caoccao.jaspiler.trees.' + this.classSimpleName; }
+    isActionChange() { return this.action === 'Change'; }
+    isActionIgnore() { return this.action === 'Ignore'; }
+    isActionNoChange() { return this.action === 'NoChange'; }
+    setActionChange() { this.action = 'Change'; return true; }
+    setActionIgnore() { this.action = 'Ignore'; return true; }
+    setActionNoChange() { this.action = 'NoChange'; return true; }
+    toString() { return nodeToString(this.id); }
+    [Symbol.toPrimitive]() { return this.toString(); }
+  }
+  class MirrorPath {
+    constructor(node, parent, key, frame) {
+      this.node = node;
+      this.parent = parent;
+      this.key = key;
+      this.frame = frame;
+      this.removed = false;
+      this.replaced = false;
+    }
+    get detached() { return this.removed || this.replaced; }
+    get index() {
+      if (!this.frame || this.detached) {
+        return -1;
+      }
+      const { list, index } = this.frame;
+      return list[index] === this.node ? index : list.indexOf(this.node);
+    }
+    insert(functionName, after, nodes) {
+      this.validate(functionName);
+      const index = this.index;
+      if (index < 0) {
+        throw new Error(`Node is not in a list in ${functionName}.`);
+      }
+      let position = after ? index + 1 : index;
+      for (const node of nodes) {
+        this.frame.list.splice(position, 0, node);
+        if (position <= this.frame.index) {
+          ++this.frame.index;
+        }
+        ++position;
+      }
+    }
+    insertAfter(...nodes) { this.insert('insertAfter', true, nodes); }
+    insertBefore(...nodes) { this.insert('insertBefore', false, nodes); }
+    remove() {
+      this.validate('remove');
+      const index = this.index;
+      if (index >= 0) {
+        this.frame.list.splice(index, 1);
+        if (index <= this.frame.index) {
+          --this.frame.index;
+        }
+      } else {
+        this.parent[this.key] = null;
+      }
+      this.removed = true;
+    }
+    replaceWith(node) {
+      this.validate('replaceWith');
+      if (node !== this.node) {
+        const index = this.index;
+        if (index >= 0) {
+          this.frame.list[index] = node;
+        } else {
+          this.parent[this.key] = node;
+        }
+        this.replaced = true;
+      }
+    }
+    validate(functionName) {
+      if (this.detached) {
+        throw new Error(`Node is already removed or replaced in ${functionName}.`);
+      }
+    }
+  }
+  class MirrorScope {
+    #bindings = new Map();
+    constructor(node, parent) {
+      this.node = node;
+      this.parent = parent;
+      this.depth = parent ? parent.depth + 1 : 0;
+    }
+    get names() { return [...this.#bindings.keys()]; }
+    declare(name, node) {
+      if (name) {
+        this.#bindings.set(name, node);
+      }
+    }
+    getBinding(name) {
+      for (let scope = this; scope; scope = scope.parent) {
+        const node = scope.getOwnBinding(name);
+        if (node !== null) {
+          return node;
+        }
+      }
+      return null;
+    }
+    getOwnBinding(name) { return this.#bindings.get(name) ?? null; }
+    hasBinding(name) { return this.getBinding(name) !== null; }
+    hasOwnBinding(name) { return this.#bindings.has(name); }
+  }
+  const { root, visitors, bindingKinds, scopeKinds } = JSON.parse(json);
+  const nodes = [];
+  const link = (value, parentTree) => {
+    if (Array.isArray(value)) {
+      value.forEach(item => link(item, parentTree));
+    } else if (value !== null && typeof value === 'object') {
+      if (typeof value.id === 'number') {
+        Object.setPrototypeOf(value, MirrorNode.prototype);
+        value.parentTree = parentTree;
+        nodes[value.id] = value;
+        for (const key in value) {
+          if (!META.has(key)) {
+            link(value[key], value);
+          }
+        }
+      } else {
+        Object.setPrototypeOf(value, MirrorName.prototype);
+      }
+    }
+  };
+  link(root, null);
+  const snapshots = nodes.map(node => {
+    const snapshot = [node.action];
+    for (const key in node) {
+      if (!META.has(key)) {
+        const value = node[key];
+        snapshot.push(key, value,
+          Array.isArray(value) ? value.slice() : value instanceof MirrorName ? value.value : undefined);
+      }
+    }
+    return snapshot;
+  });
+  const batchNodes = {};
+  // The path is the third parameter after the node and the context.
+  const pathSubscribed = [functions, exitFunctions]
+    .some(fnsMap => Object.values(fnsMap).some(fns => fns.some(fn => fn.length >= 3)));
+  const callAll = (fns, node, getPath) => {
+    let proceed = true;
+    for (const fn of fns ?? []) {
+      if (fn(node, context, fn.length >= 3 ? getPath() : undefined) === false) {
+        proceed = false;
+      }
+    }
+    return proceed;
+  };
+  const dispatch = (node, visitorMethod, getPath) => {
+    if (visitorMethod in batchFunctions) {
+      (batchNodes[visitorMethod] ??= []).push(node);
+    }
+    return callAll(functions[visitorMethod], node, getPath);
+  };
+  const bindingKindSet = new Set(bindingKinds ?? []);
+  const scopeKindSet = scopeKinds ? new Set(scopeKinds) : null;
+  let scope = null;
+  if (scopeKindSet) {
+    context.scope = scope;
+  }
+  const visit = (value, parent, key, frame) => {
+    if (scopeKindSet && value instanceof MirrorNode) {
+      const parentScope = scope;
+      if (bindingKindSet.has(value.kind)) {
+        scope?.declare(value.name?.value, value);
+      } else if (scopeKindSet.has(value.kind)) {
+        scope = context.scope = new MirrorScope(value, scope);
+      }
+      try {
+        visitNode(value, parent, key, frame);
+      } finally {
+        if (scope !== parentScope) {
+          scope = context.scope = parentScope;
+        }
+      }
+    } else {
+      visitNode(value, parent, key, frame);
+    }
+  };
+  const visitNode = (value, parent, key, frame) => {
+    if (Array.isArray(value)) {
+      if (pathSubscribed) {
+        // The list is visited by index so that the paths can edit the list in place.
+        const listFrame = { list: value, index: 0 };
+        for (; listFrame.index < value.length; ++listFrame.index) {
+          visit(value[listFrame.index], parent, key, listFrame);
+        }
+      } else {
+        value.slice().forEach(item => visit(item, parent, key, null));
+      }
+    } else if (value instanceof MirrorNode) {
+      let path = null;
+      const getPath = () => path ??= new MirrorPath(value, parent, key, frame);
+      const attached = () => path === null || !path.detached;
+      if (dispatch(value, 'Scan', getPath) && attached()) {
+        const visitorMethod = visitors[value.kind] ?? 'Other';
+        if (dispatch(value, visitorMethod, getPath) && attached()) {
+          for (const childKey in value) {
+            if (!META.has(childKey)) {
+              visit(value[childKey], value, childKey, null);
+            }
+          }
+          callAll(exitFunctions[visitorMethod], value, getPath);
+          callAll(exitFunctions.Scan, value, getPath);
+        }
+      }
+    }
+  };
+  visit(root, null, null, null);
+  for (const visitorMethod in batchFunctions) {
+    if (batchNodes[visitorMethod]) {
+      batchFunctions[visitorMethod].forEach(fn => fn(batchNodes[visitorMethod], context));
+    }
+  }
+  const encode = item => item instanceof MirrorNode ? item.id : Array.isArray(item) ? item.map(encode) : item;
+  const changes = [];
+  const actions = [];
+  snapshots.forEach((snapshot, id) => {
+    const node = nodes[id];
+    for (let i = 1; i < snapshot.length; i += 3) {
+      const key = snapshot[i], before = snapshot[i + 1], copy = snapshot[i + 2], after = node[key];
+      if (Array.isArray(before)
+          ? !Array.isArray(after) || after.length !== copy.length || after.some((item, index) => item !== copy[index])
+          : after !== before || (before instanceof MirrorName && after.value !== copy)) {
+        if (Array.isArray(after)) {
+          changes.push(id, key, TYPE_NODES, after.map(encode));
+        } else if (after instanceof MirrorNode) {
+          changes.push(id, key, TYPE_NODE, after.id);
+        } else if (after instanceof MirrorName) {
+          changes.push(id, key, TYPE_NAME, after.value);
+        } else {
+          changes.push(id, key, TYPE_VALUE, after);
+        }
+      }
+    }
+    if (node.action !== snapshot[0]) {
+      actions.push(id, '', TYPE_ACTION, node.action);
+    }
+  });
+  return changes.concat(actions);
+}
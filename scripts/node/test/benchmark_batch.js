@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2023-2025. caoccao.com Sam Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/// <reference types="../jaspiler/index.d.ts"/>
+
+// Benchmark: per-node dispatch vs. batch dispatch
+
+const { assert } = require('chai');
+
+const methodCount = 2000;
+const pluginCount = 5;
+const rounds = 5;
+
+function createCode() {
+  const lines = ['package a.b.c;', 'public class A {'];
+  for (let i = 0; i < methodCount; ++i) {
+    lines.push(`    public int m${i}(int a, int b) {`);
+    lines.push(`        int c = a + b * ${i};`);
+    lines.push('        if (c > a) {');
+    lines.push('            c = c - b;');
+    lines.push('        }');
+    lines.push('        return c;');
+    lines.push('    }');
+  }
+  lines.push('}');
+  return lines.join('\n');
+}
+
+function createPlugins(batch, counter) {
+  const plugins = [];
+  for (let i = 0; i < pluginCount; ++i) {
+    plugins.push({
+      batch,
+      visitor: batch ? {
+        Identifier(nodes) { counter.count += nodes.length; },
+        Literal(nodes) { counter.count += nodes.length; },
+        Binary(nodes) { counter.count += nodes.length; },
+      } : {
+        Identifier(node) { ++counter.count; },
+        Literal(node) { ++counter.count; },
+        Binary(node) { ++counter.count; },
+      },
+    });
+  }
+  return plugins;
+}
+
+function benchmark(code, batch) {
+  const counter = { count: 0 };
+  const plugins = createPlugins(batch, counter);
+  const options = { code: false, fileName: 'A', plugins, sourceType: 'string' };
+  // Warm up
+  jaspiler.transformSync(code, options);
+  counter.count = 0;
+  const startTime = performance.now();
+  for (let i = 0; i < rounds; ++i) {
+    jaspiler.transformSync(code, options);
+  }
+  const elapsed = (performance.now() - startTime) / rounds;
+  return { count: counter.count / rounds, elapsed };
+}
+
+const code = createCode();
+const perNode = benchmark(code, false);
+const batch = benchmark(code, true);
+assert.equal(perNode.count, batch.count, 'Both modes should visit the same nodes');
+console.info(`Methods: ${methodCount}, Plugins: ${pluginCount}, Visits per round: ${perNode.count}`);
+console.info(`Per-node dispatch: ${perNode.elapsed.toFixed(2)} ms`);
+console.info(`   Batch dispatch: ${batch.elapsed.toFixed(2)} ms`);
+console.info(`          Speedup: ${(perNode.elapsed / batch.elapsed).toFixed(2)}x`);
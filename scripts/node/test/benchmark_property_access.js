@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2023-2025. caoccao.com Sam Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/// <reference types="../jaspiler/index.d.ts"/>
+
+// Benchmark: property access cost of the nodes in JS
+// Run it with and without --wrapper-classes to compare the generic proxies with the generated classes.
+
+const { assert } = require('chai');
+
+const methodCount = 500;
+const reads = 20;
+const rounds = 5;
+
+function createCode() {
+  const lines = ['package a.b.c;', 'public class A {'];
+  for (let i = 0; i < methodCount; ++i) {
+    lines.push(`    public int m${i}(int a, int b) {`);
+    lines.push(`        return a + b * ${i};`);
+    lines.push('    }');
+  }
+  lines.push('}');
+  return lines.join('\n');
+}
+
+function benchmark(code) {
+  const result = { identifiers: 0, kindElapsed: 0, mode: null, nameElapsed: 0 };
+  const options = {
+    code: false,
+    fileName: 'A',
+    plugins: [{
+      visitor: {
+        Identifier(node) {
+          if (result.mode === null) {
+            const prototype = Object.getPrototypeOf(node);
+            result.mode = Object.getOwnPropertyDescriptor(prototype, 'kind') ? 'wrapper classes' : 'proxies';
+          }
+          let length = 0;
+          let startTime = performance.now();
+          for (let i = 0; i < reads; ++i) {
+            length += node.kind.length;
+          }
+          result.kindElapsed += performance.now() - startTime;
+          startTime = performance.now();
+          for (let i = 0; i < reads; ++i) {
+            length += node.name.value.length;
+          }
+          result.nameElapsed += performance.now() - startTime;
+          assert.isAbove(length, 0);
+          ++result.identifiers;
+        },
+      },
+    }],
+    sourceType: 'string',
+  };
+  // Warm up
+  jaspiler.transformSync(code, options);
+  result.identifiers = 0;
+  result.kindElapsed = 0;
+  result.nameElapsed = 0;
+  for (let i = 0; i < rounds; ++i) {
+    jaspiler.transformSync(code, options);
+  }
+  return result;
+}
+
+const result = benchmark(createCode());
+const accesses = result.identifiers * reads;
+console.info(`Mode: ${result.mode}, Identifiers per round: ${result.identifiers / rounds}, Reads per identifier: ${reads}`);
+console.info(`     node.kind: ${(result.kindElapsed * 1000000 / accesses).toFixed(1)} ns/access`);
+console.info(`node.name.value: ${(result.nameElapsed * 1000000 / accesses).toFixed(1)} ns/access`);
@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) 2023-2025. caoccao.com Sam Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/// <reference types="../jaspiler/index.d.ts"/>
+
+// This script is executed in a runtime restored from a snapshot with snapshot_plugins.js.
+
+const { assert } = require('chai');
+
+assert.equal(1, globalThis.snapshotPluginsEvaluationCount, 'The plugins should be evaluated in the snapshot');
+const { pluginRenameClass } = require('./snapshot_plugins');
+assert.equal(1, globalThis.snapshotPluginsEvaluationCount, 'The plugins should not be evaluated again');
+
+const result = jaspiler.transformSync(
+  'public class A {}',
+  { fileName: 'A', plugins: [pluginRenameClass], sourceType: 'string' });
+assert.include(result.code, 'public class B');
@@ -17,9 +17,11 @@
 /// <reference types="../jaspiler/index.d.ts"/>
 
 const { assert } = require('chai');
+const fs = require('fs');
+const os = require('os');
 const path = require('path');
 const process = require('process');
-const { JTKind, PluginContractIgnore, PluginContractChangeMethod } = require('../jaspiler/jaspiler');
+const { JTBinaryAst, JTKind, PluginContractIgnore, PluginContractChangeMethod } = require('../jaspiler/jaspiler');
 
 const workingDirectory = process.cwd();
 const pathMockAllInOnePublicClass = path.join(
@@ -80,6 +82,341 @@ function testAstForString() {
   assert.equal(JTKind.COMPILATION_UNIT, ast.kind);
 }
 
+function testBinaryAst() {
+  const code = `package a;
+public class A {
+    private String b = "c";
+    public int d(int e) {
+        return e;
+    }
+}
+`;
+  const result = jaspiler.transformSync(code, { binaryAst: true, code: false, fileName: 'A', sourceType: 'string' });
+  assert.isUndefined(result.ast);
+  assert.isUndefined(result.code);
+  const binaryAst = new JTBinaryAst(result.binaryAst);
+  assert.instanceOf(result.binaryAst.nodes, Int32Array);
+  assert.equal(JTKind.COMPILATION_UNIT, binaryAst.getKind(0));
+  assert.equal(-1, binaryAst.getParent(0));
+  assert.equal(binaryAst.length, binaryAst.getEnd(0));
+  const classes = binaryAst.query(JTKind.CLASS);
+  assert.equal(1, classes.length);
+  assert.equal('A', binaryAst.getName(classes[0]));
+  assert.equal(0, binaryAst.getParent(classes[0]));
+  const members = binaryAst.getChildren(classes[0])
+    .filter(index => binaryAst.getKind(index) !== JTKind.MODIFIERS)
+    .map(index => binaryAst.getName(index));
+  assert.deepEqual(['b', 'd'], members);
+  const literals = binaryAst.query(JTKind.STRING_LITERAL);
+  assert.equal(1, literals.length);
+  assert.equal('c', binaryAst.getValue(literals[0]));
+  assert.equal('"c"', code.substring(binaryAst.getStartPosition(literals[0]), binaryAst.getEndPosition(literals[0])));
+  assert.equal(3, binaryAst.getLineNumber(literals[0]));
+  const names = [];
+  binaryAst.forEachNode(classes[0], index => {
+    if (binaryAst.getKind(index) === JTKind.IDENTIFIER) {
+      names.push(binaryAst.getName(index));
+    }
+  });
+  assert.deepEqual(['String', 'e'], names);
+}
+
+// Identity
+
+function testIdentity() {
+  let escapedNode = null;
+  let members = null;
+  const result = jaspiler.transformSync(
+    `package a;
+    public class A {
+      private int b;
+    }
+    `,
+    {
+      fileName: 'A',
+      plugins: [{
+        visitor: {
+          Class(node) {
+            escapedNode = node;
+            assert.strictEqual(node.simpleName, node.simpleName, 'The name should be identity-stable');
+            assert.strictEqual(node.modifiers, node.modifiers, 'The modifiers should be identity-stable');
+            members = node.members;
+            assert.strictEqual(members[0], node.members[0], 'The member should be identity-stable');
+            assert.strictEqual(node, members[0].parentTree, 'The parent should be identity-stable');
+          },
+        },
+      }],
+      sourceType: 'string',
+    });
+  assert.include(result.code, 'private int b;');
+  const proxyStats = jaspiler.proxyStats;
+  assert.isAbove(proxyStats.created, 0);
+  assert.isAbove(proxyStats.reused, 0);
+  assert.isAbove(proxyStats.heapUsed, 0);
+  const heapStats = jaspiler.heapStats;
+  assert.isAbove(heapStats.fileCount, 0);
+  assert.isAbove(heapStats.heapUsed, 0);
+  assert.isAtLeast(heapStats.heapPeak, heapStats.heapUsed);
+  assert.isAbove(heapStats.heapLimit, heapStats.heapUsed);
+  assert.equal('b', members[0].name.value, 'The node should stay usable after the call');
+  if (Object.getOwnPropertyDescriptor(Object.getPrototypeOf(escapedNode), 'simpleName')) {
+    // The wrapper instance is released with the session while the proxy keeps the tree.
+    assert.isUndefined(escapedNode.simpleName, 'The escaped wrapper should be invalidated after the call');
+  } else {
+    assert.equal('A', escapedNode.simpleName.value);
+  }
+}
+
+function testInvalidOptions() {
+  const code = 'package a; public class A { private int a; }';
+  const options = {
+    fileName: 'A',
+    plugins: [{
+      visitor: {
+        Class(node) {
+          assert.equal('A', node.simpleName.value);
+        },
+      },
+    }],
+    sourceType: 'string',
+  };
+  jaspiler.transformSync(code, options);
+  const created = jaspiler.proxyStats.created;
+  assert.isAbove(created, 0);
+  assert.throws(() => jaspiler.transformSync(code, 1), 'Object is expected');
+  const result = jaspiler.transformSync(code, options);
+  assert.include(result.code, 'private int a;');
+  assert.equal(created, jaspiler.proxyStats.created, 'The session should be closed after the invalid call');
+}
+
+// Async
+
+async function testTransformAsync() {
+  const visitedNames = [];
+  const codes = ['A', 'B', 'C', 'D'].map(name => `package a;
+public class ${name} {
+    private int x;
+}
+`);
+  const promises = codes.map((code, index) => jaspiler.transform(code, {
+    fileName: String.fromCharCode(65 + index),
+    plugins: [{
+      visitor: {
+        Class(node) {
+          visitedNames.push(node.simpleName.value);
+          node.simpleName = jaspiler.createName(node.simpleName.value + 'Async');
+        },
+      },
+    }],
+    sourceType: 'string',
+  }));
+  assert.equal(0, visitedNames.length, 'The plugins should not be visited before the promises are returned');
+  const results = await Promise.all(promises);
+  assert.deepEqual(['A', 'B', 'C', 'D'], visitedNames.sort());
+  ['A', 'B', 'C', 'D'].forEach((name, index) => {
+    assert.include(results[index].code, `public class ${name}Async {`);
+  });
+  const fileResult = await jaspiler.transform(pathMockPublicAnnotation, { ast: true });
+  assert.equal('JTCompilationUnit', fileResult.ast.classSimpleName);
+  assert.include(fileResult.code, 'public @interface MockPublicAnnotation');
+  try {
+    await jaspiler.transform('package a; public class E {}', {
+      fileName: 'E',
+      plugins: [{
+        visitor: {
+          Class(node) {
+            throw new Error('Expected failure');
+          },
+        },
+      }],
+      sourceType: 'string',
+    });
+    assert.fail('The promise should be rejected');
+  } catch (error) {
+    assert.include(error.message, 'Expected failure');
+  }
+}
+
+async function testTransformer() {
+  const visitedNames = [];
+  const transformer = jaspiler.createTransformer({
+    fileName: 'A',
+    plugins: [{
+      visitor: {
+        Class(node) {
+          visitedNames.push(node.simpleName.value);
+          node.simpleName = jaspiler.createName(node.simpleName.value + 'X');
+        },
+      },
+    }],
+    sourceType: 'string',
+  });
+  assert.isFalse(transformer.closed);
+  ['A', 'B', 'C'].forEach(name => {
+    const result = jaspiler.transformSync(`package a; public class ${name} {}`, transformer);
+    assert.include(result.code, `public class ${name}X {`);
+  });
+  assert.deepEqual(['A', 'B', 'C'], visitedNames);
+  const promise = jaspiler.transform('package a; public class D {}', transformer);
+  transformer.close();
+  assert.isTrue(transformer.closed);
+  const result = await promise;
+  assert.include(result.code, 'public class DX {', 'The transform in flight should complete after the transformer is closed');
+  assert.equal(0, transformer.inFlightCount);
+  assert.throws(() => jaspiler.transformSync('package a; public class E {}', transformer), 'Transformer is closed');
+}
+
+// Source Map
+
+function testSourceMap() {
+  const code = `package a.b.c;
+public class A {
+    private int x = 1;
+}
+`;
+  const result = jaspiler.transformSync(code, {
+    plugins: [{
+      visitor: {
+        Class(node) {
+          node.simpleName = jaspiler.createName('B');
+        },
+      },
+    }],
+    fileName: 'A',
+    sourceMap: true,
+    sourceType: 'string',
+  });
+  assert.include(result.code, 'public class B');
+  const sourceMap = result.sourceMap;
+  assert.instanceOf(sourceMap, Int32Array);
+  assert.isAbove(sourceMap.length, 0);
+  assert.equal(0, sourceMap.length % 4);
+  const generatedStart = result.code.indexOf('private int x = 1;');
+  let found = false;
+  for (let i = 0; i < sourceMap.length; i += 4) {
+    if (sourceMap[i] === generatedStart) {
+      assert.equal(code.indexOf('private int x = 1;'), sourceMap[i + 2]);
+      found = true;
+    }
+  }
+  assert.isTrue(found, 'The variable should be mapped');
+}
+
+// Diff and Edits
+
+function testDiffAndEdits() {
+  const code = `package a.b.c;
+public class A {
+    private int x = 1;
+}
+`;
+  let result = jaspiler.transformSync(code, {
+    code: false,
+    diff: true,
+    edits: true,
+    fileName: 'A',
+    sourceType: 'string',
+  });
+  assert.isUndefined(result.code);
+  assert.isUndefined(result.diff, 'Unchanged file should produce no diff');
+  assert.isUndefined(result.edits, 'Unchanged file should produce no edits');
+  result = jaspiler.transformSync(code, {
+    plugins: [{
+      visitor: {
+        Class(node) {
+          node.simpleName = jaspiler.createName('B');
+        },
+      },
+    }],
+    code: false,
+    diff: true,
+    edits: true,
+    fileName: 'A',
+    sourceType: 'string',
+  });
+  assert.isUndefined(result.code);
+  assert.include(result.diff, '-public class A {');
+  assert.include(result.diff, '+public class B {');
+  assert.isArray(result.edits);
+  assert.isAbove(result.edits.length, 0);
+  let newCode = '';
+  let position = 0;
+  result.edits.forEach(edit => {
+    newCode += code.substring(position, edit.start) + edit.replacement;
+    position = edit.end;
+  });
+  newCode += code.substring(position);
+  assert.include(newCode, 'public class B');
+  assert.include(newCode, 'package a.b.c;');
+}
+
+// Write
+
+function testWriteFileSync() {
+  const code = `package a.b.c;
+public class A {
+}
+`;
+  const directory = fs.mkdtempSync(path.join(os.tmpdir(), 'jaspiler-'));
+  const filePath = path.join(directory, 'A.java');
+  try {
+    const { skipped, written } = jaspiler.writeStats;
+    assert.isTrue(jaspiler.writeFileSync(filePath, code));
+    assert.isFalse(jaspiler.writeFileSync(filePath, code), 'Unchanged file should not be written');
+    assert.isTrue(jaspiler.writeFileSync(filePath, code.replace('class A', 'class B')));
+    assert.equal(skipped + 1, jaspiler.writeStats.skipped);
+    assert.equal(written + 2, jaspiler.writeStats.written);
+    assert.include(fs.readFileSync(filePath, 'utf8'), 'public class B');
+  } finally {
+    fs.rmSync(directory, { recursive: true, force: true });
+  }
+}
+
+// Batch
+
+function testBatch() {
+  const code = `package a.b.c;
+public class A {
+    private int a = b;
+    public int c(int d) {
+        return e;
+    }
+}
+`;
+  const calls = [];
+  const result = jaspiler.transformSync(code, {
+    plugins: [{
+      batch: true,
+      visitor: {
+        Identifier(nodes) {
+          calls.push(['Identifier', nodes.map(node => node.name.value)]);
+          nodes.forEach(node => node.name = jaspiler.createName(node.name.value.toUpperCase()));
+        },
+        Method(nodes) {
+          calls.push(['Method', nodes.map(node => node.name.value)]);
+        },
+      },
+    }, {
+      visitor: {
+        Identifier(node) {
+          calls.push(['Identifier', node.name.value]);
+        },
+      },
+    }],
+    fileName: 'A',
+    sourceType: 'string',
+  });
+  // The per-node plugins run during the traversal and the batch plugins run after it.
+  assert.deepEqual([
+    ['Identifier', 'b'],
+    ['Identifier', 'e'],
+    ['Identifier', ['b', 'e']],
+    ['Method', ['c']],
+  ], calls);
+  assert.include(result.code, 'private int a = B;');
+  assert.include(result.code, 'return E;');
+}
+
 // Contract.Ignore
 
 function testContractIgnoreCompilationUnit() {
@@ -479,6 +816,290 @@ function testBlock() {
   assert.equal(2, values.length);
 }
 
+function testEnterExit() {
+  const code = `package a;
+public class A {
+    private int x = 1 + 2 * 3;
+}
+`;
+  const events = [];
+  const fold = (node, operator) => {
+    const left = node.leftOperand;
+    const right = node.rightOperand;
+    if (left.classSimpleName !== 'JTLiteral' || right.classSimpleName !== 'JTLiteral') {
+      return;
+    }
+    const literal = jaspiler.createLiteral(operator(left.value, right.value));
+    const parent = node.parentTree;
+    ['initializer', 'leftOperand', 'rightOperand'].forEach(key => {
+      if (parent[key] === node) {
+        parent[key] = literal;
+      }
+    });
+  };
+  const options = {
+    plugins: [{
+      visitor: {
+        Binary: {
+          enter(node) {
+            events.push('enter ' + node.kind);
+          },
+          exit(node) {
+            events.push('exit ' + node.kind);
+            fold(node, node.kind === 'PLUS' ? (a, b) => a + b : (a, b) => a * b);
+          },
+        },
+        Variable: {
+          exit(node) {
+            events.push('exit ' + node.name.value);
+          },
+        },
+      },
+    }],
+    sourceType: 'string',
+  };
+  const result = jaspiler.transformSync(code, options);
+  assert.deepEqual(['enter PLUS', 'enter MULTIPLY', 'exit MULTIPLY', 'exit PLUS', 'exit x'], events);
+  assert.include(result.code, 'private int x = 7;', 'The expression should be folded in a single pass');
+  events.length = 0;
+  const mirrorResult = jaspiler.transformSync(code, { ...options, mirror: true });
+  assert.deepEqual(['enter PLUS', 'enter MULTIPLY', 'exit MULTIPLY', 'exit PLUS', 'exit x'], events);
+  assert.include(mirrorResult.code, 'private int x = 7;');
+  assert.equal(result.code, mirrorResult.code, 'The mirror mode should produce the same code');
+}
+
+function testPath() {
+  const code = `package a;
+public class A {
+    void f() {
+        int a = 1;
+        int b = 2;
+        int c = 3;
+    }
+}
+`;
+  const events = [];
+  const options = {
+    plugins: [{
+      visitor: {
+        Block: {
+          exit(node) {
+            events.push(node.statements.map(statement => statement.classSimpleName).join(','));
+          },
+        },
+        Literal(node, context, path) {
+          events.push(path.key + ' ' + node.value);
+          if (node.value === 2) {
+            path.replaceWith(jaspiler.createLiteral(20));
+          }
+        },
+        Variable(node, context, path) {
+          const name = node.name.value;
+          events.push(name + ' ' + path.index);
+          if (name === 'a') {
+            path.remove();
+            assert.isTrue(path.removed);
+          } else if (name === 'b') {
+            path.insertBefore(jaspiler.newSkip());
+          } else if (name === 'c') {
+            path.insertAfter(jaspiler.newSkip());
+          }
+        },
+      },
+    }],
+    sourceType: 'string',
+  };
+  const expectedEvents = [
+    'a 0', 'b 0', 'initializer 2', 'c 2', 'initializer 3',
+    'JTSkip,JTVariableDecl,JTVariableDecl,JTSkip',
+  ];
+  const codes = [false, true].map(mirror => {
+    events.length = 0;
+    const result = jaspiler.transformSync(code, { ...options, mirror });
+    assert.deepEqual(expectedEvents, events, 'The removed node should not be visited');
+    assert.notInclude(result.code, 'int a = 1;');
+    assert.include(result.code, 'int b = 20;');
+    assert.include(result.code, 'int c = 3;');
+    return result.code;
+  });
+  assert.equal(codes[0], codes[1], 'The mirror mode should produce the same code');
+}
+
+function testScope() {
+  const code = `package a;
+public class A<T> {
+    private int x;
+    <U> void f(int a) {
+        int b = a;
+        Runnable r = () -> {
+            int x = b;
+        };
+    }
+}
+`;
+  const events = [];
+  const options = {
+    plugins: [{
+      visitor: {
+        Class: {
+          exit(node, context) {
+            events.push('class ' + context.scope.names.join(','));
+          },
+        },
+        Identifier(node, context) {
+          const binding = context.scope.getBinding(node.name.value);
+          if (binding !== null) {
+            events.push('use ' + binding.name.value);
+          }
+        },
+        Method: {
+          exit(node, context) {
+            events.push('method ' + context.scope.names.join(','));
+          },
+        },
+        Variable(node, context) {
+          const name = node.name.value;
+          const scope = context.scope;
+          assert.isTrue(scope.hasOwnBinding(name));
+          events.push(name + '@' + scope.depth + (scope.parent.hasBinding(name) ? ' shadows' : ''));
+        },
+      },
+    }, {
+      batch: true,
+      visitor: {
+        CompilationUnit(nodes, context) {
+          events.push('unit ' + context.scope);
+        },
+      },
+    }],
+    scope: true,
+    sourceType: 'string',
+  };
+  const expectedEvents = [
+    'x@1', 'a@2', 'b@3', 'use a', 'r@3', 'x@5 shadows', 'use b', 'method U,a', 'class T,x',
+    'unit null',
+  ];
+  const codes = [false, true].map(mirror => {
+    events.length = 0;
+    const result = jaspiler.transformSync(code, { ...options, mirror });
+    assert.deepEqual(expectedEvents, events, 'The bindings should be tracked without re-walking the subtrees');
+    return result.code;
+  });
+  assert.equal(codes[0], codes[1], 'The mirror mode should produce the same code');
+}
+
+function testTreeList() {
+  let names = null;
+  const result = jaspiler.transformSync(
+    `package a;
+public class A {
+    public void b() {
+        int c = 1;
+        int d = 2;
+        int e = 3;
+    }
+}
+`,
+    {
+      fileName: 'A',
+      plugins: [{
+        visitor: {
+          Block(node) {
+            const statements = node.statements;
+            assert.strictEqual(statements, node.statements, 'The tree list should be identity-stable');
+            assert.isTrue(Array.isArray(statements));
+            assert.deepEqual(['0', '1', '2'], Object.keys(statements));
+            assert.equal(
+              '["c","d","e"]',
+              JSON.stringify(statements, (key, value) => key === '' ? value : value.name.value));
+            assert.deepEqual(['c', 'd', 'e', 'f'], statements.concat(['f']).map(
+              statement => typeof statement === 'string' ? statement : statement.name.value));
+            assert.equal(3, statements.length);
+            assert.isTrue(0 in statements);
+            assert.isFalse(3 in statements);
+            assert.isUndefined(statements[3]);
+            const removed = statements.splice(0, 1);
+            assert.equal(1, removed.length);
+            assert.equal('c', removed[0].name.value);
+            assert.equal(2, node.statements.length, 'The splice should update the list in place');
+            assert.equal(3, statements.push(removed[0]));
+            assert.equal('c', statements.pop().name.value);
+            assert.equal(3, statements.unshift(removed[0]));
+            const first = statements[0];
+            statements[0] = statements[1];
+            statements[1] = first;
+            names = statements.map(statement => statement.name.value);
+            assert.deepEqual(['d', 'c', 'e'], [...statements].map(statement => statement.name.value));
+            statements.length = 2;
+            assert.equal(2, node.statements.length);
+          },
+        },
+      }],
+      sourceType: 'string',
+    });
+  assert.deepEqual(['d', 'c', 'e'], names);
+  assert.include(result.code, 'int d = 2;');
+  assert.isAbove(result.code.indexOf('int c = 1;'), result.code.indexOf('int d = 2;'));
+  assert.notInclude(result.code, 'int e = 3;');
+}
+
+// Mirror
+
+function testMirror() {
+  const names = [];
+  let identifierCount = 0;
+  const result = jaspiler.transformSync(
+    `package a;
+public class A {
+    public void b() {
+        int c = 1;
+        int d = 2;
+    }
+    public void e() {
+        int f = g;
+    }
+}
+`,
+    {
+      fileName: 'A',
+      mirror: true,
+      plugins: [{
+        visitor: {
+          Block(node) {
+            node.statements = [node.statements[1], node.statements[0]];
+          },
+          Class(node) {
+            assert.equal('com.caoccao.jaspiler.trees.JTClassDecl', node.className);
+            assert.equal('A', node.simpleName.value);
+            node.simpleName = jaspiler.createName('X');
+          },
+          Method(node) {
+            names.push(node.name.value);
+            assert.strictEqual(node, node.body.parentTree);
+            if (node.name.value === 'e') {
+              assert.include(node.toString(), 'int f = g;');
+              node.setActionIgnore();
+              return false;
+            }
+          },
+        },
+      }, {
+        batch: true,
+        visitor: {
+          Identifier(nodes) {
+            identifierCount = nodes.length;
+          },
+        },
+      }],
+      sourceType: 'string',
+    });
+  assert.deepEqual(['b', 'e'], names);
+  assert.equal(0, identifierCount, 'The children of the skipped method should not be visited');
+  assert.include(result.code, 'public class X {');
+  assert.isAbove(result.code.indexOf('int c = 1;'), result.code.indexOf('int d = 2;'));
+  assert.notInclude(result.code, 'public void e()');
+}
+
 // Other
 
 function testOther() {
@@ -524,9 +1145,82 @@ function testScan() {
     'Unexpected [\'' + unexpectedClassSimpleNames.join('\',\'') + '\']');
 }
 
+// Skip
+
+function testSkip() {
+  const code = `package a.b.c;
+public class A {
+    private int a = b;
+    public int c(int d) {
+        return e;
+    }
+    private int f = g;
+}
+`;
+  let names = [];
+  jaspiler.transformSync(code, {
+    plugins: [{
+      visitor: {
+        Identifier(node) {
+          names.push(node.name.value);
+        },
+        Method(node) {
+          names.push(node.name.value);
+          return false;
+        },
+      },
+    }],
+    code: false,
+    fileName: 'A',
+    sourceType: 'string',
+  });
+  assert.deepEqual(['b', 'c', 'g'], names, 'The method body should not be visited');
+  names = [];
+  jaspiler.transformSync(code, {
+    plugins: [{
+      visitor: {
+        Scan(node) {
+          if (node && node.classSimpleName === 'JTMethodDecl') {
+            return false;
+          }
+        },
+        Identifier(node) {
+          names.push(node.name.value);
+        },
+        Method(node) {
+          names.push(node.name.value);
+        },
+      },
+    }],
+    code: false,
+    fileName: 'A',
+    sourceType: 'string',
+  });
+  assert.deepEqual(['b', 'g'], names, 'The skipped method should not be visited');
+}
+
 // AST
 testAstForFile();
 testAstForString();
+testBinaryAst();
+testIdentity();
+testInvalidOptions();
+testTransformAsync().catch(error => {
+  console.error(error);
+  throw error;
+});
+testTransformer().catch(error => {
+  console.error(error);
+  throw error;
+});
+// Source Map
+testSourceMap();
+// Diff and Edits
+testDiffAndEdits();
+// Write
+testWriteFileSync();
+// Batch
+testBatch();
 // Contract.Ignore
 testContractIgnoreCompilationUnit();
 testContractIgnoreClass();
@@ -551,7 +1245,14 @@ testVariable();
 testMethod();
 // Block
 testBlock();
+testEnterExit();
+testPath();
+testScope();
+testTreeList();
+testMirror();
 // Other
 testOther();
 // Scan
 testScan();
+// Skip
+testSkip();
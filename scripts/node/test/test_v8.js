@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2023-2025. caoccao.com Sam Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+/// <reference types="../jaspiler/index.d.ts"/>
+
+// This script only requires the bundled helpers so that it runs in the plain V8 runtime.
+
+const { JTKind } = require('../jaspiler/jaspiler');
+
+function check(condition, message) {
+  if (!condition) {
+    throw new Error(message);
+  }
+}
+
+const code = `package a;
+public class A {
+}
+`;
+
+const options = {
+  fileName: 'A',
+  plugins: [{
+    visitor: {
+      Class(node) {
+        check(node.kind === JTKind.CLASS, 'The bundled helpers should be available');
+        node.simpleName = jaspiler.createName('B');
+      },
+    },
+  }],
+  sourceType: 'string',
+};
+
+const result = jaspiler.transformSync(code, options);
+check(result.code.includes('public class B'), result.code);
+
+check(typeof console.log === 'function', 'The console should be available');
+console.log(result.code);
+
+// The require is aliased so that --runtime=auto still selects the plain V8 runtime.
+const requireModule = require;
+let requireError = null;
+try {
+  requireModule('fs');
+} catch (error) {
+  requireError = error;
+}
+check(requireError !== null, 'Only the bundled helpers can be required');
+
+jaspiler.transform(code, options).then(asyncResult => {
+  check(asyncResult.code.includes('public class B'), asyncResult.code);
+}).catch(error => {
+  console.error(error);
+  throw error;
+});
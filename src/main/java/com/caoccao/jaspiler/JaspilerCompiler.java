@@ -16,25 +16,44 @@
 
 package com.caoccao.jaspiler;
 
+import com.caoccao.jaspiler.contexts.JaspilerCompileContext;
 import com.caoccao.jaspiler.contexts.JaspilerDocContext;
 import com.caoccao.jaspiler.contexts.JaspilerParseContext;
 import com.caoccao.jaspiler.contexts.JaspilerTransformContext;
+import com.caoccao.jaspiler.styles.SourceMap;
 import com.caoccao.jaspiler.styles.StyleOptions;
+import com.caoccao.jaspiler.trees.JTClassDecl;
 import com.caoccao.jaspiler.trees.JTCompilationUnit;
+import com.caoccao.jaspiler.trees.JTExpression;
+import com.caoccao.jaspiler.trees.JTFieldAccess;
+import com.caoccao.jaspiler.trees.JTIdent;
+import com.caoccao.jaspiler.trees.JTPackageDecl;
 import com.caoccao.jaspiler.utils.BaseLoggingObject;
+import com.caoccao.jaspiler.utils.DedupFileWriter;
+import com.caoccao.jaspiler.utils.JaspilerJavaFileManager;
 import com.caoccao.jaspiler.utils.JavaFileStringObject;
+import com.caoccao.jaspiler.utils.ZipArchiveWriter;
 import com.sun.source.util.*;
 import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.collections4.ListUtils;
+import org.apache.commons.lang3.StringUtils;
 
+import javax.lang.model.element.Modifier;
 import javax.tools.*;
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Objects;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.jar.JarFile;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.zip.Deflater;
 
 /**
  * The type Jaspiler compiler.
@@ -44,7 +63,15 @@ import java.util.stream.Stream;
  * Please refer to <a href="https://openjdk.org/groups/compiler/analyzing-doc-comments/analyze-doc-comments.html">Analyzing Documentation Comments</a> for detail.
  */
 public final class JaspilerCompiler extends BaseLoggingObject {
+    private static final int ARCHIVE_WINDOW_SIZE_PER_PROCESSOR = 4;
+    private static final List<String> COMPILE_OPTIONS = List.of("-implicit:none", "-proc:none");
+    private static final String JAR_EXTENSION = ".jar";
+    private static final String JAVA_EXTENSION = JavaFileObject.Kind.SOURCE.extension;
+    private static final byte[] MANIFEST_BYTES = "Manifest-Version: 1.0\r\nCreated-By: Jaspiler\r\n\r\n"
+            .getBytes(StandardCharsets.UTF_8);
     private static final int MIN_FILE_SIZE = 10;
+    private final List<JaspilerCompileContext> compileContexts;
+    private final DedupFileWriter dedupFileWriter;
     private final DiagnosticCollector<JavaFileObject> diagnosticCollector;
     private final List<JaspilerDocContext> docContexts;
     private final JavaCompiler javaCompiler;
@@ -59,6 +86,8 @@ public final class JaspilerCompiler extends BaseLoggingObject {
 
     public JaspilerCompiler(JavaCompiler javaCompiler) {
         super();
+        compileContexts = new ArrayList<>();
+        dedupFileWriter = new DedupFileWriter();
         diagnosticCollector = new DiagnosticCollector<>();
         docContexts = new ArrayList<>();
         this.javaCompiler = javaCompiler;
@@ -88,11 +117,168 @@ public final class JaspilerCompiler extends BaseLoggingObject {
         return this;
     }
 
+    /**
+     * Serialize the transformed compilation units to a zip or jar archive.
+     *
+     * @param outputPath the output path
+     * @return the self
+     * @throws IOException the io exception
+     */
+    public JaspilerCompiler archive(Path outputPath) throws IOException {
+        return archive(outputPath, StyleOptions.Default, Deflater.DEFAULT_COMPRESSION, ZipArchiveWriter.DEFAULT_TIMESTAMP);
+    }
+
+    /**
+     * Serialize the transformed compilation units to a zip or jar archive.
+     * <p>
+     * The serialized code is streamed to the archive without touching the disk.
+     * The entries are sorted by name and written in windows in that order.
+     * The compilation units in a window are serialized and compressed in parallel,
+     * so only one window of compressed entries is held in memory at a time.
+     * The entries share the same timestamp
+     * so that the archive is reproducible.
+     * A manifest is added if the output path ends with .jar.
+     *
+     * @param outputPath       the output path
+     * @param styleOptions     the style options
+     * @param compressionLevel the compression level
+     * @param timestamp        the timestamp of the entries
+     * @return the self
+     * @throws IOException the io exception
+     */
+    public JaspilerCompiler archive(
+            Path outputPath,
+            StyleOptions styleOptions,
+            int compressionLevel,
+            LocalDateTime timestamp)
+            throws IOException {
+        List<Map.Entry<String, JTCompilationUnit>> namedCompilationUnits = transformContexts.stream()
+                .map(JaspilerTransformContext::getCompilationUnitTree)
+                .map(compilationUnit -> Map.entry(
+                        getBinaryName(compilationUnit).replace('.', '/') + JAVA_EXTENSION,
+                        compilationUnit))
+                .toList();
+        writeArchive(
+                outputPath,
+                namedCompilationUnits,
+                namedCompilationUnit -> {
+                    var writer = styleOptions.getType().createStyleWriter(styleOptions);
+                    if (!namedCompilationUnit.getValue().serialize(writer)) {
+                        return null;
+                    }
+                    return ZipArchiveWriter.compress(
+                            namedCompilationUnit.getKey(),
+                            writer.toString().getBytes(StandardCharsets.UTF_8),
+                            compressionLevel);
+                },
+                timestamp);
+        return this;
+    }
+
     public JaspilerCompiler clearJavaFileObject() {
         javaFileObjects.clear();
         return this;
     }
 
+    /**
+     * Compile the transformed compilation units to class files in memory
+     * and write the class files to the output path.
+     *
+     * @param outputPath the output path
+     * @return the self
+     * @throws IOException the io exception
+     */
+    public JaspilerCompiler compile(Path outputPath) throws IOException {
+        return compile(outputPath, StyleOptions.Default, 0, null);
+    }
+
+    /**
+     * Compile the transformed compilation units to class files in memory
+     * and write the class files to the output path.
+     * <p>
+     * The serialized code is fed to javac without touching the disk.
+     * The output path is a jar if it ends with .jar, otherwise it is a directory.
+     * The compilation units are compiled in parallel batches if the batch size is positive
+     * and the sources in the other batches are resolved via the in-memory source path.
+     * The diagnostics are kept in the compile contexts and can be mapped back to the original sources.
+     * The class files in the output directory are not rewritten if their content is unchanged.
+     *
+     * @param outputPath   the output path
+     * @param styleOptions the style options
+     * @param batchSize    the batch size, 0 for a single batch
+     * @param options      the javac options
+     * @return the self
+     * @throws IOException the io exception
+     */
+    public JaspilerCompiler compile(
+            Path outputPath,
+            StyleOptions styleOptions,
+            int batchSize,
+            List<String> options)
+            throws IOException {
+        compileContexts.clear();
+        for (var transformContext : transformContexts) {
+            var compilationUnit = transformContext.getCompilationUnitTree();
+            var writer = styleOptions.getType().createStyleWriter(styleOptions).setSourceMap(new SourceMap());
+            if (compilationUnit.serialize(writer)) {
+                var javaFileStringObject = new JavaFileStringObject(getBinaryName(compilationUnit), writer.toString());
+                compileContexts.add(new JaspilerCompileContext(compilationUnit, javaFileStringObject, writer.getSourceMap()));
+            }
+        }
+        if (compileContexts.isEmpty()) {
+            return this;
+        }
+        var sourceObjects = compileContexts.stream().map(JaspilerCompileContext::getJavaFileStringObject).toList();
+        var compileOptions = new ArrayList<>(COMPILE_OPTIONS);
+        Optional.ofNullable(options).ifPresent(compileOptions::addAll);
+        var batches = ListUtils.partition(compileContexts, batchSize > 0 ? batchSize : compileContexts.size());
+        Map<String, byte[]> byteCodeMap = new TreeMap<>();
+        try {
+            (batches.size() > 1 ? batches.parallelStream() : batches.stream())
+                    .map(batch -> {
+                        try {
+                            return compileBatch(batch, sourceObjects, compileOptions);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    })
+                    .toList()
+                    .forEach(byteCodeMap::putAll);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writeByteCode(outputPath, byteCodeMap);
+        return this;
+    }
+
+    private Map<String, byte[]> compileBatch(
+            List<JaspilerCompileContext> batch,
+            List<JavaFileStringObject> sourceObjects,
+            List<String> options)
+            throws IOException {
+        var batchDiagnosticCollector = new DiagnosticCollector<JavaFileObject>();
+        try (var fileManager = new JaspilerJavaFileManager(
+                javaCompiler.getStandardFileManager(batchDiagnosticCollector, null, null), sourceObjects)) {
+            javaCompiler.getTask(
+                    null, fileManager, batchDiagnosticCollector, options, null,
+                    batch.stream().map(JaspilerCompileContext::getJavaFileStringObject).toList()).call();
+            Map<JavaFileObject, JaspilerCompileContext> compileContextMap = new IdentityHashMap<>();
+            batch.forEach(compileContext -> compileContextMap.put(compileContext.getJavaFileStringObject(), compileContext));
+            for (var diagnostic : batchDiagnosticCollector.getDiagnostics()) {
+                if (diagnostic.getSource() == null) {
+                    logger.warn(diagnostic.getMessage(null));
+                } else {
+                    // The diagnostics of the sources in the other batches are reported by those batches.
+                    Optional.ofNullable(compileContextMap.get(diagnostic.getSource()))
+                            .ifPresent(compileContext -> compileContext.getDiagnostics().add(diagnostic));
+                }
+            }
+            Map<String, byte[]> byteCodeMap = new TreeMap<>();
+            fileManager.getByteCodeObjectMap().forEach((name, byteCodeObject) -> byteCodeMap.put(name, byteCodeObject.getBytes()));
+            return byteCodeMap;
+        }
+    }
+
     private Iterable<File> filterFiles(Stream<File> fileStream) {
         return fileStream
                 .map(file -> {
@@ -106,6 +292,34 @@ public final class JaspilerCompiler extends BaseLoggingObject {
                 .collect(Collectors.toList());
     }
 
+    private String getBinaryName(JTCompilationUnit compilationUnit) {
+        String packageName = Optional.ofNullable(compilationUnit.getPackage())
+                .map(JTPackageDecl::getPackageName)
+                .map(this::getQualifiedName)
+                .orElse(StringUtils.EMPTY);
+        // The public class must be declared in a file with the same name.
+        String simpleName = compilationUnit.getTypeDecls().stream()
+                .filter(tree -> tree instanceof JTClassDecl)
+                .map(tree -> (JTClassDecl) tree)
+                .filter(tree -> !tree.isActionIgnore())
+                .filter(tree -> tree.getModifiers() != null && tree.getModifiers().getFlags().contains(Modifier.PUBLIC))
+                .map(tree -> tree.getSimpleName().getValue())
+                .findFirst()
+                .orElseGet(() -> {
+                    String name = StringUtils.removeEnd(compilationUnit.getSourceFile().getName(), JAVA_EXTENSION);
+                    return name.substring(StringUtils.lastIndexOfAny(name, "/", "\\", ".") + 1);
+                });
+        return StringUtils.isEmpty(packageName) ? simpleName : packageName + "." + simpleName;
+    }
+
+    public List<JaspilerCompileContext> getCompileContexts() {
+        return compileContexts;
+    }
+
+    public DedupFileWriter getDedupFileWriter() {
+        return dedupFileWriter;
+    }
+
     public List<JaspilerDocContext> getDocContexts() {
         return docContexts;
     }
@@ -114,6 +328,17 @@ public final class JaspilerCompiler extends BaseLoggingObject {
         return parseContexts;
     }
 
+    private String getQualifiedName(JTExpression<?, ?> expression) {
+        // The name is built from the name components so that the comments in between are not included.
+        if (expression instanceof JTFieldAccess fieldAccess) {
+            return getQualifiedName(fieldAccess.getExpression()) + "." + fieldAccess.getIdentifier().getValue();
+        }
+        if (expression instanceof JTIdent ident) {
+            return ident.getName().getValue();
+        }
+        return StringUtils.EMPTY;
+    }
+
     public List<JaspilerTransformContext> getTransformContexts() {
         return transformContexts;
     }
@@ -150,7 +375,9 @@ public final class JaspilerCompiler extends BaseLoggingObject {
                 var jtCompilationUnit = new JTCompilationUnit(trees, docTrees, compilationUnit).analyze();
                 var transformContext = new JaspilerTransformContext(jtCompilationUnit);
                 transformContexts.add(transformContext);
-                transformScanner.scan(jtCompilationUnit, transformContext);
+                if (transformScanner != null) {
+                    transformScanner.scan(jtCompilationUnit, transformContext);
+                }
                 if (docScanner != null) {
                     var docContext = new JaspilerDocContext(jtCompilationUnit);
                     docContexts.add(docContext);
@@ -160,4 +387,69 @@ public final class JaspilerCompiler extends BaseLoggingObject {
         }
         return this;
     }
+
+    /**
+     * Write the archive with the entries sorted by name.
+     * The entries are compressed in parallel window by window and each window is written in order,
+     * so the archive is reproducible and the compressed entries are not all held in memory.
+     *
+     * @param <T>         the type of the value
+     * @param outputPath  the output path
+     * @param namedValues the values keyed by the entry name
+     * @param compressor  the compressor returning null if the value is skipped
+     * @param timestamp   the timestamp of the entries
+     * @throws IOException the io exception
+     */
+    private <T> void writeArchive(
+            Path outputPath,
+            List<? extends Map.Entry<String, T>> namedValues,
+            Function<Map.Entry<String, T>, ZipArchiveWriter.Entry> compressor,
+            LocalDateTime timestamp)
+            throws IOException {
+        Path parentPath = outputPath.toAbsolutePath().getParent();
+        if (parentPath != null) {
+            Files.createDirectories(parentPath);
+        }
+        List<Map.Entry<String, T>> sortedNamedValues = new ArrayList<>(namedValues);
+        sortedNamedValues.sort(Map.Entry.comparingByKey());
+        final int windowSize = Math.max(1, Runtime.getRuntime().availableProcessors()) * ARCHIVE_WINDOW_SIZE_PER_PROCESSOR;
+        try (var zipArchiveWriter = new ZipArchiveWriter(
+                new BufferedOutputStream(Files.newOutputStream(outputPath)), timestamp)) {
+            // The manifest is expected to be the first entry in a jar.
+            if (StringUtils.endsWithIgnoreCase(outputPath.getFileName().toString(), JAR_EXTENSION)) {
+                zipArchiveWriter.write(ZipArchiveWriter.compress(
+                        JarFile.MANIFEST_NAME, MANIFEST_BYTES, Deflater.DEFAULT_COMPRESSION));
+            }
+            for (int fromIndex = 0; fromIndex < sortedNamedValues.size(); fromIndex += windowSize) {
+                var entries = sortedNamedValues
+                        .subList(fromIndex, Math.min(sortedNamedValues.size(), fromIndex + windowSize))
+                        .parallelStream()
+                        .map(compressor)
+                        .filter(Objects::nonNull)
+                        .toList();
+                for (var entry : entries) {
+                    zipArchiveWriter.write(entry);
+                }
+            }
+        }
+    }
+
+    private void writeByteCode(Path outputPath, Map<String, byte[]> byteCodeMap) throws IOException {
+        if (StringUtils.endsWithIgnoreCase(outputPath.getFileName().toString(), JAR_EXTENSION)) {
+            writeArchive(
+                    outputPath,
+                    byteCodeMap.entrySet().stream()
+                            .map(entry -> Map.entry(
+                                    entry.getKey().replace('.', '/') + JavaFileObject.Kind.CLASS.extension,
+                                    entry.getValue()))
+                            .toList(),
+                    entry -> ZipArchiveWriter.compress(entry.getKey(), entry.getValue(), Deflater.DEFAULT_COMPRESSION),
+                    ZipArchiveWriter.DEFAULT_TIMESTAMP);
+        } else {
+            for (var entry : byteCodeMap.entrySet()) {
+                Path path = outputPath.resolve(entry.getKey().replace('.', File.separatorChar) + JavaFileObject.Kind.CLASS.extension);
+                dedupFileWriter.write(path, entry.getValue());
+            }
+        }
+    }
 }
@@ -18,22 +18,136 @@ package com.caoccao.jaspiler;
 
 import com.caoccao.jaspiler.enums.JaspilerExitCode;
 import com.caoccao.jaspiler.utils.BaseLoggingObject;
+import com.caoccao.jaspiler.v8.V8CodeCache;
+import com.caoccao.jaspiler.v8.V8HeapMonitor;
+import com.caoccao.jaspiler.v8.V8HeapPolicy;
 import com.caoccao.jaspiler.v8.V8Jaspiler;
+import com.caoccao.jaspiler.v8.V8JaspilerConverter;
+import com.caoccao.jaspiler.v8.V8JaspilerPool;
+import com.caoccao.jaspiler.v8.V8JaspilerRuntimeFactory;
+import com.caoccao.jaspiler.v8.V8JaspilerSnapshot;
 import com.caoccao.jaspiler.v8.V8PatchedFileExecutor;
+import com.caoccao.javet.enums.JSRuntimeType;
 import com.caoccao.javet.exceptions.JavetException;
-import com.caoccao.javet.interop.NodeRuntime;
-import com.caoccao.javet.interop.V8Host;
-import com.caoccao.javet.interop.converters.JavetProxyConverter;
+import com.caoccao.javet.interop.V8Runtime;
+import org.apache.commons.lang3.StringUtils;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 public final class JaspilerMain extends BaseLoggingObject {
+    private static final long BYTES_PER_MB = 1024L * 1024L;
+    private static final int DEFAULT_POOL_BATCH_SIZE = 16;
+    private static final String JAVA_EXTENSION = ".java";
+    private static final String OPTION_CODE_CACHE = "--code-cache=";
+    private static final String OPTION_CREATE_SNAPSHOT = "--create-snapshot=";
+    private static final String OPTION_GC_INTERVAL = "--gc-interval=";
+    private static final String OPTION_GC_THRESHOLD = "--gc-threshold=";
+    private static final String OPTION_POOL = "--pool=";
+    private static final String OPTION_PREFIX = "--";
+    private static final String OPTION_RECYCLE_INTERVAL = "--recycle-interval=";
+    private static final String OPTION_RUNTIME = "--runtime=";
+    private static final String OPTION_SNAPSHOT = "--snapshot=";
+    private static final String OPTION_WRAPPER_CLASSES = "--wrapper-classes";
+    private static final String RUNTIME_AUTO = "auto";
+    private static final String RUNTIME_NODE = "node";
+    private static final String RUNTIME_V8 = "v8";
+
     public static void main(String[] args) {
         JaspilerExitCode jaspilerExitCode = new JaspilerMain().execute(args);
         System.exit(jaspilerExitCode.getExitCode());
     }
 
     public JaspilerExitCode execute(String[] args) {
+        V8HeapPolicy heapPolicy = new V8HeapPolicy();
+        // Node.js is the default. Null means the runtime type is detected from the script.
+        JSRuntimeType jsRuntimeType = JSRuntimeType.Node;
+        Path codeCachePath = null;
+        String createSnapshotFilePath = null;
+        int poolSize = 0;
+        byte[] snapshotBlob = null;
+        boolean wrapperClassesEnabled = false;
+        // All the options before the script file path are parsed in one pass regardless of their order.
+        int optionCount = 0;
+        while (optionCount < args.length && args[optionCount].startsWith(OPTION_PREFIX)) {
+            String option = args[optionCount++];
+            if (option.equals(OPTION_WRAPPER_CLASSES)) {
+                wrapperClassesEnabled = true;
+            } else if (option.startsWith(OPTION_CODE_CACHE)) {
+                String codeCacheDirectory = StringUtils.removeStart(option, OPTION_CODE_CACHE);
+                if (StringUtils.isBlank(codeCacheDirectory)) {
+                    return invalidOptions("Option [{}] requires a directory.", option);
+                }
+                codeCachePath = Path.of(codeCacheDirectory).toAbsolutePath();
+            } else if (option.startsWith(OPTION_CREATE_SNAPSHOT)) {
+                createSnapshotFilePath = StringUtils.removeStart(option, OPTION_CREATE_SNAPSHOT);
+                if (StringUtils.isBlank(createSnapshotFilePath)) {
+                    return invalidOptions("Option [{}] requires a file path.", option);
+                }
+            } else if (option.startsWith(OPTION_GC_INTERVAL)
+                    || option.startsWith(OPTION_GC_THRESHOLD)
+                    || option.startsWith(OPTION_RECYCLE_INTERVAL)) {
+                long value = parsePositiveLong(option);
+                if (value <= 0) {
+                    return invalidOptions("Option [{}] requires a positive integer.", option);
+                }
+                if (option.startsWith(OPTION_GC_INTERVAL)) {
+                    heapPolicy.setGcFileInterval(value);
+                } else if (option.startsWith(OPTION_GC_THRESHOLD)) {
+                    heapPolicy.setGcHeapThreshold(value * BYTES_PER_MB);
+                } else {
+                    heapPolicy.setRecycleFileInterval(value);
+                }
+            } else if (option.startsWith(OPTION_POOL)) {
+                long value = parsePositiveLong(option);
+                if (value <= 0 || value > Integer.MAX_VALUE) {
+                    return invalidOptions("Option [{}] requires a positive integer.", option);
+                }
+                poolSize = (int) value;
+            } else if (option.startsWith(OPTION_RUNTIME)) {
+                switch (StringUtils.removeStart(option, OPTION_RUNTIME)) {
+                    case RUNTIME_AUTO -> jsRuntimeType = null;
+                    case RUNTIME_NODE -> jsRuntimeType = JSRuntimeType.Node;
+                    case RUNTIME_V8 -> jsRuntimeType = JSRuntimeType.V8;
+                    default -> {
+                        return invalidOptions("Option [{}] is invalid. Expected: node, v8 or auto.", option);
+                    }
+                }
+            } else if (option.startsWith(OPTION_SNAPSHOT)) {
+                Path snapshotPath = Path.of(StringUtils.removeStart(option, OPTION_SNAPSHOT));
+                try {
+                    snapshotBlob = Files.readAllBytes(snapshotPath);
+                } catch (IOException e) {
+                    return invalidOptions("Failed to read the snapshot [{}].", snapshotPath.toAbsolutePath());
+                }
+            } else {
+                return invalidOptions("Option [{}] is unknown.", option);
+            }
+        }
+        args = Arrays.copyOfRange(args, optionCount, args.length);
+        if (createSnapshotFilePath != null) {
+            if (optionCount > 1) {
+                return invalidOptions("Option [{}] cannot be combined with the other options.", OPTION_CREATE_SNAPSHOT);
+            }
+            return executeCreateSnapshot(createSnapshotFilePath, args);
+        }
+        if (poolSize > 0 && (codeCachePath != null || snapshotBlob != null)) {
+            return invalidOptions("Options [{}] and [{}] are not supported in the pool mode.", OPTION_CODE_CACHE, OPTION_SNAPSHOT);
+        }
+        if (snapshotBlob != null && jsRuntimeType == JSRuntimeType.V8) {
+            return invalidOptions("The snapshot is only supported in the Node.js runtime.");
+        }
+        if (codeCachePath != null && jsRuntimeType == JSRuntimeType.V8) {
+            return invalidOptions("The code cache is only supported in the Node.js runtime.");
+        }
+        if (poolSize > 0) {
+            return executePool(poolSize, args, jsRuntimeType, heapPolicy, wrapperClassesEnabled);
+        }
         JaspilerExitCode jaspilerExitCode = JaspilerExitCode.NoError;
         if (args.length == 0) {
             printHelp();
@@ -47,18 +161,54 @@ public final class JaspilerMain extends BaseLoggingObject {
             } else {
                 // Covert the file to an absolute file to avoid the impact from the working directory changes.
                 file = file.getAbsoluteFile();
-                logger.info("Executing [{}]...", file.getPath());
-                try (NodeRuntime nodeRuntime = V8Host.getNodeInstance().createV8Runtime()) {
-                    var javetProxyConverter = new JavetProxyConverter();
-                    nodeRuntime.setConverter(javetProxyConverter);
-                    try (V8Jaspiler v8Jaspiler = new V8Jaspiler(args, nodeRuntime)) {
-                        nodeRuntime.getGlobalObject().set(V8Jaspiler.NAME, v8Jaspiler);
-                        var executor = new V8PatchedFileExecutor(nodeRuntime, file);
+                if (heapPolicy.getRecycleFileInterval() > 0) {
+                    logger.warn("Recycling is only supported in the pool mode and is ignored.");
+                }
+                if (snapshotBlob != null) {
+                    jsRuntimeType = JSRuntimeType.Node;
+                } else if (jsRuntimeType == null) {
+                    jsRuntimeType = detectJSRuntimeType(file);
+                    if (codeCachePath != null && jsRuntimeType == JSRuntimeType.V8) {
+                        return invalidOptions(
+                                "The code cache is only supported in the Node.js runtime. [{}] is detected as plain V8.",
+                                file.getPath());
+                    }
+                }
+                logger.info("Executing [{}] in {}...", file.getPath(), jsRuntimeType.name());
+                try (V8Runtime v8Runtime = snapshotBlob == null
+                        ? V8JaspilerRuntimeFactory.create(jsRuntimeType)
+                        : V8JaspilerSnapshot.createNodeRuntime(snapshotBlob);
+                     V8JaspilerConverter v8JaspilerConverter = new V8JaspilerConverter()
+                             .setWrapperClassesEnabled(wrapperClassesEnabled)) {
+                    v8Runtime.setConverter(v8JaspilerConverter);
+                    var heapMonitor = new V8HeapMonitor(heapPolicy);
+                    try (V8Jaspiler v8Jaspiler = new V8Jaspiler(args, v8Runtime).setHeapMonitor(heapMonitor)) {
+                        v8Runtime.getGlobalObject().set(V8Jaspiler.NAME, v8Jaspiler);
+                        var executor = new V8PatchedFileExecutor(v8Runtime, file);
+                        if (codeCachePath != null) {
+                            executor.setCodeCache(new V8CodeCache(codeCachePath, v8Runtime.getVersion()));
+                        }
                         executor.executeVoid();
-                        nodeRuntime.await();
+                        v8Runtime.await();
+                        if (executor.getCodeCache() != null) {
+                            logger.info(
+                                    "Code cache: {} hits, {} misses, {} written.",
+                                    executor.getCodeCache().getHitCount(),
+                                    executor.getCodeCache().getMissCount(),
+                                    executor.getCodeCache().getWrittenCount());
+                        }
+                        heapMonitor.update(v8Runtime);
+                        logger.info(
+                                "Heap: {} files, {} GCs, used {} MB, peak {} MB, limit {} MB, {} references.",
+                                heapMonitor.getFileCount(),
+                                heapMonitor.getGcCount(),
+                                heapMonitor.getHeapUsed() / BYTES_PER_MB,
+                                heapMonitor.getHeapPeak() / BYTES_PER_MB,
+                                heapMonitor.getHeapLimit() / BYTES_PER_MB,
+                                v8Runtime.getReferenceCount());
                     } finally {
-                        nodeRuntime.getGlobalObject().delete(V8Jaspiler.NAME);
-                        nodeRuntime.lowMemoryNotification();
+                        v8Runtime.getGlobalObject().delete(V8Jaspiler.NAME);
+                        v8Runtime.lowMemoryNotification();
                     }
                 } catch (JavetException e) {
                     logger.error(JaspilerExitCode.EngineUnknownError.getMessageFormat(), e.getMessage());
@@ -72,10 +222,172 @@ public final class JaspilerMain extends BaseLoggingObject {
         return jaspilerExitCode;
     }
 
+    /**
+     * Create a snapshot with the module files evaluated in order.
+     *
+     * @param snapshotFilePath the snapshot file path
+     * @param args             the module file paths
+     * @return the exit code
+     */
+    private JaspilerExitCode executeCreateSnapshot(String snapshotFilePath, String[] args) {
+        if (args.length < 1) {
+            return invalidOptions("Option [{}] requires at least one module file.", OPTION_CREATE_SNAPSHOT);
+        }
+        List<File> moduleFiles = Arrays.stream(args)
+                .map(File::new)
+                .map(File::getAbsoluteFile)
+                .toList();
+        for (File moduleFile : moduleFiles) {
+            if (!moduleFile.exists() || !moduleFile.isFile() || !moduleFile.canRead()) {
+                logger.error(JaspilerExitCode.ScriptNotFound.getMessageFormat(), moduleFile.getPath());
+                return JaspilerExitCode.ScriptNotFound;
+            }
+        }
+        JaspilerExitCode jaspilerExitCode = JaspilerExitCode.NoError;
+        Path snapshotPath = Path.of(snapshotFilePath).toAbsolutePath();
+        logger.info("Creating snapshot [{}] from {} modules...", snapshotPath, moduleFiles.size());
+        try {
+            final long startTime = System.nanoTime();
+            byte[] snapshotBlob = V8JaspilerSnapshot.create(moduleFiles);
+            Files.write(snapshotPath, snapshotBlob);
+            logger.info(
+                    "Created snapshot [{}] with {} bytes in {} ms.",
+                    snapshotPath,
+                    snapshotBlob.length,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+        } catch (JavetException e) {
+            logger.error(JaspilerExitCode.EngineUnknownError.getMessageFormat(), e.getMessage());
+            jaspilerExitCode = JaspilerExitCode.EngineUnknownError;
+        } catch (Throwable t) {
+            logger.error(JaspilerExitCode.UnknownError.getMessageFormat(), t.getMessage());
+            jaspilerExitCode = JaspilerExitCode.UnknownError;
+        }
+        return jaspilerExitCode;
+    }
+
+    /**
+     * Execute the script in a pool of Node.js or plain V8 runtimes.
+     * The arguments are the script file path, the input directory and the output directory.
+     *
+     * @param poolSize              the pool size
+     * @param args                  the args
+     * @param jsRuntimeType         the JS runtime type, null if it is detected from the script
+     * @param heapPolicy            the heap policy
+     * @param wrapperClassesEnabled the wrapper classes enabled
+     * @return the exit code
+     */
+    private JaspilerExitCode executePool(
+            int poolSize,
+            String[] args,
+            JSRuntimeType jsRuntimeType,
+            V8HeapPolicy heapPolicy,
+            boolean wrapperClassesEnabled) {
+        if (args.length != 3) {
+            return invalidOptions("Option [{}] requires the script file, the input directory and the output directory.", OPTION_POOL);
+        }
+        File file = new File(args[0]);
+        if (!file.exists() || !file.isFile() || !file.canRead()) {
+            logger.error(JaspilerExitCode.ScriptNotFound.getMessageFormat(), file.getAbsolutePath());
+            return JaspilerExitCode.ScriptNotFound;
+        }
+        file = file.getAbsoluteFile();
+        if (jsRuntimeType == null) {
+            jsRuntimeType = detectJSRuntimeType(file);
+        }
+        Path inputPath = Path.of(args[1]).toAbsolutePath();
+        Path outputPath = Path.of(args[2]).toAbsolutePath();
+        JaspilerExitCode jaspilerExitCode = JaspilerExitCode.NoError;
+        logger.info("Executing [{}] in {} {} runtimes...", file.getPath(), poolSize, jsRuntimeType.name());
+        try (var v8JaspilerPool = new V8JaspilerPool(
+                poolSize, file, args, jsRuntimeType, heapPolicy, wrapperClassesEnabled)) {
+            List<Path> files;
+            try (var stream = Files.walk(inputPath)) {
+                files = stream
+                        .filter(Files::isRegularFile)
+                        .filter(path -> path.getFileName().toString().endsWith(JAVA_EXTENSION))
+                        .sorted()
+                        .toList();
+            }
+            final long startTime = System.nanoTime();
+            int count = v8JaspilerPool.transform(inputPath, outputPath, files, DEFAULT_POOL_BATCH_SIZE);
+            logger.info(
+                    "Transformed {} files in {} ms. Written: {}, skipped: {}.",
+                    count,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime),
+                    v8JaspilerPool.getDedupFileWriter().getWrittenCount(),
+                    v8JaspilerPool.getDedupFileWriter().getSkippedCount());
+            for (var worker : v8JaspilerPool.getWorkers()) {
+                logger.info(
+                        "Runtime #{}: {} files in {} batches, {} ms, {} files/s.",
+                        worker.getIndex(),
+                        worker.getFileCount(),
+                        worker.getBatchCount(),
+                        TimeUnit.NANOSECONDS.toMillis(worker.getElapsedNanos()),
+                        String.format("%.2f", worker.getFilesPerSecond()));
+                logger.info(
+                        "Runtime #{} heap: {} GCs, {} recycles, used {} MB, peak {} MB, limit {} MB.",
+                        worker.getIndex(),
+                        worker.getHeapMonitor().getGcCount(),
+                        worker.getHeapMonitor().getRecycleCount(),
+                        worker.getHeapMonitor().getHeapUsed() / BYTES_PER_MB,
+                        worker.getHeapMonitor().getHeapPeak() / BYTES_PER_MB,
+                        worker.getHeapMonitor().getHeapLimit() / BYTES_PER_MB);
+                if (worker.getRecycleException() != null) {
+                    logger.warn(
+                            "Runtime #{} is retired. {}",
+                            worker.getIndex(),
+                            worker.getRecycleException().getMessage());
+                }
+            }
+        } catch (JavetException e) {
+            logger.error(JaspilerExitCode.EngineUnknownError.getMessageFormat(), e.getMessage());
+            jaspilerExitCode = JaspilerExitCode.EngineUnknownError;
+        } catch (Throwable t) {
+            logger.error(JaspilerExitCode.UnknownError.getMessageFormat(), t.getMessage());
+            jaspilerExitCode = JaspilerExitCode.UnknownError;
+        }
+        return jaspilerExitCode;
+    }
+
+    private JSRuntimeType detectJSRuntimeType(File file) {
+        try {
+            return V8JaspilerRuntimeFactory.detect(file);
+        } catch (IOException e) {
+            logger.warn("Failed to detect the runtime of [{}]. {}", file.getPath(), e.getMessage());
+            return JSRuntimeType.Node;
+        }
+    }
+
+    private JaspilerExitCode invalidOptions(String message, Object... arguments) {
+        printHelp();
+        logger.error(message, arguments);
+        logger.error(JaspilerExitCode.OptionsInvalid.getMessageFormat());
+        return JaspilerExitCode.OptionsInvalid;
+    }
+
+    private long parsePositiveLong(String option) {
+        try {
+            return Long.parseLong(StringUtils.substringAfter(option, "="));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
     private void printHelp() {
         logger.info("{} v{}", JaspilerContract.NAME, JaspilerContract.VERSION);
         logger.info("{}\n", JaspilerContract.DESCRIPTION);
         logger.info("Usage:");
-        logger.info("  java -jar jaspiler.*.jar <scriptFilePath> args...");
+        logger.info("  java -jar jaspiler.*.jar [<runtimeOptions>] [<heapOptions>] [--snapshot=<snapshotFilePath>] [--code-cache=<codeCacheDirectory>] [--wrapper-classes] <scriptFilePath> args...");
+        logger.info("  java -jar jaspiler.*.jar --create-snapshot=<snapshotFilePath> <moduleFilePath>...");
+        logger.info("  java -jar jaspiler.*.jar [<runtimeOptions>] [<heapOptions>] [--wrapper-classes] --pool=<size> <scriptFilePath> <inputDirectory> <outputDirectory>");
+        logger.info("Runtime options:");
+        logger.info("  --runtime=<node|v8|auto>    Run in Node.js (default), plain V8 or the runtime detected from the script.");
+        logger.info("  The options can be given in any order before the script file path.");
+        logger.info("  --code-cache and --snapshot are not supported in the pool mode.");
+        logger.info("  --code-cache and --snapshot are only supported in the Node.js runtime.");
+        logger.info("Heap options:");
+        logger.info("  --gc-interval=<files>       Hint the garbage collection every N files.");
+        logger.info("  --gc-threshold=<MB>         Hint the garbage collection when the used heap is above N MB.");
+        logger.info("  --recycle-interval=<files>  Recycle the runtime every N files in the pool mode.");
     }
 }
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2023-2025. caoccao.com Sam Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.caoccao.jaspiler.contexts;
+
+import com.caoccao.jaspiler.styles.SourceMap;
+import com.caoccao.jaspiler.trees.JTCompilationUnit;
+import com.caoccao.jaspiler.trees.JTPosition;
+import com.caoccao.jaspiler.utils.JavaFileStringObject;
+
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+public class JaspilerCompileContext extends BaseJaspilerContext<JTCompilationUnit> {
+    protected final boolean changed;
+    protected final List<Diagnostic<? extends JavaFileObject>> diagnostics;
+    protected final JavaFileStringObject javaFileStringObject;
+    protected final SourceMap sourceMap;
+
+    public JaspilerCompileContext(
+            JTCompilationUnit compilationUnitTree,
+            JavaFileStringObject javaFileStringObject,
+            SourceMap sourceMap) {
+        super(compilationUnitTree);
+        changed = compilationUnitTree.isActionChange();
+        diagnostics = new ArrayList<>();
+        this.javaFileStringObject = Objects.requireNonNull(javaFileStringObject);
+        this.sourceMap = Objects.requireNonNull(sourceMap);
+    }
+
+    public List<Diagnostic<? extends JavaFileObject>> getDiagnostics() {
+        return diagnostics;
+    }
+
+    public JavaFileStringObject getJavaFileStringObject() {
+        return javaFileStringObject;
+    }
+
+    /**
+     * Gets the position of the diagnostic in the original source.
+     *
+     * @param diagnostic the diagnostic
+     * @return the original position
+     */
+    public JTPosition getOriginalPosition(Diagnostic<? extends JavaFileObject> diagnostic) {
+        long position = diagnostic.getPosition();
+        if (position == Diagnostic.NOPOS) {
+            return JTPosition.Invalid;
+        }
+        // The unchanged compilation unit is serialized as is, so the position is the original position.
+        long originalPosition = changed ? sourceMap.getOriginalOffset((int) position) : position;
+        if (originalPosition < 0) {
+            return JTPosition.Invalid;
+        }
+        var lineMap = compilationUnitTree.getLineMap();
+        return new JTPosition(
+                originalPosition,
+                originalPosition,
+                lineMap.getLineNumber(originalPosition),
+                lineMap.getColumnNumber(originalPosition));
+    }
+
+    public SourceMap getSourceMap() {
+        return sourceMap;
+    }
+
+    public boolean hasErrors() {
+        return diagnostics.stream().anyMatch(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.ERROR);
+    }
+}
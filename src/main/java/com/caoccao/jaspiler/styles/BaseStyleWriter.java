@@ -18,11 +18,14 @@ package com.caoccao.jaspiler.styles;
 
 import com.caoccao.jaspiler.enums.JavaKeyword;
 import com.caoccao.jaspiler.trees.IJTTree;
+import com.caoccao.jaspiler.utils.ForEachUtils;
 import org.apache.commons.lang3.StringUtils;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 @SuppressWarnings("unchecked")
 public abstract class BaseStyleWriter<StyleWriter extends BaseStyleWriter<StyleWriter>>
@@ -31,6 +34,7 @@ public abstract class BaseStyleWriter<StyleWriter extends BaseStyleWriter<StyleW
     protected final StyleOptions options;
     protected int depth;
     protected int lengthOfLines;
+    protected SourceMap sourceMap;
     protected StringBuilder stringBuilder;
 
     public BaseStyleWriter(StyleOptions options) {
@@ -38,6 +42,7 @@ public abstract class BaseStyleWriter<StyleWriter extends BaseStyleWriter<StyleW
         lines = new ArrayList<>();
         lengthOfLines = 0;
         this.options = options;
+        sourceMap = null;
         stringBuilder = new StringBuilder();
     }
 
@@ -109,7 +114,13 @@ public abstract class BaseStyleWriter<StyleWriter extends BaseStyleWriter<StyleW
 
     @Override
     public StyleWriter append(IJTTree<?, ?> jtTree) {
-        jtTree.serialize(this);
+        if (sourceMap != null && jtTree.getOriginalPosition().isValid()) {
+            int index = sourceMap.add(getPosition(), jtTree.getOriginalPosition());
+            jtTree.serialize(this);
+            sourceMap.setGeneratedEndPosition(index, getPosition());
+        } else {
+            jtTree.serialize(this);
+        }
         return (StyleWriter) this;
     }
 
@@ -212,6 +223,51 @@ public abstract class BaseStyleWriter<StyleWriter extends BaseStyleWriter<StyleW
         return (StyleWriter) this;
     }
 
+    @Override
+    public StyleWriter appendStyleWriter(IStyleWriter<?> styleWriter) {
+        if (styleWriter instanceof BaseStyleWriter<?> baseStyleWriter) {
+            if (sourceMap != null) {
+                sourceMap.append(baseStyleWriter.sourceMap, getPosition());
+            }
+            baseStyleWriter.lines.forEach(line -> append(line).appendLineSeparator());
+            return append(baseStyleWriter.stringBuilder);
+        }
+        return append(styleWriter.toString());
+    }
+
+    @Override
+    public <Tree extends IJTTree<?, ?>> StyleWriter appendTrees(
+            List<Tree> trees,
+            BiConsumer<IStyleWriter<?>, Tree> treeConsumer,
+            Consumer<Tree> interTreeConsumer,
+            Consumer<List<Tree>> preConsumer,
+            Consumer<List<Tree>> postConsumer) {
+        if (trees != null && options.isParallel(trees.size())) {
+            var childStyleWriters = trees.parallelStream()
+                    .map(tree -> {
+                        var childStyleWriter = createChildStyleWriter();
+                        treeConsumer.accept(childStyleWriter, tree);
+                        return childStyleWriter;
+                    })
+                    .toList();
+            var iterator = childStyleWriters.iterator();
+            ForEachUtils.forEach(
+                    trees,
+                    tree -> appendStyleWriter(iterator.next()),
+                    interTreeConsumer,
+                    preConsumer,
+                    postConsumer);
+        } else {
+            ForEachUtils.forEach(
+                    trees,
+                    tree -> treeConsumer.accept(this, tree),
+                    interTreeConsumer,
+                    preConsumer,
+                    postConsumer);
+        }
+        return (StyleWriter) this;
+    }
+
     @Override
     public char charAt(int index) {
         return stringBuilder.charAt(index);
@@ -243,6 +299,15 @@ public abstract class BaseStyleWriter<StyleWriter extends BaseStyleWriter<StyleW
         return options;
     }
 
+    protected int getPosition() {
+        return lengthOfLines + lines.size() * LINE_SEPARATOR.length() + stringBuilder.length();
+    }
+
+    @Override
+    public SourceMap getSourceMap() {
+        return sourceMap;
+    }
+
     @Override
     public int increaseDepth() {
         return ++depth;
@@ -253,6 +318,11 @@ public abstract class BaseStyleWriter<StyleWriter extends BaseStyleWriter<StyleW
         return lengthOfLines + stringBuilder.length();
     }
 
+    public StyleWriter setSourceMap(SourceMap sourceMap) {
+        this.sourceMap = sourceMap;
+        return (StyleWriter) this;
+    }
+
     @Override
     public CharSequence subSequence(int start, int end) {
         return stringBuilder.subSequence(start, end);
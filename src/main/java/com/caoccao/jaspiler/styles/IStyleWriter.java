@@ -19,6 +19,10 @@ package com.caoccao.jaspiler.styles;
 import com.caoccao.jaspiler.enums.JavaKeyword;
 import com.caoccao.jaspiler.trees.IJTTree;
 
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
 public interface IStyleWriter<StyleWriter extends IStyleWriter<StyleWriter>> {
     String AT = "@";
     String COMMA = ",";
@@ -104,8 +108,35 @@ public interface IStyleWriter<StyleWriter extends IStyleWriter<StyleWriter>> {
 
     StyleWriter appendSpaceIfNeeded();
 
+    StyleWriter appendStyleWriter(IStyleWriter<?> styleWriter);
+
+    /**
+     * Append trees one by one.
+     * If parallel is enabled and the trees reach the parallel threshold,
+     * each tree is serialized into a child style writer in parallel,
+     * and the child style writers are appended in the original order.
+     * Each tree is expected to start at the beginning of a line
+     * so that the output is identical to the sequential mode.
+     *
+     * @param <Tree>            the type of the tree
+     * @param trees             the trees
+     * @param treeConsumer      the tree consumer receiving the style writer and the tree
+     * @param interTreeConsumer the inter tree consumer
+     * @param preConsumer       the pre consumer
+     * @param postConsumer      the post consumer
+     * @return the self
+     */
+    <Tree extends IJTTree<?, ?>> StyleWriter appendTrees(
+            List<Tree> trees,
+            BiConsumer<IStyleWriter<?>, Tree> treeConsumer,
+            Consumer<Tree> interTreeConsumer,
+            Consumer<List<Tree>> preConsumer,
+            Consumer<List<Tree>> postConsumer);
+
     StyleWriter appendTypeSeparator();
 
+    StyleWriter createChildStyleWriter();
+
     int decreaseDepth();
 
     boolean endsWithWhitespace();
@@ -114,5 +145,7 @@ public interface IStyleWriter<StyleWriter extends IStyleWriter<StyleWriter>> {
 
     StyleOptions getOptions();
 
+    SourceMap getSourceMap();
+
     int increaseDepth();
 }
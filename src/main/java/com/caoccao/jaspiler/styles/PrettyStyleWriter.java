@@ -0,0 +1,419 @@
+/*
+ * Copyright (c) 2023-2025. caoccao.com Sam Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.caoccao.jaspiler.styles;
+
+import com.caoccao.jaspiler.enums.JavaKeyword;
+import com.caoccao.jaspiler.trees.IJTTree;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The type Pretty style writer lays out each line with the Oppen pretty printing algorithm.
+ * <p>
+ * The content of a line is kept as a stream of tokens:
+ * texts, breaks (the spaces) and groups (the parentheses and the angle brackets).
+ * When the line separator is appended, the sizes of the groups and the breaks are computed in one pass,
+ * and the line is printed in another pass.
+ * A group is printed flat if it fits in the rest of the line, otherwise its breaks are taken
+ * when the text up to the next break does not fit.
+ * The broken lines are indented with the continuation indent per nested broken group.
+ * Both passes are linear to the number of tokens.
+ */
+public class PrettyStyleWriter extends StandardStyleWriter {
+    protected static final int TOKEN_BEGIN = 1;
+    protected static final int TOKEN_BREAK = 2;
+    protected static final int TOKEN_END = 3;
+    protected static final int TOKEN_TEXT = 0;
+    private static final int DEFAULT_TOKEN_CAPACITY = 64;
+    protected final List<Integer> pendingEndIndexes;
+    protected final List<Integer> pendingStartIndexes;
+    protected boolean keywordAppended;
+    protected int openGroupCount;
+    protected int tokenCount;
+    protected String[] tokenTexts;
+    protected int[] tokenTypes;
+
+    public PrettyStyleWriter(StyleOptions options) {
+        super(options);
+        keywordAppended = false;
+        openGroupCount = 0;
+        pendingEndIndexes = new ArrayList<>();
+        pendingStartIndexes = new ArrayList<>();
+        tokenCount = 0;
+        tokenTexts = new String[DEFAULT_TOKEN_CAPACITY];
+        tokenTypes = new int[DEFAULT_TOKEN_CAPACITY];
+    }
+
+    private static int getTextWidth(String text) {
+        int index = text.indexOf('\n');
+        return index < 0 ? text.length() : index;
+    }
+
+    @Override
+    public PrettyStyleWriter append(CharSequence csq) {
+        return appendText(String.valueOf(csq));
+    }
+
+    @Override
+    public PrettyStyleWriter append(CharSequence csq, int start, int end) {
+        return appendText(String.valueOf(csq == null ? "null" : csq.subSequence(start, end)));
+    }
+
+    @Override
+    public PrettyStyleWriter append(boolean b) {
+        return appendText(String.valueOf(b));
+    }
+
+    @Override
+    public PrettyStyleWriter append(char c) {
+        return appendText(String.valueOf(c));
+    }
+
+    @Override
+    public PrettyStyleWriter append(double d) {
+        return appendText(String.valueOf(d));
+    }
+
+    @Override
+    public PrettyStyleWriter append(float f) {
+        return appendText(String.valueOf(f));
+    }
+
+    @Override
+    public PrettyStyleWriter append(int i) {
+        return appendText(String.valueOf(i));
+    }
+
+    @Override
+    public PrettyStyleWriter append(long l) {
+        return appendText(String.valueOf(l));
+    }
+
+    @Override
+    public PrettyStyleWriter append(short s) {
+        return appendText(String.valueOf(s));
+    }
+
+    @Override
+    public PrettyStyleWriter append(Object object) {
+        return appendText(String.valueOf(object));
+    }
+
+    @Override
+    public PrettyStyleWriter append(char[] str) {
+        return appendText(String.valueOf(str));
+    }
+
+    @Override
+    public PrettyStyleWriter append(IJTTree<?, ?> jtTree) {
+        if (sourceMap != null && jtTree.getOriginalPosition().isValid()) {
+            // The positions are recorded in the flat line and are remapped when the line is laid out.
+            int index = sourceMap.add(getPosition(), jtTree.getOriginalPosition());
+            pendingStartIndexes.add(index);
+            jtTree.serialize(this);
+            sourceMap.setGeneratedEndPosition(index, getPosition());
+            pendingEndIndexes.add(index);
+        } else {
+            jtTree.serialize(this);
+        }
+        return this;
+    }
+
+    @Override
+    public PrettyStyleWriter appendIndent(int depth) {
+        if (depth > 0 && options.getIndentSize() > 0) {
+            appendText(StringUtils.repeat(SPACE, depth * options.getIndentSize()));
+        }
+        return this;
+    }
+
+    @Override
+    public PrettyStyleWriter appendKeyword(JavaKeyword javaKeyword) {
+        appendSpaceIfNeeded();
+        append(Objects.requireNonNull(javaKeyword).getValue());
+        // The keyword sticks to the text after it, so that the break is taken before the keyword.
+        keywordAppended = true;
+        return this;
+    }
+
+    @Override
+    public PrettyStyleWriter appendLeftArrow() {
+        appendText(LEFT_ARROW);
+        return appendToken(TOKEN_BEGIN, EMPTY);
+    }
+
+    @Override
+    public PrettyStyleWriter appendLeftParenthesis() {
+        appendText(LEFT_PARENTHESIS);
+        return appendToken(TOKEN_BEGIN, EMPTY);
+    }
+
+    @Override
+    public PrettyStyleWriter appendLineSeparator() {
+        int lineStartPosition = getPosition() - stringBuilder.length();
+        String text = layout(lineStartPosition);
+        if (text.isEmpty()) {
+            lines.add(text);
+        } else {
+            for (String line : StringUtils.splitPreserveAllTokens(text, '\n')) {
+                lines.add(line);
+                lengthOfLines += line.length();
+            }
+        }
+        keywordAppended = false;
+        openGroupCount = 0;
+        pendingEndIndexes.clear();
+        pendingStartIndexes.clear();
+        stringBuilder = new StringBuilder();
+        tokenCount = 0;
+        return this;
+    }
+
+    @Override
+    public PrettyStyleWriter appendRightArrow() {
+        appendGroupEnd();
+        return appendText(RIGHT_ARROW);
+    }
+
+    @Override
+    public PrettyStyleWriter appendRightParenthesis() {
+        appendGroupEnd();
+        return appendText(RIGHT_PARENTHESIS);
+    }
+
+    @Override
+    public PrettyStyleWriter appendSpace() {
+        if (keywordAppended) {
+            return appendText(SPACE);
+        }
+        stringBuilder.append(SPACE);
+        return appendToken(TOKEN_BREAK, SPACE);
+    }
+
+    protected PrettyStyleWriter appendGroupEnd() {
+        // The unbalanced group end is ignored, e.g. the group begins in a previous line.
+        if (openGroupCount > 0) {
+            appendToken(TOKEN_END, EMPTY);
+        }
+        return this;
+    }
+
+    protected PrettyStyleWriter appendText(String text) {
+        if (!text.isEmpty()) {
+            stringBuilder.append(text);
+            appendToken(TOKEN_TEXT, text);
+        }
+        return this;
+    }
+
+    protected PrettyStyleWriter appendToken(int tokenType, String tokenText) {
+        if (tokenCount == tokenTypes.length) {
+            tokenTexts = Arrays.copyOf(tokenTexts, tokenCount * 2);
+            tokenTypes = Arrays.copyOf(tokenTypes, tokenCount * 2);
+        }
+        keywordAppended = false;
+        if (tokenType == TOKEN_BEGIN) {
+            ++openGroupCount;
+        } else if (tokenType == TOKEN_END) {
+            --openGroupCount;
+        }
+        tokenTexts[tokenCount] = tokenText;
+        tokenTypes[tokenCount] = tokenType;
+        ++tokenCount;
+        return this;
+    }
+
+    @Override
+    public PrettyStyleWriter createChildStyleWriter() {
+        var childStyleWriter = new PrettyStyleWriter(options);
+        childStyleWriter.depth = depth;
+        childStyleWriter.sourceMap = sourceMap == null ? null : new SourceMap();
+        return childStyleWriter;
+    }
+
+    /**
+     * Lay out the current line.
+     *
+     * @param lineStartPosition the line start position for remapping the source map, -1 for no remapping
+     * @return the laid out line
+     */
+    protected String layout(int lineStartPosition) {
+        final int count = tokenCount;
+        if (count == 0) {
+            return EMPTY;
+        }
+        // Pass 1: compute the sizes.
+        // The size of a group is its flat width.
+        // The size of a break is the flat width up to the next break in the same group or the end of the group.
+        // If a group follows the break, the size of the break ends at the first break in the group,
+        // so that the group is preferred to be broken inside.
+        final int[] sizes = new int[count];
+        final boolean[] settled = new boolean[count];
+        final int[] stack = new int[count];
+        int top = -1;
+        int rightTotal = 0;
+        for (int i = 0; i < count; ++i) {
+            switch (tokenTypes[i]) {
+                case TOKEN_BEGIN -> {
+                    stack[++top] = i;
+                    sizes[i] = -rightTotal;
+                }
+                case TOKEN_END -> {
+                    if (top >= 0 && tokenTypes[stack[top]] == TOKEN_BREAK) {
+                        settle(sizes, settled, stack[top--], rightTotal);
+                    }
+                    if (top >= 0 && tokenTypes[stack[top]] == TOKEN_BEGIN) {
+                        sizes[stack[top--]] += rightTotal;
+                    }
+                }
+                case TOKEN_BREAK -> {
+                    if (top >= 0 && tokenTypes[stack[top]] == TOKEN_BREAK) {
+                        settle(sizes, settled, stack[top--], rightTotal);
+                    } else if (top >= 1 && tokenTypes[stack[top - 1]] == TOKEN_BREAK) {
+                        settle(sizes, settled, stack[top - 1], rightTotal);
+                    }
+                    stack[++top] = i;
+                    sizes[i] = -rightTotal;
+                    rightTotal += tokenTexts[i].length();
+                }
+                default -> rightTotal += getTextWidth(tokenTexts[i]);
+            }
+        }
+        while (top >= 0) {
+            if (tokenTypes[stack[top]] == TOKEN_BREAK) {
+                settle(sizes, settled, stack[top--], rightTotal);
+            } else {
+                sizes[stack[top--]] += rightTotal;
+            }
+        }
+        // Pass 2: print.
+        final int wordWrapColumn = options.getWordWrapColumn();
+        final int continuationIndentSize = options.getContinuationIndentSize();
+        int baseIndent = 0;
+        while (baseIndent < stringBuilder.length() && stringBuilder.charAt(baseIndent) == ' ') {
+            ++baseIndent;
+        }
+        final int[] frameIndents = new int[count + 1];
+        final boolean[] frameBrokens = new boolean[count + 1];
+        int frameTop = 0;
+        frameIndents[0] = baseIndent + continuationIndentSize;
+        frameBrokens[0] = true;
+        final boolean remapping = lineStartPosition >= 0 && sourceMap != null
+                && (!pendingStartIndexes.isEmpty() || !pendingEndIndexes.isEmpty());
+        final int[] breakFlatPositions = remapping ? new int[count] : null;
+        final int[] breakDeltas = remapping ? new int[count] : null;
+        int breakCount = 0;
+        int delta = 0;
+        int flatPosition = 0;
+        int column = 0;
+        var output = new StringBuilder(stringBuilder.length() + continuationIndentSize * 4);
+        for (int i = 0; i < count; ++i) {
+            String text = tokenTexts[i];
+            switch (tokenTypes[i]) {
+                case TOKEN_BEGIN -> {
+                    boolean broken = frameBrokens[frameTop] && column + sizes[i] > wordWrapColumn;
+                    frameIndents[frameTop + 1] = frameTop == 0
+                            ? frameIndents[0]
+                            : frameIndents[frameTop] + continuationIndentSize;
+                    frameBrokens[frameTop + 1] = broken;
+                    ++frameTop;
+                }
+                case TOKEN_END -> {
+                    if (frameTop > 0) {
+                        --frameTop;
+                    }
+                }
+                case TOKEN_BREAK -> {
+                    int indent = frameIndents[frameTop];
+                    // It is pointless to break if the break does not move the text leftwards.
+                    if (frameBrokens[frameTop] && column + sizes[i] > wordWrapColumn && column > indent) {
+                        output.append('\n').append(StringUtils.repeat(' ', indent));
+                        column = indent;
+                        delta += 1 + indent - text.length();
+                        if (remapping) {
+                            breakFlatPositions[breakCount] = flatPosition;
+                            breakDeltas[breakCount] = delta;
+                            ++breakCount;
+                        }
+                    } else {
+                        output.append(text);
+                        column += text.length();
+                    }
+                    flatPosition += text.length();
+                }
+                default -> {
+                    output.append(text);
+                    int index = text.lastIndexOf('\n');
+                    column = index < 0 ? column + text.length() : text.length() - index - 1;
+                    flatPosition += text.length();
+                }
+            }
+        }
+        if (remapping && breakCount > 0) {
+            for (int index : pendingStartIndexes) {
+                int position = sourceMap.getGeneratedStartPosition(index);
+                sourceMap.setGeneratedStartPosition(index, remap(
+                        position, lineStartPosition, breakFlatPositions, breakDeltas, breakCount));
+            }
+            for (int index : pendingEndIndexes) {
+                int position = sourceMap.getGeneratedEndPosition(index);
+                sourceMap.setGeneratedEndPosition(index, remap(
+                        position, lineStartPosition, breakFlatPositions, breakDeltas, breakCount));
+            }
+        }
+        return output.toString();
+    }
+
+    private int remap(
+            int position, int lineStartPosition,
+            int[] breakFlatPositions, int[] breakDeltas, int breakCount) {
+        int flatPosition = position - lineStartPosition;
+        if (flatPosition <= 0) {
+            return position;
+        }
+        // Find the last break before the flat position.
+        int low = 0;
+        int high = breakCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (breakFlatPositions[middle] < flatPosition) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return high < 0 ? position : position + breakDeltas[high];
+    }
+
+    private void settle(int[] sizes, boolean[] settled, int index, int rightTotal) {
+        if (!settled[index]) {
+            sizes[index] += rightTotal;
+            settled[index] = true;
+        }
+    }
+
+    @Override
+    public String toString() {
+        var totalLines = new ArrayList<>(lines);
+        totalLines.add(layout(-1));
+        return String.join(LINE_SEPARATOR, totalLines);
+    }
+}
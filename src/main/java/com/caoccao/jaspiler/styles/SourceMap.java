@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2023-2025. caoccao.com Sam Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.caoccao.jaspiler.styles;
+
+import com.caoccao.jaspiler.trees.JTPosition;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * The type Source map.
+ * It maps the generated ranges back to the original positions of the trees.
+ * The entries are recorded in pre-order during the serialization,
+ * so the generated start positions are in ascending order.
+ */
+public final class SourceMap {
+    public static final int ENTRY_SIZE = 4;
+    private static final int DEFAULT_CAPACITY = 64;
+    private int[] generatedPositions;
+    private JTPosition[] originalPositions;
+    private int size;
+
+    public SourceMap() {
+        generatedPositions = new int[DEFAULT_CAPACITY * 2];
+        originalPositions = new JTPosition[DEFAULT_CAPACITY];
+        size = 0;
+    }
+
+    public int add(int generatedStartPosition, JTPosition originalPosition) {
+        ensureCapacity(size + 1);
+        generatedPositions[size * 2] = generatedStartPosition;
+        generatedPositions[size * 2 + 1] = generatedStartPosition;
+        originalPositions[size] = Objects.requireNonNull(originalPosition);
+        return size++;
+    }
+
+    public SourceMap append(SourceMap sourceMap, int offset) {
+        if (sourceMap != null && sourceMap.size > 0) {
+            ensureCapacity(size + sourceMap.size);
+            for (int i = 0; i < sourceMap.size * 2; ++i) {
+                generatedPositions[size * 2 + i] = sourceMap.generatedPositions[i] + offset;
+            }
+            System.arraycopy(sourceMap.originalPositions, 0, originalPositions, size, sourceMap.size);
+            size += sourceMap.size;
+        }
+        return this;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > originalPositions.length) {
+            int newCapacity = Math.max(capacity, originalPositions.length * 2);
+            generatedPositions = Arrays.copyOf(generatedPositions, newCapacity * 2);
+            originalPositions = Arrays.copyOf(originalPositions, newCapacity);
+        }
+    }
+
+    /**
+     * Find the index of the innermost entry that covers the generated position.
+     *
+     * @param generatedPosition the generated position
+     * @return the index or -1 if not found
+     */
+    public int find(int generatedPosition) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (generatedPositions[middle * 2] <= generatedPosition) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        for (int i = high; i >= 0; --i) {
+            if (generatedPosition < generatedPositions[i * 2 + 1]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public int getGeneratedEndPosition(int index) {
+        return generatedPositions[Objects.checkIndex(index, size) * 2 + 1];
+    }
+
+    public int getGeneratedStartPosition(int index) {
+        return generatedPositions[Objects.checkIndex(index, size) * 2];
+    }
+
+    /**
+     * Gets the original offset of the generated position.
+     * If the generated range of the innermost entry has the same length as the original range,
+     * the code is treated as a verbatim copy and the offset within the range is preserved.
+     * Otherwise, the original start position of the innermost entry is returned.
+     *
+     * @param generatedPosition the generated position
+     * @return the original offset or -1 if not found
+     */
+    public long getOriginalOffset(int generatedPosition) {
+        int index = find(generatedPosition);
+        if (index < 0) {
+            return -1;
+        }
+        JTPosition originalPosition = originalPositions[index];
+        int generatedStartPosition = generatedPositions[index * 2];
+        if (generatedPositions[index * 2 + 1] - generatedStartPosition == originalPosition.length()) {
+            return originalPosition.startPosition() + generatedPosition - generatedStartPosition;
+        }
+        return originalPosition.startPosition();
+    }
+
+    public JTPosition getOriginalPosition(int index) {
+        return originalPositions[Objects.checkIndex(index, size)];
+    }
+
+    public JTPosition getOriginalPositionOf(int generatedPosition) {
+        int index = find(generatedPosition);
+        return index < 0 ? JTPosition.Invalid : originalPositions[index];
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public SourceMap setGeneratedEndPosition(int index, int generatedEndPosition) {
+        generatedPositions[Objects.checkIndex(index, size) * 2 + 1] = generatedEndPosition;
+        return this;
+    }
+
+    public SourceMap setGeneratedStartPosition(int index, int generatedStartPosition) {
+        generatedPositions[Objects.checkIndex(index, size) * 2] = generatedStartPosition;
+        return this;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Export the entries as a flat array of
+     * [generatedStart, generatedEnd, originalStart, originalEnd] per entry.
+     *
+     * @return the int array
+     */
+    public int[] toArray() {
+        int[] array = new int[size * ENTRY_SIZE];
+        for (int i = 0; i < size; ++i) {
+            array[i * ENTRY_SIZE] = generatedPositions[i * 2];
+            array[i * ENTRY_SIZE + 1] = generatedPositions[i * 2 + 1];
+            array[i * ENTRY_SIZE + 2] = (int) originalPositions[i].startPosition();
+            array[i * ENTRY_SIZE + 3] = (int) originalPositions[i].endPosition();
+        }
+        return array;
+    }
+}
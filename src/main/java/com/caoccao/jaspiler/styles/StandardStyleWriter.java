@@ -90,4 +90,12 @@ public class StandardStyleWriter extends BaseStyleWriter<StandardStyleWriter> {
     public StandardStyleWriter appendTypeSeparator() {
         return appendLineSeparator(2);
     }
+
+    @Override
+    public StandardStyleWriter createChildStyleWriter() {
+        var childStyleWriter = new StandardStyleWriter(options);
+        childStyleWriter.depth = depth;
+        childStyleWriter.sourceMap = sourceMap == null ? null : new SourceMap();
+        return childStyleWriter;
+    }
 }
@@ -16,24 +16,34 @@
 
 package com.caoccao.jaspiler.styles;
 
+import java.util.Objects;
+
 public final class StyleOptions {
     public static final StyleOptions Default = new StyleOptions().seal();
     private static final int DEFAULT_CONTINUATION_INDENT_SIZE = 8;
     private static final int DEFAULT_INDENT_SIZE = 4;
+    private static final int DEFAULT_PARALLEL_THRESHOLD = 8;
     private static final int DEFAULT_WORD_WRAP_COLUMN = 120;
     private static final int MAX_INDENT_SIZE = 100;
     private static final int MIN_INDENT_SIZE = 0;
+    private static final int MIN_PARALLEL_THRESHOLD = 2;
     private static final int MIN_WORD_WRAP_COLUMN = 60;
     private int continuationIndentSize;
     private int indentSize;
+    private boolean parallel;
+    private int parallelThreshold;
     private boolean preserveCopyrights;
     private boolean sealed;
+    private StyleType type;
     private int wordWrapColumn;
 
     public StyleOptions() {
         setContinuationIndentSize(DEFAULT_CONTINUATION_INDENT_SIZE);
         setIndentSize(DEFAULT_INDENT_SIZE);
+        setParallel(false);
+        setParallelThreshold(DEFAULT_PARALLEL_THRESHOLD);
         setPreserveCopyrights(true);
+        setType(StyleType.Standard);
         setWordWrapColumn(DEFAULT_WORD_WRAP_COLUMN);
     }
 
@@ -45,10 +55,26 @@ public final class StyleOptions {
         return indentSize;
     }
 
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    public StyleType getType() {
+        return type;
+    }
+
     public int getWordWrapColumn() {
         return wordWrapColumn;
     }
 
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    public boolean isParallel(int count) {
+        return parallel && count >= parallelThreshold;
+    }
+
     public boolean isPreserveCopyrights() {
         return preserveCopyrights;
     }
@@ -76,6 +102,20 @@ public final class StyleOptions {
         return this;
     }
 
+    public StyleOptions setParallel(boolean parallel) {
+        if (!sealed) {
+            this.parallel = parallel;
+        }
+        return this;
+    }
+
+    public StyleOptions setParallelThreshold(int parallelThreshold) {
+        if (!sealed) {
+            this.parallelThreshold = Math.max(parallelThreshold, MIN_PARALLEL_THRESHOLD);
+        }
+        return this;
+    }
+
     public StyleOptions setPreserveCopyrights(boolean preserveCopyrights) {
         if (!sealed) {
             this.preserveCopyrights = preserveCopyrights;
@@ -83,6 +123,13 @@ public final class StyleOptions {
         return this;
     }
 
+    public StyleOptions setType(StyleType type) {
+        if (!sealed) {
+            this.type = Objects.requireNonNull(type);
+        }
+        return this;
+    }
+
     public StyleOptions setWordWrapColumn(int wordWrapColumn) {
         if (!sealed) {
             this.wordWrapColumn = Math.max(wordWrapColumn, MIN_WORD_WRAP_COLUMN);
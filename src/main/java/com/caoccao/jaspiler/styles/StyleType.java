@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2023-2025. caoccao.com Sam Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.caoccao.jaspiler.styles;
+
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+public enum StyleType {
+    Pretty("pretty", PrettyStyleWriter::new),
+    Standard("standard", StandardStyleWriter::new);
+
+    private final String name;
+    private final Function<StyleOptions, StandardStyleWriter> styleWriterConstructor;
+
+    StyleType(String name, Function<StyleOptions, StandardStyleWriter> styleWriterConstructor) {
+        this.name = name;
+        this.styleWriterConstructor = styleWriterConstructor;
+    }
+
+    public static StyleType parse(String name) {
+        return Stream.of(values())
+                .filter(styleType -> styleType.getName().equalsIgnoreCase(name))
+                .findFirst()
+                .orElse(Standard);
+    }
+
+    public StandardStyleWriter createStyleWriter(StyleOptions options) {
+        return styleWriterConstructor.apply(Objects.requireNonNull(options));
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -86,8 +86,8 @@ public final class JTAnnotatedType
     public Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> proxyGetStringGetterMap() {
         if (stringGetterMap == null) {
             super.proxyGetStringGetterMap();
-            registerStringGetter(PROPERTY_ANNOTATIONS, propertyName -> v8Runtime.toV8Value(getAnnotations()));
-            registerStringGetter(PROPERTY_UNDERLYING_TYPE, propertyName -> v8Runtime.toV8Value(getUnderlyingType()));
+            registerTreeList(PROPERTY_ANNOTATIONS, annotations, JTAnnotation.class);
+            registerChildGetter(PROPERTY_UNDERLYING_TYPE, this::getUnderlyingType);
         }
         return stringGetterMap;
     }
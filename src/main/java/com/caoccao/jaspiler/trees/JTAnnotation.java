@@ -92,8 +92,8 @@ public final class JTAnnotation
     public Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> proxyGetStringGetterMap() {
         if (stringGetterMap == null) {
             super.proxyGetStringGetterMap();
-            registerStringGetter(PROPERTY_ANNOTATION_TYPE, propertyName -> v8Runtime.toV8Value(getAnnotationType()));
-            registerStringGetter(PROPERTY_ARGUMENTS, propertyName -> v8Runtime.toV8Value(getArguments()));
+            registerChildGetter(PROPERTY_ANNOTATION_TYPE, this::getAnnotationType);
+            registerTreeList(PROPERTY_ARGUMENTS, arguments, JTExpression.class);
         }
         return stringGetterMap;
     }
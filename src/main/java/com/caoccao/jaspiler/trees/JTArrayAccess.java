@@ -89,8 +89,8 @@ public final class JTArrayAccess
     public Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> proxyGetStringGetterMap() {
         if (stringGetterMap == null) {
             super.proxyGetStringGetterMap();
-            registerStringGetter(PROPERTY_EXPRESSION, propertyName -> v8Runtime.toV8Value(getExpression()));
-            registerStringGetter(PROPERTY_INDEX, propertyName -> v8Runtime.toV8Value(getIndex()));
+            registerChildGetter(PROPERTY_EXPRESSION, this::getExpression);
+            registerChildGetter(PROPERTY_INDEX, this::getIndex);
         }
         return stringGetterMap;
     }
@@ -78,7 +78,7 @@ public final class JTArrayType
     public Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> proxyGetStringGetterMap() {
         if (stringGetterMap == null) {
             super.proxyGetStringGetterMap();
-            registerStringGetter(PROPERTY_TYPE, propertyName -> v8Runtime.toV8Value(getType()));
+            registerChildGetter(PROPERTY_TYPE, this::getType);
         }
         return stringGetterMap;
     }
@@ -88,8 +88,8 @@ public final class JTAssert
     public Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> proxyGetStringGetterMap() {
         if (stringGetterMap == null) {
             super.proxyGetStringGetterMap();
-            registerStringGetter(PROPERTY_CONDITION, propertyName -> v8Runtime.toV8Value(getCondition()));
-            registerStringGetter(PROPERTY_DETAIL, propertyName -> v8Runtime.toV8Value(getDetail()));
+            registerChildGetter(PROPERTY_CONDITION, this::getCondition);
+            registerChildGetter(PROPERTY_DETAIL, this::getDetail);
         }
         return stringGetterMap;
     }
@@ -88,8 +88,8 @@ public final class JTAssign
     public Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> proxyGetStringGetterMap() {
         if (stringGetterMap == null) {
             super.proxyGetStringGetterMap();
-            registerStringGetter(PROPERTY_EXPRESSION, propertyName -> v8Runtime.toV8Value(getExpression()));
-            registerStringGetter(PROPERTY_VARIABLE, propertyName -> v8Runtime.toV8Value(getVariable()));
+            registerChildGetter(PROPERTY_EXPRESSION, this::getExpression);
+            registerChildGetter(PROPERTY_VARIABLE, this::getVariable);
         }
         return stringGetterMap;
     }
@@ -93,8 +93,8 @@ public final class JTBinary
     public Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> proxyGetStringGetterMap() {
         if (stringGetterMap == null) {
             super.proxyGetStringGetterMap();
-            registerStringGetter(PROPERTY_LEFT_OPERAND, propertyName -> v8Runtime.toV8Value(getLeftOperand()));
-            registerStringGetter(PROPERTY_RIGHT_OPERAND, propertyName -> v8Runtime.toV8Value(getRightOperand()));
+            registerChildGetter(PROPERTY_LEFT_OPERAND, this::getLeftOperand);
+            registerChildGetter(PROPERTY_RIGHT_OPERAND, this::getRightOperand);
         }
         return stringGetterMap;
     }
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2023-2025. caoccao.com Sam Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.caoccao.jaspiler.trees;
+
+import com.sun.source.tree.*;
+
+import java.util.*;
+
+/**
+ * The type Jt binary ast encodes a tree into flat integer records in one pass,
+ * so that read-only analysis can walk the whole tree without calling back into Java.
+ * <p>
+ * The nodes are laid out in pre-order with {@link #STRIDE} integers per node.
+ * The descendants of a node are in the range of (index, end),
+ * so the children are iterated by jumping from one child to the end of it.
+ * The kinds, the names and the literal values are indexes of the string table, -1 for absent.
+ * The string table is encoded as one string and the offsets of the strings in it.
+ */
+public final class JTBinaryAst {
+    public static final int FIELD_COLUMN_NUMBER = 6;
+    public static final int FIELD_END = 2;
+    public static final int FIELD_END_POSITION = 4;
+    public static final int FIELD_KIND = 0;
+    public static final int FIELD_LINE_NUMBER = 5;
+    public static final int FIELD_NAME = 7;
+    public static final int FIELD_PARENT = 1;
+    public static final int FIELD_START_POSITION = 3;
+    public static final int FIELD_VALUE = 8;
+    public static final int STRIDE = 9;
+    private final int nodeCount;
+    private final int[] nodes;
+    private final String stringData;
+    private final int[] stringOffsets;
+
+    private JTBinaryAst(int nodeCount, int[] nodes, String stringData, int[] stringOffsets) {
+        this.nodeCount = nodeCount;
+        this.nodes = nodes;
+        this.stringData = stringData;
+        this.stringOffsets = stringOffsets;
+    }
+
+    /**
+     * Encode the tree.
+     *
+     * @param tree the root tree
+     * @return the binary ast
+     */
+    public static JTBinaryAst encode(JTTree<?, ?> tree) {
+        var encoder = new Encoder();
+        encoder.encode(Objects.requireNonNull(tree), -1);
+        return encoder.toBinaryAst();
+    }
+
+    private static Object getName(JTTree<?, ?> tree) {
+        if (tree instanceof IdentifierTree identifierTree) {
+            return identifierTree.getName();
+        } else if (tree instanceof MemberSelectTree memberSelectTree) {
+            return memberSelectTree.getIdentifier();
+        } else if (tree instanceof ClassTree classTree) {
+            return classTree.getSimpleName();
+        } else if (tree instanceof MethodTree methodTree) {
+            return methodTree.getName();
+        } else if (tree instanceof VariableTree variableTree) {
+            return variableTree.getName();
+        } else if (tree instanceof TypeParameterTree typeParameterTree) {
+            return typeParameterTree.getName();
+        } else if (tree instanceof MemberReferenceTree memberReferenceTree) {
+            return memberReferenceTree.getName();
+        } else if (tree instanceof LabeledStatementTree labeledStatementTree) {
+            return labeledStatementTree.getLabel();
+        } else if (tree instanceof BreakTree breakTree) {
+            return breakTree.getLabel();
+        } else if (tree instanceof ContinueTree continueTree) {
+            return continueTree.getLabel();
+        } else if (tree instanceof PrimitiveTypeTree primitiveTypeTree) {
+            return primitiveTypeTree.getPrimitiveTypeKind();
+        }
+        return null;
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public int[] getNodes() {
+        return nodes;
+    }
+
+    public String getString(int index) {
+        return index < 0 ? null : stringData.substring(stringOffsets[index], stringOffsets[index + 1]);
+    }
+
+    public int getStringCount() {
+        return stringOffsets.length - 1;
+    }
+
+    public String getStringData() {
+        return stringData;
+    }
+
+    public int[] getStringOffsets() {
+        return stringOffsets;
+    }
+
+    private static final class Encoder {
+        private final StringBuilder stringData;
+        private final Map<String, Integer> stringIndexMap;
+        private final List<Integer> stringOffsets;
+        private int nodeCount;
+        private int[] nodes;
+
+        public Encoder() {
+            nodeCount = 0;
+            nodes = new int[STRIDE * 256];
+            stringData = new StringBuilder();
+            stringIndexMap = new HashMap<>();
+            stringOffsets = new ArrayList<>();
+            stringOffsets.add(0);
+        }
+
+        public void encode(JTTree<?, ?> tree, int parentIndex) {
+            final int index = nodeCount++;
+            if (nodes.length < nodeCount * STRIDE) {
+                nodes = Arrays.copyOf(nodes, nodes.length * 2);
+            }
+            final int offset = index * STRIDE;
+            var position = tree.getOriginalPosition();
+            if (position == null) {
+                position = JTPosition.Invalid;
+            }
+            nodes[offset + FIELD_KIND] = indexOf(tree.getKind().name());
+            nodes[offset + FIELD_PARENT] = parentIndex;
+            nodes[offset + FIELD_START_POSITION] = (int) position.startPosition();
+            nodes[offset + FIELD_END_POSITION] = (int) position.endPosition();
+            nodes[offset + FIELD_LINE_NUMBER] = (int) position.lineNumber();
+            nodes[offset + FIELD_COLUMN_NUMBER] = (int) position.columnNumber();
+            nodes[offset + FIELD_NAME] = indexOf(getName(tree));
+            nodes[offset + FIELD_VALUE] = tree instanceof LiteralTree literalTree
+                    ? indexOf(literalTree.getValue())
+                    : -1;
+            for (var childTree : tree.getAllNodes()) {
+                if (childTree != null) {
+                    encode(childTree, index);
+                }
+            }
+            // The nodes array might have been reallocated by the children.
+            nodes[offset + FIELD_END] = nodeCount;
+        }
+
+        private int indexOf(Object object) {
+            if (object == null) {
+                return -1;
+            }
+            return stringIndexMap.computeIfAbsent(object.toString(), string -> {
+                stringData.append(string);
+                stringOffsets.add(stringData.length());
+                return stringIndexMap.size();
+            });
+        }
+
+        public JTBinaryAst toBinaryAst() {
+            return new JTBinaryAst(
+                    nodeCount,
+                    Arrays.copyOf(nodes, nodeCount * STRIDE),
+                    stringData.toString(),
+                    stringOffsets.stream().mapToInt(Integer::intValue).toArray());
+        }
+    }
+}
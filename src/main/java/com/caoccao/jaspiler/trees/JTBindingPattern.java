@@ -78,7 +78,7 @@ public final class JTBindingPattern
     public Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> proxyGetStringGetterMap() {
         if (stringGetterMap == null) {
             super.proxyGetStringGetterMap();
-            registerStringGetter(PROPERTY_VARIABLE, propertyName -> v8Runtime.toV8Value(getVariable()));
+            registerChildGetter(PROPERTY_VARIABLE, this::getVariable);
         }
         return stringGetterMap;
     }
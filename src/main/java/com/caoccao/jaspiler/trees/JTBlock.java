@@ -90,7 +90,7 @@ public final class JTBlock
     public Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> proxyGetStringGetterMap() {
         if (stringGetterMap == null) {
             super.proxyGetStringGetterMap();
-            registerStringGetter(PROPERTY_STATEMENTS, propertyName -> v8Runtime.toV8Value(getStatements()));
+            registerTreeList(PROPERTY_STATEMENTS, statements, JTStatement.class);
             registerStringGetter(PROPERTY_STATIC, propertyName -> v8Runtime.createV8ValueBoolean(isStatic()));
         }
         return stringGetterMap;
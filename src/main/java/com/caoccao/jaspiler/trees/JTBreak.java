@@ -60,7 +60,7 @@ public final class JTBreak
     public Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> proxyGetStringGetterMap() {
         if (stringGetterMap == null) {
             super.proxyGetStringGetterMap();
-            registerStringGetter(PROPERTY_LABEL, propertyName -> v8Runtime.toV8Value(getLabel()));
+            registerChildGetter(PROPERTY_LABEL, this::getLabel);
         }
         return stringGetterMap;
     }
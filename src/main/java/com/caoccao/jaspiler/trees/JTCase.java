@@ -132,10 +132,10 @@ public final class JTCase
     public Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> proxyGetStringGetterMap() {
         if (stringGetterMap == null) {
             super.proxyGetStringGetterMap();
-            registerStringGetter(PROPERTY_BODY, propertyName -> v8Runtime.toV8Value(getBody()));
+            registerChildGetter(PROPERTY_BODY, this::getBody);
             registerStringGetter(PROPERTY_CASE_KIND, propertyName -> v8Runtime.createV8ValueString(getCaseKind().name()));
-            registerStringGetter(PROPERTY_LABELS, propertyName -> v8Runtime.toV8Value(getLabels()));
-            registerStringGetter(PROPERTY_STATEMENTS, propertyName -> v8Runtime.toV8Value(getStatements()));
+            registerTreeList(PROPERTY_LABELS, labels, JTCaseLabel.class);
+            registerTreeList(PROPERTY_STATEMENTS, statements, JTStatement.class);
         }
         return stringGetterMap;
     }
@@ -90,8 +90,8 @@ public final class JTCatch
     public Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> proxyGetStringGetterMap() {
         if (stringGetterMap == null) {
             super.proxyGetStringGetterMap();
-            registerStringGetter(PROPERTY_BLOCK, propertyName -> v8Runtime.toV8Value(getBlock()));
-            registerStringGetter(PROPERTY_PARAMETER, propertyName -> v8Runtime.toV8Value(getParameter()));
+            registerChildGetter(PROPERTY_BLOCK, this::getBlock);
+            registerChildGetter(PROPERTY_PARAMETER, this::getParameter);
         }
         return stringGetterMap;
     }
@@ -146,13 +146,13 @@ public final class JTClassDecl
     public Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> proxyGetStringGetterMap() {
         if (stringGetterMap == null) {
             super.proxyGetStringGetterMap();
-            registerStringGetter(PROPERTY_EXTENDS_CLAUSE, propertyName -> v8Runtime.toV8Value(getExtendsClause()));
-            registerStringGetter(PROPERTY_IMPLEMENTS_CLAUSES, propertyName -> v8Runtime.toV8Value(getImplementsClause()));
-            registerStringGetter(PROPERTY_MEMBERS, propertyName -> v8Runtime.toV8Value(getMembers()));
-            registerStringGetter(PROPERTY_MODIFIERS, propertyName -> v8Runtime.toV8Value(getModifiers()));
-            registerStringGetter(PROPERTY_PERMITS_CLAUSES, propertyName -> v8Runtime.toV8Value(getPermitsClause()));
-            registerStringGetter(PROPERTY_SIMPLE_NAME, propertyName -> v8Runtime.toV8Value(getSimpleName()));
-            registerStringGetter(PROPERTY_TYPE_PARAMETERS, propertyName -> v8Runtime.toV8Value(getTypeParameters()));
+            registerChildGetter(PROPERTY_EXTENDS_CLAUSE, this::getExtendsClause);
+            registerTreeList(PROPERTY_IMPLEMENTS_CLAUSES, implementsClauses, JTExpression.class);
+            registerTreeList(PROPERTY_MEMBERS, members, JTTree.class);
+            registerChildGetter(PROPERTY_MODIFIERS, this::getModifiers);
+            registerTreeList(PROPERTY_PERMITS_CLAUSES, permitsClauses, JTExpression.class);
+            registerChildGetter(PROPERTY_SIMPLE_NAME, this::getSimpleName);
+            registerTreeList(PROPERTY_TYPE_PARAMETERS, typeParameters, JTTypeParameter.class);
         }
         return stringGetterMap;
     }
@@ -211,10 +211,12 @@ public final class JTClassDecl
                     tree -> writer.appendComma().appendSpace(),
                     trees -> writer.appendKeyword(JavaKeyword.PERMITS).appendSpace());
             writer.appendSpaceIfNeeded().appendClassOpen();
-            ForEachUtils.forEach(
+            writer.appendTrees(
                     members.stream().filter(Objects::nonNull).filter(tree -> !tree.isActionIgnore()).toList(),
-                    tree -> writer.appendIndent().append(tree).appendLineSeparator(),
-                    tree -> writer.appendLineSeparator());
+                    (styleWriter, tree) -> styleWriter.appendIndent().append(tree).appendLineSeparator(),
+                    tree -> writer.appendLineSeparator(),
+                    null,
+                    null);
             writer.decreaseDepth();
             writer.appendClassClose();
             return true;
@@ -215,11 +215,11 @@ public final class JTCompilationUnit
     public Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> proxyGetStringGetterMap() {
         if (stringGetterMap == null) {
             super.proxyGetStringGetterMap();
-            registerStringGetter(PROPERTY_IMPORTS, propertyName -> v8Runtime.toV8Value(getImports()));
-            registerStringGetter(PROPERTY_MODULE, propertyName -> v8Runtime.toV8Value(getModule()));
-            registerStringGetter(PROPERTY_PACKAGE, propertyName -> v8Runtime.toV8Value(getPackage()));
+            registerTreeList(PROPERTY_IMPORTS, imports, JTImport.class);
+            registerChildGetter(PROPERTY_MODULE, this::getModule);
+            registerChildGetter(PROPERTY_PACKAGE, this::getPackage);
             registerStringGetter(PROPERTY_SOURCE_FILE, propertyName -> v8Runtime.createV8ValueString(getSourceFile().getName()));
-            registerStringGetter(PROPERTY_TYPE_DECLS, propertyName -> v8Runtime.toV8Value(getTypeDecls()));
+            registerTreeList(PROPERTY_TYPE_DECLS, typeDecls, JTTree.class);
         }
         return stringGetterMap;
     }
@@ -251,9 +251,13 @@ public final class JTCompilationUnit
                     tree -> writer.appendLineSeparator(),
                     trees -> writer.appendLineSeparator(),
                     trees -> writer.appendLineSeparator());
-            ForEachUtils.forEach(
+            if (writer.getOptions().isParallel()) {
+                // The original code is lazily loaded and it is loaded ahead to avoid the race condition.
+                getOriginalCode();
+            }
+            writer.appendTrees(
                     typeDecls.stream().filter(Objects::nonNull).filter(tree -> !tree.isActionIgnore()).toList(),
-                    writer::append,
+                    IStyleWriter::append,
                     tree -> writer.appendTypeSeparator(),
                     trees -> writer.appendLineSeparator(),
                     trees -> writer.appendLineSeparator());
@@ -98,9 +98,9 @@ public final class JTConditional
     public Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> proxyGetStringGetterMap() {
         if (stringGetterMap == null) {
             super.proxyGetStringGetterMap();
-            registerStringGetter(PROPERTY_CONDITION, propertyName -> v8Runtime.toV8Value(getCondition()));
-            registerStringGetter(PROPERTY_FALSE_EXPRESSION, propertyName -> v8Runtime.toV8Value(getFalseExpression()));
-            registerStringGetter(PROPERTY_TRUE_EXPRESSION, propertyName -> v8Runtime.toV8Value(getTrueExpression()));
+            registerChildGetter(PROPERTY_CONDITION, this::getCondition);
+            registerChildGetter(PROPERTY_FALSE_EXPRESSION, this::getFalseExpression);
+            registerChildGetter(PROPERTY_TRUE_EXPRESSION, this::getTrueExpression);
         }
         return stringGetterMap;
     }
@@ -75,7 +75,7 @@ public final class JTErroneous
     public Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> proxyGetStringGetterMap() {
         if (stringGetterMap == null) {
             super.proxyGetStringGetterMap();
-            registerStringGetter(PROPERTY_ERROR_TREES, propertyName -> v8Runtime.toV8Value(getErrorTrees()));
+            registerTreeList(PROPERTY_ERROR_TREES, errorTrees, JTTree.class);
         }
         return stringGetterMap;
     }
@@ -86,8 +86,8 @@ public final class JTExports
     public Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> proxyGetStringGetterMap() {
         if (stringGetterMap == null) {
             super.proxyGetStringGetterMap();
-            registerStringGetter(PROPERTY_MODULE_NAMES, propertyName -> v8Runtime.toV8Value(getModuleNames()));
-            registerStringGetter(PROPERTY_PACKAGE_NAME, propertyName -> v8Runtime.toV8Value(getPackageName()));
+            registerTreeList(PROPERTY_MODULE_NAMES, moduleNames, JTExpression.class);
+            registerChildGetter(PROPERTY_PACKAGE_NAME, this::getPackageName);
         }
         return stringGetterMap;
     }
@@ -78,7 +78,7 @@ public final class JTExpressionStatement
     public Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> proxyGetStringGetterMap() {
         if (stringGetterMap == null) {
             super.proxyGetStringGetterMap();
-            registerStringGetter(PROPERTY_EXPRESSION, propertyName -> v8Runtime.toV8Value(getExpression()));
+            registerChildGetter(PROPERTY_EXPRESSION, this::getExpression);
         }
         return stringGetterMap;
     }
@@ -92,8 +92,8 @@ public final class JTFieldAccess
     public Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> proxyGetStringGetterMap() {
         if (stringGetterMap == null) {
             super.proxyGetStringGetterMap();
-            registerStringGetter(PROPERTY_EXPRESSION, propertyName -> v8Runtime.toV8Value(getExpression()));
-            registerStringGetter(PROPERTY_IDENTIFIER, propertyName -> v8Runtime.toV8Value(getIdentifier()));
+            registerChildGetter(PROPERTY_EXPRESSION, this::getExpression);
+            registerChildGetter(PROPERTY_IDENTIFIER, this::getIdentifier);
         }
         return stringGetterMap;
     }
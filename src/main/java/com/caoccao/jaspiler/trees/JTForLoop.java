@@ -107,10 +107,10 @@ public final class JTForLoop
     public Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> proxyGetStringGetterMap() {
         if (stringGetterMap == null) {
             super.proxyGetStringGetterMap();
-            registerStringGetter(PROPERTY_CONDITION, propertyName -> v8Runtime.toV8Value(getCondition()));
-            registerStringGetter(PROPERTY_INITIALIZER, propertyName -> v8Runtime.toV8Value(getInitializer()));
-            registerStringGetter(PROPERTY_STATEMENT, propertyName -> v8Runtime.toV8Value(getStatement()));
-            registerStringGetter(PROPERTY_UPDATE, propertyName -> v8Runtime.toV8Value(getUpdate()));
+            registerChildGetter(PROPERTY_CONDITION, this::getCondition);
+            registerTreeList(PROPERTY_INITIALIZER, initializer, JTStatement.class);
+            registerChildGetter(PROPERTY_STATEMENT, this::getStatement);
+            registerTreeList(PROPERTY_UPDATE, update, JTExpressionStatement.class);
         }
         return stringGetterMap;
     }
@@ -74,7 +74,7 @@ public final class JTIdent
     public Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> proxyGetStringGetterMap() {
         if (stringGetterMap == null) {
             super.proxyGetStringGetterMap();
-            registerStringGetter(PROPERTY_NAME, propertyName -> v8Runtime.toV8Value(getName()));
+            registerChildGetter(PROPERTY_NAME, this::getName);
         }
         return stringGetterMap;
     }
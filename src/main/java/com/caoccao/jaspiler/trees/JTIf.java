@@ -98,9 +98,9 @@ public final class JTIf
     public Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> proxyGetStringGetterMap() {
         if (stringGetterMap == null) {
             super.proxyGetStringGetterMap();
-            registerStringGetter(PROPERTY_CONDITION, propertyName -> v8Runtime.toV8Value(getCondition()));
-            registerStringGetter(PROPERTY_ELSE_STATEMENT, propertyName -> v8Runtime.toV8Value(getElseStatement()));
-            registerStringGetter(PROPERTY_THEN_STATEMENT, propertyName -> v8Runtime.toV8Value(getThenStatement()));
+            registerChildGetter(PROPERTY_CONDITION, this::getCondition);
+            registerChildGetter(PROPERTY_ELSE_STATEMENT, this::getElseStatement);
+            registerChildGetter(PROPERTY_THEN_STATEMENT, this::getThenStatement);
         }
         return stringGetterMap;
     }
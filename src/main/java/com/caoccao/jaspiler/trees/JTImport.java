@@ -89,7 +89,7 @@ public final class JTImport
     public Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> proxyGetStringGetterMap() {
         if (stringGetterMap == null) {
             super.proxyGetStringGetterMap();
-            registerStringGetter(PROPERTY_QUALIFIED_IDENTIFIER, propertyName -> v8Runtime.toV8Value(getQualifiedIdentifier()));
+            registerChildGetter(PROPERTY_QUALIFIED_IDENTIFIER, this::getQualifiedIdentifier);
             registerStringGetter(PROPERTY_STATIC_IMPORT, propertyName -> v8Runtime.createV8ValueBoolean(isStatic()));
         }
         return stringGetterMap;
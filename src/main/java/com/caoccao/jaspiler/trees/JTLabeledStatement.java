@@ -87,8 +87,8 @@ public final class JTLabeledStatement
     public Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> proxyGetStringGetterMap() {
         if (stringGetterMap == null) {
             super.proxyGetStringGetterMap();
-            registerStringGetter(PROPERTY_LABEL, propertyName -> v8Runtime.toV8Value(getLabel()));
-            registerStringGetter(PROPERTY_STATEMENT, propertyName -> v8Runtime.toV8Value(getStatement()));
+            registerChildGetter(PROPERTY_LABEL, this::getLabel);
+            registerChildGetter(PROPERTY_STATEMENT, this::getStatement);
         }
         return stringGetterMap;
     }
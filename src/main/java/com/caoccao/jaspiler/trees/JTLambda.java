@@ -96,9 +96,9 @@ public final class JTLambda
     public Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> proxyGetStringGetterMap() {
         if (stringGetterMap == null) {
             super.proxyGetStringGetterMap();
-            registerStringGetter(PROPERTY_BODY, propertyName -> v8Runtime.toV8Value(getBody()));
+            registerChildGetter(PROPERTY_BODY, this::getBody);
             registerStringGetter(PROPERTY_BODY_KIND, propertyName -> v8Runtime.createV8ValueString(getBodyKind().name()));
-            registerStringGetter(PROPERTY_PARAMETERS, propertyName -> v8Runtime.toV8Value(getParameters()));
+            registerTreeList(PROPERTY_PARAMETERS, parameters, JTVariableDecl.class);
         }
         return stringGetterMap;
     }
@@ -106,9 +106,9 @@ public final class JTMemberReference
         if (stringGetterMap == null) {
             super.proxyGetStringGetterMap();
             registerStringGetter(PROPERTY_MODE, propertyName -> v8Runtime.createV8ValueString(getMode().name()));
-            registerStringGetter(PROPERTY_NAME, propertyName -> v8Runtime.toV8Value(getName()));
-            registerStringGetter(PROPERTY_QUALIFIED_EXPRESSION, propertyName -> v8Runtime.toV8Value(getQualifierExpression()));
-            registerStringGetter(PROPERTY_TYPE_ARGUMENTS, propertyName -> v8Runtime.toV8Value(getTypeArguments()));
+            registerChildGetter(PROPERTY_NAME, this::getName);
+            registerChildGetter(PROPERTY_QUALIFIED_EXPRESSION, this::getQualifierExpression);
+            registerTreeList(PROPERTY_TYPE_ARGUMENTS, typeArguments, JTExpression.class);
         }
         return stringGetterMap;
     }
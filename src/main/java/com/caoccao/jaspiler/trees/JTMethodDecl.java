@@ -163,15 +163,15 @@ public final class JTMethodDecl
     public Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> proxyGetStringGetterMap() {
         if (stringGetterMap == null) {
             super.proxyGetStringGetterMap();
-            registerStringGetter(PROPERTY_BODY, propertyName -> v8Runtime.toV8Value(getBody()));
-            registerStringGetter(PROPERTY_DEFAULT_VALUE, propertyName -> v8Runtime.toV8Value(getDefaultValue()));
-            registerStringGetter(PROPERTY_MODIFIERS, propertyName -> v8Runtime.toV8Value(getModifiers()));
-            registerStringGetter(PROPERTY_NAME, propertyName -> v8Runtime.toV8Value(getName()));
-            registerStringGetter(PROPERTY_PARAMETERS, propertyName -> v8Runtime.toV8Value(getParameters()));
-            registerStringGetter(PROPERTY_RECEIVER_PARAMETER, propertyName -> v8Runtime.toV8Value(getReceiverParameter()));
-            registerStringGetter(PROPERTY_RETURN_TYPE, propertyName -> v8Runtime.toV8Value(getReturnType()));
-            registerStringGetter(PROPERTY_THROW_EXPRESSIONS, propertyName -> v8Runtime.toV8Value(getThrows()));
-            registerStringGetter(PROPERTY_TYPE_PARAMETERS, propertyName -> v8Runtime.toV8Value(getTypeParameters()));
+            registerChildGetter(PROPERTY_BODY, this::getBody);
+            registerChildGetter(PROPERTY_DEFAULT_VALUE, this::getDefaultValue);
+            registerChildGetter(PROPERTY_MODIFIERS, this::getModifiers);
+            registerChildGetter(PROPERTY_NAME, this::getName);
+            registerTreeList(PROPERTY_PARAMETERS, parameters, JTVariableDecl.class);
+            registerChildGetter(PROPERTY_RECEIVER_PARAMETER, this::getReceiverParameter);
+            registerChildGetter(PROPERTY_RETURN_TYPE, this::getReturnType);
+            registerTreeList(PROPERTY_THROW_EXPRESSIONS, throwExpressions, JTExpression.class);
+            registerTreeList(PROPERTY_TYPE_PARAMETERS, typeParameters, JTTypeParameter.class);
         }
         return stringGetterMap;
     }
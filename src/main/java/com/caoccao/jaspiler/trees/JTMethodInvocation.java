@@ -97,9 +97,9 @@ public final class JTMethodInvocation
     public Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> proxyGetStringGetterMap() {
         if (stringGetterMap == null) {
             super.proxyGetStringGetterMap();
-            registerStringGetter(PROPERTY_ARGUMENTS, propertyName -> v8Runtime.toV8Value(getArguments()));
-            registerStringGetter(PROPERTY_METHOD_SELECT, propertyName -> v8Runtime.toV8Value(getMethodSelect()));
-            registerStringGetter(PROPERTY_TYPE_ARGUMENTS, propertyName -> v8Runtime.toV8Value(getTypeArguments()));
+            registerTreeList(PROPERTY_ARGUMENTS, arguments, JTExpression.class);
+            registerChildGetter(PROPERTY_METHOD_SELECT, this::getMethodSelect);
+            registerTreeList(PROPERTY_TYPE_ARGUMENTS, typeArguments, JTExpression.class);
         }
         return stringGetterMap;
     }
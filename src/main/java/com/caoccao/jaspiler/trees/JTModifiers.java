@@ -100,7 +100,7 @@ public final class JTModifiers
     public Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> proxyGetStringGetterMap() {
         if (stringGetterMap == null) {
             super.proxyGetStringGetterMap();
-            registerStringGetter(PROPERTY_ANNOTATIONS, propertyName -> v8Runtime.toV8Value(getAnnotations()));
+            registerTreeList(PROPERTY_ANNOTATIONS, annotations, JTAnnotation.class);
             registerStringGetter(PROPERTY_FLAGS, propertyName -> v8Runtime.toV8Value(getFlags().stream()
                     .map(Modifier::toString)
                     .toList()));
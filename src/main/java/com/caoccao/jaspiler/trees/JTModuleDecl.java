@@ -110,9 +110,9 @@ public final class JTModuleDecl
     public Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> proxyGetStringGetterMap() {
         if (stringGetterMap == null) {
             super.proxyGetStringGetterMap();
-            registerStringGetter(PROPERTY_ANNOTATIONS, propertyName -> v8Runtime.toV8Value(getAnnotations()));
-            registerStringGetter(PROPERTY_DIRECTIVES, propertyName -> v8Runtime.toV8Value(getDirectives()));
-            registerStringGetter(PROPERTY_NAME, propertyName -> v8Runtime.toV8Value(getName()));
+            registerTreeList(PROPERTY_ANNOTATIONS, annotations, JTAnnotation.class);
+            registerTreeList(PROPERTY_DIRECTIVES, directives, JTDirective.class);
+            registerChildGetter(PROPERTY_NAME, this::getName);
         }
         return stringGetterMap;
     }
@@ -123,11 +123,11 @@ public final class JTNewArray
     public Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> proxyGetStringGetterMap() {
         if (stringGetterMap == null) {
             super.proxyGetStringGetterMap();
-            registerStringGetter(PROPERTY_ANNOTATIONS, propertyName -> v8Runtime.toV8Value(getAnnotations()));
-            registerStringGetter(PROPERTY_DIM_ANNOTATIONS, propertyName -> v8Runtime.toV8Value(getDimAnnotations()));
-            registerStringGetter(PROPERTY_DIMENSIONS, propertyName -> v8Runtime.toV8Value(getDimensions()));
-            registerStringGetter(PROPERTY_INITIALIZERS, propertyName -> v8Runtime.toV8Value(getInitializers()));
-            registerStringGetter(PROPERTY_TYPE, propertyName -> v8Runtime.toV8Value(getType()));
+            registerTreeList(PROPERTY_ANNOTATIONS, annotations, JTAnnotation.class);
+            registerChildGetter(PROPERTY_DIM_ANNOTATIONS, this::getDimAnnotations);
+            registerTreeList(PROPERTY_DIMENSIONS, dimensions, JTExpression.class);
+            registerTreeList(PROPERTY_INITIALIZERS, initializers, JTExpression.class);
+            registerChildGetter(PROPERTY_TYPE, this::getType);
         }
         return stringGetterMap;
     }
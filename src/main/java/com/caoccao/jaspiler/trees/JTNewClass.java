@@ -117,11 +117,11 @@ public final class JTNewClass
     public Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> proxyGetStringGetterMap() {
         if (stringGetterMap == null) {
             super.proxyGetStringGetterMap();
-            registerStringGetter(PROPERTY_ARGUMENTS, propertyName -> v8Runtime.toV8Value(getArguments()));
-            registerStringGetter(PROPERTY_CLASS_BODY, propertyName -> v8Runtime.toV8Value(getClassBody()));
-            registerStringGetter(PROPERTY_ENCLOSING_EXPRESSION, propertyName -> v8Runtime.toV8Value(getEnclosingExpression()));
-            registerStringGetter(PROPERTY_IDENTIFIER, propertyName -> v8Runtime.toV8Value(getIdentifier()));
-            registerStringGetter(PROPERTY_TYPE_ARGUMENTS, propertyName -> v8Runtime.toV8Value(getTypeArguments()));
+            registerTreeList(PROPERTY_ARGUMENTS, arguments, JTExpression.class);
+            registerChildGetter(PROPERTY_CLASS_BODY, this::getClassBody);
+            registerChildGetter(PROPERTY_ENCLOSING_EXPRESSION, this::getEnclosingExpression);
+            registerChildGetter(PROPERTY_IDENTIFIER, this::getIdentifier);
+            registerTreeList(PROPERTY_TYPE_ARGUMENTS, typeArguments, JTExpression.class);
         }
         return stringGetterMap;
     }
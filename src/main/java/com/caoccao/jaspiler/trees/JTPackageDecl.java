@@ -92,8 +92,8 @@ public final class JTPackageDecl
     public Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> proxyGetStringGetterMap() {
         if (stringGetterMap == null) {
             super.proxyGetStringGetterMap();
-            registerStringGetter(PROPERTY_ANNOTATIONS, propertyName -> v8Runtime.toV8Value(getAnnotations()));
-            registerStringGetter(PROPERTY_PACKAGE_NAME, propertyName -> v8Runtime.toV8Value(getPackageName()));
+            registerTreeList(PROPERTY_ANNOTATIONS, annotations, JTAnnotation.class);
+            registerChildGetter(PROPERTY_PACKAGE_NAME, this::getPackageName);
         }
         return stringGetterMap;
     }
@@ -79,7 +79,7 @@ public final class JTParenthesizedPattern
     public Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> proxyGetStringGetterMap() {
         if (stringGetterMap == null) {
             super.proxyGetStringGetterMap();
-            registerStringGetter(PROPERTY_PATTERN, propertyName -> v8Runtime.toV8Value(getPattern()));
+            registerChildGetter(PROPERTY_PATTERN, this::getPattern);
         }
         return stringGetterMap;
     }
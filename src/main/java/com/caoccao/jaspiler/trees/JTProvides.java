@@ -86,8 +86,8 @@ public final class JTProvides
     public Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> proxyGetStringGetterMap() {
         if (stringGetterMap == null) {
             super.proxyGetStringGetterMap();
-            registerStringGetter(PROPERTY_IMPLEMENTATION_NAMES, propertyName -> v8Runtime.toV8Value(getImplementationNames()));
-            registerStringGetter(PROPERTY_SERVICE_NAME, propertyName -> v8Runtime.toV8Value(getServiceName()));
+            registerTreeList(PROPERTY_IMPLEMENTATION_NAMES, implementationNames, JTExpression.class);
+            registerChildGetter(PROPERTY_SERVICE_NAME, this::getServiceName);
         }
         return stringGetterMap;
     }
@@ -96,7 +96,7 @@ public final class JTRequires
     public Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> proxyGetStringGetterMap() {
         if (stringGetterMap == null) {
             super.proxyGetStringGetterMap();
-            registerStringGetter(PROPERTY_MODULE_NAME, propertyName -> v8Runtime.toV8Value(getModuleName()));
+            registerChildGetter(PROPERTY_MODULE_NAME, this::getModuleName);
             registerStringGetter(PROPERTY_STATIC, propertyName -> v8Runtime.createV8ValueBoolean(isStatic()));
             registerStringGetter(PROPERTY_TRANSITIVE, propertyName -> v8Runtime.createV8ValueBoolean(isTransitive()));
         }
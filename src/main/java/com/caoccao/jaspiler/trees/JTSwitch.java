@@ -86,8 +86,8 @@ public final class JTSwitch
     public Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> proxyGetStringGetterMap() {
         if (stringGetterMap == null) {
             super.proxyGetStringGetterMap();
-            registerStringGetter(PROPERTY_CASES, propertyName -> v8Runtime.toV8Value(getCases()));
-            registerStringGetter(PROPERTY_EXPRESSION, propertyName -> v8Runtime.toV8Value(getExpression()));
+            registerTreeList(PROPERTY_CASES, cases, JTCase.class);
+            registerChildGetter(PROPERTY_EXPRESSION, this::getExpression);
         }
         return stringGetterMap;
     }
@@ -37,9 +37,11 @@ import com.sun.source.tree.Tree;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 @SuppressWarnings("unchecked")
 public abstract class JTTree<
@@ -62,10 +64,12 @@ public abstract class JTTree<
     protected JaspilerContract.Action action;
     protected JTPosition originalPosition;
     protected OriginalTree originalTree;
+    protected Map<String, Supplier<?>> childGetterMap;
     protected JTTree<?, ?> parentTree;
     protected Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> stringGetterMap;
     protected Map<String, IJavetBiFunction<String, V8Value, Boolean, JaspilerCheckedException>> stringSetterMap;
     protected Map<String, IJavetUniFunction<V8ValueSymbol, ? extends V8Value, JaspilerCheckedException>> symbolGetterMap;
+    protected Map<List<?>, JTTreeList<?>> treeListMap;
     protected V8Runtime v8Runtime;
 
     JTTree(OriginalTree originalTree, JTTree<?, ?> parentTree) {
@@ -74,9 +78,11 @@ public abstract class JTTree<
         this.originalTree = originalTree;
         this.parentTree = parentTree;
         setAction(JaspilerContract.Action.NoChange);
+        childGetterMap = null;
         stringGetterMap = null;
         stringSetterMap = null;
         symbolGetterMap = null;
+        treeListMap = null;
         setV8Runtime(null);
     }
 
@@ -112,11 +118,43 @@ public abstract class JTTree<
         return originalTree;
     }
 
+    /**
+     * Gets the name of the property holding the child tree.
+     * The getters registered with the property names are called in Java without the V8 runtime.
+     *
+     * @param child the child tree
+     * @return the property name, null if the child is not found
+     */
+    public String getChildKey(JTTree<?, ?> child) {
+        proxyGetStringGetterMap();
+        if (childGetterMap != null) {
+            for (var entry : childGetterMap.entrySet()) {
+                if (entry.getValue().get() == child) {
+                    return entry.getKey();
+                }
+            }
+        }
+        return null;
+    }
+
     @Override
     public JTTree<?, ?> getParentTree() {
         return parentTree;
     }
 
+    /**
+     * Gets the live view of the child list by the list identity.
+     * The views are registered with the property names by the property getters,
+     * so that the same list is exposed as the same view and the property name is known.
+     *
+     * @param list the child list
+     * @return the tree list, null if the list is not a child list
+     */
+    public JTTreeList<?> getTreeList(List<?> list) {
+        proxyGetStringGetterMap();
+        return treeListMap == null ? null : treeListMap.get(list);
+    }
+
     @Override
     public V8Runtime getV8Runtime() {
         return v8Runtime;
@@ -170,6 +208,38 @@ public abstract class JTTree<
         return stringSetterMap;
     }
 
+    /**
+     * Register the getter of a child property, so that the child is exposed to JS
+     * and the property name of the child can be looked up in Java.
+     *
+     * @param propertyName the property name
+     * @param getter       the getter
+     */
+    protected void registerChildGetter(String propertyName, Supplier<?> getter) {
+        if (childGetterMap == null) {
+            childGetterMap = new HashMap<>();
+        }
+        childGetterMap.put(propertyName, getter);
+        registerStringGetter(propertyName, property -> v8Runtime.toV8Value(getter.get()));
+    }
+
+    /**
+     * Register the live view of a child list with the property name.
+     *
+     * @param <T>          the type parameter
+     * @param propertyName the property name
+     * @param list         the child list
+     * @param elementClass the element class
+     */
+    protected <T extends JTTree<?, ?>> void registerTreeList(String propertyName, List<T> list, Class<?> elementClass) {
+        if (treeListMap == null) {
+            treeListMap = new IdentityHashMap<>();
+        }
+        var treeList = new JTTreeList<>(this, propertyName, list, elementClass);
+        treeListMap.put(list, treeList);
+        registerStringGetter(propertyName, property -> v8Runtime.toV8Value(treeList));
+    }
+
     @Override
     public Map<String, IJavetUniFunction<V8ValueSymbol, ? extends V8Value, JaspilerCheckedException>> proxyGetSymbolGetterMap() {
         if (symbolGetterMap == null) {
@@ -180,16 +250,7 @@ public abstract class JTTree<
     }
 
     protected boolean replaceAnnotations(List<JTAnnotation> list, V8Value v8Value) throws JavetException {
-        if (v8Runtime.toObject(v8Value) instanceof List<?> trees) {
-            list.clear();
-            trees.stream()
-                    .filter(tree -> tree instanceof JTAnnotation)
-                    .map(tree -> ((JTAnnotation) tree).setParentTree(this))
-                    .forEach(list::add);
-            setActionChange();
-            return true;
-        }
-        return false;
+        return replaceList(list, v8Value);
     }
 
     protected boolean replaceBlock(Function<JTBlock, NewTree> setter, V8Value v8Value) throws JavetException {
@@ -209,42 +270,15 @@ public abstract class JTTree<
     }
 
     protected boolean replaceCaseLabels(List<JTCaseLabel<?, ?>> list, V8Value v8Value) throws JavetException {
-        if (v8Runtime.toObject(v8Value) instanceof List<?> trees) {
-            list.clear();
-            trees.stream()
-                    .filter(tree -> tree instanceof JTCaseLabel<?, ?>)
-                    .map(tree -> ((JTCaseLabel<?, ?>) tree).setParentTree(this))
-                    .forEach(list::add);
-            setActionChange();
-            return true;
-        }
-        return false;
+        return replaceList(list, v8Value);
     }
 
     protected boolean replaceCases(List<JTCase> list, V8Value v8Value) throws JavetException {
-        if (v8Runtime.toObject(v8Value) instanceof List<?> trees) {
-            list.clear();
-            trees.stream()
-                    .filter(tree -> tree instanceof JTCase)
-                    .map(tree -> ((JTCase) tree).setParentTree(this))
-                    .forEach(list::add);
-            setActionChange();
-            return true;
-        }
-        return false;
+        return replaceList(list, v8Value);
     }
 
     protected boolean replaceCatches(List<JTCatch> list, V8Value v8Value) throws JavetException {
-        if (v8Runtime.toObject(v8Value) instanceof List<?> trees) {
-            list.clear();
-            trees.stream()
-                    .filter(tree -> tree instanceof JTCatch)
-                    .map(tree -> ((JTCatch) tree).setParentTree(this))
-                    .forEach(list::add);
-            setActionChange();
-            return true;
-        }
-        return false;
+        return replaceList(list, v8Value);
     }
 
     protected boolean replaceClassDecl(Function<JTClassDecl, NewTree> setter, V8Value v8Value) throws JavetException {
@@ -256,16 +290,7 @@ public abstract class JTTree<
     }
 
     protected boolean replaceDirectives(List<JTDirective<?, ?>> list, V8Value v8Value) throws JavetException {
-        if (v8Runtime.toObject(v8Value) instanceof List<?> trees) {
-            list.clear();
-            trees.stream()
-                    .filter(tree -> tree instanceof JTDirective<?, ?>)
-                    .map(tree -> ((JTDirective<?, ?>) tree).setParentTree(this))
-                    .forEach(list::add);
-            setActionChange();
-            return true;
-        }
-        return false;
+        return replaceList(list, v8Value);
     }
 
     protected boolean replaceExpression(Function<JTExpression<?, ?>, NewTree> setter, V8Value v8Value) throws JavetException {
@@ -277,42 +302,15 @@ public abstract class JTTree<
     }
 
     protected boolean replaceExpressionStatements(List<JTExpressionStatement> list, V8Value v8Value) throws JavetException {
-        if (v8Runtime.toObject(v8Value) instanceof List<?> trees) {
-            list.clear();
-            trees.stream()
-                    .filter(tree -> tree instanceof JTExpressionStatement)
-                    .map(tree -> ((JTExpressionStatement) tree).setParentTree(this))
-                    .forEach(list::add);
-            setActionChange();
-            return true;
-        }
-        return false;
+        return replaceList(list, v8Value);
     }
 
     protected boolean replaceExpressions(List<JTExpression<?, ?>> list, V8Value v8Value) throws JavetException {
-        if (v8Runtime.toObject(v8Value) instanceof List<?> trees) {
-            list.clear();
-            trees.stream()
-                    .filter(tree -> tree instanceof JTExpression<?, ?>)
-                    .map(tree -> ((JTExpression<?, ?>) tree).setParentTree(this))
-                    .forEach(list::add);
-            setActionChange();
-            return true;
-        }
-        return false;
+        return replaceList(list, v8Value);
     }
 
     protected boolean replaceImports(List<JTImport> list, V8Value v8Value) throws JavetException {
-        if (v8Runtime.toObject(v8Value) instanceof List<?> trees) {
-            list.clear();
-            trees.stream()
-                    .filter(tree -> tree instanceof JTImport)
-                    .map(tree -> ((JTImport) tree).setParentTree(this))
-                    .forEach(list::add);
-            setActionChange();
-            return true;
-        }
-        return false;
+        return replaceList(list, v8Value);
     }
 
     protected boolean replaceKind(Function<Kind, NewTree> setter, V8Value v8Value) {
@@ -331,6 +329,29 @@ public abstract class JTTree<
         return false;
     }
 
+    /**
+     * Replace the elements of the child list in place.
+     * The elements not of the element class are skipped.
+     *
+     * @param list    the child list
+     * @param v8Value the V8 value of an array or a tree list
+     * @return true : replaced, false : not replaced
+     * @throws JavetException the javet exception
+     */
+    protected boolean replaceList(List<?> list, V8Value v8Value) throws JavetException {
+        Object object = v8Runtime.toObject(v8Value);
+        if (object instanceof JTTreeList<?> treeList) {
+            // The list is copied because it might be the list to be replaced.
+            object = new ArrayList<>(treeList.getList());
+        }
+        JTTreeList<?> treeList = getTreeList(list);
+        if (treeList != null && object instanceof List<?> trees) {
+            treeList.replace(trees);
+            return true;
+        }
+        return false;
+    }
+
     protected boolean replaceModifiers(Function<JTModifiers, NewTree> setter, V8Value v8Value) throws JavetException {
         if (v8Runtime.toObject(v8Value) instanceof JTModifiers tree) {
             setter.apply(tree);
@@ -380,16 +401,7 @@ public abstract class JTTree<
     }
 
     protected boolean replaceStatements(List<JTStatement<?, ?>> list, V8Value v8Value) throws JavetException {
-        if (v8Runtime.toObject(v8Value) instanceof List<?> trees) {
-            list.clear();
-            trees.stream()
-                    .filter(tree -> tree instanceof JTStatement<?, ?>)
-                    .map(tree -> ((JTStatement<?, ?>) tree).setParentTree(this))
-                    .forEach(list::add);
-            setActionChange();
-            return true;
-        }
-        return false;
+        return replaceList(list, v8Value);
     }
 
     protected boolean replaceString(Function<String, NewTree> setter, V8Value v8Value) {
@@ -409,29 +421,11 @@ public abstract class JTTree<
     }
 
     protected boolean replaceTrees(List<JTTree<?, ?>> list, V8Value v8Value) throws JavetException {
-        if (v8Runtime.toObject(v8Value) instanceof List<?> trees) {
-            list.clear();
-            trees.stream()
-                    .filter(tree -> tree instanceof JTTree<?, ?>)
-                    .map(tree -> ((JTTree<?, ?>) tree).setParentTree(this))
-                    .forEach(list::add);
-            setActionChange();
-            return true;
-        }
-        return false;
+        return replaceList(list, v8Value);
     }
 
     protected boolean replaceTypeParameters(List<JTTypeParameter> list, V8Value v8Value) throws JavetException {
-        if (v8Runtime.toObject(v8Value) instanceof List<?> trees) {
-            list.clear();
-            trees.stream()
-                    .filter(tree -> tree instanceof JTTypeParameter)
-                    .map(tree -> ((JTTypeParameter) tree).setParentTree(this))
-                    .forEach(list::add);
-            setActionChange();
-            return true;
-        }
-        return false;
+        return replaceList(list, v8Value);
     }
 
     protected boolean replaceVariableDecl(Function<JTVariableDecl, NewTree> setter, V8Value v8Value) throws JavetException {
@@ -443,16 +437,7 @@ public abstract class JTTree<
     }
 
     protected boolean replaceVariableDecls(List<JTVariableDecl> list, V8Value v8Value) throws JavetException {
-        if (v8Runtime.toObject(v8Value) instanceof List<?> trees) {
-            list.clear();
-            trees.stream()
-                    .filter(tree -> tree instanceof JTVariableDecl)
-                    .map(tree -> ((JTVariableDecl) tree).setParentTree(this))
-                    .forEach(list::add);
-            setActionChange();
-            return true;
-        }
-        return false;
+        return replaceList(list, v8Value);
     }
 
     @Override
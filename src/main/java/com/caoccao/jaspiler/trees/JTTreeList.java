@@ -0,0 +1,342 @@
+/*
+ * Copyright (c) 2023-2025. caoccao.com Sam Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.caoccao.jaspiler.trees;
+
+import com.caoccao.jaspiler.exceptions.JaspilerCheckedException;
+import com.caoccao.javet.exceptions.JavetException;
+import com.caoccao.javet.interfaces.IJavetBiFunction;
+import com.caoccao.javet.interfaces.IJavetUniFunction;
+import com.caoccao.javet.interop.V8Runtime;
+import com.caoccao.javet.interop.proxy.IJavetDirectProxyHandler;
+import com.caoccao.javet.values.V8Value;
+import com.caoccao.javet.values.primitive.V8ValueBoolean;
+import com.caoccao.javet.values.primitive.V8ValueInteger;
+import com.caoccao.javet.values.primitive.V8ValueString;
+import com.caoccao.javet.values.reference.V8ValueObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The type Jt tree list is a live array-like view of a child list of a tree.
+ * <p>
+ * The indexed access, the indexed assignment, length, push, pop, shift, unshift and splice
+ * update the Java list in place and mark only the owner tree as changed.
+ * The other properties, e.g. forEach, map, filter and the iterator,
+ * are looked up from Array.prototype, because the array functions are generic.
+ * The V8 jaspiler converter exposes it through a proxy with an array target so that Array.isArray() is true.
+ *
+ * @param <T> the type parameter
+ */
+@SuppressWarnings("unchecked")
+public final class JTTreeList<T extends JTTree<?, ?>> implements IJavetDirectProxyHandler<JaspilerCheckedException> {
+    private static final String FUNCTION_POP = "pop";
+    private static final String FUNCTION_PUSH = "push";
+    private static final String FUNCTION_SHIFT = "shift";
+    private static final String FUNCTION_SPLICE = "splice";
+    private static final String FUNCTION_UNSHIFT = "unshift";
+    private static final String PROPERTY_ARRAY = "Array";
+    private static final String PROPERTY_LENGTH = "length";
+    private static final String PROPERTY_PROTOTYPE = "prototype";
+    private final Class<?> elementClass;
+    private final String key;
+    private final List<T> list;
+    private final JTTree<?, ?> owner;
+    private Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> stringGetterMap;
+    private Map<String, IJavetBiFunction<String, V8Value, Boolean, JaspilerCheckedException>> stringSetterMap;
+    private V8Runtime v8Runtime;
+
+    JTTreeList(JTTree<?, ?> owner, String key, List<T> list, Class<?> elementClass) {
+        this.elementClass = Objects.requireNonNull(elementClass);
+        this.key = Objects.requireNonNull(key);
+        this.list = Objects.requireNonNull(list);
+        this.owner = Objects.requireNonNull(owner);
+        stringGetterMap = null;
+        stringSetterMap = null;
+        setV8Runtime(null);
+    }
+
+    private static int toIndex(String propertyName) {
+        final int length = propertyName.length();
+        if (length == 0 || length > 9 || (length > 1 && propertyName.charAt(0) == '0')) {
+            return -1;
+        }
+        int index = 0;
+        for (int i = 0; i < length; ++i) {
+            char c = propertyName.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            index = index * 10 + c - '0';
+        }
+        return index;
+    }
+
+    /**
+     * Insert the tree at the index.
+     *
+     * @param index the index
+     * @param tree  the tree
+     * @return true : inserted, false : the index is out of range or the tree is not of the element class
+     */
+    public boolean add(int index, Object tree) {
+        if (index < 0 || index > list.size() || !elementClass.isInstance(tree)) {
+            return false;
+        }
+        list.add(index, (T) ((JTTree<?, ?>) tree).setParentTree(owner));
+        owner.setActionChange();
+        return true;
+    }
+
+    private int clamp(V8Value v8Value, int defaultValue) {
+        int value = v8Value instanceof V8ValueInteger v8ValueInteger ? v8ValueInteger.getValue() : defaultValue;
+        final int size = list.size();
+        return value < 0 ? Math.max(size + value, 0) : Math.min(value, size);
+    }
+
+    public Class<?> getElementClass() {
+        return elementClass;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public List<T> getList() {
+        return list;
+    }
+
+    public JTTree<?, ?> getOwner() {
+        return owner;
+    }
+
+    @Override
+    public V8Runtime getV8Runtime() {
+        return v8Runtime;
+    }
+
+    private V8Value pop(V8Value... v8Values) throws JavetException {
+        if (list.isEmpty()) {
+            return v8Runtime.createV8ValueUndefined();
+        }
+        T tree = list.remove(list.size() - 1);
+        owner.setActionChange();
+        return v8Runtime.toV8Value(tree);
+    }
+
+    @Override
+    public V8Value proxyGet(V8Value target, V8Value property, V8Value receiver)
+            throws JavetException, JaspilerCheckedException {
+        if (property instanceof V8ValueString v8ValueString) {
+            String propertyName = v8ValueString.getValue();
+            int index = toIndex(propertyName);
+            if (index >= 0) {
+                return index < list.size()
+                        ? v8Runtime.toV8Value(list.get(index))
+                        : v8Runtime.createV8ValueUndefined();
+            }
+            if (proxyGetStringGetterMap().containsKey(propertyName)) {
+                return IJavetDirectProxyHandler.super.proxyGet(target, property, receiver);
+            }
+        }
+        // The other properties are looked up from Array.prototype so that the generic array functions work.
+        try (V8ValueObject v8ValueObjectArray = v8Runtime.getGlobalObject().get(PROPERTY_ARRAY);
+             V8ValueObject v8ValueObjectPrototype = v8ValueObjectArray.get(PROPERTY_PROTOTYPE)) {
+            return v8ValueObjectPrototype.get(property);
+        }
+    }
+
+    @Override
+    public Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> proxyGetStringGetterMap() {
+        if (stringGetterMap == null) {
+            stringGetterMap = new HashMap<>();
+            registerStringGetterFunction(FUNCTION_POP, this::pop);
+            registerStringGetterFunction(FUNCTION_PUSH, this::push);
+            registerStringGetterFunction(FUNCTION_SHIFT, this::shift);
+            registerStringGetterFunction(FUNCTION_SPLICE, this::splice);
+            registerStringGetterFunction(FUNCTION_UNSHIFT, this::unshift);
+            registerStringGetter(PROPERTY_LENGTH, propertyName -> v8Runtime.createV8ValueInteger(list.size()));
+        }
+        return stringGetterMap;
+    }
+
+    @Override
+    public Map<String, IJavetBiFunction<String, V8Value, Boolean, JaspilerCheckedException>> proxyGetStringSetterMap() {
+        if (stringSetterMap == null) {
+            stringSetterMap = new HashMap<>();
+            registerStringSetter(PROPERTY_LENGTH, (propertyName, propertyValue) -> setLength(propertyValue));
+        }
+        return stringSetterMap;
+    }
+
+    @Override
+    public V8ValueBoolean proxyHas(V8Value target, V8Value property) throws JavetException, JaspilerCheckedException {
+        if (property instanceof V8ValueString v8ValueString) {
+            int index = toIndex(v8ValueString.getValue());
+            if (index >= 0) {
+                return v8Runtime.createV8ValueBoolean(index < list.size());
+            }
+        }
+        return IJavetDirectProxyHandler.super.proxyHas(target, property);
+    }
+
+    @Override
+    public V8ValueBoolean proxySet(V8Value target, V8Value propertyKey, V8Value propertyValue, V8Value receiver)
+            throws JavetException, JaspilerCheckedException {
+        if (propertyKey instanceof V8ValueString v8ValueString) {
+            int index = toIndex(v8ValueString.getValue());
+            if (index >= 0) {
+                return v8Runtime.createV8ValueBoolean(set(index, propertyValue));
+            }
+        }
+        return IJavetDirectProxyHandler.super.proxySet(target, propertyKey, propertyValue, receiver);
+    }
+
+    private V8Value push(V8Value... v8Values) throws JavetException {
+        if (list.addAll(toTrees(v8Values, 0))) {
+            owner.setActionChange();
+        }
+        return v8Runtime.createV8ValueInteger(list.size());
+    }
+
+    private boolean set(int index, V8Value v8Value) throws JavetException {
+        return set(index, (Object) v8Runtime.toObject(v8Value));
+    }
+
+    /**
+     * Set the tree at the index. The tree is appended if the index is the size.
+     *
+     * @param index the index
+     * @param tree  the tree
+     * @return true : set, false : the index is out of range or the tree is not of the element class
+     */
+    public boolean set(int index, Object tree) {
+        if (index < 0 || index > list.size() || !elementClass.isInstance(tree)) {
+            return false;
+        }
+        T newTree = (T) ((JTTree<?, ?>) tree).setParentTree(owner);
+        if (index == list.size()) {
+            list.add(newTree);
+        } else if (list.get(index) == newTree) {
+            return true;
+        } else {
+            list.set(index, newTree);
+        }
+        owner.setActionChange();
+        return true;
+    }
+
+    private boolean setLength(V8Value v8Value) {
+        if (v8Value instanceof V8ValueInteger v8ValueInteger) {
+            int length = v8ValueInteger.getValue();
+            if (length >= 0 && length <= list.size()) {
+                if (length < list.size()) {
+                    list.subList(length, list.size()).clear();
+                    owner.setActionChange();
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Remove the tree at the index.
+     *
+     * @param index the index
+     * @return the removed tree, null if the index is out of range
+     */
+    public T remove(int index) {
+        if (index < 0 || index >= list.size()) {
+            return null;
+        }
+        T tree = list.remove(index);
+        owner.setActionChange();
+        return tree;
+    }
+
+    /**
+     * Replace all the elements with the trees.
+     * The trees not of the element class are skipped.
+     *
+     * @param trees the trees
+     * @return the self
+     */
+    public JTTreeList<T> replace(List<?> trees) {
+        List<T> newList = trees.stream()
+                .filter(elementClass::isInstance)
+                .map(tree -> (T) ((JTTree<?, ?>) tree).setParentTree(owner))
+                .toList();
+        list.clear();
+        list.addAll(newList);
+        owner.setActionChange();
+        return this;
+    }
+
+    @Override
+    public void setV8Runtime(V8Runtime v8Runtime) {
+        this.v8Runtime = v8Runtime;
+    }
+
+    private V8Value shift(V8Value... v8Values) throws JavetException {
+        if (list.isEmpty()) {
+            return v8Runtime.createV8ValueUndefined();
+        }
+        T tree = list.remove(0);
+        owner.setActionChange();
+        return v8Runtime.toV8Value(tree);
+    }
+
+    private V8Value splice(V8Value... v8Values) throws JavetException {
+        final int start = v8Values.length > 0 ? clamp(v8Values[0], 0) : list.size();
+        int deleteCount = list.size() - start;
+        if (v8Values.length > 1) {
+            int value = v8Values[1] instanceof V8ValueInteger v8ValueInteger ? v8ValueInteger.getValue() : 0;
+            deleteCount = Math.min(Math.max(value, 0), deleteCount);
+        }
+        List<T> items = toTrees(v8Values, 2);
+        List<T> range = list.subList(start, start + deleteCount);
+        List<T> deletedTrees = new ArrayList<>(range);
+        range.clear();
+        list.addAll(start, items);
+        if (deleteCount > 0 || !items.isEmpty()) {
+            owner.setActionChange();
+        }
+        return v8Runtime.toV8Value(deletedTrees);
+    }
+
+    private List<T> toTrees(V8Value[] v8Values, int startIndex) throws JavetException {
+        List<T> trees = new ArrayList<>();
+        for (int i = startIndex; i < v8Values.length; ++i) {
+            Object object = v8Runtime.toObject(v8Values[i]);
+            if (elementClass.isInstance(object)) {
+                trees.add((T) ((JTTree<?, ?>) object).setParentTree(owner));
+            }
+        }
+        return trees;
+    }
+
+    private V8Value unshift(V8Value... v8Values) throws JavetException {
+        if (list.addAll(0, toTrees(v8Values, 0))) {
+            owner.setActionChange();
+        }
+        return v8Runtime.createV8ValueInteger(list.size());
+    }
+}
@@ -108,10 +108,10 @@ public final class JTTry
     public Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> proxyGetStringGetterMap() {
         if (stringGetterMap == null) {
             super.proxyGetStringGetterMap();
-            registerStringGetter(PROPERTY_BLOCK, propertyName -> v8Runtime.toV8Value(getBlock()));
-            registerStringGetter(PROPERTY_CATCHES, propertyName -> v8Runtime.toV8Value(getCatches()));
-            registerStringGetter(PROPERTY_FINALLY_BLOCK, propertyName -> v8Runtime.toV8Value(getFinallyBlock()));
-            registerStringGetter(PROPERTY_RESOURCES, propertyName -> v8Runtime.toV8Value(getResources()));
+            registerChildGetter(PROPERTY_BLOCK, this::getBlock);
+            registerTreeList(PROPERTY_CATCHES, catches, JTCatch.class);
+            registerChildGetter(PROPERTY_FINALLY_BLOCK, this::getFinallyBlock);
+            registerTreeList(PROPERTY_RESOURCES, resources, JTTree.class);
         }
         return stringGetterMap;
     }
@@ -87,8 +87,8 @@ public final class JTTypeApply
     public Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> proxyGetStringGetterMap() {
         if (stringGetterMap == null) {
             super.proxyGetStringGetterMap();
-            registerStringGetter(PROPERTY_TYPE, propertyName -> v8Runtime.toV8Value(getType()));
-            registerStringGetter(PROPERTY_TYPE_ARGUMENTS, propertyName -> v8Runtime.toV8Value(getTypeArguments()));
+            registerChildGetter(PROPERTY_TYPE, this::getType);
+            registerTreeList(PROPERTY_TYPE_ARGUMENTS, typeArguments, JTExpression.class);
         }
         return stringGetterMap;
     }
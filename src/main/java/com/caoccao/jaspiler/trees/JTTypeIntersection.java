@@ -79,7 +79,7 @@ public final class JTTypeIntersection
     public Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> proxyGetStringGetterMap() {
         if (stringGetterMap == null) {
             super.proxyGetStringGetterMap();
-            registerStringGetter(PROPERTY_BOUNDS, propertyName -> v8Runtime.toV8Value(getBounds()));
+            registerTreeList(PROPERTY_BOUNDS, bounds, JTExpression.class);
         }
         return stringGetterMap;
     }
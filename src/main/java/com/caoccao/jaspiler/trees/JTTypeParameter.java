@@ -98,9 +98,9 @@ public final class JTTypeParameter
     public Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> proxyGetStringGetterMap() {
         if (stringGetterMap == null) {
             super.proxyGetStringGetterMap();
-            registerStringGetter(PROPERTY_ANNOTATIONS, propertyName -> v8Runtime.toV8Value(getAnnotations()));
-            registerStringGetter(PROPERTY_BOUNDS, propertyName -> v8Runtime.toV8Value(getBounds()));
-            registerStringGetter(PROPERTY_NAME, propertyName -> v8Runtime.toV8Value(getName()));
+            registerTreeList(PROPERTY_ANNOTATIONS, annotations, JTAnnotation.class);
+            registerTreeList(PROPERTY_BOUNDS, bounds, JTExpression.class);
+            registerChildGetter(PROPERTY_NAME, this::getName);
         }
         return stringGetterMap;
     }
@@ -79,7 +79,7 @@ public final class JTTypeUnion
     public Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> proxyGetStringGetterMap() {
         if (stringGetterMap == null) {
             super.proxyGetStringGetterMap();
-            registerStringGetter(PROPERTY_TYPE_ALTERNATIVES, propertyName -> v8Runtime.toV8Value(getTypeAlternatives()));
+            registerTreeList(PROPERTY_TYPE_ALTERNATIVES, typeAlternatives, JTExpression.class);
         }
         return stringGetterMap;
     }
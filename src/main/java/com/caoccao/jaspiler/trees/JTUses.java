@@ -78,7 +78,7 @@ public final class JTUses
     public Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> proxyGetStringGetterMap() {
         if (stringGetterMap == null) {
             super.proxyGetStringGetterMap();
-            registerStringGetter(PROPERTY_SERVICE_NAME, propertyName -> v8Runtime.toV8Value(getServiceName()));
+            registerChildGetter(PROPERTY_SERVICE_NAME, this::getServiceName);
         }
         return stringGetterMap;
     }
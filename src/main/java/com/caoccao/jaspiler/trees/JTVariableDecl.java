@@ -119,11 +119,11 @@ public final class JTVariableDecl
     public Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> proxyGetStringGetterMap() {
         if (stringGetterMap == null) {
             super.proxyGetStringGetterMap();
-            registerStringGetter(PROPERTY_INITIALIZER, propertyName -> v8Runtime.toV8Value(getInitializer()));
-            registerStringGetter(PROPERTY_MODIFIERS, propertyName -> v8Runtime.toV8Value(getModifiers()));
-            registerStringGetter(PROPERTY_NAME, propertyName -> v8Runtime.toV8Value(getName()));
-            registerStringGetter(PROPERTY_NAME_EXPRESSION, propertyName -> v8Runtime.toV8Value(getNameExpression()));
-            registerStringGetter(PROPERTY_TYPE, propertyName -> v8Runtime.toV8Value(getType()));
+            registerChildGetter(PROPERTY_INITIALIZER, this::getInitializer);
+            registerChildGetter(PROPERTY_MODIFIERS, this::getModifiers);
+            registerChildGetter(PROPERTY_NAME, this::getName);
+            registerChildGetter(PROPERTY_NAME_EXPRESSION, this::getNameExpression);
+            registerChildGetter(PROPERTY_TYPE, this::getType);
         }
         return stringGetterMap;
     }
@@ -88,8 +88,8 @@ public final class JTWhileLoop
     public Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> proxyGetStringGetterMap() {
         if (stringGetterMap == null) {
             super.proxyGetStringGetterMap();
-            registerStringGetter(PROPERTY_CONDITION, propertyName -> v8Runtime.toV8Value(getCondition()));
-            registerStringGetter(PROPERTY_STATEMENT, propertyName -> v8Runtime.toV8Value(getStatement()));
+            registerChildGetter(PROPERTY_CONDITION, this::getCondition);
+            registerChildGetter(PROPERTY_STATEMENT, this::getStatement);
         }
         return stringGetterMap;
     }
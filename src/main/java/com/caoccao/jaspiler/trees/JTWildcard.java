@@ -83,7 +83,7 @@ public final class JTWildcard
     public Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> proxyGetStringGetterMap() {
         if (stringGetterMap == null) {
             super.proxyGetStringGetterMap();
-            registerStringGetter(PROPERTY_BOUND, propertyName -> v8Runtime.toV8Value(getBound()));
+            registerChildGetter(PROPERTY_BOUND, this::getBound);
         }
         return stringGetterMap;
     }
@@ -78,7 +78,7 @@ public final class JTYield
     public Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> proxyGetStringGetterMap() {
         if (stringGetterMap == null) {
             super.proxyGetStringGetterMap();
-            registerStringGetter(PROPERTY_VALUE, propertyName -> v8Runtime.toV8Value(getValue()));
+            registerChildGetter(PROPERTY_VALUE, this::getValue);
         }
         return stringGetterMap;
     }
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2023-2025. caoccao.com Sam Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.caoccao.jaspiler.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The type Dedup file writer skips the write if the target file already has the same content.
+ * The existing file is hashed as a stream so that it is never fully loaded into memory.
+ * The file size is compared ahead so that the existing file is not read at all in most of the cases.
+ * It is thread-safe.
+ */
+public final class DedupFileWriter {
+    private static final String ALGORITHM = "SHA-256";
+    private static final int BUFFER_SIZE = 8192;
+    private final Charset charset;
+    private final AtomicInteger skippedCount;
+    private final AtomicInteger writtenCount;
+
+    public DedupFileWriter() {
+        this(StandardCharsets.UTF_8);
+    }
+
+    public DedupFileWriter(Charset charset) {
+        this.charset = Objects.requireNonNull(charset);
+        skippedCount = new AtomicInteger();
+        writtenCount = new AtomicInteger();
+    }
+
+    private static MessageDigest createMessageDigest() {
+        try {
+            return MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public Charset getCharset() {
+        return charset;
+    }
+
+    public int getSkippedCount() {
+        return skippedCount.get();
+    }
+
+    public int getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    private boolean isSameContent(Path path, byte[] bytes) throws IOException {
+        if (!Files.isRegularFile(path) || Files.size(path) != bytes.length) {
+            return false;
+        }
+        MessageDigest messageDigest = createMessageDigest();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            int length;
+            while ((length = inputStream.read(buffer)) > 0) {
+                messageDigest.update(buffer, 0, length);
+            }
+        }
+        return Arrays.equals(messageDigest.digest(), createMessageDigest().digest(bytes));
+    }
+
+    public void reset() {
+        skippedCount.set(0);
+        writtenCount.set(0);
+    }
+
+    /**
+     * Write the bytes to the file if the file doesn't have the same content.
+     *
+     * @param path  the path
+     * @param bytes the bytes
+     * @return true : written, false : skipped
+     * @throws IOException the io exception
+     */
+    public boolean write(Path path, byte[] bytes) throws IOException {
+        if (isSameContent(path, bytes)) {
+            skippedCount.incrementAndGet();
+            return false;
+        }
+        Path parentPath = path.toAbsolutePath().getParent();
+        if (parentPath != null) {
+            Files.createDirectories(parentPath);
+        }
+        Files.write(path, bytes);
+        writtenCount.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Write the code to the file if the file doesn't have the same content.
+     *
+     * @param path the path
+     * @param code the code
+     * @return true : written, false : skipped
+     * @throws IOException the io exception
+     */
+    public boolean write(Path path, String code) throws IOException {
+        return write(path, code.getBytes(charset));
+    }
+}
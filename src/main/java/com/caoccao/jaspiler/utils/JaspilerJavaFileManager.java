@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2023-2025. caoccao.com Sam Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.caoccao.jaspiler.utils;
+
+import javax.tools.*;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * The type Jaspiler java file manager keeps the class files in memory
+ * and exposes the in-memory sources via the source path,
+ * so that the sources compiled in other batches can be resolved.
+ */
+public class JaspilerJavaFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+    protected final Map<String, JavaFileByteCodeObject> byteCodeObjectMap;
+    protected final List<JavaFileStringObject> sourceObjects;
+
+    public JaspilerJavaFileManager(StandardJavaFileManager fileManager, List<JavaFileStringObject> sourceObjects) {
+        super(fileManager);
+        byteCodeObjectMap = new TreeMap<>();
+        this.sourceObjects = Objects.requireNonNull(sourceObjects);
+    }
+
+    public Map<String, JavaFileByteCodeObject> getByteCodeObjectMap() {
+        return byteCodeObjectMap;
+    }
+
+    @Override
+    public JavaFileObject getJavaFileForOutput(
+            Location location, String className, JavaFileObject.Kind kind, FileObject sibling)
+            throws IOException {
+        if (location == StandardLocation.CLASS_OUTPUT) {
+            var byteCodeObject = new JavaFileByteCodeObject(className, kind);
+            byteCodeObjectMap.put(className, byteCodeObject);
+            return byteCodeObject;
+        }
+        return super.getJavaFileForOutput(location, className, kind, sibling);
+    }
+
+    @Override
+    public boolean hasLocation(Location location) {
+        return location == StandardLocation.SOURCE_PATH || super.hasLocation(location);
+    }
+
+    @Override
+    public String inferBinaryName(Location location, JavaFileObject file) {
+        if (file instanceof JavaFileStringObject javaFileStringObject) {
+            return javaFileStringObject.getName();
+        }
+        return super.inferBinaryName(location, file);
+    }
+
+    @Override
+    public boolean isSameFile(FileObject a, FileObject b) {
+        if (a instanceof JavaFileStringObject || b instanceof JavaFileStringObject
+                || a instanceof JavaFileByteCodeObject || b instanceof JavaFileByteCodeObject) {
+            return a == b;
+        }
+        return super.isSameFile(a, b);
+    }
+
+    @Override
+    public Iterable<JavaFileObject> list(
+            Location location, String packageName, Set<JavaFileObject.Kind> kinds, boolean recurse)
+            throws IOException {
+        if (location == StandardLocation.SOURCE_PATH && kinds.contains(JavaFileObject.Kind.SOURCE)) {
+            List<JavaFileObject> javaFileObjects = new ArrayList<>();
+            String prefix = packageName.isEmpty() ? packageName : packageName + ".";
+            for (var sourceObject : sourceObjects) {
+                String name = sourceObject.getName();
+                if (name.startsWith(prefix)) {
+                    if (recurse || name.indexOf('.', prefix.length()) < 0) {
+                        javaFileObjects.add(sourceObject);
+                    }
+                }
+            }
+            super.list(location, packageName, kinds, recurse).forEach(javaFileObjects::add);
+            return javaFileObjects;
+        }
+        return super.list(location, packageName, kinds, recurse);
+    }
+}
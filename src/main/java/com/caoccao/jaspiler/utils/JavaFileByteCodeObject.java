@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2023-2025. caoccao.com Sam Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.caoccao.jaspiler.utils;
+
+import javax.tools.SimpleJavaFileObject;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.net.URI;
+
+public class JavaFileByteCodeObject extends SimpleJavaFileObject {
+    protected ByteArrayOutputStream byteArrayOutputStream;
+    protected String name;
+
+    public JavaFileByteCodeObject(String name, Kind kind) {
+        super(URI.create("bytes:///" + name.replace('.', '/') + kind.extension), kind);
+        byteArrayOutputStream = new ByteArrayOutputStream();
+        this.name = name;
+    }
+
+    public byte[] getBytes() {
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public OutputStream openOutputStream() {
+        byteArrayOutputStream.reset();
+        return byteArrayOutputStream;
+    }
+}
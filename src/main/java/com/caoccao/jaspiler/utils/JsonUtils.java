@@ -26,6 +26,10 @@ import org.slf4j.LoggerFactory;
 
 public final class JsonUtils {
     private static final Logger LOGGER = LoggerFactory.getLogger(JsonUtils.class.getName());
+    private static final ObjectMapper OBJECT_MAPPER = JsonMapper.builder()
+            .configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false)
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
     private static final ObjectMapper OBJECT_MAPPER_BEAUTIFIED = JsonMapper.builder()
             .configure(SerializationFeature.INDENT_OUTPUT, true)
             .configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false)
@@ -42,6 +46,17 @@ public final class JsonUtils {
     private JsonUtils() {
     }
 
+    public static String getJsonString(Object obj) {
+        try {
+            return OBJECT_MAPPER.writeValueAsString(obj);
+        } catch (JsonProcessingException e) {
+            LOGGER.error("Failed to serialize object to Json string.", e);
+        } catch (Throwable t) {
+            LOGGER.error("Failed to serialize object to Json string with unknown error.", t);
+        }
+        return null;
+    }
+
     public static String getJsonStringBeautified(Object obj) {
         return getJsonStringBeautified(obj, false);
     }
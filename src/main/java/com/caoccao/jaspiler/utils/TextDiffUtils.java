@@ -0,0 +1,266 @@
+/*
+ * Copyright (c) 2023-2025. caoccao.com Sam Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.caoccao.jaspiler.utils;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.*;
+
+/**
+ * The type Text diff utils computes the line based differences between the original code and the generated code.
+ * It trims the common leading and trailing lines and runs the Myers algorithm on the rest.
+ */
+public final class TextDiffUtils {
+    public static final int DEFAULT_CONTEXT_SIZE = 3;
+    private static final String NO_NEWLINE_AT_END_OF_FILE = "\\ No newline at end of file";
+
+    private TextDiffUtils() {
+    }
+
+    public static String applyEdits(String originalCode, List<TextEdit> textEdits) {
+        var stringBuilder = new StringBuilder(originalCode.length());
+        int position = 0;
+        for (var textEdit : textEdits) {
+            stringBuilder.append(originalCode, position, textEdit.startPosition()).append(textEdit.replacement());
+            position = textEdit.endPosition();
+        }
+        return stringBuilder.append(originalCode, position, originalCode.length()).toString();
+    }
+
+    private static void appendLine(StringBuilder stringBuilder, char prefix, Lines lines, int index) {
+        String line = lines.get(index);
+        stringBuilder.append(prefix).append(line);
+        if (!line.endsWith("\n")) {
+            stringBuilder.append('\n').append(NO_NEWLINE_AT_END_OF_FILE).append('\n');
+        }
+    }
+
+    public static List<TextEdit> computeEdits(String originalCode, String generatedCode) {
+        var originalLines = new Lines(originalCode);
+        var generatedLines = new Lines(generatedCode);
+        List<TextEdit> textEdits = new ArrayList<>();
+        for (var lineDiff : diff(originalLines, generatedLines)) {
+            textEdits.add(new TextEdit(
+                    originalLines.getPosition(lineDiff.originalStart()),
+                    originalLines.getPosition(lineDiff.originalEnd()),
+                    generatedCode.substring(
+                            generatedLines.getPosition(lineDiff.generatedStart()),
+                            generatedLines.getPosition(lineDiff.generatedEnd()))));
+        }
+        return textEdits;
+    }
+
+    private static List<LineDiff> diff(Lines originalLines, Lines generatedLines) {
+        Map<String, Integer> lineIdMap = new HashMap<>();
+        int[] a = originalLines.toIds(lineIdMap);
+        int[] b = generatedLines.toIds(lineIdMap);
+        int start = 0;
+        while (start < a.length && start < b.length && a[start] == b[start]) {
+            ++start;
+        }
+        int aEnd = a.length;
+        int bEnd = b.length;
+        while (aEnd > start && bEnd > start && a[aEnd - 1] == b[bEnd - 1]) {
+            --aEnd;
+            --bEnd;
+        }
+        int n = aEnd - start;
+        int m = bEnd - start;
+        boolean[] deleted = new boolean[n];
+        boolean[] inserted = new boolean[m];
+        if (n == 0 || m == 0) {
+            Arrays.fill(deleted, true);
+            Arrays.fill(inserted, true);
+        } else {
+            myers(a, b, start, n, m, deleted, inserted);
+        }
+        List<LineDiff> lineDiffs = new ArrayList<>();
+        int i = 0;
+        int j = 0;
+        while (i < n || j < m) {
+            if ((i < n && deleted[i]) || (j < m && inserted[j])) {
+                int iStart = i;
+                int jStart = j;
+                while (i < n && deleted[i]) {
+                    ++i;
+                }
+                while (j < m && inserted[j]) {
+                    ++j;
+                }
+                lineDiffs.add(new LineDiff(start + iStart, start + i, start + jStart, start + j));
+            } else {
+                ++i;
+                ++j;
+            }
+        }
+        return lineDiffs;
+    }
+
+    private static void myers(
+            int[] a, int[] b, int start, int n, int m,
+            boolean[] deleted, boolean[] inserted) {
+        final int max = n + m;
+        final int offset = max + 1;
+        int[] v = new int[2 * max + 3];
+        // Only the range [-d, d] of each step is kept, so the trace takes O(D^2) instead of O(D(N+M)).
+        List<int[]> trace = new ArrayList<>();
+        int finalD = max;
+        outer:
+        for (int d = 0; d <= max; ++d) {
+            for (int k = -d; k <= d; k += 2) {
+                int x = (k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1]))
+                        ? v[offset + k + 1]
+                        : v[offset + k - 1] + 1;
+                int y = x - k;
+                while (x < n && y < m && a[start + x] == b[start + y]) {
+                    ++x;
+                    ++y;
+                }
+                v[offset + k] = x;
+                if (x >= n && y >= m) {
+                    trace.add(Arrays.copyOfRange(v, offset - d, offset + d + 1));
+                    finalD = d;
+                    break outer;
+                }
+            }
+            trace.add(Arrays.copyOfRange(v, offset - d, offset + d + 1));
+        }
+        int x = n;
+        int y = m;
+        for (int d = finalD; d > 0; --d) {
+            int[] previousV = trace.get(d - 1);
+            int k = x - y;
+            boolean down = k == -d || (k != d && previousV[k - 1 + d - 1] < previousV[k + 1 + d - 1]);
+            int previousK = down ? k + 1 : k - 1;
+            int previousX = previousV[previousK + d - 1];
+            int previousY = previousX - previousK;
+            if (down) {
+                inserted[previousY] = true;
+            } else {
+                deleted[previousX] = true;
+            }
+            x = previousX;
+            y = previousY;
+        }
+    }
+
+    public static String toUnifiedDiff(String fileName, String originalCode, String generatedCode) {
+        return toUnifiedDiff(fileName, originalCode, generatedCode, DEFAULT_CONTEXT_SIZE);
+    }
+
+    public static String toUnifiedDiff(
+            String fileName, String originalCode, String generatedCode, int contextSize) {
+        var originalLines = new Lines(originalCode);
+        var generatedLines = new Lines(generatedCode);
+        var lineDiffs = diff(originalLines, generatedLines);
+        if (lineDiffs.isEmpty()) {
+            return StringUtils.EMPTY;
+        }
+        var stringBuilder = new StringBuilder();
+        stringBuilder.append("--- a/").append(fileName).append('\n');
+        stringBuilder.append("+++ b/").append(fileName).append('\n');
+        int index = 0;
+        while (index < lineDiffs.size()) {
+            int lastIndex = index;
+            while (lastIndex + 1 < lineDiffs.size()
+                    && lineDiffs.get(lastIndex + 1).originalStart() - lineDiffs.get(lastIndex).originalEnd()
+                    <= contextSize * 2) {
+                ++lastIndex;
+            }
+            var first = lineDiffs.get(index);
+            var last = lineDiffs.get(lastIndex);
+            int originalStart = Math.max(0, first.originalStart() - contextSize);
+            int originalEnd = Math.min(originalLines.size(), last.originalEnd() + contextSize);
+            int generatedStart = first.generatedStart() - (first.originalStart() - originalStart);
+            int generatedEnd = last.generatedEnd() + (originalEnd - last.originalEnd());
+            int originalLength = originalEnd - originalStart;
+            int generatedLength = generatedEnd - generatedStart;
+            stringBuilder.append("@@ -")
+                    .append(originalLength == 0 ? originalStart : originalStart + 1).append(',').append(originalLength)
+                    .append(" +")
+                    .append(generatedLength == 0 ? generatedStart : generatedStart + 1).append(',').append(generatedLength)
+                    .append(" @@\n");
+            int position = originalStart;
+            for (int i = index; i <= lastIndex; ++i) {
+                var lineDiff = lineDiffs.get(i);
+                for (; position < lineDiff.originalStart(); ++position) {
+                    appendLine(stringBuilder, ' ', originalLines, position);
+                }
+                for (int j = lineDiff.originalStart(); j < lineDiff.originalEnd(); ++j) {
+                    appendLine(stringBuilder, '-', originalLines, j);
+                }
+                for (int j = lineDiff.generatedStart(); j < lineDiff.generatedEnd(); ++j) {
+                    appendLine(stringBuilder, '+', generatedLines, j);
+                }
+                position = lineDiff.originalEnd();
+            }
+            for (; position < originalEnd; ++position) {
+                appendLine(stringBuilder, ' ', originalLines, position);
+            }
+            index = lastIndex + 1;
+        }
+        return stringBuilder.toString();
+    }
+
+    private record LineDiff(int originalStart, int originalEnd, int generatedStart, int generatedEnd) {
+    }
+
+    private static final class Lines {
+        private final String code;
+        private final int[] positions;
+
+        Lines(String code) {
+            this.code = code;
+            int count = 0;
+            for (int i = 0; i < code.length(); ++i) {
+                if (code.charAt(i) == '\n') {
+                    ++count;
+                }
+            }
+            boolean hasTrailingLine = code.isEmpty() || code.charAt(code.length() - 1) != '\n';
+            int size = hasTrailingLine && !code.isEmpty() ? count + 1 : count;
+            positions = new int[size + 1];
+            int lineIndex = 1;
+            for (int i = 0; i < code.length() && lineIndex < size; ++i) {
+                if (code.charAt(i) == '\n') {
+                    positions[lineIndex++] = i + 1;
+                }
+            }
+            positions[size] = code.length();
+        }
+
+        String get(int index) {
+            return code.substring(positions[index], positions[index + 1]);
+        }
+
+        int getPosition(int index) {
+            return positions[index];
+        }
+
+        int size() {
+            return positions.length - 1;
+        }
+
+        int[] toIds(Map<String, Integer> lineIdMap) {
+            int[] ids = new int[size()];
+            for (int i = 0; i < ids.length; ++i) {
+                ids[i] = lineIdMap.computeIfAbsent(get(i), key -> lineIdMap.size());
+            }
+            return ids;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2023-2025. caoccao.com Sam Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.caoccao.jaspiler.utils;
+
+import java.util.Objects;
+
+/**
+ * The type Text edit replaces the range [startPosition, endPosition) of the original code with the replacement.
+ */
+public record TextEdit(
+        int startPosition,
+        int endPosition,
+        String replacement) {
+    public TextEdit {
+        if (startPosition < 0 || endPosition < startPosition) {
+            throw new IllegalArgumentException("Invalid range [" + startPosition + ", " + endPosition + ").");
+        }
+        Objects.requireNonNull(replacement);
+    }
+
+    public int length() {
+        return endPosition - startPosition;
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2023-2025. caoccao.com Sam Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.caoccao.jaspiler.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The type Text edit writer applies the text edits to a file in place with positional writes.
+ * The file is expected to contain the original code the text edits are computed against.
+ * If every replacement has the same encoded length as the range it replaces,
+ * only the replaced bytes are written.
+ * Otherwise, the file is rewritten from the first edit onwards and truncated.
+ */
+public final class TextEditWriter {
+    private final Charset charset;
+
+    public TextEditWriter() {
+        this(StandardCharsets.UTF_8);
+    }
+
+    public TextEditWriter(Charset charset) {
+        this.charset = Objects.requireNonNull(charset);
+    }
+
+    private int encodedLength(CharSequence charSequence, int start, int end) {
+        return start == end ? 0 : charset.encode(CharBuffer.wrap(charSequence, start, end)).remaining();
+    }
+
+    public Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * Write the text edits to the file.
+     *
+     * @param path         the path
+     * @param originalCode the original code
+     * @param textEdits    the text edits sorted by position
+     * @return the number of bytes written
+     * @throws IOException the io exception
+     */
+    public long write(Path path, String originalCode, List<TextEdit> textEdits) throws IOException {
+        if (textEdits == null || textEdits.isEmpty()) {
+            return 0;
+        }
+        final int size = textEdits.size();
+        long[] bytePositions = new long[size];
+        byte[][] replacements = new byte[size][];
+        boolean sameLength = true;
+        long bytePosition = 0;
+        int position = 0;
+        for (int i = 0; i < size; ++i) {
+            var textEdit = textEdits.get(i);
+            bytePosition += encodedLength(originalCode, position, textEdit.startPosition());
+            bytePositions[i] = bytePosition;
+            replacements[i] = textEdit.replacement().getBytes(charset);
+            int byteLength = encodedLength(originalCode, textEdit.startPosition(), textEdit.endPosition());
+            sameLength = sameLength && byteLength == replacements[i].length;
+            bytePosition += byteLength;
+            position = textEdit.endPosition();
+        }
+        long bytesWritten = 0;
+        try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            if (sameLength) {
+                for (int i = 0; i < size; ++i) {
+                    bytesWritten += writeFully(fileChannel, ByteBuffer.wrap(replacements[i]), bytePositions[i]);
+                }
+            } else {
+                int startPosition = textEdits.get(0).startPosition();
+                var stringBuilder = new StringBuilder();
+                position = startPosition;
+                for (var textEdit : textEdits) {
+                    stringBuilder.append(originalCode, position, textEdit.startPosition()).append(textEdit.replacement());
+                    position = textEdit.endPosition();
+                }
+                stringBuilder.append(originalCode, position, originalCode.length());
+                ByteBuffer byteBuffer = charset.encode(CharBuffer.wrap(stringBuilder));
+                bytesWritten = writeFully(fileChannel, byteBuffer, bytePositions[0]);
+                fileChannel.truncate(bytePositions[0] + bytesWritten);
+            }
+            fileChannel.force(false);
+        }
+        return bytesWritten;
+    }
+
+    private long writeFully(FileChannel fileChannel, ByteBuffer byteBuffer, long bytePosition) throws IOException {
+        long bytesWritten = 0;
+        while (byteBuffer.hasRemaining()) {
+            bytesWritten += fileChannel.write(byteBuffer, bytePosition + bytesWritten);
+        }
+        return bytesWritten;
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2023-2025. caoccao.com Sam Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.caoccao.jaspiler.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.text.MessageFormat;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipException;
+
+/**
+ * The type Zip archive writer writes the entries that are compressed ahead.
+ * <p>
+ * java.util.zip.ZipOutputStream compresses the entries one by one while writing them,
+ * so the entries cannot be compressed in parallel.
+ * This writer accepts the entries compressed by {@link #compress(String, byte[], int)} in any thread
+ * and only writes the headers and the compressed data.
+ * All the entries share the same timestamp and no extra fields are written
+ * so that the same entries in the same order always produce the same archive.
+ * <p>
+ * Limitations:
+ * 1. ZIP64 is not supported.
+ */
+public final class ZipArchiveWriter implements Closeable {
+    /**
+     * The default timestamp is 1980-02-01 instead of 1980-01-01
+     * so that it stays valid in the DOS date time in any time zone.
+     */
+    public static final LocalDateTime DEFAULT_TIMESTAMP = LocalDateTime.of(1980, 2, 1, 0, 0);
+    private static final int BUFFER_SIZE = 8192;
+    private static final int CENTRAL_DIRECTORY_HEADER_SIGNATURE = 0x02014b50;
+    private static final int CENTRAL_DIRECTORY_HEADER_SIZE = 46;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+    private static final int FLAG_UTF8 = 0x0800;
+    private static final int LOCAL_FILE_HEADER_SIGNATURE = 0x04034b50;
+    private static final int LOCAL_FILE_HEADER_SIZE = 30;
+    private static final int MAX_ENTRY_COUNT = 0xFFFF;
+    private static final long MAX_SIZE = 0xFFFFFFFFL;
+    private static final int VERSION_DEFLATED = 20;
+    private static final int VERSION_STORED = 10;
+    private final int dosDate;
+    private final int dosTime;
+    private final List<Long> localFileHeaderOffsets;
+    private final OutputStream outputStream;
+    private final List<Entry> writtenEntries;
+    private boolean closed;
+    private long position;
+
+    public ZipArchiveWriter(OutputStream outputStream) {
+        this(outputStream, DEFAULT_TIMESTAMP);
+    }
+
+    public ZipArchiveWriter(OutputStream outputStream, LocalDateTime timestamp) {
+        Objects.requireNonNull(timestamp);
+        if (timestamp.getYear() < 1980 || timestamp.getYear() > 2107) {
+            throw new IllegalArgumentException(
+                    MessageFormat.format("Timestamp [{0}] is out of the range of the DOS date time.", timestamp));
+        }
+        closed = false;
+        dosDate = ((timestamp.getYear() - 1980) << 9) | (timestamp.getMonthValue() << 5) | timestamp.getDayOfMonth();
+        dosTime = (timestamp.getHour() << 11) | (timestamp.getMinute() << 5) | (timestamp.getSecond() >> 1);
+        localFileHeaderOffsets = new ArrayList<>();
+        this.outputStream = Objects.requireNonNull(outputStream);
+        position = 0;
+        writtenEntries = new ArrayList<>();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            long centralDirectoryOffset = position;
+            final int entryCount = writtenEntries.size();
+            for (int i = 0; i < entryCount; ++i) {
+                var entry = writtenEntries.get(i);
+                byte[] nameBytes = entry.name().getBytes(StandardCharsets.UTF_8);
+                ByteBuffer byteBuffer = ByteBuffer.allocate(CENTRAL_DIRECTORY_HEADER_SIZE + nameBytes.length)
+                        .order(ByteOrder.LITTLE_ENDIAN)
+                        .putInt(CENTRAL_DIRECTORY_HEADER_SIGNATURE)
+                        .putShort((short) VERSION_DEFLATED)
+                        .putShort((short) entry.getVersion())
+                        .putShort((short) FLAG_UTF8)
+                        .putShort((short) entry.method())
+                        .putShort((short) dosTime)
+                        .putShort((short) dosDate)
+                        .putInt((int) entry.crc())
+                        .putInt(entry.compressedBytes().length)
+                        .putInt((int) entry.size())
+                        .putShort((short) nameBytes.length)
+                        .putShort((short) 0)
+                        .putShort((short) 0)
+                        .putShort((short) 0)
+                        .putShort((short) 0)
+                        .putInt(0)
+                        .putInt((int) (long) localFileHeaderOffsets.get(i))
+                        .put(nameBytes);
+                write(byteBuffer.array());
+            }
+            long centralDirectorySize = position - centralDirectoryOffset;
+            if (centralDirectoryOffset > MAX_SIZE || centralDirectorySize > MAX_SIZE) {
+                throw new ZipException("The archive is too large.");
+            }
+            ByteBuffer byteBuffer = ByteBuffer.allocate(END_OF_CENTRAL_DIRECTORY_SIZE)
+                    .order(ByteOrder.LITTLE_ENDIAN)
+                    .putInt(END_OF_CENTRAL_DIRECTORY_SIGNATURE)
+                    .putShort((short) 0)
+                    .putShort((short) 0)
+                    .putShort((short) entryCount)
+                    .putShort((short) entryCount)
+                    .putInt((int) centralDirectorySize)
+                    .putInt((int) centralDirectoryOffset)
+                    .putShort((short) 0);
+            write(byteBuffer.array());
+            outputStream.flush();
+        } finally {
+            outputStream.close();
+        }
+    }
+
+    /**
+     * Compress the bytes to an entry.
+     * It is thread-safe. The entry is stored instead if the compressed data is not smaller.
+     *
+     * @param name  the name
+     * @param bytes the bytes
+     * @param level the compression level
+     * @return the entry
+     */
+    public static Entry compress(String name, byte[] bytes, int level) {
+        var crc32 = new CRC32();
+        crc32.update(bytes);
+        var deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            var byteArrayOutputStream = new ByteArrayOutputStream(Math.max(bytes.length / 2, 64));
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(buffer);
+                byteArrayOutputStream.write(buffer, 0, length);
+            }
+            byte[] compressedBytes = byteArrayOutputStream.toByteArray();
+            return compressedBytes.length < bytes.length
+                    ? new Entry(name, Deflater.DEFLATED, crc32.getValue(), bytes.length, compressedBytes)
+                    : new Entry(name, 0, crc32.getValue(), bytes.length, bytes);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    public int getEntryCount() {
+        return writtenEntries.size();
+    }
+
+    private void write(byte[] bytes) throws IOException {
+        outputStream.write(bytes);
+        position += bytes.length;
+    }
+
+    /**
+     * Write the entry.
+     *
+     * @param entry the entry
+     * @throws IOException the io exception
+     */
+    public void write(Entry entry) throws IOException {
+        Objects.requireNonNull(entry);
+        if (closed) {
+            throw new IOException("The archive is closed.");
+        }
+        if (writtenEntries.size() >= MAX_ENTRY_COUNT) {
+            throw new ZipException(MessageFormat.format("The archive has more than {0} entries.", MAX_ENTRY_COUNT));
+        }
+        if (position > MAX_SIZE || entry.size() > MAX_SIZE) {
+            throw new ZipException(MessageFormat.format("Entry [{0}] is too large.", entry.name()));
+        }
+        byte[] nameBytes = entry.name().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer byteBuffer = ByteBuffer.allocate(LOCAL_FILE_HEADER_SIZE + nameBytes.length)
+                .order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(LOCAL_FILE_HEADER_SIGNATURE)
+                .putShort((short) entry.getVersion())
+                .putShort((short) FLAG_UTF8)
+                .putShort((short) entry.method())
+                .putShort((short) dosTime)
+                .putShort((short) dosDate)
+                .putInt((int) entry.crc())
+                .putInt(entry.compressedBytes().length)
+                .putInt((int) entry.size())
+                .putShort((short) nameBytes.length)
+                .putShort((short) 0)
+                .put(nameBytes);
+        localFileHeaderOffsets.add(position);
+        writtenEntries.add(entry);
+        write(byteBuffer.array());
+        write(entry.compressedBytes());
+    }
+
+    /**
+     * The type Entry.
+     *
+     * @param name            the name
+     * @param method          the method, 0 : stored, 8 : deflated
+     * @param crc             the crc of the uncompressed bytes
+     * @param size            the size of the uncompressed bytes
+     * @param compressedBytes the compressed bytes
+     */
+    public record Entry(String name, int method, long crc, long size, byte[] compressedBytes) {
+        public Entry {
+            Objects.requireNonNull(name);
+            Objects.requireNonNull(compressedBytes);
+        }
+
+        int getVersion() {
+            return method == Deflater.DEFLATED ? VERSION_DEFLATED : VERSION_STORED;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2023-2025. caoccao.com Sam Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.caoccao.jaspiler.v8;
+
+import com.caoccao.jaspiler.utils.BaseLoggingObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The type V8 code cache persists the V8 code cache of scripts in a local directory.
+ * The cache file is keyed by the hash of the V8 version and the script source,
+ * so that a changed script or an upgraded engine never consumes a stale cache.
+ * It is thread-safe.
+ */
+public final class V8CodeCache extends BaseLoggingObject {
+    private static final String ALGORITHM = "SHA-256";
+    private static final String EXTENSION = ".cache";
+    private final Path directory;
+    private final AtomicInteger hitCount;
+    private final AtomicInteger missCount;
+    private final String v8Version;
+    private final AtomicInteger writtenCount;
+
+    public V8CodeCache(Path directory, String v8Version) {
+        this.directory = Objects.requireNonNull(directory);
+        hitCount = new AtomicInteger();
+        missCount = new AtomicInteger();
+        this.v8Version = Objects.requireNonNull(v8Version);
+        writtenCount = new AtomicInteger();
+    }
+
+    /**
+     * Get the cached data of the script source.
+     *
+     * @param source the script source
+     * @return the cached data or null if it is a miss
+     */
+    public byte[] get(String source) {
+        Path path = getPath(source);
+        if (Files.isRegularFile(path)) {
+            try {
+                byte[] cachedData = Files.readAllBytes(path);
+                hitCount.incrementAndGet();
+                return cachedData;
+            } catch (IOException e) {
+                logger.warn("Failed to read the code cache [{}]. {}", path, e.getMessage());
+            }
+        }
+        missCount.incrementAndGet();
+        return null;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public int getHitCount() {
+        return hitCount.get();
+    }
+
+    public int getMissCount() {
+        return missCount.get();
+    }
+
+    private Path getPath(String source) {
+        MessageDigest messageDigest;
+        try {
+            messageDigest = MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        messageDigest.update(v8Version.getBytes(StandardCharsets.UTF_8));
+        messageDigest.update((byte) 0);
+        messageDigest.update(Objects.requireNonNull(source).getBytes(StandardCharsets.UTF_8));
+        return directory.resolve(HexFormat.of().formatHex(messageDigest.digest()) + EXTENSION);
+    }
+
+    public String getV8Version() {
+        return v8Version;
+    }
+
+    public int getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    /**
+     * Put the cached data of the script source.
+     * The cache file is written to a temporary file and moved atomically,
+     * so that a concurrent reader never sees a partial cache.
+     *
+     * @param source     the script source
+     * @param cachedData the cached data
+     * @return true : written, false : not written
+     */
+    public boolean put(String source, byte[] cachedData) {
+        if (cachedData == null || cachedData.length == 0) {
+            return false;
+        }
+        Path path = getPath(source);
+        try {
+            Files.createDirectories(directory);
+            Path tempPath = Files.createTempFile(directory, null, null);
+            try {
+                Files.write(tempPath, cachedData);
+                Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tempPath);
+            }
+            writtenCount.incrementAndGet();
+            return true;
+        } catch (IOException e) {
+            logger.warn("Failed to write the code cache [{}]. {}", path, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Record that V8 rejected the cached data of the script source, e.g. the V8 flags are changed.
+     * The hit is counted as a miss and the caller is expected to put the cached data again.
+     *
+     * @param source the script source
+     */
+    public void reject(String source) {
+        hitCount.decrementAndGet();
+        missCount.incrementAndGet();
+        logger.warn("The code cache [{}] is rejected.", getPath(source));
+    }
+}
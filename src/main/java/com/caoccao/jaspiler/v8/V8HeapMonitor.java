@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2023-2025. caoccao.com Sam Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.caoccao.jaspiler.v8;
+
+import com.caoccao.jaspiler.utils.BaseLoggingObject;
+import com.caoccao.javet.interop.V8Runtime;
+
+import java.util.Objects;
+
+/**
+ * The type V8 heap monitor applies the heap policy to the V8 runtime transforming the files
+ * and keeps the heap statistics for the run report.
+ * It survives the recycling so that the statistics cover the whole run.
+ * It is only accessed by one thread at a time.
+ * <p>
+ * The heap threshold has a hysteresis.
+ * If the garbage collection does not bring the used heap below 90% of the threshold,
+ * the threshold is skipped until the used heap drops below that level or the runtime is recycled,
+ * so that a heap which stays above the threshold is not collected after every batch.
+ */
+public final class V8HeapMonitor extends BaseLoggingObject {
+    private static final int GC_HEAP_THRESHOLD_REARM_PERCENTAGE = 90;
+    private final V8HeapPolicy heapPolicy;
+    private long fileCount;
+    private long filesSinceGc;
+    private long filesSinceRecycle;
+    private long gcCount;
+    private boolean gcHeapThresholdArmed;
+    private long heapLimit;
+    private long heapPeak;
+    private long heapTotal;
+    private long heapUsed;
+    private long recycleCount;
+
+    public V8HeapMonitor(V8HeapPolicy heapPolicy) {
+        super();
+        this.heapPolicy = Objects.requireNonNull(heapPolicy);
+        fileCount = 0;
+        filesSinceGc = 0;
+        filesSinceRecycle = 0;
+        gcCount = 0;
+        gcHeapThresholdArmed = true;
+        heapLimit = 0;
+        heapPeak = 0;
+        heapTotal = 0;
+        heapUsed = 0;
+        recycleCount = 0;
+    }
+
+    public long getFileCount() {
+        return fileCount;
+    }
+
+    public long getGcCount() {
+        return gcCount;
+    }
+
+    private long getGcHeapRearmLevel() {
+        return heapPolicy.getGcHeapThreshold() * GC_HEAP_THRESHOLD_REARM_PERCENTAGE / 100;
+    }
+
+    public long getHeapLimit() {
+        return heapLimit;
+    }
+
+    public long getHeapPeak() {
+        return heapPeak;
+    }
+
+    public V8HeapPolicy getHeapPolicy() {
+        return heapPolicy;
+    }
+
+    public long getHeapTotal() {
+        return heapTotal;
+    }
+
+    public long getHeapUsed() {
+        return heapUsed;
+    }
+
+    public long getRecycleCount() {
+        return recycleCount;
+    }
+
+    /**
+     * Apply the policy after the files are transformed in the V8 runtime.
+     * The garbage collection is hinted if the file interval is reached
+     * or the used heap is above the armed threshold.
+     *
+     * @param v8Runtime the V8 runtime
+     * @param count     the count of the transformed files
+     * @return true : the runtime is due to be recycled, false : otherwise
+     */
+    public boolean onFilesTransformed(V8Runtime v8Runtime, int count) {
+        fileCount += count;
+        filesSinceGc += count;
+        filesSinceRecycle += count;
+        update(v8Runtime);
+        final boolean gcHeapThresholdEnabled = heapPolicy.getGcHeapThreshold() > 0;
+        if (gcHeapThresholdEnabled && heapUsed < getGcHeapRearmLevel()) {
+            gcHeapThresholdArmed = true;
+        }
+        if ((heapPolicy.getGcFileInterval() > 0 && filesSinceGc >= heapPolicy.getGcFileInterval())
+                || (gcHeapThresholdEnabled && gcHeapThresholdArmed && heapUsed >= heapPolicy.getGcHeapThreshold())) {
+            long heapUsedBeforeGc = heapUsed;
+            v8Runtime.lowMemoryNotification();
+            filesSinceGc = 0;
+            ++gcCount;
+            update(v8Runtime);
+            logger.debug("GC #{} after {} files: {} -> {} bytes.", gcCount, fileCount, heapUsedBeforeGc, heapUsed);
+            if (gcHeapThresholdEnabled && heapUsed >= getGcHeapRearmLevel()) {
+                gcHeapThresholdArmed = false;
+                logger.debug("GC heap threshold is skipped until the heap drops or the runtime is recycled.");
+            }
+        }
+        return heapPolicy.getRecycleFileInterval() > 0 && filesSinceRecycle >= heapPolicy.getRecycleFileInterval();
+    }
+
+    /**
+     * Reset the per runtime counters after the V8 runtime is recycled.
+     */
+    public void onRecycled() {
+        filesSinceGc = 0;
+        gcHeapThresholdArmed = true;
+        filesSinceRecycle = 0;
+        ++recycleCount;
+    }
+
+    /**
+     * Update the heap statistics from the V8 runtime.
+     *
+     * @param v8Runtime the V8 runtime
+     * @return the self
+     */
+    public V8HeapMonitor update(V8Runtime v8Runtime) {
+        var v8HeapStatistics = v8Runtime.getV8HeapStatistics();
+        heapLimit = v8HeapStatistics.getHeapSizeLimit();
+        heapTotal = v8HeapStatistics.getTotalHeapSize();
+        heapUsed = v8HeapStatistics.getUsedHeapSize();
+        heapPeak = Math.max(heapPeak, heapUsed);
+        return this;
+    }
+}
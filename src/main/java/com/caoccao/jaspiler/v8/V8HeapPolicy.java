@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2023-2025. caoccao.com Sam Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.caoccao.jaspiler.v8;
+
+/**
+ * The type V8 heap policy decides when a long-running V8 runtime is hinted to collect the garbage
+ * and when it is recycled.
+ * Zero disables the corresponding rule.
+ * Recycling only applies to the runtimes of the pool,
+ * because the runtime of a single script cannot be replaced while the script is running.
+ */
+public final class V8HeapPolicy {
+    private long gcFileInterval;
+    private long gcHeapThreshold;
+    private long recycleFileInterval;
+
+    public V8HeapPolicy() {
+        gcFileInterval = 0;
+        gcHeapThreshold = 0;
+        recycleFileInterval = 0;
+    }
+
+    /**
+     * Gets the number of the files after which the garbage collection is hinted.
+     *
+     * @return the gc file interval
+     */
+    public long getGcFileInterval() {
+        return gcFileInterval;
+    }
+
+    /**
+     * Gets the used heap size in bytes above which the garbage collection is hinted.
+     *
+     * @return the gc heap threshold
+     */
+    public long getGcHeapThreshold() {
+        return gcHeapThreshold;
+    }
+
+    /**
+     * Gets the number of the files after which the runtime is recycled.
+     *
+     * @return the recycle file interval
+     */
+    public long getRecycleFileInterval() {
+        return recycleFileInterval;
+    }
+
+    public boolean isEnabled() {
+        return gcFileInterval > 0 || gcHeapThreshold > 0 || recycleFileInterval > 0;
+    }
+
+    public V8HeapPolicy setGcFileInterval(long gcFileInterval) {
+        this.gcFileInterval = Math.max(gcFileInterval, 0);
+        return this;
+    }
+
+    public V8HeapPolicy setGcHeapThreshold(long gcHeapThreshold) {
+        this.gcHeapThreshold = Math.max(gcHeapThreshold, 0);
+        return this;
+    }
+
+    public V8HeapPolicy setRecycleFileInterval(long recycleFileInterval) {
+        this.recycleFileInterval = Math.max(recycleFileInterval, 0);
+        return this;
+    }
+}
@@ -21,32 +21,35 @@ import com.caoccao.jaspiler.exceptions.JaspilerArgumentException;
 import com.caoccao.jaspiler.exceptions.JaspilerCheckedException;
 import com.caoccao.jaspiler.exceptions.JaspilerExecutionException;
 import com.caoccao.jaspiler.exceptions.JaspilerParseException;
-import com.caoccao.jaspiler.styles.StandardStyleWriter;
 import com.caoccao.jaspiler.trees.*;
 import com.caoccao.jaspiler.utils.BaseLoggingObject;
+import com.caoccao.jaspiler.utils.DedupFileWriter;
 import com.caoccao.javet.exceptions.JavetException;
 import com.caoccao.javet.interfaces.IJavetClosable;
 import com.caoccao.javet.interfaces.IJavetUniFunction;
 import com.caoccao.javet.interop.V8Runtime;
-import com.caoccao.javet.interop.V8Scope;
 import com.caoccao.javet.interop.callback.IJavetDirectCallable;
 import com.caoccao.javet.interop.proxy.IJavetDirectProxyHandler;
+import com.caoccao.javet.utils.JavetResourceUtils;
 import com.caoccao.javet.values.V8Value;
 import com.caoccao.javet.values.primitive.V8ValueDouble;
 import com.caoccao.javet.values.primitive.V8ValueInteger;
 import com.caoccao.javet.values.primitive.V8ValueLong;
 import com.caoccao.javet.values.primitive.V8ValueString;
 import com.caoccao.javet.values.reference.V8ValueObject;
+import com.caoccao.javet.values.reference.V8ValueProxy;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 
 import java.io.File;
 import java.io.IOException;
 import java.text.MessageFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.function.Supplier;
 
 public final class V8Jaspiler
@@ -59,10 +62,26 @@ public final class V8Jaspiler
     private static final String FUNCTION_CREATE_IDENT = "createIdent";
     private static final String FUNCTION_CREATE_LITERAL = "createLiteral";
     private static final String FUNCTION_CREATE_NAME = "createName";
+    private static final String FUNCTION_CREATE_TRANSFORMER = "createTransformer";
+    private static final String FUNCTION_REGISTER_TRANSFORM_OPTIONS = "registerTransformOptions";
+    private static final String FUNCTION_TRANSFORM = "transform";
     private static final String FUNCTION_TRANSFORM_SYNC = "transformSync";
+    private static final String FUNCTION_WRITE_FILE_SYNC = "writeFileSync";
     private static final String PROPERTY_ARGV = "argv";
-    private static final String PROPERTY_AST = "ast";
-    private static final String PROPERTY_CODE = "code";
+    private static final String PROPERTY_CREATED = "created";
+    private static final String PROPERTY_FILE_COUNT = "fileCount";
+    private static final String PROPERTY_GC_COUNT = "gcCount";
+    private static final String PROPERTY_HEAP_LIMIT = "heapLimit";
+    private static final String PROPERTY_HEAP_PEAK = "heapPeak";
+    private static final String PROPERTY_HEAP_STATS = "heapStats";
+    private static final String PROPERTY_HEAP_TOTAL = "heapTotal";
+    private static final String PROPERTY_HEAP_USED = "heapUsed";
+    private static final String PROPERTY_PROXY_STATS = "proxyStats";
+    private static final String PROPERTY_RECYCLE_COUNT = "recycleCount";
+    private static final String PROPERTY_REUSED = "reused";
+    private static final String PROPERTY_SKIPPED = "skipped";
+    private static final String PROPERTY_WRITE_STATS = "writeStats";
+    private static final String PROPERTY_WRITTEN = "written";
     private static final Map<String, Supplier<JTTree<?, ?>>> constructorMap;
 
     static {
@@ -134,14 +153,22 @@ public final class V8Jaspiler
     }
 
     private final List<String> argv;
+    private final V8JaspilerAsyncTransformer asyncTransformer;
     private final Map<String, IJavetDirectCallable.NoThisAndResult<?>> creatorMap;
+    private final DedupFileWriter dedupFileWriter;
+    private final V8JaspilerMirror mirror;
+    private final List<V8JaspilerTransformer> transformers;
     private final V8Runtime v8Runtime;
+    private V8HeapMonitor heapMonitor;
     private JaspilerCompiler jaspilerCompiler;
     private Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> stringGetterMap;
+    private V8ValueObject transformOptions;
 
     public V8Jaspiler(String[] args, V8Runtime v8Runtime) {
         super();
         argv = Arrays.asList(args);
+        mirror = new V8JaspilerMirror(v8Runtime);
+        asyncTransformer = new V8JaspilerAsyncTransformer(v8Runtime, this);
         creatorMap = new HashMap<>();
         creatorMap.put(FUNCTION_CREATE_CHARACTER, this::createCharacter);
         creatorMap.put(FUNCTION_CREATE_FIELD_ACCESS, this::createFieldAccess);
@@ -149,15 +176,29 @@ public final class V8Jaspiler
         creatorMap.put(FUNCTION_CREATE_IDENT, this::createIdent);
         creatorMap.put(FUNCTION_CREATE_LITERAL, this::createLiteral);
         creatorMap.put(FUNCTION_CREATE_NAME, this::createName);
+        creatorMap.put(FUNCTION_CREATE_TRANSFORMER, this::createTransformer);
+        creatorMap.put(FUNCTION_REGISTER_TRANSFORM_OPTIONS, this::registerTransformOptions);
+        creatorMap.put(FUNCTION_TRANSFORM, this::transform);
         creatorMap.put(FUNCTION_TRANSFORM_SYNC, this::transformSync);
+        creatorMap.put(FUNCTION_WRITE_FILE_SYNC, this::writeFileSync);
+        dedupFileWriter = new DedupFileWriter();
+        heapMonitor = new V8HeapMonitor(new V8HeapPolicy());
         jaspilerCompiler = new JaspilerCompiler();
         stringGetterMap = null;
+        transformOptions = null;
+        transformers = new ArrayList<>();
         this.v8Runtime = v8Runtime;
     }
 
     @Override
     public void close() {
+        asyncTransformer.close();
+        mirror.close();
+        JavetResourceUtils.safeClose(transformOptions);
+        transformers.forEach(V8JaspilerTransformer::close);
+        transformers.clear();
         jaspilerCompiler = null;
+        transformOptions = null;
     }
 
     public V8Value createCharacter(V8Value... v8Values) throws JavetException, JaspilerArgumentException {
@@ -199,10 +240,57 @@ public final class V8Jaspiler
         return v8Runtime.toV8Value(new JTName(value));
     }
 
+    /**
+     * Create a transformer which holds the deserialized plugins and the dispatch tables,
+     * so that the transforms taking the transformer in place of the options
+     * skip the deserialization of the options.
+     *
+     * @param v8Values the V8 values
+     * @return the transformer
+     * @throws JavetException            the javet exception
+     * @throws JaspilerArgumentException the jaspiler argument exception
+     */
+    public V8Value createTransformer(V8Value... v8Values) throws JavetException, JaspilerArgumentException {
+        validateLength(FUNCTION_CREATE_TRANSFORMER, v8Values, 1);
+        V8ValueObject v8ValueObject = validateObject(FUNCTION_CREATE_TRANSFORMER, v8Values, 0);
+        var v8JaspilerOptions = new V8JaspilerOptions();
+        try {
+            v8JaspilerOptions.deserialize(v8ValueObject);
+        } catch (Throwable t) {
+            v8JaspilerOptions.close();
+            throw t;
+        }
+        transformers.removeIf(V8JaspilerTransformer::isClosed);
+        var transformer = new V8JaspilerTransformer(v8Runtime, v8JaspilerOptions, false);
+        transformers.add(transformer);
+        return v8Runtime.toV8Value(transformer);
+    }
+
     public List<String> getArgv() {
         return argv;
     }
 
+    public DedupFileWriter getDedupFileWriter() {
+        return dedupFileWriter;
+    }
+
+    public V8HeapMonitor getHeapMonitor() {
+        return heapMonitor;
+    }
+
+    public V8JaspilerMirror getMirror() {
+        return mirror;
+    }
+
+    /**
+     * Gets the transform options registered by the script.
+     *
+     * @return the transform options, null if not registered
+     */
+    public V8ValueObject getTransformOptions() {
+        return transformOptions;
+    }
+
     @Override
     public V8Runtime getV8Runtime() {
         return v8Runtime;
@@ -220,17 +308,98 @@ public final class V8Jaspiler
             constructorMap.forEach((key, value) -> registerStringGetterFunction(key, v8Values -> v8Runtime.toV8Value(value.get())));
             creatorMap.forEach(this::registerStringGetterFunction);
             registerStringGetter(PROPERTY_ARGV, propertyName -> v8Runtime.toV8Value(getArgv()));
+            registerStringGetter(PROPERTY_HEAP_STATS, propertyName -> {
+                heapMonitor.update(v8Runtime);
+                V8ValueObject v8ValueObject = v8Runtime.createV8ValueObject();
+                v8ValueObject.set(
+                        PROPERTY_FILE_COUNT, heapMonitor.getFileCount(),
+                        PROPERTY_GC_COUNT, heapMonitor.getGcCount(),
+                        PROPERTY_HEAP_LIMIT, heapMonitor.getHeapLimit(),
+                        PROPERTY_HEAP_PEAK, heapMonitor.getHeapPeak(),
+                        PROPERTY_HEAP_TOTAL, heapMonitor.getHeapTotal(),
+                        PROPERTY_HEAP_USED, heapMonitor.getHeapUsed(),
+                        PROPERTY_RECYCLE_COUNT, heapMonitor.getRecycleCount());
+                return v8ValueObject;
+            });
+            registerStringGetter(PROPERTY_PROXY_STATS, propertyName -> {
+                V8ValueObject v8ValueObject = v8Runtime.createV8ValueObject();
+                if (v8Runtime.getConverter() instanceof V8JaspilerConverter v8JaspilerConverter) {
+                    v8ValueObject.set(
+                            PROPERTY_CREATED, v8JaspilerConverter.getCreatedCount(),
+                            PROPERTY_REUSED, v8JaspilerConverter.getReusedCount());
+                }
+                v8ValueObject.set(PROPERTY_HEAP_USED, v8Runtime.getV8HeapStatistics().getUsedHeapSize());
+                return v8ValueObject;
+            });
+            registerStringGetter(PROPERTY_WRITE_STATS, propertyName -> {
+                V8ValueObject v8ValueObject = v8Runtime.createV8ValueObject();
+                v8ValueObject.set(
+                        PROPERTY_SKIPPED, dedupFileWriter.getSkippedCount(),
+                        PROPERTY_WRITTEN, dedupFileWriter.getWrittenCount());
+                return v8ValueObject;
+            });
         }
         return stringGetterMap;
     }
 
+    /**
+     * Register the transform options so that the files can be transformed by the pool
+     * without calling back into the script.
+     *
+     * @param v8Values the V8 values
+     * @return undefined
+     * @throws JavetException            the javet exception
+     * @throws JaspilerArgumentException the jaspiler argument exception
+     */
+    public V8Value registerTransformOptions(V8Value... v8Values) throws JavetException, JaspilerArgumentException {
+        validateLength(FUNCTION_REGISTER_TRANSFORM_OPTIONS, v8Values, 1);
+        V8ValueObject v8ValueObject = validateObject(FUNCTION_REGISTER_TRANSFORM_OPTIONS, v8Values, 0);
+        JavetResourceUtils.safeClose(transformOptions);
+        transformOptions = v8ValueObject.toClone();
+        return v8Runtime.createV8ValueUndefined();
+    }
+
+    public V8Jaspiler setHeapMonitor(V8HeapMonitor heapMonitor) {
+        this.heapMonitor = Objects.requireNonNull(heapMonitor);
+        return this;
+    }
+
+    /**
+     * Transform the file or the code string asynchronously.
+     * Parsing, analysis and serialization run on a Java worker pool,
+     * and only the plugin visit runs in the thread of the V8 runtime,
+     * so that multiple transforms can be in flight.
+     *
+     * @param v8Values the V8 values
+     * @return the promise of the result
+     * @throws JavetException           the javet exception
+     * @throws JaspilerCheckedException the jaspiler checked exception
+     */
+    public V8Value transform(V8Value... v8Values) throws JavetException, JaspilerCheckedException {
+        var transformer = validateTransformer(FUNCTION_TRANSFORM, v8Values).acquire();
+        try {
+            if (transformer.getV8JaspilerOptions().getSourceType() == V8JaspilerOptions.SourceType.File) {
+                File file = validateFile(validateString(FUNCTION_TRANSFORM, v8Values, 0));
+                return asyncTransformer.transform(transformer, file, null);
+            }
+            String codeString = validateString(FUNCTION_TRANSFORM, v8Values, 0);
+            return asyncTransformer.transform(transformer, null, codeString);
+        } finally {
+            transformer.release();
+        }
+    }
+
     public V8Value transformSync(V8Value... v8Values) throws JavetException, JaspilerCheckedException {
-        try (var v8JaspilerOptions = new V8JaspilerOptions();
-             var jaspilerTransformScanner = new V8JaspilerTransformScanner(v8JaspilerOptions);
+        var transformer = validateTransformer(FUNCTION_TRANSFORM_SYNC, v8Values).acquire();
+        var v8JaspilerOptions = transformer.getV8JaspilerOptions();
+        // The session begins after the validation so that an invalid call doesn't leave it open.
+        // The trees and the names are identity-stable within the call and are released at the end of the call.
+        var v8JaspilerConverter = v8Runtime.getConverter() instanceof V8JaspilerConverter converter ? converter : null;
+        if (v8JaspilerConverter != null) {
+            v8JaspilerConverter.beginSession();
+        }
+        try (var jaspilerTransformScanner = new V8JaspilerTransformScanner(v8JaspilerOptions);
              var jaspilerDocScanner = new V8JaspilerDocScanner()) {
-            if (v8Values.length > 1) {
-                v8JaspilerOptions.deserialize(validateObject(FUNCTION_TRANSFORM_SYNC, v8Values, 1));
-            }
             jaspilerCompiler.clearJavaFileObject();
             if (v8JaspilerOptions.getSourceType() == V8JaspilerOptions.SourceType.File) {
                 File file = validateFile(validateString(FUNCTION_TRANSFORM_SYNC, v8Values, 0));
@@ -239,28 +408,24 @@ public final class V8Jaspiler
                 String codeString = validateString(FUNCTION_TRANSFORM_SYNC, v8Values, 0);
                 jaspilerCompiler.addJavaFileStringObject(v8JaspilerOptions.getFileName(), codeString);
             }
-            jaspilerCompiler.transform(jaspilerTransformScanner, jaspilerDocScanner);
+            jaspilerCompiler.transform(v8JaspilerOptions.isMirror() ? null : jaspilerTransformScanner, jaspilerDocScanner);
             if (CollectionUtils.isNotEmpty(jaspilerTransformScanner.getExceptions())) {
                 var e = jaspilerTransformScanner.getExceptions().get(0);
                 throw new JaspilerExecutionException(e.getMessage(), e);
             }
             var compilationUnitTree = jaspilerCompiler.getTransformContexts().get(0).getCompilationUnitTree();
-            try (V8Scope v8Scope = v8Runtime.getV8Scope()) {
-                var v8ValueObjectResult = v8Scope.createV8ValueObject();
-                if (v8JaspilerOptions.isAst()) {
-                    v8ValueObjectResult.set(PROPERTY_AST, compilationUnitTree);
-                }
-                if (v8JaspilerOptions.isCode()) {
-                    var writer = new StandardStyleWriter(v8JaspilerOptions.getStyleOptions());
-                    if (compilationUnitTree.serialize(writer)) {
-                        v8ValueObjectResult.set(PROPERTY_CODE, writer.toString());
-                    }
-                }
-                v8Scope.setEscapable();
-                return v8ValueObjectResult;
+            if (v8JaspilerOptions.isMirror()) {
+                mirror.transform(v8JaspilerOptions, compilationUnitTree);
             }
+            return V8JaspilerTransformOutput.create(v8JaspilerOptions, compilationUnitTree).toV8Value(v8Runtime);
         } catch (IOException e) {
             throw new JaspilerParseException(e.getMessage(), e);
+        } finally {
+            transformer.release();
+            if (v8JaspilerConverter != null) {
+                v8JaspilerConverter.endSession();
+            }
+            heapMonitor.onFilesTransformed(v8Runtime, 1);
         }
     }
 
@@ -318,6 +483,41 @@ public final class V8Jaspiler
                 MessageFormat.format("Argument type mismatches in {0}. Object is expected.", functionName));
     }
 
+    /**
+     * Validate the transformer or the options in the second argument.
+     * The transformer created by {@code jaspiler.createTransformer()} is returned as is,
+     * otherwise the options are deserialized into a disposable transformer.
+     *
+     * @param functionName the function name
+     * @param v8Values     the V8 values
+     * @return the transformer
+     * @throws JavetException            the javet exception
+     * @throws JaspilerArgumentException the jaspiler argument exception
+     */
+    private V8JaspilerTransformer validateTransformer(
+            String functionName, V8Value[] v8Values)
+            throws JavetException, JaspilerArgumentException {
+        if (v8Values.length > 1
+                && v8Values[1] instanceof V8ValueProxy
+                && v8Runtime.toObject(v8Values[1]) instanceof V8JaspilerTransformer transformer) {
+            if (transformer.isClosed()) {
+                throw new JaspilerArgumentException(
+                        MessageFormat.format("Transformer is closed in {0}.", functionName));
+            }
+            return transformer;
+        }
+        var v8JaspilerOptions = new V8JaspilerOptions();
+        try {
+            if (v8Values.length > 1) {
+                v8JaspilerOptions.deserialize(validateObject(functionName, v8Values, 1));
+            }
+        } catch (Throwable t) {
+            v8JaspilerOptions.close();
+            throw t;
+        }
+        return new V8JaspilerTransformer(v8Runtime, v8JaspilerOptions, true);
+    }
+
     private String validateString(
             String functionName, V8Value[] v8Values, int index)
             throws JaspilerArgumentException {
@@ -329,4 +529,16 @@ public final class V8Jaspiler
         throw new JaspilerArgumentException(
                 MessageFormat.format("Argument type mismatches in {0}. String is expected.", functionName));
     }
+
+    public V8Value writeFileSync(V8Value... v8Values) throws JavetException, JaspilerCheckedException {
+        validateLength(FUNCTION_WRITE_FILE_SYNC, v8Values, 2);
+        String filePath = validateString(FUNCTION_WRITE_FILE_SYNC, v8Values, 0);
+        String code = validateString(FUNCTION_WRITE_FILE_SYNC, v8Values, 1);
+        try {
+            return v8Runtime.createV8ValueBoolean(dedupFileWriter.write(new File(filePath).toPath(), code));
+        } catch (IOException e) {
+            throw new JaspilerExecutionException(
+                    MessageFormat.format("Failed to write [{0}].", filePath), e);
+        }
+    }
 }
@@ -0,0 +1,428 @@
+/*
+ * Copyright (c) 2023-2025. caoccao.com Sam Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.caoccao.jaspiler.v8;
+
+import com.caoccao.jaspiler.JaspilerCompiler;
+import com.caoccao.jaspiler.contexts.JaspilerTransformContext;
+import com.caoccao.jaspiler.exceptions.JaspilerCheckedException;
+import com.caoccao.jaspiler.exceptions.JaspilerExecutionException;
+import com.caoccao.jaspiler.trees.JTCompilationUnit;
+import com.caoccao.jaspiler.utils.BaseLoggingObject;
+import com.caoccao.javet.exceptions.BaseJavetScriptingException;
+import com.caoccao.javet.exceptions.JavetException;
+import com.caoccao.javet.interfaces.IJavetClosable;
+import com.caoccao.javet.interop.V8Runtime;
+import com.caoccao.javet.interop.callback.IJavetDirectCallable;
+import com.caoccao.javet.interop.callback.JavetCallbackContext;
+import com.caoccao.javet.interop.callback.JavetCallbackType;
+import com.caoccao.javet.utils.JavetResourceUtils;
+import com.caoccao.javet.values.V8Value;
+import com.caoccao.javet.values.reference.V8ValueFunction;
+import com.caoccao.javet.values.reference.V8ValueObject;
+import com.caoccao.javet.values.reference.V8ValuePromise;
+import org.apache.commons.collections4.CollectionUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The type V8 jaspiler async transformer transforms the files or the code strings asynchronously.
+ * <p>
+ * Parsing, analysis and serialization run on a Java worker pool shared by all the V8 runtimes
+ * and bounded by the number of the processors.
+ * Only the plugin visit and the promise settlement hop to the thread of the V8 runtime,
+ * because the V8 runtime is single-threaded.
+ * The hops are queued and the event loop is woken up by a byte written to a loopback socket,
+ * so that the hops are drained as soon as they are queued and the idle event loop is never woken up.
+ * The socket is referenced while any transform is in flight,
+ * so that the event loop is kept alive until all the promises are settled.
+ * A wake-up runs a limited number of the hops so that the other callbacks in the event loop are not starved.
+ * Without the event loop, i.e. in the plain V8 mode, the transform runs synchronously
+ * and the promise is settled before it is returned.
+ * <p>
+ * The promises in flight are rejected when the transformer is closed.
+ */
+public final class V8JaspilerAsyncTransformer extends BaseLoggingObject implements IJavetClosable {
+    private static final int DRAIN_TASK_LIMIT = 64;
+    private static final long EXECUTOR_KEEP_ALIVE_SECONDS = 60L;
+    private static final String FUNCTION_DESTROY = "destroy";
+    private static final String FUNCTION_DRAIN = "drain";
+    private static final String FUNCTION_REF = "ref";
+    private static final String FUNCTION_UNREF = "unref";
+    private static final String PROPERTY_ERROR = "Error";
+    /**
+     * The script connects the wake-up socket.
+     * The token is sent first so that the transformer only accepts the connection of its own runtime.
+     */
+    private static final String SCRIPT_CONNECT_WAKE_UP_SOCKET = """
+            (host, port, token, drain) => {
+              const socket = require('net').connect(port, host);
+              socket.setNoDelay(true);
+              socket.on('data', () => drain());
+              socket.on('error', () => {});
+              socket.write(token);
+              return socket;
+            }""";
+    private static final byte[] WAKE_UP_BYTES = new byte[]{0};
+    private static final String WAKE_UP_HOST = "127.0.0.1";
+    private static final ExecutorService executorService;
+
+    static {
+        final int threadCount = Runtime.getRuntime().availableProcessors();
+        var threadPoolExecutor = new ThreadPoolExecutor(
+                threadCount, threadCount, EXECUTOR_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, V8JaspilerAsyncTransformer.class.getSimpleName());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        // The idle threads exit so that the pool costs nothing when no transform is in flight.
+        threadPoolExecutor.allowCoreThreadTimeOut(true);
+        executorService = threadPoolExecutor;
+    }
+
+    private final Map<V8ValuePromise, V8JaspilerTransformer> inFlightTransforms;
+    private final Queue<Runnable> pendingTasks;
+    private final V8Jaspiler v8Jaspiler;
+    private final V8Runtime v8Runtime;
+    private final AtomicBoolean wakeUpRequested;
+    private volatile boolean closed;
+    private V8ValueFunction v8ValueFunctionDrain;
+    private volatile CompletableFuture<SocketChannel> wakeUpChannelFuture;
+    private ServerSocketChannel wakeUpServerChannel;
+    private V8ValueObject wakeUpSocket;
+
+    public V8JaspilerAsyncTransformer(V8Runtime v8Runtime, V8Jaspiler v8Jaspiler) {
+        super();
+        closed = false;
+        inFlightTransforms = new IdentityHashMap<>();
+        pendingTasks = new ConcurrentLinkedQueue<>();
+        this.v8Jaspiler = Objects.requireNonNull(v8Jaspiler);
+        this.v8Runtime = Objects.requireNonNull(v8Runtime);
+        v8ValueFunctionDrain = null;
+        wakeUpChannelFuture = null;
+        wakeUpRequested = new AtomicBoolean(false);
+        wakeUpServerChannel = null;
+        wakeUpSocket = null;
+    }
+
+    private static SocketChannel accept(ServerSocketChannel serverSocketChannel, byte[] token) {
+        while (true) {
+            SocketChannel socketChannel = null;
+            try {
+                socketChannel = serverSocketChannel.accept();
+                ByteBuffer byteBuffer = ByteBuffer.allocate(token.length);
+                while (byteBuffer.hasRemaining()) {
+                    if (socketChannel.read(byteBuffer) < 0) {
+                        break;
+                    }
+                }
+                if (Arrays.equals(token, byteBuffer.array())) {
+                    return socketChannel;
+                }
+                socketChannel.close();
+            } catch (IOException e) {
+                JavetResourceUtils.safeClose(socketChannel);
+                throw new CompletionException(e);
+            }
+        }
+    }
+
+    /**
+     * Close the transformer.
+     * It has to be called in the thread of the V8 runtime.
+     * The promises in flight are rejected and the hops of them are dropped.
+     * The shared executor is not shut down.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        pendingTasks.clear();
+        var entries = new ArrayList<>(inFlightTransforms.entrySet());
+        inFlightTransforms.clear();
+        for (var entry : entries) {
+            try {
+                reject(entry.getKey(), "Transform is aborted because jaspiler is closed.");
+            } catch (JavetException e) {
+                logger.error(e.getMessage(), e);
+            } finally {
+                JavetResourceUtils.safeClose(entry.getKey());
+                entry.getValue().release();
+            }
+        }
+        if (wakeUpSocket != null) {
+            try {
+                wakeUpSocket.invokeVoid(FUNCTION_DESTROY);
+            } catch (JavetException e) {
+                logger.error(e.getMessage(), e);
+            }
+        }
+        // Closing the server channel stops the pending accept.
+        JavetResourceUtils.safeClose(wakeUpSocket, v8ValueFunctionDrain, wakeUpServerChannel);
+        if (wakeUpChannelFuture != null) {
+            wakeUpChannelFuture.thenAccept(JavetResourceUtils::safeClose);
+        }
+        v8ValueFunctionDrain = null;
+        wakeUpChannelFuture = null;
+        wakeUpServerChannel = null;
+        wakeUpSocket = null;
+    }
+
+    private void drain(V8Value... v8Values) {
+        // The request is reset before the tasks are polled so that a task queued later wakes up the loop again.
+        wakeUpRequested.set(false);
+        Runnable task;
+        for (int i = 0; i < DRAIN_TASK_LIMIT && (task = pendingTasks.poll()) != null; ++i) {
+            task.run();
+        }
+        if (!pendingTasks.isEmpty()) {
+            wakeUp();
+        }
+    }
+
+    /**
+     * Gets the number of the transforms in flight.
+     *
+     * @return the in flight count
+     */
+    public int getInFlightCount() {
+        return inFlightTransforms.size();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    private List<JaspilerTransformContext> parse(V8JaspilerOptions v8JaspilerOptions, File file, String codeString) {
+        var jaspilerCompiler = new JaspilerCompiler();
+        if (file != null) {
+            jaspilerCompiler.addJavaFileObjects(file);
+        } else {
+            jaspilerCompiler.addJavaFileStringObject(v8JaspilerOptions.getFileName(), codeString);
+        }
+        try (var jaspilerDocScanner = new V8JaspilerDocScanner()) {
+            return jaspilerCompiler.transform(null, jaspilerDocScanner).getTransformContexts();
+        } catch (IOException | JaspilerCheckedException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private <T> CompletableFuture<T> post(Callable<T> callable) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        if (closed) {
+            future.cancel(false);
+            return future;
+        }
+        pendingTasks.add(() -> {
+            try {
+                future.complete(callable.call());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        wakeUp();
+        return future;
+    }
+
+    private void reject(V8ValuePromise v8ValuePromiseResolver, String message) throws JavetException {
+        try (V8ValueFunction v8ValueFunctionError = v8Runtime.getGlobalObject().get(PROPERTY_ERROR);
+             V8Value v8ValueError = v8ValueFunctionError.callAsConstructor(message)) {
+            v8ValuePromiseResolver.reject(v8ValueError);
+        }
+    }
+
+    private void settle(
+            V8JaspilerTransformer transformer,
+            V8ValuePromise v8ValuePromiseResolver,
+            V8JaspilerTransformOutput transformOutput,
+            Throwable throwable) {
+        try {
+            if (throwable == null) {
+                try (V8ValueObject v8ValueObjectResult = transformOutput.toV8Value(v8Runtime)) {
+                    v8ValuePromiseResolver.resolve(v8ValueObjectResult);
+                }
+            } else {
+                Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                        ? throwable.getCause()
+                        : throwable;
+                if (cause instanceof BaseJavetScriptingException baseJavetScriptingException) {
+                    logger.warn(baseJavetScriptingException.getScriptingError().toString(), cause);
+                } else {
+                    logger.warn(cause.getMessage(), cause);
+                }
+                reject(v8ValuePromiseResolver, cause.getMessage());
+            }
+        } catch (JavetException e) {
+            logger.error(e.getMessage(), e);
+        } finally {
+            inFlightTransforms.remove(v8ValuePromiseResolver);
+            JavetResourceUtils.safeClose(v8ValuePromiseResolver);
+            transformer.release();
+            v8Jaspiler.getHeapMonitor().onFilesTransformed(v8Runtime, 1);
+            if (inFlightTransforms.isEmpty()) {
+                stopDraining();
+            }
+        }
+    }
+
+    private void startDraining() throws JavetException, IOException {
+        if (wakeUpSocket == null) {
+            byte[] token = UUID.randomUUID().toString().getBytes(StandardCharsets.US_ASCII);
+            wakeUpServerChannel = ServerSocketChannel.open().bind(new InetSocketAddress(WAKE_UP_HOST, 0));
+            final ServerSocketChannel serverSocketChannel = wakeUpServerChannel;
+            // The connection is accepted on the executor because the socket connects in the event loop.
+            wakeUpChannelFuture = CompletableFuture.supplyAsync(
+                    () -> accept(serverSocketChannel, token), executorService);
+            v8ValueFunctionDrain = v8Runtime.createV8ValueFunction(new JavetCallbackContext(
+                    FUNCTION_DRAIN, JavetCallbackType.DirectCallNoThisAndNoResult,
+                    (IJavetDirectCallable.NoThisAndNoResult<Exception>) this::drain));
+            try (V8ValueFunction v8ValueFunctionConnect = v8Runtime.getExecutor(SCRIPT_CONNECT_WAKE_UP_SOCKET).execute()) {
+                wakeUpSocket = v8ValueFunctionConnect.call(
+                        null,
+                        WAKE_UP_HOST,
+                        ((InetSocketAddress) wakeUpServerChannel.getLocalAddress()).getPort(),
+                        new String(token, StandardCharsets.US_ASCII),
+                        v8ValueFunctionDrain);
+            }
+        } else {
+            wakeUpSocket.invokeVoid(FUNCTION_REF);
+        }
+    }
+
+    private void stopDraining() {
+        // The socket is kept for the next transform, but it does not keep the event loop alive.
+        if (wakeUpSocket != null) {
+            try {
+                wakeUpSocket.invokeVoid(FUNCTION_UNREF);
+            } catch (JavetException e) {
+                logger.error(e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Transform the file or the code string asynchronously.
+     * It has to be called in the thread of the V8 runtime.
+     * The transformer is acquired until the promise is settled.
+     *
+     * @param transformer the transformer
+     * @param file        the file, null if the code string is transformed
+     * @param codeString  the code string
+     * @return the promise of the result
+     * @throws JavetException           the javet exception
+     * @throws JaspilerCheckedException the jaspiler checked exception
+     */
+    public V8ValuePromise transform(V8JaspilerTransformer transformer, File file, String codeString)
+            throws JavetException, JaspilerCheckedException {
+        final V8JaspilerOptions v8JaspilerOptions = transformer.getV8JaspilerOptions();
+        V8ValuePromise v8ValuePromiseResolver = v8Runtime.createV8ValuePromise();
+        transformer.acquire();
+        if (!v8Runtime.getJSRuntimeType().isNode()) {
+            V8ValuePromise v8ValuePromise = v8ValuePromiseResolver.getPromise();
+            V8JaspilerTransformOutput transformOutput = null;
+            Throwable throwable = null;
+            inFlightTransforms.put(v8ValuePromiseResolver, transformer);
+            try {
+                transformOutput = V8JaspilerTransformOutput.create(
+                        v8JaspilerOptions,
+                        visit(v8JaspilerOptions, parse(v8JaspilerOptions, file, codeString)));
+            } catch (Throwable t) {
+                throwable = t;
+            }
+            settle(transformer, v8ValuePromiseResolver, transformOutput, throwable);
+            return v8ValuePromise;
+        }
+        try {
+            startDraining();
+            inFlightTransforms.put(v8ValuePromiseResolver, transformer);
+            CompletableFuture
+                    .supplyAsync(() -> parse(v8JaspilerOptions, file, codeString), executorService)
+                    .thenCompose(transformContexts -> post(() -> visit(v8JaspilerOptions, transformContexts)))
+                    .thenApplyAsync(
+                            compilationUnit -> V8JaspilerTransformOutput.create(v8JaspilerOptions, compilationUnit),
+                            executorService)
+                    .whenComplete((transformOutput, throwable) -> post(() -> {
+                        settle(transformer, v8ValuePromiseResolver, transformOutput, throwable);
+                        return null;
+                    }));
+            return v8ValuePromiseResolver.getPromise();
+        } catch (IOException e) {
+            JavetResourceUtils.safeClose(v8ValuePromiseResolver);
+            transformer.release();
+            throw new JaspilerExecutionException(e.getMessage(), e);
+        } catch (Throwable t) {
+            JavetResourceUtils.safeClose(v8ValuePromiseResolver);
+            transformer.release();
+            throw t;
+        }
+    }
+
+    private JTCompilationUnit visit(
+            V8JaspilerOptions v8JaspilerOptions,
+            List<JaspilerTransformContext> transformContexts)
+            throws JavetException, JaspilerCheckedException {
+        var transformContext = transformContexts.get(0);
+        // The trees and the names are identity-stable within the visit.
+        var v8JaspilerConverter = v8Runtime.getConverter() instanceof V8JaspilerConverter converter ? converter : null;
+        if (v8JaspilerConverter != null) {
+            v8JaspilerConverter.beginSession();
+        }
+        try (var jaspilerTransformScanner = new V8JaspilerTransformScanner(v8JaspilerOptions)) {
+            if (v8JaspilerOptions.isMirror()) {
+                v8Jaspiler.getMirror().transform(v8JaspilerOptions, transformContext.getCompilationUnitTree());
+                return transformContext.getCompilationUnitTree();
+            }
+            jaspilerTransformScanner.scan(transformContext.getCompilationUnitTree(), transformContext);
+            if (CollectionUtils.isNotEmpty(jaspilerTransformScanner.getExceptions())) {
+                var e = jaspilerTransformScanner.getExceptions().get(0);
+                throw new JaspilerExecutionException(e.getMessage(), e);
+            }
+        } finally {
+            if (v8JaspilerConverter != null) {
+                v8JaspilerConverter.endSession();
+            }
+        }
+        return transformContext.getCompilationUnitTree();
+    }
+
+    /**
+     * Wake up the event loop to drain the pending tasks.
+     * The requests are coalesced until the next drain.
+     */
+    private void wakeUp() {
+        var future = wakeUpChannelFuture;
+        if (closed || future == null || !wakeUpRequested.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            future.join().write(ByteBuffer.wrap(WAKE_UP_BYTES));
+        } catch (Throwable t) {
+            if (!closed) {
+                logger.error("Failed to wake up the event loop. {}", t.getMessage());
+            }
+        }
+    }
+}
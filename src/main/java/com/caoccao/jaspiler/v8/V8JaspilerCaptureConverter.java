@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2023-2025. caoccao.com Sam Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.caoccao.jaspiler.v8;
+
+import com.caoccao.jaspiler.exceptions.JaspilerCheckedException;
+import com.caoccao.jaspiler.trees.JTTree;
+import com.caoccao.javet.exceptions.JavetException;
+import com.caoccao.javet.interfaces.IJavetUniFunction;
+import com.caoccao.javet.interop.V8Runtime;
+import com.caoccao.javet.interop.converters.JavetProxyConverter;
+import com.caoccao.javet.values.V8Value;
+import com.caoccao.javet.values.primitive.V8ValueNull;
+import com.caoccao.javet.values.primitive.V8ValuePrimitive;
+import com.caoccao.javet.values.primitive.V8ValueUndefined;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The type V8 jaspiler capture converter captures the Java object returned by a property getter of a tree
+ * without creating the JS object, so that the properties can be inspected from Java.
+ * It has to be set as the converter of the V8 runtime while capturing.
+ */
+final class V8JaspilerCaptureConverter extends JavetProxyConverter {
+    static final Object UNSUPPORTED = new Object();
+    private static final Map<Class<?>, List<String>> PROPERTY_NAMES_MAP = new ConcurrentHashMap<>();
+    private boolean captured;
+    private Object capturedObject;
+
+    public V8JaspilerCaptureConverter() {
+        super();
+        captured = false;
+        capturedObject = null;
+    }
+
+    /**
+     * Gets the names of the properties with both a getter and a setter in the alphabetical order.
+     *
+     * @param tree the tree
+     * @return the property names
+     */
+    static List<String> getPropertyNames(JTTree<?, ?> tree) {
+        return PROPERTY_NAMES_MAP.computeIfAbsent(tree.getClass(), treeClass -> {
+            List<String> propertyNames = new ArrayList<>(tree.proxyGetStringGetterMap().keySet());
+            propertyNames.retainAll(tree.proxyGetStringSetterMap().keySet());
+            Collections.sort(propertyNames);
+            return List.copyOf(propertyNames);
+        });
+    }
+
+    public Object capture(
+            IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException> getter,
+            String propertyName)
+            throws JavetException, JaspilerCheckedException {
+        captured = false;
+        try (V8Value v8Value = getter.apply(propertyName)) {
+            if (captured) {
+                return capturedObject;
+            }
+            if (v8Value == null || v8Value instanceof V8ValueNull || v8Value instanceof V8ValueUndefined) {
+                return null;
+            }
+            if (v8Value instanceof V8ValuePrimitive<?> v8ValuePrimitive) {
+                return v8ValuePrimitive.getValue();
+            }
+            return UNSUPPORTED;
+        } finally {
+            captured = false;
+            capturedObject = null;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected <T extends V8Value> T toV8Value(V8Runtime v8Runtime, Object object, int depth)
+            throws JavetException {
+        captured = true;
+        capturedObject = object;
+        return (T) v8Runtime.createV8ValueUndefined();
+    }
+}
@@ -0,0 +1,451 @@
+/*
+ * Copyright (c) 2023-2025. caoccao.com Sam Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.caoccao.jaspiler.v8;
+
+import com.caoccao.jaspiler.trees.JTName;
+import com.caoccao.jaspiler.trees.JTTree;
+import com.caoccao.jaspiler.trees.JTTreeList;
+import com.caoccao.javet.exceptions.JavetException;
+import com.caoccao.javet.interfaces.IJavetBiFunction;
+import com.caoccao.javet.interfaces.IJavetClosable;
+import com.caoccao.javet.interfaces.IJavetUniFunction;
+import com.caoccao.javet.interop.V8Runtime;
+import com.caoccao.javet.interop.callback.IJavetDirectCallable;
+import com.caoccao.javet.interop.callback.JavetCallbackContext;
+import com.caoccao.javet.interop.callback.JavetCallbackType;
+import com.caoccao.javet.interop.converters.JavetProxyConverter;
+import com.caoccao.javet.interop.proxy.IJavetDirectProxyHandler;
+import com.caoccao.javet.utils.JavetResourceUtils;
+import com.caoccao.javet.values.V8Value;
+import com.caoccao.javet.values.primitive.V8ValueInteger;
+import com.caoccao.javet.values.reference.V8ValueArray;
+import com.caoccao.javet.values.reference.V8ValueFunction;
+import com.caoccao.javet.values.reference.V8ValueObject;
+import com.caoccao.javet.values.reference.V8ValueProxy;
+import com.caoccao.javet.values.reference.V8ValueReference;
+
+import java.util.*;
+
+/**
+ * The type V8 jaspiler converter.
+ * <p>
+ * By default, it behaves the same as the proxy converter.
+ * With the wrapper classes enabled, the trees and the names are converted to the instances of
+ * a JS class generated per Java class instead of the generic proxies.
+ * The properties are accessors on the prototype bound to direct Java callbacks,
+ * so that V8 can optimize the property access with hidden classes and inline caches.
+ * An instance only holds an integer handle to the Java object,
+ * and the handle is released by a finalization registry when the instance is garbage collected.
+ * The property functions of the Java object are resolved once per handle and called by the property index.
+ * <p>
+ * The tree lists are converted to proxies with an array target forwarding to the tree list proxies,
+ * so that Array.isArray(), JSON.stringify() and concat() treat them as arrays.
+ * <p>
+ * Within a session, the trees, the names and the tree lists are converted to the same V8 objects as long as
+ * the V8 objects are alive, so that repeated access creates no garbage and === works.
+ * The V8 objects are weakly held and all of them are released at the end of the session.
+ * The handles allocated in the session are released at the end of the session as well,
+ * so that the wrapper instances escaping the session read undefined instead of holding the trees.
+ * <p>
+ * A converter is bound to one V8 runtime and has to be closed before the V8 runtime is closed.
+ */
+@SuppressWarnings("unchecked")
+public final class V8JaspilerConverter extends JavetProxyConverter implements IJavetClosable {
+    private static final Wrapper[] EMPTY_WRAPPERS = new Wrapper[0];
+    private static final String FUNCTION_GET = "get";
+    private static final String FUNCTION_RELEASE = "release";
+    private static final String FUNCTION_SET = "set";
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final String PROPERTY_HANDLE = "__jaspilerHandle";
+    private static final String PROPERTY_PROTOTYPE = "prototype";
+    private static final String PROPERTY_TREE_LIST = "__jaspilerTreeList";
+    private static final String SCRIPT_ARRAY_VIEW_FACTORY = """
+            (treeList) => {
+              const isIndex = (property) => typeof property === 'string' && /^(?:0|[1-9][0-9]*)$/.test(property);
+              const target = [];
+              Object.defineProperty(target, '__jaspilerTreeList', { value: treeList, configurable: true });
+              return new Proxy(target, {
+                get: (target, property) => Reflect.get(treeList, property),
+                getOwnPropertyDescriptor: (target, property) => {
+                  if (property === 'length') {
+                    return { value: treeList.length, writable: true, enumerable: false, configurable: false };
+                  }
+                  if (isIndex(property) && Number(property) < treeList.length) {
+                    return { value: treeList[property], writable: true, enumerable: true, configurable: true };
+                  }
+                  return undefined;
+                },
+                has: (target, property) => Reflect.has(treeList, property),
+                ownKeys: () => Array.from({ length: treeList.length }, (value, index) => String(index)).concat('length'),
+                set: (target, property, value) => Reflect.set(treeList, property, value),
+              });
+            }""";
+    private static final String SCRIPT_CLASS_FACTORY = """
+            (get, set, release) => {
+              const registry = new FinalizationRegistry(release);
+              return (className, getterNames, setterNames) => {
+                const Wrapper = ({ [className]: class {
+                  constructor(handle) {
+                    Object.defineProperty(this, '__jaspilerHandle', { value: handle });
+                    registry.register(this, handle);
+                  }
+                }})[className];
+                const descriptors = {};
+                getterNames.forEach((name, index) => {
+                  descriptors[name] = { get() { return get(this.__jaspilerHandle, index); }, configurable: true };
+                });
+                setterNames.forEach((name, index) => {
+                  const descriptor = descriptors[name] || (descriptors[name] = { configurable: true });
+                  descriptor.set = function (value) { set(this.__jaspilerHandle, index, value); };
+                });
+                Object.defineProperties(Wrapper.prototype, descriptors);
+                if (getterNames.includes('toString')) {
+                  Wrapper.prototype[Symbol.toPrimitive] = function () { return this.toString(); };
+                }
+                return Wrapper;
+              };
+            }""";
+    /**
+     * The handle released at the end of the session is held by the stale wrapper
+     * until the wrapper instance is garbage collected, so that the handle is not reused by another tree.
+     */
+    private static final Wrapper STALE_WRAPPER = new Wrapper(null, null, null, null);
+    private final Map<Object, V8ValueReference> identityMap;
+    private final Map<Integer, WrapperClass> prototypeMap;
+    private final Map<Class<?>, WrapperClass> wrapperClassMap;
+    private V8ValueFunction arrayViewFactory;
+    private V8ValueFunction classFactory;
+    private int createdCount;
+    private int[] freeHandles;
+    private int freeHandleCount;
+    private int handleCount;
+    private int reusedCount;
+    private int sessionDepth;
+    private int sessionHandleCount;
+    private int[] sessionHandles;
+    private V8Runtime v8Runtime;
+    private boolean wrapperClassesEnabled;
+    private Wrapper[] wrappers;
+
+    public V8JaspilerConverter() {
+        super();
+        arrayViewFactory = null;
+        classFactory = null;
+        createdCount = 0;
+        freeHandleCount = 0;
+        freeHandles = new int[0];
+        handleCount = 0;
+        identityMap = new IdentityHashMap<>();
+        prototypeMap = new HashMap<>();
+        reusedCount = 0;
+        sessionDepth = 0;
+        sessionHandleCount = 0;
+        sessionHandles = new int[0];
+        v8Runtime = null;
+        wrapperClassMap = new HashMap<>();
+        wrapperClassesEnabled = false;
+        wrappers = EMPTY_WRAPPERS;
+    }
+
+    private int allocateHandle(IJavetDirectProxyHandler<?> handler, WrapperClass wrapperClass) {
+        var getterMap = handler.proxyGetStringGetterMap();
+        var getters = new IJavetUniFunction[wrapperClass.getterNames().length];
+        for (int i = 0; i < getters.length; ++i) {
+            getters[i] = getterMap.get(wrapperClass.getterNames()[i]);
+        }
+        var setterMap = handler.proxyGetStringSetterMap();
+        var setters = new IJavetBiFunction[wrapperClass.setterNames().length];
+        for (int i = 0; i < setters.length; ++i) {
+            setters[i] = setterMap.get(wrapperClass.setterNames()[i]);
+        }
+        int handle;
+        if (freeHandleCount > 0) {
+            handle = freeHandles[--freeHandleCount];
+        } else {
+            if (handleCount == wrappers.length) {
+                wrappers = Arrays.copyOf(wrappers, Math.max(INITIAL_CAPACITY, wrappers.length * 2));
+            }
+            handle = handleCount++;
+        }
+        wrappers[handle] = new Wrapper(handler, wrapperClass, getters, setters);
+        if (sessionDepth > 0) {
+            if (sessionHandleCount == sessionHandles.length) {
+                sessionHandles = Arrays.copyOf(sessionHandles, Math.max(INITIAL_CAPACITY, sessionHandles.length * 2));
+            }
+            sessionHandles[sessionHandleCount++] = handle;
+        }
+        return handle;
+    }
+
+    /**
+     * Begin a session. Sessions can be nested and the outermost session resets the counts.
+     */
+    public void beginSession() {
+        if (sessionDepth++ == 0) {
+            createdCount = 0;
+            reusedCount = 0;
+        }
+    }
+
+    private void clearIdentityMap() {
+        identityMap.values().forEach(JavetResourceUtils::safeClose);
+        identityMap.clear();
+    }
+
+    @Override
+    public void close() throws JavetException {
+        clearIdentityMap();
+        sessionDepth = 0;
+        sessionHandleCount = 0;
+        sessionHandles = new int[0];
+        wrapperClassMap.values().forEach(wrapperClass ->
+                JavetResourceUtils.safeClose(wrapperClass.constructor(), wrapperClass.prototype()));
+        wrapperClassMap.clear();
+        prototypeMap.clear();
+        JavetResourceUtils.safeClose(arrayViewFactory, classFactory);
+        arrayViewFactory = null;
+        classFactory = null;
+        freeHandleCount = 0;
+        freeHandles = new int[0];
+        handleCount = 0;
+        v8Runtime = null;
+        wrappers = EMPTY_WRAPPERS;
+    }
+
+    /**
+     * End a session. The V8 objects and the handles held by the outermost session are released.
+     */
+    public void endSession() {
+        if (sessionDepth > 0 && --sessionDepth == 0) {
+            clearIdentityMap();
+            for (int i = 0; i < sessionHandleCount; ++i) {
+                int handle = sessionHandles[i];
+                // The handle released by the finalization registry in the session is free already.
+                if (wrappers[handle] != null) {
+                    wrappers[handle] = STALE_WRAPPER;
+                }
+            }
+            sessionHandleCount = 0;
+        }
+    }
+
+    private V8Value get(V8Value... v8Values) throws Exception {
+        Wrapper wrapper = getWrapper(v8Values[0]);
+        if (wrapper != null && v8Values[1] instanceof V8ValueInteger v8ValueInteger) {
+            int index = v8ValueInteger.getValue();
+            return wrapper.getters()[index].apply(wrapper.wrapperClass().getterNames()[index]);
+        }
+        return v8Runtime.createV8ValueUndefined();
+    }
+
+    /**
+     * Gets the count of the V8 objects created for the trees and the names in the current or last session.
+     *
+     * @return the created count
+     */
+    public int getCreatedCount() {
+        return createdCount;
+    }
+
+    public int getHandleCount() {
+        return handleCount - freeHandleCount;
+    }
+
+    private V8ValueFunction getArrayViewFactory() throws JavetException {
+        if (arrayViewFactory == null) {
+            arrayViewFactory = v8Runtime.getExecutor(SCRIPT_ARRAY_VIEW_FACTORY).execute();
+        }
+        return arrayViewFactory;
+    }
+
+    /**
+     * Gets the count of the V8 objects reused for the trees and the names in the current or last session.
+     *
+     * @return the reused count
+     */
+    public int getReusedCount() {
+        return reusedCount;
+    }
+
+    private WrapperClass getWrapperClass(IJavetDirectProxyHandler<?> handler) throws JavetException {
+        WrapperClass wrapperClass = wrapperClassMap.get(handler.getClass());
+        if (wrapperClass == null) {
+            if (classFactory == null) {
+                try (V8ValueFunction v8ValueFunction = v8Runtime.getExecutor(SCRIPT_CLASS_FACTORY).execute();
+                     V8ValueFunction v8ValueFunctionGet = v8Runtime.createV8ValueFunction(new JavetCallbackContext(
+                             FUNCTION_GET, JavetCallbackType.DirectCallNoThisAndResult,
+                             (IJavetDirectCallable.NoThisAndResult<Exception>) this::get));
+                     V8ValueFunction v8ValueFunctionSet = v8Runtime.createV8ValueFunction(new JavetCallbackContext(
+                             FUNCTION_SET, JavetCallbackType.DirectCallNoThisAndNoResult,
+                             (IJavetDirectCallable.NoThisAndNoResult<Exception>) this::set));
+                     V8ValueFunction v8ValueFunctionRelease = v8Runtime.createV8ValueFunction(new JavetCallbackContext(
+                             FUNCTION_RELEASE, JavetCallbackType.DirectCallNoThisAndNoResult,
+                             (IJavetDirectCallable.NoThisAndNoResult<Exception>) this::release))) {
+                    classFactory = v8ValueFunction.call(null, v8ValueFunctionGet, v8ValueFunctionSet, v8ValueFunctionRelease);
+                }
+            }
+            String[] getterNames = handler.proxyGetStringGetterMap().keySet().stream().sorted().toArray(String[]::new);
+            String[] setterNames = handler.proxyGetStringSetterMap().keySet().stream().sorted().toArray(String[]::new);
+            V8ValueFunction constructor = classFactory.call(
+                    null, handler.getClass().getSimpleName(), getterNames, setterNames);
+            V8ValueObject prototype = constructor.get(PROPERTY_PROTOTYPE);
+            wrapperClass = new WrapperClass(constructor, prototype, getterNames, setterNames);
+            wrapperClassMap.put(handler.getClass(), wrapperClass);
+            prototypeMap.put(prototype.getIdentityHash(), wrapperClass);
+        }
+        return wrapperClass;
+    }
+
+    private Wrapper getWrapper(V8Value v8Value) {
+        if (v8Value instanceof V8ValueInteger v8ValueInteger) {
+            int handle = v8ValueInteger.getValue();
+            if (handle >= 0 && handle < handleCount && wrappers[handle] != STALE_WRAPPER) {
+                return wrappers[handle];
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return v8Runtime == null;
+    }
+
+    public boolean isSessionActive() {
+        return sessionDepth > 0;
+    }
+
+    public boolean isWrapperClassesEnabled() {
+        return wrapperClassesEnabled;
+    }
+
+    private void release(V8Value... v8Values) {
+        if (v8Values[0] instanceof V8ValueInteger v8ValueInteger) {
+            int handle = v8ValueInteger.getValue();
+            if (handle >= 0 && handle < handleCount && wrappers[handle] != null) {
+                wrappers[handle] = null;
+                if (freeHandleCount == freeHandles.length) {
+                    freeHandles = Arrays.copyOf(freeHandles, Math.max(INITIAL_CAPACITY, freeHandles.length * 2));
+                }
+                freeHandles[freeHandleCount++] = handle;
+            }
+        }
+    }
+
+    private void set(V8Value... v8Values) throws Exception {
+        Wrapper wrapper = getWrapper(v8Values[0]);
+        if (wrapper != null && v8Values[1] instanceof V8ValueInteger v8ValueInteger) {
+            int index = v8ValueInteger.getValue();
+            wrapper.setters()[index].apply(wrapper.wrapperClass().setterNames()[index], v8Values[2]);
+        }
+    }
+
+    public V8JaspilerConverter setWrapperClassesEnabled(boolean wrapperClassesEnabled) {
+        this.wrapperClassesEnabled = wrapperClassesEnabled;
+        return this;
+    }
+
+    @Override
+    protected Object toObject(V8Value v8Value, int depth) throws JavetException {
+        if (arrayViewFactory != null && v8Value instanceof V8ValueProxy v8ValueProxy) {
+            try (V8ValueObject v8ValueObjectTarget = v8ValueProxy.getTarget()) {
+                if (v8ValueObjectTarget instanceof V8ValueArray v8ValueArray) {
+                    try (V8Value v8ValueTreeList = v8ValueArray.get(PROPERTY_TREE_LIST)) {
+                        if (v8ValueTreeList instanceof V8ValueProxy) {
+                            return super.toObject(v8ValueTreeList, depth);
+                        }
+                    }
+                }
+            }
+        }
+        if (!prototypeMap.isEmpty()
+                && v8Value instanceof V8ValueObject v8ValueObject
+                && v8ValueObject.getClass() == V8ValueObject.class) {
+            // Only the instances of the wrapper classes are probed for the handle.
+            try (V8ValueObject v8ValueObjectPrototype = v8ValueObject.getPrototype()) {
+                WrapperClass wrapperClass = v8ValueObjectPrototype == null
+                        ? null
+                        : prototypeMap.get(v8ValueObjectPrototype.getIdentityHash());
+                if (wrapperClass != null && wrapperClass.prototype().strictEquals(v8ValueObjectPrototype)) {
+                    try (V8Value v8ValueHandle = v8ValueObject.get(PROPERTY_HANDLE)) {
+                        Wrapper wrapper = getWrapper(v8ValueHandle);
+                        if (wrapper != null) {
+                            return wrapper.object();
+                        }
+                    }
+                }
+            }
+        }
+        return super.toObject(v8Value, depth);
+    }
+
+    @Override
+    protected <T extends V8Value> T toV8Value(V8Runtime v8Runtime, Object object, int depth) throws JavetException {
+        if (object instanceof JTTree<?, ?> || object instanceof JTName || object instanceof JTTreeList<?>) {
+            if (sessionDepth > 0) {
+                V8ValueReference v8ValueReference = identityMap.get(object);
+                if (v8ValueReference != null) {
+                    if (!v8ValueReference.isClosed()) {
+                        ++reusedCount;
+                        return v8ValueReference.toClone();
+                    }
+                    identityMap.remove(object);
+                }
+            }
+            T v8Value;
+            if (this.v8Runtime == null) {
+                this.v8Runtime = Objects.requireNonNull(v8Runtime);
+            }
+            if (object instanceof JTTreeList<?>) {
+                // The tree lists are not wrapped because the wrapper classes don't support the indexed access.
+                try (V8Value v8ValueTreeList = super.toV8Value(v8Runtime, object, depth)) {
+                    v8Value = getArrayViewFactory().call(null, v8ValueTreeList);
+                }
+            } else if (wrapperClassesEnabled) {
+                var handler = (IJavetDirectProxyHandler<?>) object;
+                handler.setV8Runtime(v8Runtime);
+                WrapperClass wrapperClass = getWrapperClass(handler);
+                v8Value = wrapperClass.constructor().callAsConstructor(allocateHandle(handler, wrapperClass));
+            } else {
+                v8Value = super.toV8Value(v8Runtime, object, depth);
+            }
+            ++createdCount;
+            if (sessionDepth > 0 && v8Value instanceof V8ValueReference v8ValueReference) {
+                // The cached reference is weak so that it doesn't keep the V8 object alive.
+                V8ValueReference v8ValueReferenceWeak = v8ValueReference.toClone();
+                v8ValueReferenceWeak.setWeak();
+                identityMap.put(object, v8ValueReferenceWeak);
+            }
+            return v8Value;
+        }
+        return super.toV8Value(v8Runtime, object, depth);
+    }
+
+    private record Wrapper(
+            Object object,
+            WrapperClass wrapperClass,
+            IJavetUniFunction<String, ? extends V8Value, ? extends Exception>[] getters,
+            IJavetBiFunction<String, V8Value, Boolean, ? extends Exception>[] setters) {
+    }
+
+    private record WrapperClass(
+            V8ValueFunction constructor,
+            V8ValueObject prototype,
+            String[] getterNames,
+            String[] setterNames) {
+    }
+}
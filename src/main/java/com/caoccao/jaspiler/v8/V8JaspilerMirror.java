@@ -0,0 +1,373 @@
+/*
+ * Copyright (c) 2023-2025. caoccao.com Sam Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.caoccao.jaspiler.v8;
+
+import com.caoccao.jaspiler.JaspilerContract;
+import com.caoccao.jaspiler.exceptions.JaspilerCheckedException;
+import com.caoccao.jaspiler.exceptions.JaspilerExecutionException;
+import com.caoccao.jaspiler.trees.*;
+import com.caoccao.jaspiler.utils.BaseLoggingObject;
+import com.caoccao.jaspiler.utils.JsonUtils;
+import com.caoccao.javet.exceptions.BaseJavetScriptingException;
+import com.caoccao.javet.exceptions.JavetException;
+import com.caoccao.javet.interfaces.IJavetClosable;
+import com.caoccao.javet.interop.V8Runtime;
+import com.caoccao.javet.interop.callback.IJavetDirectCallable;
+import com.caoccao.javet.interop.callback.JavetCallbackContext;
+import com.caoccao.javet.interop.callback.JavetCallbackType;
+import com.caoccao.javet.interop.converters.IJavetConverter;
+import com.caoccao.javet.utils.JavetResourceUtils;
+import com.caoccao.javet.values.V8Value;
+import com.caoccao.javet.values.primitive.V8ValueInteger;
+import com.caoccao.javet.values.primitive.V8ValueString;
+import com.caoccao.javet.values.reference.V8ValueArray;
+import com.caoccao.javet.values.reference.V8ValueFunction;
+import com.caoccao.javet.values.reference.V8ValueObject;
+import com.sun.source.tree.Tree;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.text.MessageFormat;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * The type V8 jaspiler mirror runs the plugins against a plain JS mirror of the compilation unit.
+ * <p>
+ * The compilation unit is materialized once as plain JS objects,
+ * the plugins run entirely in JS without crossing the JNI boundary per property access,
+ * and the mutations are sent back to Java in one batched call as a change log keyed by the node ids.
+ * <p>
+ * The mirrored properties of a node are the properties with both a getter and a setter.
+ * The children are visited in the source order of the mirrored properties
+ * and the exit functions are called after the children are visited.
+ * The visitor functions declaring the third parameter receive a path editing the mirror in place.
+ * If the scope is enabled, context.scope is maintained in JS with the same bindings as the transform scanner.
+ * toString() returns the code of the node before the changes are applied.
+ * New nodes are created by the jaspiler functions as usual and are passed back as proxies.
+ */
+public final class V8JaspilerMirror extends BaseLoggingObject implements IJavetClosable {
+    private static final String FUNCTION_TO_STRING = "toString";
+    private static final long MAX_SAFE_INTEGER = (1L << 53) - 1;
+    /**
+     * The mirror script is copied from scripts/node/jaspiler/mirror.js at build time.
+     */
+    private static final String MIRROR_SCRIPT_NAME = "mirror.js";
+    private static final String PROPERTY_ACTION = "action";
+    private static final String PROPERTY_BINDING_KINDS = "bindingKinds";
+    private static final String PROPERTY_CLASS_SIMPLE_NAME = "classSimpleName";
+    private static final String PROPERTY_ID = "id";
+    private static final String PROPERTY_KIND = "kind";
+    private static final String PROPERTY_ROOT = "root";
+    private static final String PROPERTY_SCOPE_KINDS = "scopeKinds";
+    private static final String PROPERTY_VALUE = "value";
+    private static final String PROPERTY_VISITORS = "visitors";
+    private static String mirrorScript = null;
+    private static final int TYPE_ACTION = 4;
+    private static final int TYPE_NAME = 3;
+    private static final int TYPE_NODE = 1;
+    private static final int TYPE_NODES = 2;
+    private static final Object UNSUPPORTED = V8JaspilerCaptureConverter.UNSUPPORTED;
+    private static final Map<String, String> VISITORS;
+
+    static {
+        Set<String> visitorMethodNames = new HashSet<>();
+        for (var visitorMethod : V8JaspilerOptions.VisitorMethod.values()) {
+            visitorMethodNames.add(visitorMethod.name());
+        }
+        VISITORS = new TreeMap<>();
+        for (Tree.Kind kind : Tree.Kind.values()) {
+            String name = kind.asInterface().getSimpleName().replaceAll("Tree$", "");
+            VISITORS.put(kind.name(), visitorMethodNames.contains(name)
+                    ? name
+                    : V8JaspilerOptions.VisitorMethod.Other.name());
+        }
+    }
+
+    private final V8JaspilerCaptureConverter captureConverter;
+    private final V8Runtime v8Runtime;
+    private V8ValueFunction v8ValueFunctionMirror;
+
+    public V8JaspilerMirror(V8Runtime v8Runtime) {
+        super();
+        captureConverter = new V8JaspilerCaptureConverter();
+        this.v8Runtime = Objects.requireNonNull(v8Runtime);
+        v8ValueFunctionMirror = null;
+    }
+
+    private static synchronized String getMirrorScript() throws JaspilerCheckedException {
+        if (mirrorScript == null) {
+            try (InputStream inputStream = V8JaspilerMirror.class.getResourceAsStream(MIRROR_SCRIPT_NAME)) {
+                if (inputStream == null) {
+                    throw new JaspilerExecutionException(
+                            MessageFormat.format("Mirror script [{0}] is not found.", MIRROR_SCRIPT_NAME));
+                }
+                mirrorScript = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new JaspilerExecutionException(e.getMessage(), e);
+            }
+        }
+        return mirrorScript;
+    }
+
+    private static long getStartPosition(Object object) {
+        if (object instanceof JTTree<?, ?> tree) {
+            return tree.getOriginalPosition().isValid() ? tree.getOriginalPosition().startPosition() : Long.MAX_VALUE;
+        }
+        if (object instanceof JTTreeList<?> treeList) {
+            object = treeList.getList();
+        }
+        if (object instanceof List<?> list) {
+            return list.stream().mapToLong(V8JaspilerMirror::getStartPosition).min().orElse(Long.MAX_VALUE);
+        }
+        return -1L;
+    }
+
+    private void apply(Encoder encoder, V8ValueArray v8ValueArrayChanges)
+            throws JavetException, JaspilerCheckedException {
+        final int length = v8ValueArrayChanges.getLength();
+        for (int i = 0; i < length; i += 4) {
+            try (V8ValueInteger v8ValueInteger = v8ValueArrayChanges.get(i);
+                 V8ValueString v8ValueString = v8ValueArrayChanges.get(i + 1);
+                 V8ValueInteger v8ValueType = v8ValueArrayChanges.get(i + 2);
+                 V8Value v8ValuePayload = v8ValueArrayChanges.get(i + 3)) {
+                JTTree<?, ?> tree = encoder.nodes.get(v8ValueInteger.getValue());
+                String propertyName = v8ValueString.getValue();
+                int type = v8ValueType.getValue();
+                if (type == TYPE_ACTION) {
+                    tree.setAction(JaspilerContract.Action.valueOf(((V8ValueString) v8ValuePayload).getValue()));
+                    continue;
+                }
+                var setter = tree.proxyGetStringSetterMap().get(propertyName);
+                if (setter == null) {
+                    continue;
+                }
+                if (type == TYPE_NODES && v8ValuePayload instanceof V8ValueArray v8ValueArray) {
+                    List<?> values = resolve(encoder, v8ValueArray);
+                    JTTreeList<?> treeList = encoder.treeLists.getOrDefault(tree, Map.of()).get(propertyName);
+                    if (treeList != null) {
+                        treeList.replace(values);
+                    } else {
+                        try (V8Value v8Value = v8Runtime.toV8Value(values)) {
+                            setter.apply(propertyName, v8Value);
+                        }
+                    }
+                } else if (type == TYPE_NODE || type == TYPE_NAME) {
+                    Object value = type == TYPE_NODE
+                            ? encoder.nodes.get(((V8ValueInteger) v8ValuePayload).getValue())
+                            : new JTName(((V8ValueString) v8ValuePayload).getValue());
+                    try (V8Value v8Value = v8Runtime.toV8Value(value)) {
+                        setter.apply(propertyName, v8Value);
+                    }
+                } else {
+                    setter.apply(propertyName, v8ValuePayload);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        JavetResourceUtils.safeClose(v8ValueFunctionMirror);
+        v8ValueFunctionMirror = null;
+    }
+
+    private V8ValueObject createFunctions(
+            Function<V8JaspilerOptions.VisitorMethod, V8ValueFunction[]> functionsGetter)
+            throws JavetException {
+        V8ValueObject v8ValueObject = v8Runtime.createV8ValueObject();
+        for (var visitorMethod : V8JaspilerOptions.VisitorMethod.values()) {
+            V8ValueFunction[] v8ValueFunctions = functionsGetter.apply(visitorMethod);
+            if (v8ValueFunctions.length > 0) {
+                try (V8ValueArray v8ValueArray = v8Runtime.createV8ValueArray()) {
+                    v8ValueArray.push((Object[]) v8ValueFunctions);
+                    v8ValueObject.set(visitorMethod.name(), v8ValueArray);
+                }
+            }
+        }
+        return v8ValueObject;
+    }
+
+    private V8ValueFunction getMirrorFunction() throws JavetException, JaspilerCheckedException {
+        if (v8ValueFunctionMirror == null) {
+            v8ValueFunctionMirror = v8Runtime.getExecutor(getMirrorScript()).execute();
+        }
+        return v8ValueFunctionMirror;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return v8ValueFunctionMirror == null;
+    }
+
+    private List<?> resolve(Encoder encoder, V8ValueArray v8ValueArray) throws JavetException {
+        List<Object> values = new ArrayList<>();
+        final int length = v8ValueArray.getLength();
+        for (int i = 0; i < length; ++i) {
+            try (V8Value v8Value = v8ValueArray.get(i)) {
+                if (v8Value instanceof V8ValueInteger v8ValueInteger) {
+                    values.add(encoder.nodes.get(v8ValueInteger.getValue()));
+                } else if (v8Value instanceof V8ValueArray v8ValueArrayItems) {
+                    values.add(resolve(encoder, v8ValueArrayItems));
+                } else {
+                    values.add(v8Runtime.toObject(v8Value));
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Transform the compilation unit by running the plugins against the mirror.
+     * It has to be called in the thread of the V8 runtime.
+     *
+     * @param v8JaspilerOptions the V8 jaspiler options
+     * @param compilationUnit   the compilation unit
+     * @throws JavetException           the javet exception
+     * @throws JaspilerCheckedException the jaspiler checked exception
+     */
+    public void transform(V8JaspilerOptions v8JaspilerOptions, JTCompilationUnit compilationUnit)
+            throws JavetException, JaspilerCheckedException {
+        Objects.requireNonNull(v8JaspilerOptions);
+        var encoder = new Encoder();
+        Map<String, Object> mirror = new LinkedHashMap<>();
+        IJavetConverter converter = v8Runtime.getConverter();
+        v8Runtime.setConverter(captureConverter);
+        try {
+            mirror.put(PROPERTY_ROOT, encoder.encodeTree(Objects.requireNonNull(compilationUnit)));
+        } finally {
+            v8Runtime.setConverter(converter);
+        }
+        mirror.put(PROPERTY_VISITORS, VISITORS);
+        if (v8JaspilerOptions.isScope()) {
+            mirror.put(PROPERTY_BINDING_KINDS, V8JaspilerScope.BINDING_KINDS.stream().map(Enum::name).toList());
+            mirror.put(PROPERTY_SCOPE_KINDS, V8JaspilerScope.SCOPE_KINDS.stream().map(Enum::name).toList());
+        }
+        try (V8ValueObject v8ValueObjectFunctions = createFunctions(v8JaspilerOptions::getFunctions);
+             V8ValueObject v8ValueObjectBatchFunctions = createFunctions(v8JaspilerOptions::getBatchFunctions);
+             V8ValueObject v8ValueObjectExitFunctions = createFunctions(v8JaspilerOptions::getExitFunctions);
+             V8ValueFunction v8ValueFunctionToString = v8Runtime.createV8ValueFunction(new JavetCallbackContext(
+                     FUNCTION_TO_STRING, JavetCallbackType.DirectCallNoThisAndResult,
+                     (IJavetDirectCallable.NoThisAndResult<Exception>) v8Values -> v8Runtime.createV8ValueString(
+                             encoder.nodes.get(((V8ValueInteger) v8Values[0]).getValue()).toString())));
+             V8ValueArray v8ValueArrayChanges = getMirrorFunction().call(
+                     null,
+                     JsonUtils.getJsonString(mirror),
+                     v8ValueObjectFunctions,
+                     v8ValueObjectBatchFunctions,
+                     v8ValueObjectExitFunctions,
+                     v8JaspilerOptions.getContext(),
+                     v8ValueFunctionToString)) {
+            apply(encoder, v8ValueArrayChanges);
+        } catch (BaseJavetScriptingException e) {
+            logger.warn(e.getScriptingError().toString(), e);
+            throw new JaspilerExecutionException(e.getMessage(), e);
+        }
+    }
+
+    private final class Encoder {
+        private final Map<JTTree<?, ?>, Integer> idMap;
+        private final List<JTTree<?, ?>> nodes;
+        private final Map<JTTree<?, ?>, Map<String, JTTreeList<?>>> treeLists;
+
+        public Encoder() {
+            idMap = new IdentityHashMap<>();
+            nodes = new ArrayList<>();
+            treeLists = new IdentityHashMap<>();
+        }
+
+        public Map<String, Object> encodeTree(JTTree<?, ?> tree) throws JavetException, JaspilerCheckedException {
+            if (idMap.containsKey(tree)) {
+                // A tree shared by multiple parents is mirrored only once.
+                return null;
+            }
+            idMap.put(tree, nodes.size());
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put(PROPERTY_ID, nodes.size());
+            map.put(PROPERTY_KIND, tree.getKind().name());
+            map.put(PROPERTY_CLASS_SIMPLE_NAME, tree.getClass().getSimpleName());
+            map.put(PROPERTY_ACTION, tree.getAction().name());
+            nodes.add(tree);
+            tree.setV8Runtime(v8Runtime);
+            var getterMap = tree.proxyGetStringGetterMap();
+            Map<String, Object> capturedMap = new HashMap<>();
+            List<String> propertyNames = new ArrayList<>();
+            for (String propertyName : V8JaspilerCaptureConverter.getPropertyNames(tree)) {
+                Object captured = captureConverter.capture(getterMap.get(propertyName), propertyName);
+                if (captured != UNSUPPORTED) {
+                    capturedMap.put(propertyName, captured);
+                    propertyNames.add(propertyName);
+                    if (captured instanceof JTTreeList<?> treeList) {
+                        treeLists.computeIfAbsent(tree, key -> new HashMap<>()).put(propertyName, treeList);
+                    }
+                }
+            }
+            // The children are visited in the source order.
+            propertyNames.sort(Comparator.comparingLong(propertyName -> getStartPosition(capturedMap.get(propertyName))));
+            for (String propertyName : propertyNames) {
+                Object value = encodeValue(capturedMap.get(propertyName));
+                if (value != UNSUPPORTED) {
+                    map.put(propertyName, value);
+                }
+            }
+            return map;
+        }
+
+        private Object encodeValue(Object object) throws JavetException, JaspilerCheckedException {
+            if (object == null || object instanceof String || object instanceof Boolean) {
+                return object;
+            }
+            if (object instanceof Long longValue) {
+                return Math.abs(longValue) <= MAX_SAFE_INTEGER ? longValue : UNSUPPORTED;
+            }
+            if (object instanceof Number) {
+                return object;
+            }
+            if (object instanceof Character || object instanceof Enum<?>) {
+                return object.toString();
+            }
+            if (object instanceof JTTree<?, ?> tree) {
+                return encodeTree(tree);
+            }
+            if (object instanceof JTName name) {
+                return Map.of(PROPERTY_VALUE, name.getValue());
+            }
+            if (object instanceof JTFloat floatValue) {
+                return floatValue.getValue();
+            }
+            if (object instanceof JTCharacter character) {
+                return String.valueOf(character.getValue());
+            }
+            if (object instanceof JTTreeList<?> treeList) {
+                object = treeList.getList();
+            }
+            if (object instanceof List<?> list) {
+                List<Object> values = new ArrayList<>(list.size());
+                for (Object item : list) {
+                    Object value = encodeValue(item);
+                    if (value == UNSUPPORTED) {
+                        return UNSUPPORTED;
+                    }
+                    values.add(value);
+                }
+                return values;
+            }
+            return UNSUPPORTED;
+        }
+    }
+}
@@ -17,6 +17,7 @@
 package com.caoccao.jaspiler.v8;
 
 import com.caoccao.jaspiler.styles.StyleOptions;
+import com.caoccao.jaspiler.styles.StyleType;
 import com.caoccao.javet.exceptions.JavetException;
 import com.caoccao.javet.interfaces.IJavetClosable;
 import com.caoccao.javet.utils.JavetResourceUtils;
@@ -30,42 +31,122 @@ import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Objects;
-import java.util.Optional;
+import java.util.*;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 public final class V8JaspilerOptions implements IJavetClosable {
     private static final String DEFAULT_FILE_NAME = "Dummy";
     private static final String PROPERTY_AST = "ast";
+    private static final String PROPERTY_BINARY_AST = "binaryAst";
     private static final String PROPERTY_CODE = "code";
     private static final String PROPERTY_CONTEXT = "context";
     private static final String PROPERTY_CONTINUATION_INDENT_SIZE = "continuationIndentSize";
+    private static final String PROPERTY_DIFF = "diff";
+    private static final String PROPERTY_EDITS = "edits";
     private static final String PROPERTY_FILE_NAME = "fileName";
     private static final String PROPERTY_INDENT_SIZE = "indentSize";
+    private static final String PROPERTY_MIRROR = "mirror";
+    private static final String PROPERTY_PARALLEL = "parallel";
+    private static final String PROPERTY_PARALLEL_THRESHOLD = "parallelThreshold";
     private static final String PROPERTY_PLUGINS = "plugins";
     private static final String PROPERTY_PRESERVE_COPYRIGHTS = "preserveCopyrights";
+    private static final String PROPERTY_SCOPE = "scope";
+    private static final String PROPERTY_SOURCE_MAP = "sourceMap";
     private static final String PROPERTY_SOURCE_TYPE = "sourceType";
     private static final String PROPERTY_STYLE = "style";
+    private static final String PROPERTY_TYPE = "type";
     private static final String PROPERTY_WORD_WRAP_COLUMN = "wordWrapColumn";
+    private static final V8ValueFunction[] EMPTY_FUNCTIONS = new V8ValueFunction[0];
+    private final V8ValueFunction[][] batchDispatchTable;
+    private final V8ValueFunction[][] dispatchTable;
+    private final V8ValueFunction[][] exitDispatchTable;
+    private final BitSet pathSubscriptions;
     private final List<Plugin> plugins;
+    private final BitSet subscriptions;
     private boolean ast;
+    private boolean binaryAst;
     private boolean code;
     private V8ValueObject context;
+    private boolean diff;
+    private boolean edits;
+    private boolean exitSubscribed;
     private String fileName;
+    private boolean mirror;
+    private boolean scope;
+    private boolean sourceMap;
     private SourceType sourceType;
     private StyleOptions styleOptions;
 
     public V8JaspilerOptions() {
         ast = false;
+        batchDispatchTable = new V8ValueFunction[VisitorMethod.values().length][];
+        Arrays.fill(batchDispatchTable, EMPTY_FUNCTIONS);
+        binaryAst = false;
         code = true;
         context = null;
+        diff = false;
+        dispatchTable = new V8ValueFunction[VisitorMethod.values().length][];
+        Arrays.fill(dispatchTable, EMPTY_FUNCTIONS);
+        edits = false;
+        exitDispatchTable = new V8ValueFunction[VisitorMethod.values().length][];
+        Arrays.fill(exitDispatchTable, EMPTY_FUNCTIONS);
+        exitSubscribed = false;
         fileName = null;
+        mirror = false;
+        pathSubscriptions = new BitSet(dispatchTable.length);
         plugins = new ArrayList<>();
+        scope = false;
+        sourceMap = false;
         sourceType = SourceType.File;
         styleOptions = StyleOptions.Default;
+        subscriptions = new BitSet(dispatchTable.length);
+    }
+
+    /**
+     * Build the dispatch tables from the plugins.
+     * The functions of the batch plugins are kept in a separate table.
+     * The exit functions are kept in a separate table as well and the batch plugins have no exit functions.
+     * It is called after the plugins are deserialized
+     * and has to be called again if the plugins are changed afterwards.
+     *
+     * @return the self
+     */
+    public V8JaspilerOptions buildDispatchTable() {
+        pathSubscriptions.clear();
+        subscriptions.clear();
+        exitSubscribed = false;
+        List<V8ValueFunction> batchFunctions = new ArrayList<>(plugins.size());
+        List<V8ValueFunction> exitFunctions = new ArrayList<>(plugins.size());
+        List<V8ValueFunction> functions = new ArrayList<>(plugins.size());
+        for (var visitorMethod : VisitorMethod.values()) {
+            batchFunctions.clear();
+            exitFunctions.clear();
+            functions.clear();
+            for (var plugin : plugins) {
+                Optional.ofNullable(plugin.getVisitor())
+                        .map(visitor -> visitor.getFunction(visitorMethod))
+                        .ifPresent(plugin.isBatch() ? batchFunctions::add : functions::add);
+                if (!plugin.isBatch() && plugin.getVisitor() != null) {
+                    Optional.ofNullable(plugin.getVisitor().getExitFunction(visitorMethod)).ifPresent(exitFunctions::add);
+                    if (plugin.getVisitor().isPathRequired(visitorMethod)) {
+                        pathSubscriptions.set(visitorMethod.ordinal());
+                    }
+                }
+            }
+            final int index = visitorMethod.ordinal();
+            batchDispatchTable[index] = batchFunctions.isEmpty() ? EMPTY_FUNCTIONS : batchFunctions.toArray(EMPTY_FUNCTIONS);
+            dispatchTable[index] = functions.isEmpty() ? EMPTY_FUNCTIONS : functions.toArray(EMPTY_FUNCTIONS);
+            exitDispatchTable[index] = exitFunctions.isEmpty() ? EMPTY_FUNCTIONS : exitFunctions.toArray(EMPTY_FUNCTIONS);
+            if (!batchFunctions.isEmpty() || !functions.isEmpty() || !exitFunctions.isEmpty()) {
+                subscriptions.set(index);
+            }
+            if (!exitFunctions.isEmpty()) {
+                exitSubscribed = true;
+            }
+        }
+        return this;
     }
 
     @Override
@@ -74,13 +155,21 @@ public final class V8JaspilerOptions implements IJavetClosable {
         JavetResourceUtils.safeClose(plugins);
         context = null;
         plugins.clear();
+        buildDispatchTable();
     }
 
     public V8JaspilerOptions deserialize(V8ValueObject v8ValueObject) throws JavetException {
         deserializeAst(v8ValueObject);
+        deserializeBinaryAst(v8ValueObject);
         deserializeCode(v8ValueObject);
         deserializeContext(v8ValueObject);
+        deserializeDiff(v8ValueObject);
+        deserializeEdits(v8ValueObject);
+        deserializeMirror(v8ValueObject);
         deserializePlugins(v8ValueObject);
+        buildDispatchTable();
+        deserializeScope(v8ValueObject);
+        deserializeSourceMap(v8ValueObject);
         deserializeSourceTypeAndFileName(v8ValueObject);
         deserializeStyle(v8ValueObject);
         return this;
@@ -94,6 +183,14 @@ public final class V8JaspilerOptions implements IJavetClosable {
         }
     }
 
+    private void deserializeBinaryAst(V8ValueObject v8ValueObject) throws JavetException {
+        try (V8Value v8Value = v8ValueObject.get(PROPERTY_BINARY_AST)) {
+            if (v8Value instanceof V8ValueBoolean v8ValueBoolean) {
+                binaryAst = v8ValueBoolean.getValue();
+            }
+        }
+    }
+
     private void deserializeCode(V8ValueObject v8ValueObject) throws JavetException {
         try (V8Value v8Value = v8ValueObject.get(PROPERTY_CODE)) {
             if (v8Value instanceof V8ValueBoolean v8ValueBoolean) {
@@ -110,6 +207,30 @@ public final class V8JaspilerOptions implements IJavetClosable {
         }
     }
 
+    private void deserializeDiff(V8ValueObject v8ValueObject) throws JavetException {
+        try (V8Value v8Value = v8ValueObject.get(PROPERTY_DIFF)) {
+            if (v8Value instanceof V8ValueBoolean v8ValueBoolean) {
+                diff = v8ValueBoolean.getValue();
+            }
+        }
+    }
+
+    private void deserializeEdits(V8ValueObject v8ValueObject) throws JavetException {
+        try (V8Value v8Value = v8ValueObject.get(PROPERTY_EDITS)) {
+            if (v8Value instanceof V8ValueBoolean v8ValueBoolean) {
+                edits = v8ValueBoolean.getValue();
+            }
+        }
+    }
+
+    private void deserializeMirror(V8ValueObject v8ValueObject) throws JavetException {
+        try (V8Value v8Value = v8ValueObject.get(PROPERTY_MIRROR)) {
+            if (v8Value instanceof V8ValueBoolean v8ValueBoolean) {
+                mirror = v8ValueBoolean.getValue();
+            }
+        }
+    }
+
     private void deserializePlugins(V8ValueObject v8ValueObject) throws JavetException {
         try (V8Value v8Value = v8ValueObject.get(PROPERTY_PLUGINS)) {
             if (v8Value instanceof V8ValueArray v8ValueArray) {
@@ -122,6 +243,26 @@ public final class V8JaspilerOptions implements IJavetClosable {
         }
     }
 
+    private void deserializeScope(V8ValueObject v8ValueObject) throws JavetException {
+        try (V8Value v8Value = v8ValueObject.get(PROPERTY_SCOPE)) {
+            if (v8Value instanceof V8ValueBoolean v8ValueBoolean) {
+                scope = v8ValueBoolean.getValue();
+            }
+        }
+        if (scope && context == null) {
+            // The scope is exposed as context.scope so that the context is created if it is absent.
+            context = v8ValueObject.getV8Runtime().createV8ValueObject();
+        }
+    }
+
+    private void deserializeSourceMap(V8ValueObject v8ValueObject) throws JavetException {
+        try (V8Value v8Value = v8ValueObject.get(PROPERTY_SOURCE_MAP)) {
+            if (v8Value instanceof V8ValueBoolean v8ValueBoolean) {
+                sourceMap = v8ValueBoolean.getValue();
+            }
+        }
+    }
+
     private void deserializeSourceTypeAndFileName(V8ValueObject v8ValueObject) throws JavetException {
         try (V8Value v8Value = v8ValueObject.get(PROPERTY_SOURCE_TYPE)) {
             if (v8Value instanceof V8ValueString v8ValueString) {
@@ -149,22 +290,55 @@ public final class V8JaspilerOptions implements IJavetClosable {
                 styleOptions = new StyleOptions();
                 Optional.ofNullable(v8ValueObjectStyle.getInteger(PROPERTY_CONTINUATION_INDENT_SIZE)).ifPresent(styleOptions::setContinuationIndentSize);
                 Optional.ofNullable(v8ValueObjectStyle.getInteger(PROPERTY_INDENT_SIZE)).ifPresent(styleOptions::setIndentSize);
+                Optional.ofNullable(v8ValueObjectStyle.getBoolean(PROPERTY_PARALLEL)).ifPresent(styleOptions::setParallel);
+                Optional.ofNullable(v8ValueObjectStyle.getInteger(PROPERTY_PARALLEL_THRESHOLD)).ifPresent(styleOptions::setParallelThreshold);
                 Optional.ofNullable(v8ValueObjectStyle.getBoolean(PROPERTY_PRESERVE_COPYRIGHTS)).ifPresent(styleOptions::setPreserveCopyrights);
                 Optional.ofNullable(v8ValueObjectStyle.getInteger(PROPERTY_WORD_WRAP_COLUMN)).ifPresent(styleOptions::setWordWrapColumn);
-                // TODO: To support type.
+                Optional.ofNullable(v8ValueObjectStyle.getString(PROPERTY_TYPE)).map(StyleType::parse).ifPresent(styleOptions::setType);
                 styleOptions.seal();
             }
         }
     }
 
+    /**
+     * Gets the functions of the visitor method in the batch plugins in the plugin order.
+     *
+     * @param visitorMethod the visitor method
+     * @return the functions, empty if no batch plugin subscribes to the visitor method
+     */
+    public V8ValueFunction[] getBatchFunctions(VisitorMethod visitorMethod) {
+        return batchDispatchTable[visitorMethod.ordinal()];
+    }
+
     public V8ValueObject getContext() {
         return context;
     }
 
+    /**
+     * Gets the exit functions of the visitor method in the plugin order.
+     * The exit functions are called after the children of the node are visited.
+     *
+     * @param visitorMethod the visitor method
+     * @return the exit functions, empty if no plugin subscribes to the exit of the visitor method
+     */
+    public V8ValueFunction[] getExitFunctions(VisitorMethod visitorMethod) {
+        return exitDispatchTable[visitorMethod.ordinal()];
+    }
+
     public String getFileName() {
         return fileName;
     }
 
+    /**
+     * Gets the functions of the visitor method in the plugin order.
+     *
+     * @param visitorMethod the visitor method
+     * @return the functions, empty if no plugin subscribes to the visitor method
+     */
+    public V8ValueFunction[] getFunctions(VisitorMethod visitorMethod) {
+        return dispatchTable[visitorMethod.ordinal()];
+    }
+
     public List<Plugin> getPlugins() {
         return plugins;
     }
@@ -181,6 +355,10 @@ public final class V8JaspilerOptions implements IJavetClosable {
         return ast;
     }
 
+    public boolean isBinaryAst() {
+        return binaryAst;
+    }
+
     @Override
     public boolean isClosed() {
         return CollectionUtils.isEmpty(plugins);
@@ -190,10 +368,75 @@ public final class V8JaspilerOptions implements IJavetClosable {
         return code;
     }
 
+    public boolean isDiff() {
+        return diff;
+    }
+
+    public boolean isEdits() {
+        return edits;
+    }
+
+    /**
+     * Is exit subscribed.
+     *
+     * @return true : at least one plugin has an exit function, false : no exit function
+     */
+    public boolean isExitSubscribed() {
+        return exitSubscribed;
+    }
+
+    public boolean isMirror() {
+        return mirror;
+    }
+
+    /**
+     * Is path subscribed.
+     * The path is created for the node only if a function of the visitor method declares the path parameter.
+     *
+     * @param visitorMethod the visitor method
+     * @return true : the path is subscribed, false : the path is not subscribed
+     */
+    public boolean isPathSubscribed(VisitorMethod visitorMethod) {
+        return pathSubscriptions.get(visitorMethod.ordinal());
+    }
+
+    public boolean isPathSubscribed() {
+        return !pathSubscriptions.isEmpty();
+    }
+
+    /**
+     * Is scope.
+     * The scope stack is maintained by the traversal and exposed as context.scope only if it is enabled.
+     *
+     * @return true : the scope is enabled, false : the scope is disabled
+     */
+    public boolean isScope() {
+        return scope;
+    }
+
+    public boolean isSourceMap() {
+        return sourceMap;
+    }
+
+    /**
+     * Is subscribed.
+     * The traversal skips the dispatch of the visitor method no plugin subscribes to.
+     *
+     * @param visitorMethod the visitor method
+     * @return true : at least one plugin has a function of the visitor method, false : no function
+     */
+    public boolean isSubscribed(VisitorMethod visitorMethod) {
+        return subscriptions.get(visitorMethod.ordinal());
+    }
+
     public void setAst(boolean ast) {
         this.ast = ast;
     }
 
+    public void setBinaryAst(boolean binaryAst) {
+        this.binaryAst = binaryAst;
+    }
+
     public void setCode(boolean code) {
         this.code = code;
     }
@@ -202,10 +445,30 @@ public final class V8JaspilerOptions implements IJavetClosable {
         this.context = context;
     }
 
+    public void setDiff(boolean diff) {
+        this.diff = diff;
+    }
+
+    public void setEdits(boolean edits) {
+        this.edits = edits;
+    }
+
     public void setFileName(String fileName) {
         this.fileName = fileName;
     }
 
+    public void setMirror(boolean mirror) {
+        this.mirror = mirror;
+    }
+
+    public void setScope(boolean scope) {
+        this.scope = scope;
+    }
+
+    public void setSourceMap(boolean sourceMap) {
+        this.sourceMap = sourceMap;
+    }
+
     public void setSourceType(SourceType sourceType) {
         this.sourceType = sourceType;
     }
@@ -219,12 +482,85 @@ public final class V8JaspilerOptions implements IJavetClosable {
         String,
     }
 
+    public enum VisitorMethod {
+        Scan,
+        AnnotatedType,
+        Annotation,
+        ArrayAccess,
+        ArrayType,
+        Assert,
+        Assignment,
+        Binary,
+        BindingPattern,
+        Block,
+        Break,
+        Case,
+        Catch,
+        Class,
+        CompilationUnit,
+        CompoundAssignment,
+        ConditionalExpression,
+        Continue,
+        DefaultCaseLabel,
+        DoWhileLoop,
+        EmptyStatement,
+        EnhancedForLoop,
+        Erroneous,
+        Exports,
+        ExpressionStatement,
+        ForLoop,
+        GuardedPattern,
+        Identifier,
+        If,
+        Import,
+        InstanceOf,
+        IntersectionType,
+        LabeledStatement,
+        LambdaExpression,
+        Literal,
+        MemberReference,
+        MemberSelect,
+        Method,
+        MethodInvocation,
+        Modifiers,
+        Module,
+        NewArray,
+        NewClass,
+        Opens,
+        Other,
+        Package,
+        ParameterizedType,
+        Parenthesized,
+        ParenthesizedPattern,
+        PrimitiveType,
+        Provides,
+        Requires,
+        Return,
+        Switch,
+        SwitchExpression,
+        Synchronized,
+        Throw,
+        Try,
+        TypeCast,
+        TypeParameter,
+        Unary,
+        UnionType,
+        Uses,
+        Variable,
+        WhileLoop,
+        Wildcard,
+        Yield,
+    }
+
     public static final class Plugin implements IJavetClosable {
+        private static final String PROPERTY_BATCH = "batch";
         private static final String PROPERTY_VISITOR = "visitor";
 
+        private boolean batch;
         private Visitor visitor;
 
         public Plugin() {
+            setBatch(false);
             setVisitor(null);
         }
 
@@ -235,6 +571,11 @@ public final class V8JaspilerOptions implements IJavetClosable {
         }
 
         public Plugin deserialize(V8ValueObject v8ValueObject) throws JavetException {
+            try (var v8Value = v8ValueObject.get(PROPERTY_BATCH)) {
+                if (v8Value instanceof V8ValueBoolean v8ValueBoolean) {
+                    setBatch(v8ValueBoolean.getValue());
+                }
+            }
             try (var v8Value = v8ValueObject.get(PROPERTY_VISITOR)) {
                 if (v8Value instanceof V8ValueObject v8ValueObjectVisitor) {
                     setVisitor(new Visitor().deserialize(v8ValueObjectVisitor));
@@ -247,6 +588,17 @@ public final class V8JaspilerOptions implements IJavetClosable {
             return visitor;
         }
 
+        /**
+         * Is batch.
+         * The visitor functions of a batch plugin are called once per visitor method
+         * with an array of the nodes after the traversal.
+         *
+         * @return true : batch, false : per node
+         */
+        public boolean isBatch() {
+            return batch;
+        }
+
         @Override
         public boolean isClosed() {
             return ObjectUtils.allNull(visitor);
@@ -256,12 +608,22 @@ public final class V8JaspilerOptions implements IJavetClosable {
             return ObjectUtils.allNotNull(visitor) && visitor.isValid();
         }
 
+        public void setBatch(boolean batch) {
+            this.batch = batch;
+        }
+
         public void setVisitor(Visitor visitor) {
             this.visitor = visitor;
         }
     }
 
     public static final class Visitor implements IJavetClosable {
+        private static final String PROPERTY_ENTER = "enter";
+        private static final String PROPERTY_EXIT = "exit";
+        private static final String PROPERTY_LENGTH = "length";
+        private static final int PATH_PARAMETER_COUNT = 3;
+        private final V8ValueFunction[] exitFunctions;
+        private final BitSet pathMethods;
         private final List<String> properties;
         private final List<Supplier<V8ValueFunction>> propertyGetters;
         private final List<Consumer<V8ValueFunction>> propertySetters;
@@ -334,74 +696,9 @@ public final class V8JaspilerOptions implements IJavetClosable {
         private V8ValueFunction visitYield;
 
         public Visitor() {
-            properties = List.of(
-                    "Scan",
-                    "AnnotatedType",
-                    "Annotation",
-                    "ArrayAccess",
-                    "ArrayType",
-                    "Assert",
-                    "Assignment",
-                    "Binary",
-                    "BindingPattern",
-                    "Block",
-                    "Break",
-                    "Case",
-                    "Catch",
-                    "Class",
-                    "CompilationUnit",
-                    "CompoundAssignment",
-                    "ConditionalExpression",
-                    "Continue",
-                    "DefaultCaseLabel",
-                    "DoWhileLoop",
-                    "EmptyStatement",
-                    "EnhancedForLoop",
-                    "Erroneous",
-                    "Exports",
-                    "ExpressionStatement",
-                    "ForLoop",
-                    "GuardedPattern",
-                    "Identifier",
-                    "If",
-                    "Import",
-                    "InstanceOf",
-                    "IntersectionType",
-                    "LabeledStatement",
-                    "LambdaExpression",
-                    "Literal",
-                    "MemberReference",
-                    "MemberSelect",
-                    "Method",
-                    "MethodInvocation",
-                    "Modifiers",
-                    "Module",
-                    "NewArray",
-                    "NewClass",
-                    "Opens",
-                    "Other",
-                    "Package",
-                    "ParameterizedType",
-                    "Parenthesized",
-                    "ParenthesizedPattern",
-                    "PrimitiveType",
-                    "Provides",
-                    "Requires",
-                    "Return",
-                    "Switch",
-                    "SwitchExpression",
-                    "Synchronized",
-                    "Throw",
-                    "Try",
-                    "TypeCast",
-                    "TypeParameter",
-                    "Unary",
-                    "UnionType",
-                    "Uses",
-                    "Variable",
-                    "WhileLoop",
-                    "Wildcard",
-                    "Yield");
+            exitFunctions = new V8ValueFunction[VisitorMethod.values().length];
+            pathMethods = new BitSet(exitFunctions.length);
+            properties = Stream.of(VisitorMethod.values()).map(Enum::name).toList();
             propertyGetters = List.of(
                     this::getScan,
                     this::getVisitAnnotatedType,
@@ -544,6 +841,7 @@ public final class V8JaspilerOptions implements IJavetClosable {
         @Override
         public void close() {
             JavetResourceUtils.safeClose(propertyGetters.stream().map(Supplier::get).toArray());
+            JavetResourceUtils.safeClose((Object[]) exitFunctions);
             reset();
         }
 
@@ -561,6 +859,23 @@ public final class V8JaspilerOptions implements IJavetClosable {
                     if (v8ValueValues[i] instanceof V8ValueFunction v8ValueFunction) {
                         propertySetters.get(i).accept(v8ValueFunction);
                         v8ValueValues[i] = null;
+                        deserializePathRequired(i, v8ValueFunction);
+                    } else if (v8ValueValues[i] instanceof V8ValueObject v8ValueObjectHooks) {
+                        // { enter, exit } is called before and after the children are visited.
+                        V8Value v8ValueEnter = v8ValueObjectHooks.get(PROPERTY_ENTER);
+                        if (v8ValueEnter instanceof V8ValueFunction v8ValueFunction) {
+                            propertySetters.get(i).accept(v8ValueFunction);
+                            deserializePathRequired(i, v8ValueFunction);
+                        } else {
+                            JavetResourceUtils.safeClose(v8ValueEnter);
+                        }
+                        V8Value v8ValueExit = v8ValueObjectHooks.get(PROPERTY_EXIT);
+                        if (v8ValueExit instanceof V8ValueFunction v8ValueFunction) {
+                            exitFunctions[i] = v8ValueFunction;
+                            deserializePathRequired(i, v8ValueFunction);
+                        } else {
+                            JavetResourceUtils.safeClose(v8ValueExit);
+                        }
                     }
                 }
             } finally {
@@ -570,6 +885,22 @@ public final class V8JaspilerOptions implements IJavetClosable {
             return this;
         }
 
+        private void deserializePathRequired(int index, V8ValueFunction v8ValueFunction) throws JavetException {
+            // The path is the third parameter after the node and the context.
+            Integer length = v8ValueFunction.getInteger(PROPERTY_LENGTH);
+            if (length != null && length >= PATH_PARAMETER_COUNT) {
+                pathMethods.set(index);
+            }
+        }
+
+        public V8ValueFunction getExitFunction(VisitorMethod visitorMethod) {
+            return exitFunctions[visitorMethod.ordinal()];
+        }
+
+        public V8ValueFunction getFunction(VisitorMethod visitorMethod) {
+            return propertyGetters.get(visitorMethod.ordinal()).get();
+        }
+
         public V8ValueFunction getScan() {
             return scan;
         }
@@ -840,7 +1171,18 @@ public final class V8JaspilerOptions implements IJavetClosable {
 
         @Override
         public boolean isClosed() {
-            return propertyGetters.stream().map(Supplier::get).allMatch(Objects::isNull);
+            return propertyGetters.stream().map(Supplier::get).allMatch(Objects::isNull)
+                    && Stream.of(exitFunctions).allMatch(Objects::isNull);
+        }
+
+        /**
+         * Is path required.
+         *
+         * @param visitorMethod the visitor method
+         * @return true : a function of the visitor method declares the path parameter, false : otherwise
+         */
+        public boolean isPathRequired(VisitorMethod visitorMethod) {
+            return pathMethods.get(visitorMethod.ordinal());
         }
 
         public boolean isValid() {
@@ -849,6 +1191,8 @@ public final class V8JaspilerOptions implements IJavetClosable {
 
         private void reset() {
             propertySetters.forEach(setter -> setter.accept(null));
+            Arrays.fill(exitFunctions, null);
+            pathMethods.clear();
         }
 
         public void setScan(V8ValueFunction scan) {
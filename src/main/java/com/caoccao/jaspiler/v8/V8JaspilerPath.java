@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2023-2025. caoccao.com Sam Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.caoccao.jaspiler.v8;
+
+import com.caoccao.jaspiler.exceptions.JaspilerArgumentException;
+import com.caoccao.jaspiler.exceptions.JaspilerCheckedException;
+import com.caoccao.jaspiler.exceptions.JaspilerExecutionException;
+import com.caoccao.jaspiler.trees.JTTree;
+import com.caoccao.jaspiler.trees.JTTreeList;
+import com.caoccao.javet.exceptions.JavetException;
+import com.caoccao.javet.interfaces.IJavetUniFunction;
+import com.caoccao.javet.interop.V8Runtime;
+import com.caoccao.javet.interop.proxy.IJavetDirectProxyHandler;
+import com.caoccao.javet.values.V8Value;
+
+import java.text.MessageFormat;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The type V8 jaspiler path is passed to the visitor functions declaring the third parameter.
+ * It knows the parent, the parent property and the index of the node,
+ * and replaces, removes or inserts the nodes in the Java list of the parent in place.
+ * <p>
+ * While the list is being scanned, the scanner continues with the next sibling of the edited node.
+ * The children of the removed or replaced node are not visited.
+ * The replacement and the nodes inserted before are not visited,
+ * while the nodes inserted after are visited as the following siblings.
+ * The parent property is looked up on demand from the property names registered by the parent
+ * and cached per list.
+ */
+public final class V8JaspilerPath implements IJavetDirectProxyHandler<JaspilerCheckedException> {
+    private static final String FUNCTION_INSERT_AFTER = "insertAfter";
+    private static final String FUNCTION_INSERT_BEFORE = "insertBefore";
+    private static final String FUNCTION_REMOVE = "remove";
+    private static final String FUNCTION_REPLACE_WITH = "replaceWith";
+    private static final String PROPERTY_INDEX = "index";
+    private static final String PROPERTY_KEY = "key";
+    private static final String PROPERTY_NODE = "node";
+    private static final String PROPERTY_PARENT = "parent";
+    private static final String PROPERTY_REMOVED = "removed";
+    private final V8JaspilerTransformScanner.ListFrame listFrame;
+    private final JTTree<?, ?> node;
+    private final JTTree<?, ?> parent;
+    private final V8Runtime v8Runtime;
+    private String key;
+    private boolean removed;
+    private boolean replaced;
+    private Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> stringGetterMap;
+
+    public V8JaspilerPath(V8Runtime v8Runtime, JTTree<?, ?> node, V8JaspilerTransformScanner.ListFrame listFrame) {
+        key = null;
+        this.listFrame = listFrame;
+        this.node = Objects.requireNonNull(node);
+        parent = listFrame == null ? node.getParentTree() : listFrame.owner;
+        removed = false;
+        replaced = false;
+        stringGetterMap = null;
+        this.v8Runtime = Objects.requireNonNull(v8Runtime);
+    }
+
+    /**
+     * Gets the index of the node in the list of the parent.
+     * The element being scanned is checked first so that the lookup is O(1) during the scan.
+     *
+     * @return the index, -1 if the node is not in a list or is detached
+     */
+    public int getIndex() {
+        if (listFrame == null || isDetached()) {
+            return -1;
+        }
+        List<?> list = listFrame.list;
+        if (listFrame.index >= 0 && listFrame.index < list.size() && list.get(listFrame.index) == node) {
+            return listFrame.index;
+        }
+        // The path is used after the scanner moves on.
+        for (int i = 0; i < list.size(); ++i) {
+            if (list.get(i) == node) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the name of the parent property holding the node.
+     *
+     * @return the key, null if the parent is not found or the property cannot be resolved
+     * @throws JaspilerCheckedException the jaspiler checked exception
+     */
+    public String getKey() throws JaspilerCheckedException {
+        if (key == null && parent != null) {
+            key = listFrame != null ? resolveTreeList().getKey() : parent.getChildKey(node);
+        }
+        return key;
+    }
+
+    public JTTree<?, ?> getNode() {
+        return node;
+    }
+
+    public JTTree<?, ?> getParent() {
+        return parent;
+    }
+
+    @Override
+    public V8Runtime getV8Runtime() {
+        return v8Runtime;
+    }
+
+    private V8Value insert(String functionName, boolean after, V8Value... v8Values)
+            throws JavetException, JaspilerCheckedException {
+        validateAttached(functionName);
+        final int index = getIndex();
+        if (index < 0) {
+            throw new JaspilerArgumentException(
+                    MessageFormat.format("Node is not in a list in {0}.", functionName));
+        }
+        JTTreeList<?> treeList = resolveTreeList();
+        int position = after ? index + 1 : index;
+        for (V8Value v8Value : v8Values) {
+            if (!treeList.add(position, v8Runtime.toObject(v8Value))) {
+                throw new JaspilerArgumentException(
+                        MessageFormat.format("Argument type mismatches in {0}.", functionName));
+            }
+            if (position <= listFrame.index) {
+                ++listFrame.index;
+            }
+            ++position;
+        }
+        return v8Runtime.createV8ValueUndefined();
+    }
+
+    public boolean isDetached() {
+        return removed || replaced;
+    }
+
+    public boolean isRemoved() {
+        return removed;
+    }
+
+    @Override
+    public Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> proxyGetStringGetterMap() {
+        if (stringGetterMap == null) {
+            stringGetterMap = new HashMap<>();
+            registerStringGetterFunction(FUNCTION_INSERT_AFTER, v8Values -> insert(FUNCTION_INSERT_AFTER, true, v8Values));
+            registerStringGetterFunction(FUNCTION_INSERT_BEFORE, v8Values -> insert(FUNCTION_INSERT_BEFORE, false, v8Values));
+            registerStringGetterFunction(FUNCTION_REMOVE, this::remove);
+            registerStringGetterFunction(FUNCTION_REPLACE_WITH, this::replaceWith);
+            registerStringGetter(PROPERTY_INDEX, propertyName -> v8Runtime.createV8ValueInteger(getIndex()));
+            registerStringGetter(PROPERTY_KEY, propertyName -> {
+                String value = getKey();
+                return value == null ? v8Runtime.createV8ValueNull() : v8Runtime.createV8ValueString(value);
+            });
+            registerStringGetter(PROPERTY_NODE, propertyName -> v8Runtime.toV8Value(getNode()));
+            registerStringGetter(PROPERTY_PARENT, propertyName -> v8Runtime.toV8Value(getParent()));
+            registerStringGetter(PROPERTY_REMOVED, propertyName -> v8Runtime.createV8ValueBoolean(isRemoved()));
+        }
+        return stringGetterMap;
+    }
+
+    private V8Value remove(V8Value... v8Values) throws JavetException, JaspilerCheckedException {
+        validateAttached(FUNCTION_REMOVE);
+        final int index = getIndex();
+        if (index >= 0) {
+            resolveTreeList().remove(index);
+            if (index <= listFrame.index) {
+                --listFrame.index;
+            }
+        } else {
+            try (V8Value v8ValueNull = v8Runtime.createV8ValueNull()) {
+                setProperty(FUNCTION_REMOVE, v8ValueNull);
+            }
+        }
+        removed = true;
+        return v8Runtime.createV8ValueUndefined();
+    }
+
+    private V8Value replaceWith(V8Value... v8Values) throws JavetException, JaspilerCheckedException {
+        validateAttached(FUNCTION_REPLACE_WITH);
+        if (v8Values == null || v8Values.length < 1) {
+            throw new JaspilerArgumentException(
+                    MessageFormat.format("Argument count mismatches in {0}.", FUNCTION_REPLACE_WITH));
+        }
+        Object object = v8Runtime.toObject(v8Values[0]);
+        if (object == node) {
+            return v8Runtime.createV8ValueUndefined();
+        }
+        final int index = getIndex();
+        if (index >= 0) {
+            if (!resolveTreeList().set(index, object)) {
+                throw new JaspilerArgumentException(
+                        MessageFormat.format("Argument type mismatches in {0}.", FUNCTION_REPLACE_WITH));
+            }
+        } else {
+            setProperty(FUNCTION_REPLACE_WITH, v8Values[0]);
+        }
+        replaced = true;
+        return v8Runtime.createV8ValueUndefined();
+    }
+
+    private JTTreeList<?> resolveTreeList() throws JaspilerCheckedException {
+        if (listFrame.treeList == null) {
+            listFrame.treeList = listFrame.owner.getTreeList(listFrame.list);
+            if (listFrame.treeList == null) {
+                throw new JaspilerExecutionException(
+                        MessageFormat.format("The list of {0} is not editable.", listFrame.owner.getClass().getSimpleName()));
+            }
+        }
+        return listFrame.treeList;
+    }
+
+    private void setProperty(String functionName, V8Value v8Value) throws JavetException, JaspilerCheckedException {
+        String propertyName = getKey();
+        var setter = propertyName == null ? null : parent.proxyGetStringSetterMap().get(propertyName);
+        if (setter == null || !setter.apply(propertyName, v8Value)) {
+            throw new JaspilerExecutionException(
+                    MessageFormat.format("Failed to set the parent property in {0}.", functionName));
+        }
+    }
+
+    private void validateAttached(String functionName) throws JaspilerArgumentException {
+        if (isDetached()) {
+            throw new JaspilerArgumentException(
+                    MessageFormat.format("Node is already removed or replaced in {0}.", functionName));
+        }
+    }
+}
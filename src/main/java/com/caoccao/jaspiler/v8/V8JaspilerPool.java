@@ -0,0 +1,433 @@
+/*
+ * Copyright (c) 2023-2025. caoccao.com Sam Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.caoccao.jaspiler.v8;
+
+import com.caoccao.jaspiler.JaspilerCompiler;
+import com.caoccao.jaspiler.contexts.JaspilerTransformContext;
+import com.caoccao.jaspiler.exceptions.JaspilerArgumentException;
+import com.caoccao.jaspiler.exceptions.JaspilerCheckedException;
+import com.caoccao.jaspiler.exceptions.JaspilerExecutionException;
+import com.caoccao.jaspiler.styles.StyleOptions;
+import com.caoccao.jaspiler.utils.BaseLoggingObject;
+import com.caoccao.jaspiler.utils.DedupFileWriter;
+import com.caoccao.javet.enums.JSRuntimeType;
+import com.caoccao.javet.exceptions.JavetException;
+import com.caoccao.javet.interop.V8Runtime;
+import com.caoccao.javet.utils.JavetResourceUtils;
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.collections4.ListUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The type V8 jaspiler pool runs the same script in a pool of Node.js or plain V8 runtimes
+ * so that the plugins are executed on multiple cores.
+ * <p>
+ * Each runtime has its own V8Jaspiler and converter, and executes the script once.
+ * The script is expected to call jaspiler.registerTransformOptions(options) with the plugins.
+ * The options are deserialized once per runtime and reused by all the batches visited in that runtime.
+ * Each batch is visited in a converter session so that the trees are identity-stable within the batch.
+ * The files are split into batches.
+ * Each batch is parsed on the shared executor, visited by the plugins in an idle runtime,
+ * then serialized and written on the shared executor,
+ * so that the Java side work of a batch overlaps with the JS side work of the other batches.
+ * <p>
+ * At most 2 batches per runtime are in flight so that the parsed trees do not pile up
+ * when the plugins are slower than the parser.
+ * <p>
+ * The heap policy is applied per runtime after each batch.
+ * A recycled runtime is replaced by a new one which executes the script again,
+ * so that the plugin state is re-initialized.
+ * If the new runtime fails to start, the batch still succeeds, the failure is kept in the worker
+ * and the worker is retired from the pool.
+ */
+public final class V8JaspilerPool extends BaseLoggingObject implements AutoCloseable {
+    private static final int IN_FLIGHT_BATCHES_PER_WORKER = 2;
+    private final AtomicInteger aliveWorkerCount;
+    private final DedupFileWriter dedupFileWriter;
+    private final ExecutorService dispatchExecutorService;
+    private final ExecutorService executorService;
+    private final BlockingQueue<Worker> idleWorkers;
+    private final Semaphore inFlightBatchSemaphore;
+    private final StyleOptions styleOptions;
+    private final List<Worker> workers;
+
+    public V8JaspilerPool(int size, File scriptFile, String[] args) throws JavetException, JaspilerCheckedException {
+        this(size, scriptFile, args, JSRuntimeType.Node, new V8HeapPolicy(), false);
+    }
+
+    public V8JaspilerPool(
+            int size,
+            File scriptFile,
+            String[] args,
+            JSRuntimeType jsRuntimeType,
+            V8HeapPolicy heapPolicy,
+            boolean wrapperClassesEnabled)
+            throws JavetException, JaspilerCheckedException {
+        super();
+        if (size <= 0) {
+            throw new JaspilerArgumentException(
+                    MessageFormat.format("Pool size {0} is invalid. Positive integer is expected.", size));
+        }
+        workers = new ArrayList<>(size);
+        try {
+            for (int i = 0; i < size; ++i) {
+                workers.add(new Worker(i, scriptFile, args, jsRuntimeType, heapPolicy, wrapperClassesEnabled));
+            }
+        } catch (Throwable t) {
+            workers.forEach(Worker::close);
+            throw t;
+        }
+        aliveWorkerCount = new AtomicInteger(size);
+        dedupFileWriter = new DedupFileWriter();
+        dispatchExecutorService = Executors.newFixedThreadPool(size);
+        executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        idleWorkers = new LinkedBlockingQueue<>(workers);
+        inFlightBatchSemaphore = new Semaphore(size * IN_FLIGHT_BATCHES_PER_WORKER);
+        styleOptions = workers.get(0).getStyleOptions();
+    }
+
+    @Override
+    public void close() {
+        dispatchExecutorService.shutdownNow();
+        executorService.shutdownNow();
+        workers.forEach(Worker::close);
+    }
+
+    public DedupFileWriter getDedupFileWriter() {
+        return dedupFileWriter;
+    }
+
+    /**
+     * Gets the recycle exceptions of the retired workers.
+     *
+     * @return the recycle exceptions
+     */
+    public List<Throwable> getRecycleExceptions() {
+        return workers.stream().map(Worker::getRecycleException).filter(Objects::nonNull).toList();
+    }
+
+    public List<Worker> getWorkers() {
+        return workers;
+    }
+
+    private List<JaspilerTransformContext> parse(List<Path> files) {
+        try {
+            return new JaspilerCompiler()
+                    .addJavaFileObjects(files.toArray(Path[]::new))
+                    .transform(null, null)
+                    .getTransformContexts();
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * Transform the files and write the transformed files to the output path
+     * with the same relative paths to the input path.
+     *
+     * @param inputPath  the input path
+     * @param outputPath the output path
+     * @param files      the files in the input path
+     * @param batchSize  the batch size
+     * @return the number of the transformed files
+     * @throws JaspilerCheckedException the jaspiler checked exception
+     * @throws IOException              the io exception
+     */
+    public int transform(Path inputPath, Path outputPath, List<Path> files, int batchSize)
+            throws JaspilerCheckedException, IOException {
+        if (CollectionUtils.isEmpty(files)) {
+            return 0;
+        }
+        final Path absoluteInputPath = inputPath.toAbsolutePath().normalize();
+        final Path absoluteOutputPath = outputPath.toAbsolutePath().normalize();
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        try {
+            for (var batch : ListUtils.partition(files, Math.max(batchSize, 1))) {
+                // The permit is acquired before the batch is parsed and released after the batch is written.
+                inFlightBatchSemaphore.acquire();
+                futures.add(CompletableFuture
+                        .supplyAsync(() -> parse(batch), executorService)
+                        .thenApplyAsync(this::visit, dispatchExecutorService)
+                        .thenApplyAsync(
+                                transformContexts -> write(absoluteInputPath, absoluteOutputPath, transformContexts),
+                                executorService)
+                        .whenComplete((count, throwable) -> inFlightBatchSemaphore.release()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JaspilerExecutionException("Transform is interrupted.", e);
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof JaspilerCheckedException jaspilerCheckedException) {
+                throw jaspilerCheckedException;
+            } else if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new JaspilerExecutionException(cause.getMessage(), cause);
+        }
+        return futures.stream().mapToInt(CompletableFuture::join).sum();
+    }
+
+    private List<JaspilerTransformContext> visit(List<JaspilerTransformContext> transformContexts) {
+        Worker worker;
+        try {
+            worker = idleWorkers.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        }
+        if (!worker.isAlive()) {
+            // The last retired worker is put back so that the other batches fail fast as well.
+            idleWorkers.add(worker);
+            throw new CompletionException(new JaspilerExecutionException(
+                    "All runtimes in the pool are retired.", worker.getRecycleException()));
+        }
+        try {
+            return worker.visit(transformContexts);
+        } catch (JavetException | JaspilerCheckedException e) {
+            throw new CompletionException(e);
+        } finally {
+            if (worker.isAlive() || aliveWorkerCount.decrementAndGet() == 0) {
+                idleWorkers.add(worker);
+            }
+        }
+    }
+
+    private int write(Path inputPath, Path outputPath, List<JaspilerTransformContext> transformContexts) {
+        int count = 0;
+        try {
+            for (var transformContext : transformContexts) {
+                var compilationUnit = transformContext.getCompilationUnitTree();
+                var writer = styleOptions.getType().createStyleWriter(styleOptions);
+                if (compilationUnit.serialize(writer)) {
+                    Path path = Path.of(compilationUnit.getSourceFile().toUri()).toAbsolutePath().normalize();
+                    dedupFileWriter.write(outputPath.resolve(inputPath.relativize(path)), writer.toString());
+                    ++count;
+                }
+            }
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+        return count;
+    }
+
+    /**
+     * The type Worker owns a Node.js or plain V8 runtime.
+     * It is only accessed by one thread at a time.
+     */
+    public static final class Worker extends BaseLoggingObject implements AutoCloseable {
+        private final String[] args;
+        private final AtomicLong batchCount;
+        private final AtomicLong elapsedNanos;
+        private final AtomicLong fileCount;
+        private final V8HeapMonitor heapMonitor;
+        private final int index;
+        private final JSRuntimeType jsRuntimeType;
+        private final File scriptFile;
+        private final boolean wrapperClassesEnabled;
+        private volatile Throwable recycleException;
+        private StyleOptions styleOptions;
+        private V8Jaspiler v8Jaspiler;
+        private V8JaspilerConverter v8JaspilerConverter;
+        private V8JaspilerOptions v8JaspilerOptions;
+        private V8Runtime v8Runtime;
+
+        Worker(
+                int index,
+                File scriptFile,
+                String[] args,
+                JSRuntimeType jsRuntimeType,
+                V8HeapPolicy heapPolicy,
+                boolean wrapperClassesEnabled)
+                throws JavetException, JaspilerCheckedException {
+            super();
+            this.args = args;
+            batchCount = new AtomicLong();
+            elapsedNanos = new AtomicLong();
+            fileCount = new AtomicLong();
+            heapMonitor = new V8HeapMonitor(heapPolicy);
+            this.index = index;
+            this.jsRuntimeType = jsRuntimeType;
+            recycleException = null;
+            this.scriptFile = scriptFile;
+            styleOptions = null;
+            v8Jaspiler = null;
+            v8JaspilerConverter = null;
+            v8JaspilerOptions = null;
+            v8Runtime = null;
+            this.wrapperClassesEnabled = wrapperClassesEnabled;
+            start();
+        }
+
+        @Override
+        public void close() {
+            stop();
+        }
+
+        public long getBatchCount() {
+            return batchCount.get();
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos.get();
+        }
+
+        public long getFileCount() {
+            return fileCount.get();
+        }
+
+        /**
+         * Gets the number of the files visited per second.
+         *
+         * @return the files per second
+         */
+        public double getFilesPerSecond() {
+            long nanos = elapsedNanos.get();
+            return nanos == 0 ? 0 : fileCount.get() * 1_000_000_000D / nanos;
+        }
+
+        public V8HeapMonitor getHeapMonitor() {
+            return heapMonitor;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * Gets the exception thrown when the runtime was recycled.
+         *
+         * @return the recycle exception, or null if the worker is not retired
+         */
+        public Throwable getRecycleException() {
+            return recycleException;
+        }
+
+        public StyleOptions getStyleOptions() {
+            return styleOptions;
+        }
+
+        /**
+         * Is alive.
+         *
+         * @return true if the runtime is started, false if the worker is retired
+         */
+        public boolean isAlive() {
+            return v8Runtime != null;
+        }
+
+        private void recycle() throws JavetException, JaspilerCheckedException {
+            stop();
+            start();
+            heapMonitor.onRecycled();
+            logger.info("Runtime #{} is recycled after {} files.", index, fileCount.get());
+        }
+
+        private void start() throws JavetException, JaspilerCheckedException {
+            v8Runtime = V8JaspilerRuntimeFactory.create(jsRuntimeType);
+            try {
+                v8JaspilerConverter = new V8JaspilerConverter().setWrapperClassesEnabled(wrapperClassesEnabled);
+                v8Runtime.setConverter(v8JaspilerConverter);
+                v8Jaspiler = new V8Jaspiler(args, v8Runtime).setHeapMonitor(heapMonitor);
+                v8Runtime.getGlobalObject().set(V8Jaspiler.NAME, v8Jaspiler);
+                new V8PatchedFileExecutor(v8Runtime, scriptFile).executeVoid();
+                v8Runtime.await();
+                if (v8Jaspiler.getTransformOptions() == null) {
+                    throw new JaspilerExecutionException(
+                            MessageFormat.format(
+                                    "Script [{0}] does not call jaspiler.registerTransformOptions().",
+                                    scriptFile.getAbsolutePath()));
+                }
+                // The options are deserialized once and reused by the batches until the runtime is recycled.
+                v8JaspilerOptions = new V8JaspilerOptions().deserialize(v8Jaspiler.getTransformOptions());
+                styleOptions = v8JaspilerOptions.getStyleOptions();
+            } catch (Throwable t) {
+                stop();
+                throw t;
+            }
+        }
+
+        private void stop() {
+            if (v8Runtime != null) {
+                try {
+                    heapMonitor.update(v8Runtime);
+                    JavetResourceUtils.safeClose(v8JaspilerOptions);
+                    v8Runtime.getGlobalObject().delete(V8Jaspiler.NAME);
+                    JavetResourceUtils.safeClose(v8Jaspiler);
+                    JavetResourceUtils.safeClose(v8JaspilerConverter);
+                    v8Runtime.lowMemoryNotification();
+                    v8Runtime.close();
+                } catch (JavetException e) {
+                    logger.error(e.getMessage(), e);
+                } finally {
+                    v8Jaspiler = null;
+                    v8JaspilerConverter = null;
+                    v8JaspilerOptions = null;
+                    v8Runtime = null;
+                }
+            }
+        }
+
+        List<JaspilerTransformContext> visit(List<JaspilerTransformContext> transformContexts)
+                throws JavetException, JaspilerCheckedException {
+            final long startTime = System.nanoTime();
+            // The trees are identity-stable within the batch.
+            v8JaspilerConverter.beginSession();
+            try (var jaspilerTransformScanner = new V8JaspilerTransformScanner(v8JaspilerOptions)) {
+                for (var transformContext : transformContexts) {
+                    if (v8JaspilerOptions.isMirror()) {
+                        v8Jaspiler.getMirror().transform(v8JaspilerOptions, transformContext.getCompilationUnitTree());
+                    } else {
+                        jaspilerTransformScanner.scan(transformContext.getCompilationUnitTree(), transformContext);
+                    }
+                }
+                if (CollectionUtils.isNotEmpty(jaspilerTransformScanner.getExceptions())) {
+                    var e = jaspilerTransformScanner.getExceptions().get(0);
+                    throw new JaspilerExecutionException(e.getMessage(), e);
+                }
+            } finally {
+                v8JaspilerConverter.endSession();
+                batchCount.incrementAndGet();
+                elapsedNanos.addAndGet(System.nanoTime() - startTime);
+                fileCount.addAndGet(transformContexts.size());
+            }
+            if (heapMonitor.onFilesTransformed(v8Runtime, transformContexts.size())) {
+                try {
+                    recycle();
+                } catch (Throwable t) {
+                    // The batch is visited, so the recycle failure only retires the worker.
+                    recycleException = t;
+                    logger.error("Runtime #{} is retired because it failed to be recycled. {}", index, t.getMessage());
+                }
+            }
+            return transformContexts;
+        }
+    }
+}
@@ -0,0 +1,301 @@
+/*
+ * Copyright (c) 2023-2025. caoccao.com Sam Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.caoccao.jaspiler.v8;
+
+import com.caoccao.jaspiler.exceptions.JaspilerCheckedException;
+import com.caoccao.jaspiler.exceptions.JaspilerExecutionException;
+import com.caoccao.javet.enums.JSRuntimeType;
+import com.caoccao.javet.exceptions.JavetException;
+import com.caoccao.javet.interception.logging.JavetStandardConsoleInterceptor;
+import com.caoccao.javet.interop.V8Host;
+import com.caoccao.javet.interop.V8Runtime;
+import com.caoccao.javet.values.reference.V8ValueFunction;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.MessageFormat;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The type V8 jaspiler runtime factory creates the runtimes the scripts are executed in.
+ * <p>
+ * The Node.js runtime supports the full Node.js API.
+ * The plain V8 runtime starts faster and uses less memory,
+ * so that more runtimes fit in a pooled process.
+ * It has the jaspiler helpers bundled in, a console writing to the standard output
+ * and a minimal require() which only resolves the helpers,
+ * so that the scripts which only require the helpers run in both runtimes without changes.
+ */
+public final class V8JaspilerRuntimeFactory {
+    /**
+     * The bundled helper library is copied from scripts/node/jaspiler/jaspiler.js at build time.
+     */
+    private static final String BUNDLED_SCRIPT_NAME = "jaspiler.js";
+    private static final Set<String> NODE_GLOBALS = Set.of(
+            "Buffer", "__dirname", "__filename", "process", "setImmediate", "setInterval", "setTimeout");
+    private static final Pattern PATTERN_NODE_GLOBAL = Pattern.compile("\\b([A-Za-z_$][\\w$]*)\\b");
+    private static final Pattern PATTERN_REQUIRE = Pattern.compile("\\brequire\\s*\\(\\s*(['\"`])([^'\"`]*)\\1\\s*\\)");
+    private static final Pattern PATTERN_REQUIRE_BUNDLED = Pattern.compile("(^|[\\\\/])jaspiler(\\.js)?$");
+    private static final Pattern PATTERN_REQUIRE_DYNAMIC = Pattern.compile("\\brequire\\s*\\(\\s*[^'\"`\\s]");
+    private static final Pattern PATTERN_STATIC_IMPORT = Pattern.compile("(^|[\\n;])\\s*(import|export)\\s", Pattern.MULTILINE);
+    private static final Set<String> REGEXP_KEYWORDS = Set.of(
+            "await", "case", "delete", "do", "else", "in", "instanceof", "new", "return", "throw", "typeof",
+            "void", "yield");
+    private static final String SCRIPT_INSTALL_BUNDLE = """
+            (source) => {
+              const vm = Object.freeze({
+                createContext: context => context,
+                isContext: context => context instanceof Object,
+                Script: class {
+                  constructor(code) { this.code = code; }
+                  runInContext(context) {
+                    return new Function('__jaspilerContext', '__jaspilerCode',
+                      'with (__jaspilerContext) { return eval(__jaspilerCode); }')(context, this.code);
+                  }
+                },
+              });
+              const helpers = { exports: {} };
+              new Function('module', 'exports', 'require', source)(helpers, helpers.exports, id => {
+                if (id === 'vm') {
+                  return vm;
+                }
+                throw new Error(`require('${id}') is not supported in the plain V8 mode.`);
+              });
+              globalThis.require = id => {
+                if (/(^|[\\\\/])jaspiler(\\.js)?$/.test(id)) {
+                  return helpers.exports;
+                }
+                throw new Error(`require('${id}') is not supported in the plain V8 mode.`);
+              };
+              globalThis.module = { exports: {} };
+              globalThis.exports = globalThis.module.exports;
+            }""";
+    private static String bundledScript = null;
+
+    private V8JaspilerRuntimeFactory() {
+    }
+
+    /**
+     * Create a runtime of the given type.
+     *
+     * @param jsRuntimeType the JS runtime type
+     * @return the runtime
+     * @throws JavetException           the javet exception
+     * @throws JaspilerCheckedException the jaspiler checked exception
+     */
+    public static V8Runtime create(JSRuntimeType jsRuntimeType) throws JavetException, JaspilerCheckedException {
+        return Objects.requireNonNull(jsRuntimeType).isNode()
+                ? V8Host.getNodeInstance().createV8Runtime()
+                : createV8Runtime();
+    }
+
+    /**
+     * Create a plain V8 runtime with the console and the jaspiler helpers bundled in.
+     *
+     * @return the V8 runtime
+     * @throws JavetException           the javet exception
+     * @throws JaspilerCheckedException the jaspiler checked exception
+     */
+    public static V8Runtime createV8Runtime() throws JavetException, JaspilerCheckedException {
+        String source = getBundledScript();
+        V8Runtime v8Runtime = V8Host.getV8Instance().createV8Runtime();
+        // The plain V8 runtime has no console output, so console is routed to the standard output.
+        // The console callbacks are released when the runtime is closed.
+        try (V8ValueFunction v8ValueFunction = v8Runtime.getExecutor(SCRIPT_INSTALL_BUNDLE).execute()) {
+            new JavetStandardConsoleInterceptor(v8Runtime).register(v8Runtime.getGlobalObject());
+            v8ValueFunction.callVoid(null, source);
+        } catch (Throwable t) {
+            v8Runtime.close();
+            throw t;
+        }
+        return v8Runtime;
+    }
+
+    /**
+     * Detect the runtime type the script requires.
+     * The plain V8 runtime is selected if the script doesn't use the ES modules, the Node.js globals
+     * or require() other than the jaspiler helpers.
+     * The detection is lexical and conservative: anything it cannot prove falls back to Node.js.
+     *
+     * @param scriptFile the script file
+     * @return the JS runtime type
+     * @throws IOException the io exception
+     */
+    public static JSRuntimeType detect(File scriptFile) throws IOException {
+        String code = stripComments(Files.readString(scriptFile.toPath(), StandardCharsets.UTF_8));
+        if (PATTERN_STATIC_IMPORT.matcher(code).find() || PATTERN_REQUIRE_DYNAMIC.matcher(code).find()) {
+            return JSRuntimeType.Node;
+        }
+        Matcher matcher = PATTERN_REQUIRE.matcher(code);
+        while (matcher.find()) {
+            if (!PATTERN_REQUIRE_BUNDLED.matcher(matcher.group(2)).find()) {
+                return JSRuntimeType.Node;
+            }
+        }
+        matcher = PATTERN_NODE_GLOBAL.matcher(code);
+        while (matcher.find()) {
+            if (NODE_GLOBALS.contains(matcher.group(1))) {
+                return JSRuntimeType.Node;
+            }
+        }
+        return JSRuntimeType.V8;
+    }
+
+    private static synchronized String getBundledScript() throws JaspilerCheckedException {
+        if (bundledScript == null) {
+            try (InputStream inputStream = V8JaspilerRuntimeFactory.class.getResourceAsStream(BUNDLED_SCRIPT_NAME)) {
+                if (inputStream == null) {
+                    throw new JaspilerExecutionException(
+                            MessageFormat.format("Bundled script [{0}] is not found.", BUNDLED_SCRIPT_NAME));
+                }
+                bundledScript = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new JaspilerExecutionException(e.getMessage(), e);
+            }
+        }
+        return bundledScript;
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
+    /**
+     * Is regular expression allowed after the code scanned so far.
+     * A slash starts a regular expression literal unless it follows an operand.
+     *
+     * @param sb the code scanned so far
+     * @return true : a regular expression literal, false : a division
+     */
+    private static boolean isRegExpAllowed(StringBuilder sb) {
+        int end = sb.length();
+        while (end > 0 && Character.isWhitespace(sb.charAt(end - 1))) {
+            --end;
+        }
+        if (end == 0) {
+            return true;
+        }
+        char c = sb.charAt(end - 1);
+        if (c == ')' || c == ']' || c == '\'' || c == '"' || c == '`') {
+            return false;
+        }
+        if (!isIdentifierPart(c)) {
+            return true;
+        }
+        int start = end;
+        while (start > 0 && isIdentifierPart(sb.charAt(start - 1))) {
+            --start;
+        }
+        return REGEXP_KEYWORDS.contains(sb.substring(start, end));
+    }
+
+    /**
+     * Scan the literal from the start index to the end of the literal.
+     * The template literal stops at the end or at the beginning of a substitution.
+     *
+     * @param code  the code
+     * @param start the index after the opening quote
+     * @param quote the quote
+     * @return the index after the literal
+     */
+    private static int scanLiteral(String code, int start, char quote) {
+        final int length = code.length();
+        boolean inClass = false;
+        int i = start;
+        while (i < length) {
+            char c = code.charAt(i++);
+            if (c == '\\') {
+                ++i;
+            } else if (quote == '`') {
+                if (c == '`' || (c == '$' && i < length && code.charAt(i) == '{')) {
+                    return c == '$' ? i + 1 : i;
+                }
+            } else if (quote == '/' && c == '[') {
+                inClass = true;
+            } else if (quote == '/' && c == ']') {
+                inClass = false;
+            } else if (c == quote && !inClass) {
+                return i;
+            } else if (c == '\n' && quote != '`') {
+                // An unterminated literal ends at the end of the line.
+                return i;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Strip the comments from the code.
+     * The string literals, the template literals and the regular expression literals are kept as they are,
+     * so that the comment markers inside them, e.g. 'src/*', are not mistaken for comments.
+     *
+     * @param code the code
+     * @return the code without comments
+     */
+    private static String stripComments(String code) {
+        final int length = code.length();
+        StringBuilder sb = new StringBuilder(length);
+        // The brace depths of the code outside the template literal substitutions being scanned.
+        Deque<Integer> braceDepths = new ArrayDeque<>();
+        int braceDepth = 0;
+        int i = 0;
+        while (i < length) {
+            char c = code.charAt(i);
+            char next = i + 1 < length ? code.charAt(i + 1) : 0;
+            int end = i + 1;
+            if (c == '/' && next == '/') {
+                end = code.indexOf('\n', i);
+                end = end < 0 ? length : end;
+                sb.append(' ');
+            } else if (c == '/' && next == '*') {
+                end = code.indexOf("*/", i + 2);
+                end = end < 0 ? length : end + 2;
+                sb.append(' ');
+            } else if (c == '\'' || c == '"' || (c == '/' && isRegExpAllowed(sb))) {
+                end = scanLiteral(code, i + 1, c);
+                sb.append(code, i, end);
+            } else if (c == '`' || (c == '}' && braceDepth == 0 && !braceDepths.isEmpty())) {
+                if (c == '}') {
+                    braceDepth = braceDepths.pop();
+                }
+                end = scanLiteral(code, i + 1, '`');
+                sb.append(code, i, end);
+                if (code.charAt(end - 1) == '{') {
+                    braceDepths.push(braceDepth);
+                    braceDepth = 0;
+                }
+            } else {
+                if (c == '{') {
+                    ++braceDepth;
+                } else if (c == '}') {
+                    --braceDepth;
+                }
+                sb.append(c);
+            }
+            i = end;
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2023-2025. caoccao.com Sam Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.caoccao.jaspiler.v8;
+
+import com.caoccao.jaspiler.exceptions.JaspilerArgumentException;
+import com.caoccao.jaspiler.exceptions.JaspilerCheckedException;
+import com.caoccao.jaspiler.trees.JTTree;
+import com.caoccao.javet.exceptions.JavetException;
+import com.caoccao.javet.interfaces.IJavetUniFunction;
+import com.caoccao.javet.interop.V8Runtime;
+import com.caoccao.javet.interop.proxy.IJavetDirectProxyHandler;
+import com.caoccao.javet.values.V8Value;
+import com.caoccao.javet.values.primitive.V8ValueString;
+import com.sun.source.tree.Tree;
+import com.sun.source.tree.TypeParameterTree;
+import com.sun.source.tree.VariableTree;
+
+import java.text.MessageFormat;
+import java.util.*;
+
+/**
+ * The type V8 jaspiler scope is exposed as context.scope while the transform scanner descends.
+ * A scope is opened by the compilation unit, the class, the method, the lambda expression, the block,
+ * the loops, the catch, the try and the switch, and it holds the bindings declared in it
+ * by the variables (including the parameters) and the type parameters.
+ * <p>
+ * The bindings are declared incrementally in the traversal order,
+ * so a scope only holds the bindings declared so far,
+ * and it holds all its bindings in the exit function of the node opening it.
+ * The lookup walks the parent scopes from the innermost one in O(depth).
+ */
+public final class V8JaspilerScope implements IJavetDirectProxyHandler<JaspilerCheckedException> {
+    /**
+     * The kinds of the trees declaring a binding in the current scope.
+     */
+    static final Set<Tree.Kind> BINDING_KINDS = Collections.unmodifiableSet(EnumSet.of(
+            Tree.Kind.TYPE_PARAMETER,
+            Tree.Kind.VARIABLE));
+    /**
+     * The kinds of the trees opening a scope.
+     */
+    static final Set<Tree.Kind> SCOPE_KINDS = Collections.unmodifiableSet(EnumSet.of(
+            Tree.Kind.ANNOTATION_TYPE,
+            Tree.Kind.BLOCK,
+            Tree.Kind.CATCH,
+            Tree.Kind.CLASS,
+            Tree.Kind.COMPILATION_UNIT,
+            Tree.Kind.ENHANCED_FOR_LOOP,
+            Tree.Kind.ENUM,
+            Tree.Kind.FOR_LOOP,
+            Tree.Kind.INTERFACE,
+            Tree.Kind.LAMBDA_EXPRESSION,
+            Tree.Kind.METHOD,
+            Tree.Kind.RECORD,
+            Tree.Kind.SWITCH,
+            Tree.Kind.SWITCH_EXPRESSION,
+            Tree.Kind.TRY));
+    private static final String FUNCTION_GET_BINDING = "getBinding";
+    private static final String FUNCTION_GET_OWN_BINDING = "getOwnBinding";
+    private static final String FUNCTION_HAS_BINDING = "hasBinding";
+    private static final String FUNCTION_HAS_OWN_BINDING = "hasOwnBinding";
+    private static final String PROPERTY_DEPTH = "depth";
+    private static final String PROPERTY_NAMES = "names";
+    private static final String PROPERTY_NODE = "node";
+    private static final String PROPERTY_PARENT = "parent";
+    private final Map<String, JTTree<?, ?>> bindings;
+    private final int depth;
+    private final JTTree<?, ?> node;
+    private final V8JaspilerScope parent;
+    private final V8Runtime v8Runtime;
+    private Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> stringGetterMap;
+
+    public V8JaspilerScope(V8Runtime v8Runtime, JTTree<?, ?> node, V8JaspilerScope parent) {
+        bindings = new LinkedHashMap<>();
+        depth = parent == null ? 0 : parent.depth + 1;
+        this.node = Objects.requireNonNull(node);
+        this.parent = parent;
+        stringGetterMap = null;
+        this.v8Runtime = Objects.requireNonNull(v8Runtime);
+    }
+
+    /**
+     * Gets the name of the binding declared by the tree.
+     *
+     * @param tree the tree
+     * @return the name, null if the tree doesn't declare a binding
+     */
+    static String getBindingName(Tree tree) {
+        if (tree instanceof VariableTree variableTree) {
+            return Objects.toString(variableTree.getName(), null);
+        }
+        if (tree instanceof TypeParameterTree typeParameterTree) {
+            return Objects.toString(typeParameterTree.getName(), null);
+        }
+        return null;
+    }
+
+    /**
+     * Declare the binding in the scope.
+     * The binding declared later with the same name in the same scope replaces the previous one.
+     *
+     * @param name the name
+     * @param tree the declaring tree
+     * @return the self
+     */
+    public V8JaspilerScope declare(String name, JTTree<?, ?> tree) {
+        if (name != null && !name.isEmpty()) {
+            bindings.put(name, tree);
+        }
+        return this;
+    }
+
+    /**
+     * Gets the binding by name from the scope or the nearest parent scope.
+     *
+     * @param name the name
+     * @return the declaring tree, null if not found
+     */
+    public JTTree<?, ?> getBinding(String name) {
+        for (V8JaspilerScope scope = this; scope != null; scope = scope.parent) {
+            JTTree<?, ?> tree = scope.bindings.get(name);
+            if (tree != null) {
+                return tree;
+            }
+        }
+        return null;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public List<String> getNames() {
+        return new ArrayList<>(bindings.keySet());
+    }
+
+    public JTTree<?, ?> getNode() {
+        return node;
+    }
+
+    public JTTree<?, ?> getOwnBinding(String name) {
+        return bindings.get(name);
+    }
+
+    public V8JaspilerScope getParent() {
+        return parent;
+    }
+
+    @Override
+    public V8Runtime getV8Runtime() {
+        return v8Runtime;
+    }
+
+    @Override
+    public Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> proxyGetStringGetterMap() {
+        if (stringGetterMap == null) {
+            stringGetterMap = new HashMap<>();
+            registerStringGetterFunction(FUNCTION_GET_BINDING, v8Values ->
+                    toV8Value(getBinding(validateName(FUNCTION_GET_BINDING, v8Values))));
+            registerStringGetterFunction(FUNCTION_GET_OWN_BINDING, v8Values ->
+                    toV8Value(getOwnBinding(validateName(FUNCTION_GET_OWN_BINDING, v8Values))));
+            registerStringGetterFunction(FUNCTION_HAS_BINDING, v8Values ->
+                    v8Runtime.createV8ValueBoolean(getBinding(validateName(FUNCTION_HAS_BINDING, v8Values)) != null));
+            registerStringGetterFunction(FUNCTION_HAS_OWN_BINDING, v8Values ->
+                    v8Runtime.createV8ValueBoolean(getOwnBinding(validateName(FUNCTION_HAS_OWN_BINDING, v8Values)) != null));
+            registerStringGetter(PROPERTY_DEPTH, propertyName -> v8Runtime.createV8ValueInteger(getDepth()));
+            registerStringGetter(PROPERTY_NAMES, propertyName -> v8Runtime.toV8Value(getNames()));
+            registerStringGetter(PROPERTY_NODE, propertyName -> v8Runtime.toV8Value(getNode()));
+            registerStringGetter(PROPERTY_PARENT, propertyName -> toV8Value(getParent()));
+        }
+        return stringGetterMap;
+    }
+
+    private V8Value toV8Value(Object object) throws JavetException {
+        return object == null ? v8Runtime.createV8ValueNull() : v8Runtime.toV8Value(object);
+    }
+
+    private String validateName(String functionName, V8Value... v8Values) throws JaspilerArgumentException {
+        if (v8Values == null || v8Values.length < 1) {
+            throw new JaspilerArgumentException(
+                    MessageFormat.format("Argument count mismatches in {0}.", functionName));
+        }
+        if (!(v8Values[0] instanceof V8ValueString v8ValueString)) {
+            throw new JaspilerArgumentException(
+                    MessageFormat.format("Argument type mismatches in {0}. String is expected.", functionName));
+        }
+        return v8ValueString.getValue();
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2023-2025. caoccao.com Sam Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.caoccao.jaspiler.v8;
+
+import com.caoccao.javet.exceptions.JavetException;
+import com.caoccao.javet.interop.NodeRuntime;
+import com.caoccao.javet.interop.V8Host;
+import com.caoccao.javet.interop.options.NodeRuntimeOptions;
+import com.caoccao.javet.values.reference.V8ValueFunction;
+
+import java.io.File;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The type V8 jaspiler snapshot.
+ * A snapshot captures the heap after the helper library and the plugin modules are evaluated,
+ * so that a restored runtime can require them without evaluating them again.
+ * The modules must not touch the global jaspiler object at the top level,
+ * because it is only bound after the snapshot is restored.
+ */
+public final class V8JaspilerSnapshot {
+    private static final String SCRIPT_REQUIRE_MODULE = """
+            (filename) => {
+              require(filename);
+              const modules = globalThis.__jaspilerSnapshotModules || {};
+              Object.entries(require.cache).forEach(([key, value]) => { modules[key] = value.exports; });
+              globalThis.__jaspilerSnapshotModules = modules;
+            }""";
+    private static final String SCRIPT_RESTORE_MODULES = """
+            (() => {
+              const Module = require('module');
+              const path = require('path');
+              const modules = globalThis.__jaspilerSnapshotModules || {};
+              Object.entries(modules).forEach(([filename, exports]) => {
+                if (!(filename in require.cache)) {
+                  const module = new Module(filename, null);
+                  module.exports = exports;
+                  module.filename = filename;
+                  module.loaded = true;
+                  module.paths = Module._nodeModulePaths(path.dirname(filename));
+                  require.cache[filename] = module;
+                }
+              });
+              return Object.keys(modules).length;
+            })()""";
+
+    private V8JaspilerSnapshot() {
+    }
+
+    /**
+     * Create a snapshot with the given module files evaluated in order.
+     * The module files and the modules they require are registered to the snapshot.
+     *
+     * @param moduleFiles the module files
+     * @return the snapshot blob
+     * @throws JavetException the javet exception
+     */
+    public static byte[] create(List<File> moduleFiles) throws JavetException {
+        Objects.requireNonNull(moduleFiles);
+        var nodeRuntimeOptions = new NodeRuntimeOptions().setCreateSnapshotEnabled(true);
+        try (NodeRuntime nodeRuntime = V8Host.getNodeInstance().createV8Runtime(nodeRuntimeOptions)) {
+            try (V8ValueFunction v8ValueFunction = nodeRuntime.getExecutor(SCRIPT_REQUIRE_MODULE).execute()) {
+                for (File moduleFile : moduleFiles) {
+                    v8ValueFunction.callVoid(null, moduleFile.getAbsolutePath());
+                }
+            }
+            nodeRuntime.await();
+            return nodeRuntime.createSnapshot();
+        }
+    }
+
+    /**
+     * Create a Node.js runtime restored from the snapshot.
+     * The modules registered to the snapshot are put back to the require cache,
+     * so that requiring them returns the initialized exports.
+     *
+     * @param snapshotBlob the snapshot blob
+     * @return the Node.js runtime
+     * @throws JavetException the javet exception
+     */
+    public static NodeRuntime createNodeRuntime(byte[] snapshotBlob) throws JavetException {
+        var nodeRuntimeOptions = new NodeRuntimeOptions().setSnapshotBlob(Objects.requireNonNull(snapshotBlob));
+        NodeRuntime nodeRuntime = V8Host.getNodeInstance().createV8Runtime(nodeRuntimeOptions);
+        try {
+            nodeRuntime.getExecutor(SCRIPT_RESTORE_MODULES).executeInteger();
+        } catch (JavetException e) {
+            nodeRuntime.close();
+            throw e;
+        }
+        return nodeRuntime;
+    }
+}
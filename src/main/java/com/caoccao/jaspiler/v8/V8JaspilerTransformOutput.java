@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2023-2025. caoccao.com Sam Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.caoccao.jaspiler.v8;
+
+import com.caoccao.jaspiler.styles.SourceMap;
+import com.caoccao.jaspiler.trees.JTBinaryAst;
+import com.caoccao.jaspiler.trees.JTCompilationUnit;
+import com.caoccao.jaspiler.utils.TextDiffUtils;
+import com.caoccao.jaspiler.utils.TextEdit;
+import com.caoccao.javet.enums.V8ValueReferenceType;
+import com.caoccao.javet.exceptions.JavetException;
+import com.caoccao.javet.interop.V8Runtime;
+import com.caoccao.javet.interop.V8Scope;
+import com.caoccao.javet.values.reference.V8ValueArray;
+import com.caoccao.javet.values.reference.V8ValueObject;
+import com.caoccao.javet.values.reference.V8ValueTypedArray;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The type V8 jaspiler transform output holds the outputs of a transformed compilation unit.
+ * The outputs are produced without V8 so that they can be produced in any thread,
+ * and are converted to the result object in the thread of the V8 runtime.
+ */
+public final class V8JaspilerTransformOutput {
+    private static final String PROPERTY_AST = "ast";
+    private static final String PROPERTY_BINARY_AST = "binaryAst";
+    private static final String PROPERTY_CODE = "code";
+    private static final String PROPERTY_DIFF = "diff";
+    private static final String PROPERTY_EDITS = "edits";
+    private static final String PROPERTY_END = "end";
+    private static final String PROPERTY_NODES = "nodes";
+    private static final String PROPERTY_REPLACEMENT = "replacement";
+    private static final String PROPERTY_SOURCE_MAP = "sourceMap";
+    private static final String PROPERTY_START = "start";
+    private static final String PROPERTY_STRING_DATA = "stringData";
+    private static final String PROPERTY_STRING_OFFSETS = "stringOffsets";
+    private final boolean ast;
+    private final JTBinaryAst binaryAst;
+    private final String code;
+    private final JTCompilationUnit compilationUnit;
+    private final String diff;
+    private final List<TextEdit> edits;
+    private final int[] sourceMap;
+
+    private V8JaspilerTransformOutput(
+            JTCompilationUnit compilationUnit,
+            boolean ast,
+            JTBinaryAst binaryAst,
+            String code,
+            int[] sourceMap,
+            String diff,
+            List<TextEdit> edits) {
+        this.ast = ast;
+        this.binaryAst = binaryAst;
+        this.code = code;
+        this.compilationUnit = compilationUnit;
+        this.diff = diff;
+        this.edits = edits;
+        this.sourceMap = sourceMap;
+    }
+
+    /**
+     * Produce the outputs of the compilation unit requested by the options.
+     *
+     * @param v8JaspilerOptions the V8 jaspiler options
+     * @param compilationUnit   the compilation unit
+     * @return the transform output
+     */
+    public static V8JaspilerTransformOutput create(
+            V8JaspilerOptions v8JaspilerOptions,
+            JTCompilationUnit compilationUnit) {
+        Objects.requireNonNull(compilationUnit);
+        JTBinaryAst binaryAst = v8JaspilerOptions.isBinaryAst() ? JTBinaryAst.encode(compilationUnit) : null;
+        String code = null;
+        int[] sourceMap = null;
+        String diff = null;
+        List<TextEdit> edits = null;
+        // The edits and the diff are only produced for the changed compilation units.
+        boolean patch = (v8JaspilerOptions.isDiff() || v8JaspilerOptions.isEdits())
+                && compilationUnit.isActionChange();
+        if (v8JaspilerOptions.isCode() || patch) {
+            var styleOptions = v8JaspilerOptions.getStyleOptions();
+            var writer = styleOptions.getType().createStyleWriter(styleOptions);
+            if (v8JaspilerOptions.isSourceMap()) {
+                writer.setSourceMap(new SourceMap());
+            }
+            if (compilationUnit.serialize(writer)) {
+                String serializedCode = writer.toString();
+                if (v8JaspilerOptions.isCode()) {
+                    code = serializedCode;
+                    if (writer.getSourceMap() != null) {
+                        sourceMap = writer.getSourceMap().toArray();
+                    }
+                }
+                if (patch) {
+                    String originalCode = compilationUnit.getOriginalCode();
+                    var textEdits = TextDiffUtils.computeEdits(originalCode, serializedCode);
+                    if (!textEdits.isEmpty()) {
+                        if (v8JaspilerOptions.isDiff()) {
+                            String fileName = compilationUnit.getSourceFile().getName();
+                            diff = TextDiffUtils.toUnifiedDiff(fileName, originalCode, serializedCode);
+                        }
+                        if (v8JaspilerOptions.isEdits()) {
+                            edits = textEdits;
+                        }
+                    }
+                }
+            }
+        }
+        return new V8JaspilerTransformOutput(
+                compilationUnit, v8JaspilerOptions.isAst(), binaryAst, code, sourceMap, diff, edits);
+    }
+
+    public JTBinaryAst getBinaryAst() {
+        return binaryAst;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public JTCompilationUnit getCompilationUnit() {
+        return compilationUnit;
+    }
+
+    public String getDiff() {
+        return diff;
+    }
+
+    public List<TextEdit> getEdits() {
+        return edits;
+    }
+
+    public int[] getSourceMap() {
+        return sourceMap;
+    }
+
+    /**
+     * Convert the outputs to the result object.
+     * It has to be called in the thread of the V8 runtime.
+     *
+     * @param v8Runtime the V8 runtime
+     * @return the result object
+     * @throws JavetException the javet exception
+     */
+    public V8ValueObject toV8Value(V8Runtime v8Runtime) throws JavetException {
+        try (V8Scope v8Scope = v8Runtime.getV8Scope()) {
+            var v8ValueObjectResult = v8Scope.createV8ValueObject();
+            if (ast) {
+                v8ValueObjectResult.set(PROPERTY_AST, compilationUnit);
+            }
+            if (binaryAst != null) {
+                var v8ValueObjectBinaryAst = v8Scope.createV8ValueObject();
+                try (V8ValueTypedArray v8ValueTypedArrayNodes = v8Runtime.createV8ValueTypedArray(
+                        V8ValueReferenceType.Int32Array, binaryAst.getNodes().length);
+                     V8ValueTypedArray v8ValueTypedArrayStringOffsets = v8Runtime.createV8ValueTypedArray(
+                             V8ValueReferenceType.Int32Array, binaryAst.getStringOffsets().length)) {
+                    v8ValueTypedArrayNodes.fromIntegers(binaryAst.getNodes());
+                    v8ValueTypedArrayStringOffsets.fromIntegers(binaryAst.getStringOffsets());
+                    v8ValueObjectBinaryAst.set(
+                            PROPERTY_NODES, v8ValueTypedArrayNodes,
+                            PROPERTY_STRING_DATA, binaryAst.getStringData(),
+                            PROPERTY_STRING_OFFSETS, v8ValueTypedArrayStringOffsets);
+                }
+                v8ValueObjectResult.set(PROPERTY_BINARY_AST, v8ValueObjectBinaryAst);
+            }
+            if (code != null) {
+                v8ValueObjectResult.set(PROPERTY_CODE, code);
+            }
+            if (sourceMap != null) {
+                try (V8ValueTypedArray v8ValueTypedArray = v8Runtime.createV8ValueTypedArray(
+                        V8ValueReferenceType.Int32Array, sourceMap.length)) {
+                    v8ValueTypedArray.fromIntegers(sourceMap);
+                    v8ValueObjectResult.set(PROPERTY_SOURCE_MAP, v8ValueTypedArray);
+                }
+            }
+            if (diff != null) {
+                v8ValueObjectResult.set(PROPERTY_DIFF, diff);
+            }
+            if (edits != null) {
+                V8ValueArray v8ValueArrayEdits = v8Scope.createV8ValueArray();
+                for (var textEdit : edits) {
+                    try (V8ValueObject v8ValueObjectEdit = v8Runtime.createV8ValueObject()) {
+                        v8ValueObjectEdit.set(
+                                PROPERTY_START, textEdit.startPosition(),
+                                PROPERTY_END, textEdit.endPosition(),
+                                PROPERTY_REPLACEMENT, textEdit.replacement());
+                        v8ValueArrayEdits.push(v8ValueObjectEdit);
+                    }
+                }
+                v8ValueObjectResult.set(PROPERTY_EDITS, v8ValueArrayEdits);
+            }
+            v8Scope.setEscapable();
+            return v8ValueObjectResult;
+        }
+    }
+}
@@ -17,135 +17,411 @@
 package com.caoccao.jaspiler.v8;
 
 import com.caoccao.jaspiler.contexts.JaspilerTransformContext;
+import com.caoccao.jaspiler.trees.JTTree;
+import com.caoccao.jaspiler.trees.JTTreeList;
 import com.caoccao.jaspiler.visiters.BaseJaspilerTransformScanner;
 import com.caoccao.javet.exceptions.BaseJavetScriptingException;
+import com.caoccao.javet.exceptions.JavetException;
+import com.caoccao.javet.interop.V8Runtime;
+import com.caoccao.javet.values.V8Value;
+import com.caoccao.javet.values.primitive.V8ValueBoolean;
 import com.caoccao.javet.values.reference.V8ValueFunction;
+import com.caoccao.javet.values.reference.V8ValueObject;
 import com.sun.source.tree.*;
-import org.apache.commons.collections4.CollectionUtils;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 import java.util.Objects;
-import java.util.function.Function;
 
 @SuppressWarnings("preview")
 public class V8JaspilerTransformScanner
         extends BaseJaspilerTransformScanner<V8JaspilerTransformScanner>
         implements AutoCloseable {
+    protected static final String PROPERTY_SCOPE = "scope";
+    protected final List<List<Tree>> batchNodes;
     protected final List<Throwable> exceptions;
+    protected final List<V8JaspilerOptions.VisitorMethod> exitVisitorMethods;
+    protected final Deque<ListFrame> listFrames;
     protected V8JaspilerOptions options;
+    protected V8JaspilerScope scope;
+    protected boolean scopeChanged;
 
     public V8JaspilerTransformScanner(V8JaspilerOptions options) {
+        batchNodes = new ArrayList<>();
+        for (int i = 0; i < V8JaspilerOptions.VisitorMethod.values().length; i++) {
+            batchNodes.add(new ArrayList<>());
+        }
         exceptions = new ArrayList<>();
+        exitVisitorMethods = new ArrayList<>();
+        listFrames = new ArrayDeque<>();
         this.options = Objects.requireNonNull(options);
+        scope = null;
+        // The context may hold the scope of the previous transform.
+        scopeChanged = true;
+    }
+
+    /**
+     * Call the function with the argument and the context.
+     *
+     * @param v8ValueFunction the V8 value function
+     * @param argument        the argument
+     * @return true : proceed, false : the function returns false
+     */
+    protected boolean call(V8ValueFunction v8ValueFunction, Object argument) {
+        return call(v8ValueFunction, argument, null);
+    }
+
+    /**
+     * Call the function with the argument, the context and the path.
+     *
+     * @param v8ValueFunction the V8 value function
+     * @param argument        the argument
+     * @param v8ValuePath     the V8 value path, null if the path is not subscribed
+     * @return true : proceed, false : the function returns false
+     */
+    protected boolean call(V8ValueFunction v8ValueFunction, Object argument, V8Value v8ValuePath) {
+        try {
+            // The scope is reset to null after the compilation unit exits.
+            if (scopeChanged && options.isScope() && options.getContext() != null) {
+                updateScope();
+            }
+        } catch (Throwable t) {
+            getExceptions().add(t);
+            logger.warn(t.getMessage(), t);
+        }
+        try (V8Value v8ValueResult = v8ValuePath == null
+                ? v8ValueFunction.call(null, argument, options.getContext())
+                : v8ValueFunction.call(null, argument, options.getContext(), v8ValuePath)) {
+            return !(v8ValueResult instanceof V8ValueBoolean v8ValueBoolean && !v8ValueBoolean.getValue());
+        } catch (Throwable t) {
+            getExceptions().add(t);
+            if (t instanceof BaseJavetScriptingException baseJavetScriptingException) {
+                logger.warn(baseJavetScriptingException.getScriptingError().toString(), t);
+            } else {
+                logger.warn(t.getMessage(), t);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Call the functions with the node in the plugin order.
+     * The path of the node is created once and shared by the functions if the path is subscribed.
+     *
+     * @param <Node>           the type parameter
+     * @param v8ValueFunctions the V8 value functions
+     * @param node             the node
+     * @param visitorMethod    the visitor method
+     * @return true : proceed, false : at least one function returns false or the node is removed or replaced
+     */
+    protected <Node extends Tree> boolean callAll(
+            V8ValueFunction[] v8ValueFunctions,
+            Node node,
+            V8JaspilerOptions.VisitorMethod visitorMethod) {
+        boolean proceed = true;
+        if (v8ValueFunctions.length > 0 && node instanceof JTTree<?, ?> tree && options.isPathSubscribed(visitorMethod)) {
+            var path = new V8JaspilerPath(v8ValueFunctions[0].getV8Runtime(), tree, getListFrame(tree));
+            try (V8Value v8ValuePath = v8ValueFunctions[0].getV8Runtime().toV8Value(path)) {
+                for (V8ValueFunction v8ValueFunction : v8ValueFunctions) {
+                    if (!call(v8ValueFunction, node, v8ValuePath)) {
+                        proceed = false;
+                    }
+                }
+            } catch (Throwable t) {
+                getExceptions().add(t);
+                logger.warn(t.getMessage(), t);
+            }
+            // The children of the removed or replaced node are not visited.
+            return proceed && !path.isDetached();
+        }
+        for (V8ValueFunction v8ValueFunction : v8ValueFunctions) {
+            if (!call(v8ValueFunction, node)) {
+                proceed = false;
+            }
+        }
+        return proceed;
     }
 
     @Override
     public void close() {
+        batchNodes.forEach(List::clear);
         exceptions.clear();
+        exitVisitorMethods.clear();
+        listFrames.clear();
+        scope = null;
+    }
+
+    /**
+     * Enter the scope of the tree.
+     * The tree declaring a binding declares it in the current scope
+     * and the tree opening a scope pushes a new scope as the current scope.
+     *
+     * @param tree the tree
+     */
+    protected void enterScope(Tree tree) {
+        if (tree instanceof JTTree<?, ?> jtTree) {
+            Tree.Kind kind = tree.getKind();
+            if (V8JaspilerScope.BINDING_KINDS.contains(kind)) {
+                if (scope != null) {
+                    scope.declare(V8JaspilerScope.getBindingName(tree), jtTree);
+                }
+            } else if (V8JaspilerScope.SCOPE_KINDS.contains(kind)) {
+                scope = new V8JaspilerScope(options.getContext().getV8Runtime(), jtTree, scope);
+                scopeChanged = true;
+            }
+        }
     }
 
-    protected <Node extends Tree> void forEachPlugin(
+    /**
+     * Dispatch the collected nodes to the batch plugins.
+     * <p>
+     * Ordering semantics:
+     * 1. The visitor methods are dispatched in the declaration order of the visitor methods.
+     * 2. The functions of the same visitor method are called in the plugin order.
+     * 3. The nodes in each array are in the traversal order.
+     * 4. All the nodes are collected before the first batch function is called,
+     * so the mutations made by a batch function don't change what the following batch functions receive,
+     * e.g. a replaced node is still delivered and a new node is not delivered.
+     * 5. The return values are ignored because the traversal is over.
+     */
+    protected void dispatchBatches() {
+        for (var visitorMethod : V8JaspilerOptions.VisitorMethod.values()) {
+            List<Tree> nodes = batchNodes.get(visitorMethod.ordinal());
+            if (!nodes.isEmpty()) {
+                V8ValueFunction[] v8ValueFunctions = options.getBatchFunctions(visitorMethod);
+                try (V8Value v8ValueNodes = v8ValueFunctions[0].getV8Runtime().toV8Value(nodes)) {
+                    for (V8ValueFunction v8ValueFunction : v8ValueFunctions) {
+                        call(v8ValueFunction, v8ValueNodes);
+                    }
+                } catch (Throwable t) {
+                    getExceptions().add(t);
+                    logger.warn(t.getMessage(), t);
+                } finally {
+                    nodes.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Call the functions of the visitor method in all plugins.
+     * The functions are looked up from the dispatch table built at the deserialization.
+     * The visitor method no plugin subscribes to returns without looking up the functions.
+     * The node is collected for the batch plugins.
+     *
+     * @param <Node>        the type parameter
+     * @param node          the node
+     * @param visitorMethod the visitor method
+     * @return true : proceed, false : at least one function returns false
+     */
+    protected <Node extends Tree> boolean forEachPlugin(
             Node node,
-            Function<V8JaspilerOptions.Plugin, V8ValueFunction> functionGetter) {
-        if (CollectionUtils.isNotEmpty(options.getPlugins())) {
-            options.getPlugins().stream()
-                    .map(functionGetter)
-                    .filter(Objects::nonNull)
-                    .forEach(v8ValueFunction -> {
-                        try {
-                            v8ValueFunction.call(null, node, options.getContext());
-                        } catch (Throwable t) {
-                            getExceptions().add(t);
-                            if (t instanceof BaseJavetScriptingException baseJavetScriptingException) {
-                                logger.warn(baseJavetScriptingException.getScriptingError().toString(), t);
-                            } else {
-                                logger.warn(t.getMessage(), t);
-                            }
-                        }
-                    });
+            V8JaspilerOptions.VisitorMethod visitorMethod) {
+        if (!options.isSubscribed(visitorMethod)) {
+            return true;
+        }
+        if (node != null && options.getBatchFunctions(visitorMethod).length > 0) {
+            batchNodes.get(visitorMethod.ordinal()).add(node);
         }
+        return callAll(options.getFunctions(visitorMethod), node, visitorMethod);
+    }
+
+    /**
+     * Call the exit functions of the visitor method in all plugins.
+     * The return values are ignored because the children have been visited.
+     *
+     * @param <Node>        the type parameter
+     * @param node          the node
+     * @param visitorMethod the visitor method
+     */
+    protected <Node extends Tree> void forEachPluginExit(
+            Node node,
+            V8JaspilerOptions.VisitorMethod visitorMethod) {
+        callAll(options.getExitFunctions(visitorMethod), node, visitorMethod);
     }
 
     public List<Throwable> getExceptions() {
         return exceptions;
     }
 
+    /**
+     * Gets the list frame if the tree is the element being scanned in the innermost list.
+     *
+     * @param tree the tree
+     * @return the list frame, null if the tree is not in a list being scanned
+     */
+    protected ListFrame getListFrame(JTTree<?, ?> tree) {
+        ListFrame listFrame = listFrames.peek();
+        if (listFrame != null
+                && listFrame.index >= 0
+                && listFrame.index < listFrame.list.size()
+                && listFrame.list.get(listFrame.index) == tree) {
+            return listFrame;
+        }
+        return null;
+    }
+
+    @Override
+    public V8JaspilerTransformScanner scan(Iterable<? extends Tree> nodes, JaspilerTransformContext jaspilerTransformContext) {
+        if (!options.isPathSubscribed()
+                || !(nodes instanceof List<? extends Tree> list)
+                || getCurrentPath() == null
+                || !(getCurrentPath().getLeaf() instanceof JTTree<?, ?> owner)) {
+            return super.scan(nodes, jaspilerTransformContext);
+        }
+        // The list is scanned by index so that the paths can edit the list in place while it is being scanned.
+        var listFrame = new ListFrame(owner, list);
+        listFrames.push(listFrame);
+        try {
+            V8JaspilerTransformScanner scanner = null;
+            for (listFrame.index = 0; listFrame.index < list.size(); ++listFrame.index) {
+                scanner = scan(list.get(listFrame.index), jaspilerTransformContext);
+            }
+            return scanner;
+        } finally {
+            listFrames.pop();
+        }
+    }
+
     @Override
     public V8JaspilerTransformScanner scan(Tree tree, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(tree, plugin -> plugin.getVisitor().getScan());
-        return super.scan(tree, jaspilerTransformContext);
+        if (isSkippingChildren()) {
+            return null;
+        }
+        V8JaspilerTransformScanner scanner;
+        if (!options.isScope() || options.getContext() == null) {
+            scanner = scanTree(tree, jaspilerTransformContext);
+        } else {
+            final V8JaspilerScope parentScope = scope;
+            enterScope(tree);
+            try {
+                scanner = scanTree(tree, jaspilerTransformContext);
+            } finally {
+                if (scope != parentScope) {
+                    scope = parentScope;
+                    scopeChanged = true;
+                }
+            }
+        }
+        if (tree instanceof CompilationUnitTree) {
+            // The compilation unit is the root so that the traversal is over.
+            // The batches are dispatched after the exit functions and the scope of the compilation unit.
+            dispatchBatches();
+        }
+        return scanner;
+    }
+
+    /**
+     * Scan the tree with the plugins.
+     *
+     * @param tree                     the tree
+     * @param jaspilerTransformContext the jaspiler transform context
+     * @return the scanner
+     */
+    protected V8JaspilerTransformScanner scanTree(Tree tree, JaspilerTransformContext jaspilerTransformContext) {
+        // The node is skipped with its children if any scan function returns false.
+        if (!forEachPlugin(tree, V8JaspilerOptions.VisitorMethod.Scan)) {
+            return null;
+        }
+        if (!options.isExitSubscribed()) {
+            return super.scan(tree, jaspilerTransformContext);
+        }
+        // The visitor method of the node is pushed by visitPlugins() unless the children are skipped.
+        final int depth = exitVisitorMethods.size();
+        var scanner = super.scan(tree, jaspilerTransformContext);
+        if (exitVisitorMethods.size() > depth) {
+            forEachPluginExit(tree, exitVisitorMethods.remove(depth));
+            forEachPluginExit(tree, V8JaspilerOptions.VisitorMethod.Scan);
+        }
+        return scanner;
+    }
+
+    /**
+     * Update context.scope to the current scope.
+     * It is called lazily before a function is called so that the scope changes between the calls cost nothing.
+     *
+     * @throws JavetException the javet exception
+     */
+    protected void updateScope() throws JavetException {
+        V8ValueObject context = options.getContext();
+        V8Runtime v8Runtime = context.getV8Runtime();
+        try (V8Value v8ValueScope = v8Runtime.toV8Value(scope)) {
+            context.set(PROPERTY_SCOPE, v8ValueScope);
+        }
+        scopeChanged = false;
     }
 
     @Override
     public V8JaspilerTransformScanner visitAnnotatedType(AnnotatedTypeTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitAnnotatedType());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.AnnotatedType);
         return super.visitAnnotatedType(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitAnnotation(AnnotationTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitAnnotation());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.Annotation);
         return super.visitAnnotation(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitArrayAccess(ArrayAccessTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitArrayAccess());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.ArrayAccess);
         return super.visitArrayAccess(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitArrayType(ArrayTypeTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitArrayType());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.ArrayType);
         return super.visitArrayType(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitAssert(AssertTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitAssert());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.Assert);
         return super.visitAssert(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitAssignment(AssignmentTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitAssignment());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.Assignment);
         return super.visitAssignment(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitBinary(BinaryTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitBinary());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.Binary);
         return super.visitBinary(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitBindingPattern(BindingPatternTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitBindingPattern());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.BindingPattern);
         return super.visitBindingPattern(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitBlock(BlockTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitBlock());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.Block);
         return super.visitBlock(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitBreak(BreakTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitBreak());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.Break);
         return super.visitBreak(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitCase(CaseTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitCase());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.Case);
         return super.visitCase(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitCatch(CatchTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitCatch());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.Catch);
         return super.visitCatch(node, jaspilerTransformContext);
     }
 
@@ -153,7 +429,7 @@ public class V8JaspilerTransformScanner
     public V8JaspilerTransformScanner visitClass(
             ClassTree node,
             JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitClass());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.Class);
         return super.visitClass(node, jaspilerTransformContext);
     }
 
@@ -161,79 +437,79 @@ public class V8JaspilerTransformScanner
     public V8JaspilerTransformScanner visitCompilationUnit(
             CompilationUnitTree node,
             JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitCompilationUnit());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.CompilationUnit);
         return super.visitCompilationUnit(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitCompoundAssignment(CompoundAssignmentTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitCompoundAssignment());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.CompoundAssignment);
         return super.visitCompoundAssignment(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitConditionalExpression(ConditionalExpressionTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitConditionalExpression());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.ConditionalExpression);
         return super.visitConditionalExpression(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitContinue(ContinueTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitContinue());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.Continue);
         return super.visitContinue(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitDefaultCaseLabel(DefaultCaseLabelTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitDefaultCaseLabel());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.DefaultCaseLabel);
         return super.visitDefaultCaseLabel(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitDoWhileLoop(DoWhileLoopTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitDoWhileLoop());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.DoWhileLoop);
         return super.visitDoWhileLoop(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitEmptyStatement(EmptyStatementTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitEmptyStatement());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.EmptyStatement);
         return super.visitEmptyStatement(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitEnhancedForLoop(EnhancedForLoopTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitEnhancedForLoop());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.EnhancedForLoop);
         return super.visitEnhancedForLoop(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitErroneous(ErroneousTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitErroneous());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.Erroneous);
         return super.visitErroneous(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitExports(ExportsTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitExports());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.Exports);
         return super.visitExports(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitExpressionStatement(ExpressionStatementTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitExpressionStatement());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.ExpressionStatement);
         return super.visitExpressionStatement(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitForLoop(ForLoopTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitForLoop());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.ForLoop);
         return super.visitForLoop(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitGuardedPattern(GuardedPatternTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitGuardedPattern());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.GuardedPattern);
         return super.visitGuardedPattern(node, jaspilerTransformContext);
     }
 
@@ -241,241 +517,278 @@ public class V8JaspilerTransformScanner
     public V8JaspilerTransformScanner visitIdentifier(
             IdentifierTree node,
             JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitIdentifier());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.Identifier);
         return super.visitIdentifier(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitIf(IfTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitIf());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.If);
         return super.visitIf(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitImport(ImportTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitImport());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.Import);
         return super.visitImport(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitInstanceOf(InstanceOfTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitInstanceOf());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.InstanceOf);
         return super.visitInstanceOf(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitIntersectionType(IntersectionTypeTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitIntersectionType());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.IntersectionType);
         return super.visitIntersectionType(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitLabeledStatement(LabeledStatementTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitLabeledStatement());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.LabeledStatement);
         return super.visitLabeledStatement(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitLambdaExpression(LambdaExpressionTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitLambdaExpression());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.LambdaExpression);
         return super.visitLambdaExpression(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitLiteral(LiteralTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitLiteral());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.Literal);
         return super.visitLiteral(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitMemberReference(MemberReferenceTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitMemberReference());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.MemberReference);
         return super.visitMemberReference(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitMemberSelect(MemberSelectTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitMemberSelect());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.MemberSelect);
         return super.visitMemberSelect(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitMethod(MethodTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitMethod());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.Method);
         return super.visitMethod(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitMethodInvocation(MethodInvocationTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitMethodInvocation());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.MethodInvocation);
         return super.visitMethodInvocation(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitModifiers(ModifiersTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitModifiers());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.Modifiers);
         return super.visitModifiers(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitModule(ModuleTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitModule());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.Module);
         return super.visitModule(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitNewArray(NewArrayTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitNewArray());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.NewArray);
         return super.visitNewArray(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitNewClass(NewClassTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitNewClass());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.NewClass);
         return super.visitNewClass(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitOpens(OpensTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitOpens());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.Opens);
         return super.visitOpens(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitOther(Tree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitOther());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.Other);
         return super.visitOther(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitPackage(PackageTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitPackage());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.Package);
         return super.visitPackage(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitParameterizedType(ParameterizedTypeTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitParameterizedType());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.ParameterizedType);
         return super.visitParameterizedType(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitParenthesized(ParenthesizedTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitParenthesized());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.Parenthesized);
         return super.visitParenthesized(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitParenthesizedPattern(ParenthesizedPatternTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitParenthesizedPattern());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.ParenthesizedPattern);
         return super.visitParenthesizedPattern(node, jaspilerTransformContext);
     }
 
+    /**
+     * Call the functions of the visitor method in all plugins
+     * and skip the children of the node if any function returns false.
+     * The exit functions are not called for the node if its children are skipped.
+     *
+     * @param <Node>        the type parameter
+     * @param node          the node
+     * @param visitorMethod the visitor method
+     */
+    protected <Node extends Tree> void visitPlugins(
+            Node node,
+            V8JaspilerOptions.VisitorMethod visitorMethod) {
+        if (!forEachPlugin(node, visitorMethod)) {
+            skip();
+        } else if (options.isExitSubscribed()) {
+            exitVisitorMethods.add(visitorMethod);
+        }
+    }
+
     @Override
     public V8JaspilerTransformScanner visitPrimitiveType(PrimitiveTypeTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitPrimitiveType());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.PrimitiveType);
         return super.visitPrimitiveType(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitProvides(ProvidesTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitProvides());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.Provides);
         return super.visitProvides(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitRequires(RequiresTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitRequires());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.Requires);
         return super.visitRequires(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitReturn(ReturnTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitReturn());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.Return);
         return super.visitReturn(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitSwitch(SwitchTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitSwitch());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.Switch);
         return super.visitSwitch(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitSwitchExpression(SwitchExpressionTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitSwitchExpression());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.SwitchExpression);
         return super.visitSwitchExpression(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitSynchronized(SynchronizedTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitSynchronized());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.Synchronized);
         return super.visitSynchronized(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitThrow(ThrowTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitThrow());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.Throw);
         return super.visitThrow(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitTry(TryTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitTry());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.Try);
         return super.visitTry(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitTypeCast(TypeCastTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitTypeCast());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.TypeCast);
         return super.visitTypeCast(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitTypeParameter(TypeParameterTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitTypeParameter());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.TypeParameter);
         return super.visitTypeParameter(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitUnary(UnaryTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitUnary());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.Unary);
         return super.visitUnary(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitUnionType(UnionTypeTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitUnionType());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.UnionType);
         return super.visitUnionType(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitUses(UsesTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitUses());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.Uses);
         return super.visitUses(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitVariable(VariableTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitVariable());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.Variable);
         return super.visitVariable(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitWhileLoop(WhileLoopTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitWhileLoop());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.WhileLoop);
         return super.visitWhileLoop(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitWildcard(WildcardTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitWildcard());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.Wildcard);
         return super.visitWildcard(node, jaspilerTransformContext);
     }
 
     @Override
     public V8JaspilerTransformScanner visitYield(YieldTree node, JaspilerTransformContext jaspilerTransformContext) {
-        forEachPlugin(node, plugin -> plugin.getVisitor().getVisitYield());
+        visitPlugins(node, V8JaspilerOptions.VisitorMethod.Yield);
         return super.visitYield(node, jaspilerTransformContext);
     }
+
+    /**
+     * The type List frame tracks the index of the element being scanned in a child list,
+     * so that the paths can edit the list without breaking the scan.
+     */
+    protected static final class ListFrame {
+        final List<? extends Tree> list;
+        final JTTree<?, ?> owner;
+        int index;
+        JTTreeList<?> treeList;
+
+        ListFrame(JTTree<?, ?> owner, List<? extends Tree> list) {
+            index = -1;
+            this.list = Objects.requireNonNull(list);
+            this.owner = Objects.requireNonNull(owner);
+            treeList = null;
+        }
+    }
 }
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2023-2025. caoccao.com Sam Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.caoccao.jaspiler.v8;
+
+import com.caoccao.jaspiler.exceptions.JaspilerCheckedException;
+import com.caoccao.jaspiler.utils.BaseLoggingObject;
+import com.caoccao.javet.interfaces.IJavetClosable;
+import com.caoccao.javet.interfaces.IJavetUniFunction;
+import com.caoccao.javet.interop.V8Runtime;
+import com.caoccao.javet.interop.proxy.IJavetDirectProxyHandler;
+import com.caoccao.javet.values.V8Value;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The type V8 jaspiler transformer holds the deserialized options and the dispatch tables
+ * so that they can be reused by the transforms.
+ * <p>
+ * The transformers created by {@code jaspiler.createTransformer()} are kept until closed by the script.
+ * The other transformers are disposable and close the options when the last transform is released.
+ * The options are never closed while a transform is in flight.
+ * It is only accessed in the thread of the V8 runtime.
+ */
+public final class V8JaspilerTransformer
+        extends BaseLoggingObject
+        implements IJavetDirectProxyHandler<JaspilerCheckedException>, IJavetClosable {
+    private static final String FUNCTION_CLOSE = "close";
+    private static final String PROPERTY_CLOSED = "closed";
+    private static final String PROPERTY_IN_FLIGHT_COUNT = "inFlightCount";
+    private final boolean disposable;
+    private final V8JaspilerOptions v8JaspilerOptions;
+    private final V8Runtime v8Runtime;
+    private boolean closed;
+    private int inFlightCount;
+    private Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> stringGetterMap;
+
+    public V8JaspilerTransformer(V8Runtime v8Runtime, V8JaspilerOptions v8JaspilerOptions, boolean disposable) {
+        super();
+        closed = false;
+        this.disposable = disposable;
+        inFlightCount = 0;
+        stringGetterMap = null;
+        this.v8JaspilerOptions = Objects.requireNonNull(v8JaspilerOptions);
+        this.v8Runtime = Objects.requireNonNull(v8Runtime);
+    }
+
+    /**
+     * Acquire the transformer for a transform.
+     *
+     * @return the self
+     */
+    public V8JaspilerTransformer acquire() {
+        ++inFlightCount;
+        return this;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (inFlightCount == 0) {
+            v8JaspilerOptions.close();
+        }
+    }
+
+    public int getInFlightCount() {
+        return inFlightCount;
+    }
+
+    @Override
+    public V8Runtime getV8Runtime() {
+        return v8Runtime;
+    }
+
+    public V8JaspilerOptions getV8JaspilerOptions() {
+        return v8JaspilerOptions;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public boolean isDisposable() {
+        return disposable;
+    }
+
+    @Override
+    public Map<String, IJavetUniFunction<String, ? extends V8Value, JaspilerCheckedException>> proxyGetStringGetterMap() {
+        if (stringGetterMap == null) {
+            stringGetterMap = new HashMap<>();
+            registerStringGetterFunction(FUNCTION_CLOSE, v8Values -> {
+                close();
+                return v8Runtime.createV8ValueUndefined();
+            });
+            registerStringGetter(PROPERTY_CLOSED, propertyName -> v8Runtime.createV8ValueBoolean(isClosed()));
+            registerStringGetter(PROPERTY_IN_FLIGHT_COUNT, propertyName -> v8Runtime.createV8ValueInteger(getInFlightCount()));
+        }
+        return stringGetterMap;
+    }
+
+    /**
+     * Release the transformer after a transform.
+     * The options are closed if the transformer is disposable or closed and no transform is in flight.
+     */
+    public void release() {
+        if (--inFlightCount == 0 && (disposable || closed)) {
+            closed = true;
+            v8JaspilerOptions.close();
+        }
+    }
+}
@@ -16,6 +16,7 @@
 
 package com.caoccao.jaspiler.v8;
 
+import com.caoccao.javet.enums.V8ValueReferenceType;
 import com.caoccao.javet.exceptions.JavetException;
 import com.caoccao.javet.interop.NodeRuntime;
 import com.caoccao.javet.interop.V8Runtime;
@@ -23,12 +24,79 @@ import com.caoccao.javet.interop.executors.IV8Executor;
 import com.caoccao.javet.interop.executors.V8FileExecutor;
 import com.caoccao.javet.node.modules.NodeModuleModule;
 import com.caoccao.javet.node.modules.NodeModuleProcess;
+import com.caoccao.javet.values.V8Value;
+import com.caoccao.javet.values.reference.V8ValueFunction;
+import com.caoccao.javet.values.reference.V8ValueObject;
+import com.caoccao.javet.values.reference.V8ValueTypedArray;
 
 import java.io.File;
 
 public class V8PatchedFileExecutor extends V8FileExecutor {
+    private static final String PROPERTY_CACHED_DATA = "cachedData";
+    private static final String PROPERTY_CACHED_DATA_REJECTED = "cachedDataRejected";
+    private static final String PROPERTY_RESULT = "result";
+    /**
+     * The script compiles and runs the main script in the global context with the code cache.
+     * The required modules are loaded by the original CommonJS loader so that their behavior is unchanged.
+     * The cached data is produced after the script is evaluated so that the lazily compiled functions are included.
+     * It is produced again if V8 rejects the given cached data, e.g. the V8 flags are changed.
+     */
+    private static final String SCRIPT_EXECUTE_WITH_CODE_CACHE = """
+            (source, filename, cachedData) => {
+              const vm = require('vm');
+              const script = new vm.Script(source, { cachedData: cachedData || undefined, filename });
+              const result = script.runInThisContext({ displayErrors: true });
+              const cachedDataRejected = !!cachedData && script.cachedDataRejected === true;
+              return {
+                cachedData: !cachedData || cachedDataRejected ? script.createCachedData() : undefined,
+                cachedDataRejected,
+                result,
+              };
+            }""";
+    private V8CodeCache codeCache;
+
     public V8PatchedFileExecutor(V8Runtime v8Runtime, File scriptFile) throws JavetException {
         super(v8Runtime, scriptFile);
+        codeCache = null;
+    }
+
+    @Override
+    public <T extends V8Value> T execute(boolean resultRequired) throws JavetException {
+        V8Runtime v8Runtime = getV8Runtime();
+        if (codeCache == null || isModule() || !v8Runtime.getJSRuntimeType().isNode()) {
+            return super.execute(resultRequired);
+        }
+        String scriptString = getScriptString();
+        byte[] cachedData = codeCache.get(scriptString);
+        try (V8ValueFunction v8ValueFunction = v8Runtime.getExecutor(SCRIPT_EXECUTE_WITH_CODE_CACHE).execute();
+             V8ValueTypedArray v8ValueTypedArray = cachedData == null
+                     ? null
+                     : v8Runtime.createV8ValueTypedArray(V8ValueReferenceType.Uint8Array, cachedData.length)) {
+            if (v8ValueTypedArray != null) {
+                v8ValueTypedArray.fromBytes(cachedData);
+            }
+            try (V8ValueObject v8ValueObject = v8ValueFunction.call(
+                    null, scriptString, getV8ScriptOrigin().getResourceName(), v8ValueTypedArray)) {
+                if (v8ValueObject.getBoolean(PROPERTY_CACHED_DATA_REJECTED)) {
+                    codeCache.reject(scriptString);
+                }
+                try (V8Value v8ValueCachedData = v8ValueObject.get(PROPERTY_CACHED_DATA)) {
+                    if (v8ValueCachedData instanceof V8ValueTypedArray v8ValueTypedArrayCachedData) {
+                        codeCache.put(scriptString, v8ValueTypedArrayCachedData.toBytes());
+                    }
+                }
+                return resultRequired ? v8ValueObject.get(PROPERTY_RESULT) : null;
+            }
+        }
+    }
+
+    public V8CodeCache getCodeCache() {
+        return codeCache;
+    }
+
+    public V8PatchedFileExecutor setCodeCache(V8CodeCache codeCache) {
+        this.codeCache = codeCache;
+        return this;
     }
 
     @Override
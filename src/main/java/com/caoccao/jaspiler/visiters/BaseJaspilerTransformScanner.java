@@ -17,16 +17,64 @@
 package com.caoccao.jaspiler.visiters;
 
 import com.caoccao.jaspiler.contexts.JaspilerTransformContext;
+import com.sun.source.tree.Tree;
+import com.sun.source.util.TreePath;
 import com.sun.source.util.TreePathScanner;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+@SuppressWarnings("unchecked")
 public abstract class BaseJaspilerTransformScanner<Scanner extends BaseJaspilerTransformScanner<Scanner>>
         extends TreePathScanner<Scanner, JaspilerTransformContext> {
     protected final Logger logger;
+    protected Tree skippedTree;
 
     public BaseJaspilerTransformScanner() {
         super();
         logger = LoggerFactory.getLogger(getClass());
+        skippedTree = null;
+    }
+
+    /**
+     * Is skipping children of the current node.
+     *
+     * @return true : skipping, false : not skipping
+     */
+    protected boolean isSkippingChildren() {
+        if (skippedTree == null) {
+            return false;
+        }
+        TreePath treePath = getCurrentPath();
+        return treePath != null && treePath.getLeaf() == skippedTree;
+    }
+
+    @Override
+    public Scanner scan(Tree tree, JaspilerTransformContext jaspilerTransformContext) {
+        if (isSkippingChildren()) {
+            return null;
+        }
+        try {
+            return super.scan(tree, jaspilerTransformContext);
+        } finally {
+            if (tree != null && tree == skippedTree) {
+                skippedTree = null;
+            }
+        }
+    }
+
+    /**
+     * Skip the children of the node being visited.
+     * The node itself is visited as usual, but the scanner doesn't descend into it,
+     * so that a scanner that only cares about the declarations doesn't have to scan the method bodies.
+     * It is equivalent to not calling the super visit method.
+     *
+     * @return the self
+     */
+    public Scanner skip() {
+        TreePath treePath = getCurrentPath();
+        if (treePath != null) {
+            skippedTree = treePath.getLeaf();
+        }
+        return (Scanner) this;
     }
 }
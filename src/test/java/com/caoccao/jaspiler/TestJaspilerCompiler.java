@@ -20,6 +20,8 @@ import com.caoccao.jaspiler.contexts.BaseJaspilerContext;
 import com.caoccao.jaspiler.contexts.JaspilerDocContext;
 import com.caoccao.jaspiler.contexts.JaspilerTransformContext;
 import com.caoccao.jaspiler.mock.MockAllInOnePublicClass;
+import com.caoccao.jaspiler.styles.StyleOptions;
+import com.caoccao.jaspiler.trees.JTClassDecl;
 import com.caoccao.jaspiler.trees.JTCompilationUnit;
 import com.caoccao.jaspiler.trees.JTImport;
 import com.caoccao.jaspiler.trees.JTPackageDecl;
@@ -30,21 +32,112 @@ import com.caoccao.jaspiler.visiters.BaseJaspilerTransformScanner;
 import com.caoccao.jaspiler.visiters.DummyDocScanner;
 import com.caoccao.jaspiler.visiters.DummyTransformScanner;
 import com.sun.source.doctree.DocTree;
+import com.sun.source.tree.ClassTree;
 import com.sun.source.tree.CompilationUnitTree;
 import com.sun.source.tree.ImportTree;
 import com.sun.source.tree.PackageTree;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import javax.tools.Diagnostic;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 public class TestJaspilerCompiler extends BaseTestSuite {
+    @TempDir
+    Path tempPath;
+
+    @Test
+    public void testCompile() throws IOException {
+        class TestTransformScanner extends BaseJaspilerTransformScanner<TestTransformScanner> {
+            @Override
+            public TestTransformScanner visitClass(ClassTree node, JaspilerTransformContext jaspilerTransformContext) {
+                ((JTClassDecl) node).setActionChange();
+                return super.visitClass(node, jaspilerTransformContext);
+            }
+        }
+        compiler.addJavaFileStringObject("A", """
+                package a;
+
+                public class A {
+                    public int value() {
+                        return new B().value() + 1;
+                    }
+                }
+                """);
+        compiler.addJavaFileStringObject("B", """
+                package /* a */ a;
+
+                public class B {
+                    public int value() {
+                        return 1;
+                    }
+                }
+                """);
+        compiler.transform(new TestTransformScanner(), null);
+        Path outputPath = tempPath;
+        // Batches of 1 are compiled in parallel and resolve each other via the in-memory source path.
+        compiler.compile(outputPath, StyleOptions.Default, 1, null);
+        assertEquals(2, compiler.getCompileContexts().size());
+        compiler.getCompileContexts().forEach(compileContext -> assertFalse(compileContext.hasErrors()));
+        assertTrue(Files.isRegularFile(outputPath.resolve("a").resolve("A.class")));
+        assertTrue(Files.isRegularFile(outputPath.resolve("a").resolve("B.class")));
+        assertEquals(2, compiler.getDedupFileWriter().getWrittenCount());
+        // The unchanged class files are not rewritten.
+        compiler.compile(outputPath);
+        assertEquals(2, compiler.getDedupFileWriter().getSkippedCount());
+        assertEquals(2, compiler.getDedupFileWriter().getWrittenCount());
+        Path jarPath = outputPath.resolve("test.jar");
+        compiler.compile(jarPath);
+        try (var jarFile = new JarFile(jarPath.toFile())) {
+            assertNotNull(jarFile.getEntry("a/A.class"));
+            assertNotNull(jarFile.getEntry("a/B.class"));
+        }
+        Path sourceJarPath = outputPath.resolve("test-sources.jar");
+        compiler.archive(sourceJarPath);
+        byte[] sourceJarBytes = Files.readAllBytes(sourceJarPath);
+        try (var jarFile = new JarFile(sourceJarPath.toFile())) {
+            assertNotNull(jarFile.getManifest());
+            assertEquals(
+                    List.of(JarFile.MANIFEST_NAME, "a/A.java", "a/B.java"),
+                    jarFile.stream().map(JarEntry::getName).toList());
+            try (var inputStream = jarFile.getInputStream(jarFile.getEntry("a/B.java"))) {
+                assertTrue(new String(inputStream.readAllBytes(), StandardCharsets.UTF_8).contains("public class B"));
+            }
+        }
+        compiler.archive(sourceJarPath);
+        assertArrayEquals(sourceJarBytes, Files.readAllBytes(sourceJarPath), "The archive should be reproducible.");
+        compiler.clearJavaFileObject();
+        compiler.addJavaFileStringObject("C", """
+                package a;
+
+                public class C {
+                    private int x = 1;
+                    private int y = z;
+                }
+                """);
+        compiler.transform(new TestTransformScanner(), null);
+        compiler.compile(outputPath);
+        var compileContext = compiler.getCompileContexts().get(0);
+        assertTrue(compileContext.hasErrors());
+        var diagnostic = compileContext.getDiagnostics().stream()
+                .filter(d -> d.getKind() == Diagnostic.Kind.ERROR)
+                .findFirst()
+                .orElseThrow();
+        var originalPosition = compileContext.getOriginalPosition(diagnostic);
+        assertEquals(5, originalPosition.lineNumber());
+        assertEquals(21, originalPosition.columnNumber());
+    }
+
     @Test
     public void testTransform() throws IOException {
         class TestDocScanner extends BaseJaspilerDocScanner<TestDocScanner> {
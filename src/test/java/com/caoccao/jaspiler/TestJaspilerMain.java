@@ -17,12 +17,37 @@
 package com.caoccao.jaspiler;
 
 import com.caoccao.jaspiler.enums.JaspilerExitCode;
+import com.caoccao.jaspiler.exceptions.JaspilerCheckedException;
+import com.caoccao.jaspiler.exceptions.JaspilerExecutionException;
+import com.caoccao.jaspiler.utils.MockUtils;
 import com.caoccao.jaspiler.utils.SystemUtils;
+import com.caoccao.jaspiler.v8.*;
+import com.caoccao.javet.enums.JSRuntimeType;
+import com.caoccao.javet.exceptions.JavetException;
+import com.caoccao.javet.interop.V8Runtime;
+import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 public class TestJaspilerMain {
+    @TempDir
+    Path tempPath;
+
+    private static void assertTransformed(Path outputPath, int count) throws IOException {
+        for (int i = 0; i < count; ++i) {
+            String code = Files.readString(outputPath.resolve("p" + i).resolve("A.java"));
+            assertTrue(code.contains("public class B"), code);
+        }
+    }
+
     @Test
     public void testArgv() {
         String scriptPath = SystemUtils.INITIAL_WORKING_DIRECTORY
@@ -33,6 +58,235 @@ public class TestJaspilerMain {
                 new JaspilerMain().execute(new String[]{scriptPath, "-a", "b", "-c"}));
     }
 
+    @Test
+    @Tag("manual")
+    public void testBenchmarkBatch() {
+        String scriptPath = SystemUtils.INITIAL_WORKING_DIRECTORY
+                .resolve("scripts/node/test/benchmark_batch.js")
+                .toAbsolutePath().toFile().getAbsolutePath();
+        assertEquals(
+                JaspilerExitCode.NoError,
+                new JaspilerMain().execute(new String[]{scriptPath}));
+    }
+
+    @Test
+    @Tag("manual")
+    public void testBenchmarkPropertyAccess() {
+        String scriptPath = SystemUtils.INITIAL_WORKING_DIRECTORY
+                .resolve("scripts/node/test/benchmark_property_access.js")
+                .toAbsolutePath().toFile().getAbsolutePath();
+        assertEquals(
+                JaspilerExitCode.NoError,
+                new JaspilerMain().execute(new String[]{scriptPath}));
+        assertEquals(
+                JaspilerExitCode.NoError,
+                new JaspilerMain().execute(new String[]{"--wrapper-classes", scriptPath}));
+    }
+
+    @Test
+    public void testCodeCache() throws IOException, JavetException, JaspilerCheckedException {
+        String scriptPath = SystemUtils.INITIAL_WORKING_DIRECTORY
+                .resolve("scripts/node/test/test_transform.js")
+                .toAbsolutePath().toFile().getAbsolutePath();
+        Path codeCachePath = tempPath.resolve("cache");
+        for (int i = 0; i < 2; ++i) {
+            assertEquals(
+                    JaspilerExitCode.NoError,
+                    new JaspilerMain().execute(new String[]{"--code-cache=" + codeCachePath, scriptPath}));
+        }
+        try (var stream = Files.list(codeCachePath)) {
+            assertTrue(stream.findAny().isPresent(), "The code cache should be written.");
+        }
+        Path mainScriptPath = tempPath.resolve("main.js");
+        Files.writeString(mainScriptPath, "const path = require('path');\nfunction f() { return path.sep; }\nf();\n");
+        Path mainCodeCachePath = tempPath.resolve("main-cache");
+        for (int i = 0; i < 3; ++i) {
+            if (i == 2) {
+                // The corrupted cache should be rejected by V8, counted as a miss and rewritten.
+                try (var stream = Files.list(mainCodeCachePath)) {
+                    for (var path : stream.toList()) {
+                        Files.write(path, new byte[]{1, 2, 3, 4});
+                    }
+                }
+            }
+            try (V8Runtime v8Runtime = V8JaspilerRuntimeFactory.create(JSRuntimeType.Node)) {
+                var codeCache = new V8CodeCache(mainCodeCachePath, v8Runtime.getVersion());
+                new V8PatchedFileExecutor(v8Runtime, mainScriptPath.toFile()).setCodeCache(codeCache).executeVoid();
+                boolean hit = i == 1;
+                assertEquals(hit ? 1 : 0, codeCache.getHitCount(), "Run " + i);
+                assertEquals(hit ? 0 : 1, codeCache.getMissCount(), "Run " + i);
+                assertEquals(hit ? 0 : 1, codeCache.getWrittenCount(), "Run " + i);
+            }
+        }
+    }
+
+    @Test
+    public void testHeapPolicy() throws IOException, JavetException, JaspilerCheckedException {
+        String scriptPath = SystemUtils.INITIAL_WORKING_DIRECTORY
+                .resolve("scripts/node/test/test_pool.js")
+                .toAbsolutePath().toFile().getAbsolutePath();
+        Path inputPath = tempPath.resolve("input");
+        Path outputPath = tempPath.resolve("output");
+        MockUtils.writeSourceFiles(inputPath, 10);
+        assertEquals(
+                JaspilerExitCode.NoError,
+                new JaspilerMain().execute(new String[]{
+                        "--gc-interval=1", "--gc-threshold=64", "--recycle-interval=3",
+                        "--pool=2", scriptPath, inputPath.toString(), outputPath.toString()}));
+        assertTransformed(outputPath, 10);
+        // One runtime with batches of 1 makes the GC and recycle counts deterministic.
+        var heapPolicy = new V8HeapPolicy().setGcFileInterval(1).setRecycleFileInterval(3);
+        String[] args = new String[]{scriptPath, inputPath.toString(), outputPath.toString()};
+        try (var v8JaspilerPool = new V8JaspilerPool(
+                1, new File(scriptPath), args, JSRuntimeType.Node, heapPolicy, false)) {
+            List<Path> files;
+            try (var stream = Files.walk(inputPath)) {
+                files = stream.filter(Files::isRegularFile).sorted().toList();
+            }
+            assertEquals(10, v8JaspilerPool.transform(inputPath, outputPath, files, 1));
+            var heapMonitor = v8JaspilerPool.getWorkers().get(0).getHeapMonitor();
+            assertEquals(10, heapMonitor.getFileCount());
+            assertEquals(10 / heapPolicy.getGcFileInterval(), heapMonitor.getGcCount());
+            assertEquals(10 / heapPolicy.getRecycleFileInterval(), heapMonitor.getRecycleCount());
+        }
+        // The used heap always stays above the threshold of 1 byte,
+        // so the threshold only triggers the GC once per runtime.
+        heapPolicy = new V8HeapPolicy().setGcHeapThreshold(1).setRecycleFileInterval(5);
+        try (var v8JaspilerPool = new V8JaspilerPool(
+                1, new File(scriptPath), args, JSRuntimeType.Node, heapPolicy, false)) {
+            List<Path> files;
+            try (var stream = Files.walk(inputPath)) {
+                files = stream.filter(Files::isRegularFile).sorted().toList();
+            }
+            assertEquals(10, v8JaspilerPool.transform(inputPath, outputPath, files, 1));
+            var heapMonitor = v8JaspilerPool.getWorkers().get(0).getHeapMonitor();
+            assertEquals(2, heapMonitor.getRecycleCount());
+            assertEquals(2, heapMonitor.getGcCount(), "The threshold should be re-armed by the recycle.");
+        }
+        assertEquals(
+                JaspilerExitCode.OptionsInvalid,
+                new JaspilerMain().execute(new String[]{"--gc-interval=x", scriptPath}));
+        assertEquals(
+                JaspilerExitCode.OptionsInvalid,
+                new JaspilerMain().execute(new String[]{"--recycle-interval=0", scriptPath}));
+    }
+
+    @Test
+    public void testPool() throws IOException {
+        String scriptPath = SystemUtils.INITIAL_WORKING_DIRECTORY
+                .resolve("scripts/node/test/test_pool.js")
+                .toAbsolutePath().toFile().getAbsolutePath();
+        Path inputPath = tempPath.resolve("input");
+        Path outputPath = tempPath.resolve("output");
+        MockUtils.writeSourceFiles(inputPath, 10);
+        assertEquals(
+                JaspilerExitCode.NoError,
+                new JaspilerMain().execute(new String[]{
+                        "--pool=2", scriptPath, inputPath.toString(), outputPath.toString()}));
+        assertTransformed(outputPath, 10);
+        assertEquals(
+                JaspilerExitCode.OptionsInvalid,
+                new JaspilerMain().execute(new String[]{"--pool=x", scriptPath}));
+        assertEquals(
+                JaspilerExitCode.OptionsInvalid,
+                new JaspilerMain().execute(new String[]{
+                        "--pool=2", "--code-cache=" + outputPath, scriptPath,
+                        inputPath.toString(), outputPath.toString()}),
+                "The code cache is not supported in the pool mode.");
+        assertEquals(
+                JaspilerExitCode.OptionsInvalid,
+                new JaspilerMain().execute(new String[]{"--unknown", scriptPath}));
+    }
+
+    @Test
+    public void testPoolRecycleFailure() throws IOException, JavetException, JaspilerCheckedException {
+        String scriptPath = SystemUtils.INITIAL_WORKING_DIRECTORY
+                .resolve("scripts/node/test/test_pool_recycle.js")
+                .toAbsolutePath().toFile().getAbsolutePath();
+        Path inputPath = tempPath.resolve("input");
+        Path outputPath = tempPath.resolve("output");
+        MockUtils.writeSourceFiles(inputPath, 3);
+        List<Path> files;
+        try (var stream = Files.walk(inputPath)) {
+            files = stream.filter(Files::isRegularFile).sorted().toList();
+        }
+        // The script fails when the runtime is started the second time, so the recycle fails.
+        var heapPolicy = new V8HeapPolicy().setRecycleFileInterval(3);
+        String[] args = new String[]{scriptPath, tempPath.resolve("marker").toString()};
+        try (var v8JaspilerPool = new V8JaspilerPool(
+                1, new File(scriptPath), args, JSRuntimeType.Node, heapPolicy, false)) {
+            assertEquals(3, v8JaspilerPool.transform(inputPath, outputPath, files, 3),
+                    "The batch should succeed even if the recycle fails.");
+            assertTransformed(outputPath, 3);
+            var worker = v8JaspilerPool.getWorkers().get(0);
+            assertFalse(worker.isAlive());
+            assertNotNull(worker.getRecycleException());
+            assertEquals(1, v8JaspilerPool.getRecycleExceptions().size());
+            assertThrows(
+                    JaspilerExecutionException.class,
+                    () -> v8JaspilerPool.transform(inputPath, outputPath, files, 1),
+                    "The retired worker should not visit any batch.");
+        }
+    }
+
+    @Test
+    public void testRuntimeV8() throws IOException {
+        Path scriptsPath = SystemUtils.INITIAL_WORKING_DIRECTORY.resolve("scripts/node/test").toAbsolutePath();
+        String scriptPath = scriptsPath.resolve("test_v8.js").toString();
+        assertEquals(
+                JaspilerExitCode.NoError,
+                new JaspilerMain().execute(new String[]{"--runtime=v8", scriptPath}));
+        assertEquals(
+                JaspilerExitCode.NoError,
+                new JaspilerMain().execute(new String[]{"--runtime=auto", scriptPath}));
+        assertEquals(
+                JaspilerExitCode.OptionsInvalid,
+                new JaspilerMain().execute(new String[]{"--runtime=x", scriptPath}));
+        Path codeCachePath = tempPath.resolve("cache");
+        assertEquals(
+                JaspilerExitCode.OptionsInvalid,
+                new JaspilerMain().execute(new String[]{"--runtime=v8", "--code-cache=" + codeCachePath, scriptPath}),
+                "The code cache is not supported in the plain V8 runtime.");
+        assertEquals(
+                JaspilerExitCode.OptionsInvalid,
+                new JaspilerMain().execute(new String[]{"--runtime=auto", "--code-cache=" + codeCachePath, scriptPath}),
+                "The code cache is not supported in the detected plain V8 runtime.");
+        assertEquals(
+                JaspilerExitCode.NoError,
+                new JaspilerMain().execute(new String[]{"--wrapper-classes", "--runtime=v8", scriptPath}),
+                "The options should be parsed regardless of their order.");
+        Path inputPath = tempPath.resolve("input");
+        Path outputPath = tempPath.resolve("output");
+        MockUtils.writeSourceFiles(inputPath, 4);
+        assertEquals(
+                JaspilerExitCode.NoError,
+                new JaspilerMain().execute(new String[]{
+                        "--runtime=v8", "--pool=2", scriptsPath.resolve("test_pool.js").toString(),
+                        inputPath.toString(), outputPath.toString()}));
+        assertTransformed(outputPath, 4);
+    }
+
+    @Test
+    public void testSnapshot() throws IOException {
+        Path scriptsPath = SystemUtils.INITIAL_WORKING_DIRECTORY.resolve("scripts/node").toAbsolutePath();
+        Path snapshotPath = tempPath.resolve("jaspiler.snapshot");
+        assertEquals(
+                JaspilerExitCode.NoError,
+                new JaspilerMain().execute(new String[]{
+                        "--create-snapshot=" + snapshotPath,
+                        scriptsPath.resolve("jaspiler/jaspiler.js").toString(),
+                        scriptsPath.resolve("test/snapshot_plugins.js").toString()}));
+        assertTrue(Files.size(snapshotPath) > 0);
+        assertEquals(
+                JaspilerExitCode.NoError,
+                new JaspilerMain().execute(new String[]{
+                        "--snapshot=" + snapshotPath,
+                        scriptsPath.resolve("test/test_snapshot.js").toString()}));
+        assertEquals(
+                JaspilerExitCode.OptionsInvalid,
+                new JaspilerMain().execute(new String[]{"--create-snapshot=" + snapshotPath}));
+    }
+
     @Test
     public void testTransform() {
         String scriptPath = SystemUtils.INITIAL_WORKING_DIRECTORY
@@ -43,6 +297,16 @@ public class TestJaspilerMain {
                 new JaspilerMain().execute(new String[]{scriptPath}));
     }
 
+    @Test
+    public void testTransformWithWrapperClasses() {
+        String scriptPath = SystemUtils.INITIAL_WORKING_DIRECTORY
+                .resolve("scripts/node/test/test_transform.js")
+                .toAbsolutePath().toFile().getAbsolutePath();
+        assertEquals(
+                JaspilerExitCode.NoError,
+                new JaspilerMain().execute(new String[]{"--wrapper-classes", scriptPath}));
+    }
+
     @Test
     public void testTutorials01QuickStart() {
         String scriptPath = SystemUtils.INITIAL_WORKING_DIRECTORY
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2023-2025. caoccao.com Sam Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.caoccao.jaspiler.styles;
+
+import com.caoccao.jaspiler.BaseTestSuite;
+import com.caoccao.jaspiler.contexts.JaspilerTransformContext;
+import com.caoccao.jaspiler.enums.JavaKeyword;
+import com.caoccao.jaspiler.mock.MockAllInOnePublicClass;
+import com.caoccao.jaspiler.trees.JTClassDecl;
+import com.caoccao.jaspiler.visiters.BaseJaspilerTransformScanner;
+import com.sun.source.tree.ClassTree;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestPrettyStyleWriter extends BaseTestSuite {
+    private static final StyleOptions OPTIONS = new StyleOptions()
+            .setType(StyleType.Pretty)
+            .setWordWrapColumn(60)
+            .seal();
+
+    private PrettyStyleWriter appendMethod(PrettyStyleWriter writer, List<String> arguments) {
+        writer.appendIndent(1).append("public").appendSpace().append("void").appendSpace().append("test")
+                .appendLeftParenthesis();
+        for (int i = 0; i < arguments.size(); ++i) {
+            if (i > 0) {
+                writer.appendComma().appendSpace();
+            }
+            writer.append(arguments.get(i));
+        }
+        writer.appendRightParenthesis().appendKeyword(JavaKeyword.THROWS).appendSpace().append("Exception");
+        return (PrettyStyleWriter) writer.appendSemiColon();
+    }
+
+    @Test
+    public void testLayout() {
+        var writer = (PrettyStyleWriter) OPTIONS.getType().createStyleWriter(OPTIONS);
+        appendMethod(writer, List.of("int a", "int b")).appendLineSeparator();
+        assertEquals("    public void test(int a, int b) throws Exception;\n", writer.toString());
+        writer = new PrettyStyleWriter(OPTIONS);
+        appendMethod(writer, List.of("int alpha", "int beta", "int gamma", "int delta", "int epsilon"))
+                .appendLineSeparator();
+        assertEquals(
+                """
+                        public void test(int alpha, int beta, int gamma,
+                                int delta, int epsilon) throws Exception;
+                    """,
+                writer.toString());
+        writer = new PrettyStyleWriter(OPTIONS);
+        appendMethod(writer, List.of("int alpha", "int beta", "int gamma", "int delta", "int epsilon12345678"))
+                .appendLineSeparator();
+        assertEquals(
+                """
+                        public void test(int alpha, int beta, int gamma,
+                                int delta, int epsilon12345678)
+                                throws Exception;
+                    """,
+                writer.toString());
+    }
+
+    @Test
+    public void testSerialize() throws Exception {
+        class TestTransformScanner extends BaseJaspilerTransformScanner<TestTransformScanner> {
+            @Override
+            public TestTransformScanner visitClass(ClassTree node, JaspilerTransformContext jaspilerTransformContext) {
+                var jtClassDecl = (JTClassDecl) node;
+                if (!jtClassDecl.getSimpleName().getValue().isEmpty()) {
+                    jtClassDecl.setActionChange();
+                }
+                return super.visitClass(node, jaspilerTransformContext);
+            }
+        }
+        String code = transform(new TestTransformScanner(), MockAllInOnePublicClass.class);
+        var compilationUnit = compiler.getTransformContexts().get(0).getCompilationUnitTree();
+        var writer = OPTIONS.getType().createStyleWriter(OPTIONS).setSourceMap(new SourceMap());
+        compilationUnit.serialize(writer);
+        String prettyCode = writer.toString();
+        assertEquals(code.replaceAll("\\s+", " "), prettyCode.replaceAll("\\s+", " "));
+        assertTrue(prettyCode.contains("public abstract sealed class MockAllInOnePublicClass\n        extends"));
+        // The source map is remapped after the lines are laid out.
+        String originalCode = compilationUnit.getOriginalCode();
+        var sourceMap = writer.getSourceMap();
+        for (int i = 0; i < sourceMap.size(); ++i) {
+            var originalPosition = sourceMap.getOriginalPosition(i);
+            String originalText = originalCode.substring(
+                    (int) originalPosition.startPosition(), (int) originalPosition.endPosition());
+            String generatedText = prettyCode.substring(
+                    sourceMap.getGeneratedStartPosition(i), sourceMap.getGeneratedEndPosition(i));
+            assertEquals(
+                    originalText.replaceAll("\\s+", " ").split(" ")[0],
+                    generatedText.replaceAll("\\s+", " ").split(" ")[0]);
+        }
+    }
+}
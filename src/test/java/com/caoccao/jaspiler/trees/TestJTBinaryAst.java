@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2023-2025. caoccao.com Sam Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.caoccao.jaspiler.trees;
+
+import com.caoccao.jaspiler.BaseTestSuite;
+import com.caoccao.jaspiler.visiters.BaseJaspilerTransformScanner;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TestJTBinaryAst extends BaseTestSuite {
+    @Test
+    public void testEncode() throws IOException {
+        class TestTransformScanner extends BaseJaspilerTransformScanner<TestTransformScanner> {
+        }
+        String code = """
+                package a;
+                public class A {
+                    private String b = "c";
+                    public int d(int e) {
+                        return e;
+                    }
+                }
+                """;
+        compiler.addJavaFileStringObject("A", code);
+        compiler.transform(new TestTransformScanner(), null);
+        var binaryAst = JTBinaryAst.encode(compiler.getTransformContexts().get(0).getCompilationUnitTree());
+        final int[] nodes = binaryAst.getNodes();
+        assertEquals(binaryAst.getNodeCount() * JTBinaryAst.STRIDE, nodes.length);
+        assertEquals("COMPILATION_UNIT", binaryAst.getString(nodes[JTBinaryAst.FIELD_KIND]));
+        assertEquals(-1, nodes[JTBinaryAst.FIELD_PARENT]);
+        assertEquals(binaryAst.getNodeCount(), nodes[JTBinaryAst.FIELD_END]);
+        List<String> names = new ArrayList<>();
+        for (int index = 0; index < binaryAst.getNodeCount(); ++index) {
+            final int offset = index * JTBinaryAst.STRIDE;
+            final int parentIndex = nodes[offset + JTBinaryAst.FIELD_PARENT];
+            if (parentIndex >= 0) {
+                final int parentOffset = parentIndex * JTBinaryAst.STRIDE;
+                assertTrue(parentIndex < index, "The parent should precede the child.");
+                assertTrue(nodes[offset + JTBinaryAst.FIELD_END] <= nodes[parentOffset + JTBinaryAst.FIELD_END],
+                        "The subtree should be nested in the parent subtree.");
+            }
+            String name = binaryAst.getString(nodes[offset + JTBinaryAst.FIELD_NAME]);
+            if (name != null) {
+                names.add(name);
+            }
+            if ("STRING_LITERAL".equals(binaryAst.getString(nodes[offset + JTBinaryAst.FIELD_KIND]))) {
+                assertEquals("c", binaryAst.getString(nodes[offset + JTBinaryAst.FIELD_VALUE]));
+                final int startPosition = nodes[offset + JTBinaryAst.FIELD_START_POSITION];
+                final int endPosition = nodes[offset + JTBinaryAst.FIELD_END_POSITION];
+                assertEquals("\"c\"", code.substring(startPosition, endPosition));
+                assertEquals(3, nodes[offset + JTBinaryAst.FIELD_LINE_NUMBER]);
+            }
+        }
+        assertEquals(List.of("a", "A", "b", "String", "d", "INT", "e", "INT", "e"), names);
+    }
+}
@@ -18,16 +18,20 @@ package com.caoccao.jaspiler.trees;
 
 import com.caoccao.jaspiler.BaseTestSuite;
 import com.caoccao.jaspiler.contexts.JaspilerTransformContext;
+import com.caoccao.jaspiler.mock.MockAllInOnePublicClass;
 import com.caoccao.jaspiler.mock.MockPublicAnnotation;
+import com.caoccao.jaspiler.styles.SourceMap;
+import com.caoccao.jaspiler.styles.StandardStyleWriter;
+import com.caoccao.jaspiler.styles.StyleOptions;
 import com.caoccao.jaspiler.utils.MockUtils;
 import com.caoccao.jaspiler.visiters.BaseJaspilerTransformScanner;
+import com.sun.source.tree.ClassTree;
 import com.sun.source.tree.CompilationUnitTree;
 import org.junit.jupiter.api.Test;
 
 import javax.tools.JavaFileObject;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.*;
 
 public class TestJTCompilationUnit extends BaseTestSuite {
     @Test
@@ -48,4 +52,60 @@ public class TestJTCompilationUnit extends BaseTestSuite {
         String code = transform(new TestTransformScanner(), MockPublicAnnotation.class);
         assertNotNull(code);
     }
+
+    @Test
+    public void testSerializeInParallel() throws Exception {
+        class TestTransformScanner extends BaseJaspilerTransformScanner<TestTransformScanner> {
+            @Override
+            public TestTransformScanner visitClass(ClassTree node, JaspilerTransformContext jaspilerTransformContext) {
+                var jtClassDecl = (JTClassDecl) node;
+                if (!jtClassDecl.getSimpleName().getValue().isEmpty()) {
+                    jtClassDecl.setActionChange();
+                }
+                return super.visitClass(node, jaspilerTransformContext);
+            }
+        }
+        String code = transform(new TestTransformScanner(), MockAllInOnePublicClass.class);
+        var styleOptions = new StyleOptions().setParallel(true).setParallelThreshold(2).seal();
+        var writer = new StandardStyleWriter(styleOptions);
+        compiler.getTransformContexts().get(0).getCompilationUnitTree().serialize(writer);
+        assertEquals(code, writer.toString());
+    }
+
+    @Test
+    public void testSourceMap() throws Exception {
+        class TestTransformScanner extends BaseJaspilerTransformScanner<TestTransformScanner> {
+            @Override
+            public TestTransformScanner visitClass(ClassTree node, JaspilerTransformContext jaspilerTransformContext) {
+                var jtClassDecl = (JTClassDecl) node;
+                if (!jtClassDecl.getSimpleName().getValue().isEmpty()) {
+                    jtClassDecl.setActionChange();
+                }
+                return super.visitClass(node, jaspilerTransformContext);
+            }
+        }
+        transform(new TestTransformScanner(), MockAllInOnePublicClass.class);
+        var compilationUnit = compiler.getTransformContexts().get(0).getCompilationUnitTree();
+        var writer = new StandardStyleWriter(StyleOptions.Default).setSourceMap(new SourceMap());
+        compilationUnit.serialize(writer);
+        String code = writer.toString();
+        String originalCode = compilationUnit.getOriginalCode();
+        SourceMap sourceMap = writer.getSourceMap();
+        assertFalse(sourceMap.isEmpty());
+        for (int i = 1; i < sourceMap.size(); ++i) {
+            assertTrue(sourceMap.getGeneratedStartPosition(i - 1) <= sourceMap.getGeneratedStartPosition(i));
+        }
+        String field = "private String a;";
+        int generatedPosition = code.indexOf(field);
+        int originalPosition = originalCode.indexOf(field);
+        assertEquals(originalPosition, sourceMap.getOriginalOffset(generatedPosition));
+        assertEquals(originalPosition + 8, sourceMap.getOriginalOffset(generatedPosition + 8));
+        var jtPosition = sourceMap.getOriginalPositionOf(generatedPosition);
+        assertEquals(field, originalCode.substring((int) jtPosition.startPosition(), (int) jtPosition.endPosition()));
+        var styleOptions = new StyleOptions().setParallel(true).setParallelThreshold(2).seal();
+        var parallelWriter = new StandardStyleWriter(styleOptions).setSourceMap(new SourceMap());
+        compilationUnit.serialize(parallelWriter);
+        assertEquals(code, parallelWriter.toString());
+        assertArrayEquals(sourceMap.toArray(), parallelWriter.getSourceMap().toArray());
+    }
 }
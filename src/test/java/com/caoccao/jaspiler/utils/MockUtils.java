@@ -19,6 +19,8 @@ package com.caoccao.jaspiler.utils;
 import com.caoccao.jaspiler.mock.MockIgnorePublicClass;
 
 import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 
 public final class MockUtils {
@@ -31,4 +33,19 @@ public final class MockUtils {
                         + clazz.getName().replace('.', '/')
                         + JavaFileObject.Kind.SOURCE.extension);
     }
+
+    /**
+     * Write the source files p0/A.java to p{count - 1}/A.java with an empty public class A.
+     *
+     * @param path  the path
+     * @param count the count
+     * @throws IOException the io exception
+     */
+    public static void writeSourceFiles(Path path, int count) throws IOException {
+        for (int i = 0; i < count; ++i) {
+            Path sourcePath = path.resolve("p" + i).resolve("A" + JavaFileObject.Kind.SOURCE.extension);
+            Files.createDirectories(sourcePath.getParent());
+            Files.writeString(sourcePath, "package p" + i + ";\n\npublic class A {\n}\n");
+        }
+    }
 }
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2023-2025. caoccao.com Sam Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.caoccao.jaspiler.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestDedupFileWriter {
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testWrite() throws IOException {
+        Path path = directory.resolve("a").resolve("A.java");
+        var dedupFileWriter = new DedupFileWriter();
+        assertTrue(dedupFileWriter.write(path, "class A {}"));
+        assertEquals("class A {}", Files.readString(path));
+        FileTime lastModifiedTime = FileTime.fromMillis(0);
+        Files.setLastModifiedTime(path, lastModifiedTime);
+        assertFalse(dedupFileWriter.write(path, "class A {}"));
+        assertEquals(lastModifiedTime, Files.getLastModifiedTime(path), "The file shouldn't be touched.");
+        // Same size, different content
+        assertTrue(dedupFileWriter.write(path, "class B {}"));
+        assertEquals("class B {}", Files.readString(path));
+        // Different size
+        assertTrue(dedupFileWriter.write(path, "class B { }".getBytes()));
+        assertEquals(1, dedupFileWriter.getSkippedCount());
+        assertEquals(3, dedupFileWriter.getWrittenCount());
+        dedupFileWriter.reset();
+        assertEquals(0, dedupFileWriter.getSkippedCount());
+        assertEquals(0, dedupFileWriter.getWrittenCount());
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2023-2025. caoccao.com Sam Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.caoccao.jaspiler.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestTextDiffUtils {
+    @Test
+    public void testComputeEdits() {
+        String originalCode = "a\nb\nc\nd\ne\nf\ng\n";
+        assertTrue(TextDiffUtils.computeEdits(originalCode, originalCode).isEmpty());
+        String[] generatedCodes = new String[]{
+                "a\nB\nc\nd\ne\nF\ng\n",
+                "x\na\nb\nc\nd\ne\nf\ng\ny\n",
+                "b\nd\nf\n",
+                "",
+                "a\nb\nc\nd\ne\nf\ng",
+                "g\nf\ne\nd\nc\nb\na\n",
+        };
+        for (String generatedCode : generatedCodes) {
+            var textEdits = TextDiffUtils.computeEdits(originalCode, generatedCode);
+            assertFalse(textEdits.isEmpty());
+            assertEquals(generatedCode, TextDiffUtils.applyEdits(originalCode, textEdits));
+        }
+        var textEdits = TextDiffUtils.computeEdits(originalCode, generatedCodes[0]);
+        assertEquals(List.of(new TextEdit(2, 4, "B\n"), new TextEdit(10, 12, "F\n")), textEdits);
+    }
+
+    @Test
+    public void testToUnifiedDiff() {
+        String originalCode = "a\nb\nc\nd\ne\nf\ng\nh\ni\nj\n";
+        assertEquals("", TextDiffUtils.toUnifiedDiff("A.java", originalCode, originalCode));
+        String expectedDiff = """
+                --- a/A.java
+                +++ b/A.java
+                @@ -1,4 +1,4 @@
+                -a
+                +x
+                 b
+                 c
+                 d
+                @@ -8,3 +8,4 @@
+                 h
+                 i
+                 j
+                +k
+                """;
+        assertEquals(expectedDiff, TextDiffUtils.toUnifiedDiff(
+                "A.java", originalCode, "x\nb\nc\nd\ne\nf\ng\nh\ni\nj\nk\n"));
+        expectedDiff = """
+                --- a/A.java
+                +++ b/A.java
+                @@ -1,1 +1,1 @@
+                -a
+                \\ No newline at end of file
+                +b
+                \\ No newline at end of file
+                """;
+        assertEquals(expectedDiff, TextDiffUtils.toUnifiedDiff("A.java", "a", "b"));
+    }
+
+    @Test
+    public void testWrite() throws Exception {
+        var path = Files.createTempFile("jaspiler", ".java");
+        try {
+            var textEditWriter = new TextEditWriter();
+            String originalCode = "class A {\n    int \u00e9 = 1;\n}\n";
+            Files.writeString(path, originalCode, StandardCharsets.UTF_8);
+            assertEquals(0, textEditWriter.write(path, originalCode, List.of()));
+            // Same length replacements are written in place.
+            String generatedCode = "class B {\n    int \u00e9 = 2;\n}\n";
+            var textEdits = TextDiffUtils.computeEdits(originalCode, generatedCode);
+            assertEquals(1, textEdits.size());
+            assertEquals(
+                    textEdits.stream().mapToInt(textEdit -> textEdit.replacement().getBytes(StandardCharsets.UTF_8).length).sum(),
+                    textEditWriter.write(path, originalCode, textEdits));
+            assertEquals(generatedCode, Files.readString(path, StandardCharsets.UTF_8));
+            // Different length replacements rewrite the rest of the file.
+            originalCode = generatedCode;
+            generatedCode = "class B {\n    int \u00e9 = 2;\n    int x;\n}\n";
+            textEdits = TextDiffUtils.computeEdits(originalCode, generatedCode);
+            textEditWriter.write(path, originalCode, textEdits);
+            assertEquals(generatedCode, Files.readString(path, StandardCharsets.UTF_8));
+            originalCode = generatedCode;
+            generatedCode = "class C {\n}\n";
+            textEdits = TextDiffUtils.computeEdits(originalCode, generatedCode);
+            textEditWriter.write(path, originalCode, textEdits);
+            assertEquals(generatedCode, Files.readString(path, StandardCharsets.UTF_8));
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+}
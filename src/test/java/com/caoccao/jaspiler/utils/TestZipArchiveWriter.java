@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2023-2025. caoccao.com Sam Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.caoccao.jaspiler.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestZipArchiveWriter {
+    private byte[] archive(LocalDateTime timestamp) throws IOException {
+        var entries = List.of(
+                ZipArchiveWriter.compress("a/A.java", "class A {}\n".repeat(100).getBytes(StandardCharsets.UTF_8), Deflater.BEST_COMPRESSION),
+                ZipArchiveWriter.compress("a/B.java", "B".getBytes(StandardCharsets.UTF_8), Deflater.BEST_COMPRESSION),
+                ZipArchiveWriter.compress("a/\u00e9.java", new byte[0], Deflater.BEST_COMPRESSION));
+        var byteArrayOutputStream = new ByteArrayOutputStream();
+        try (var zipArchiveWriter = new ZipArchiveWriter(byteArrayOutputStream, timestamp)) {
+            for (var entry : entries) {
+                zipArchiveWriter.write(entry);
+            }
+            assertEquals(3, zipArchiveWriter.getEntryCount());
+        }
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    @Test
+    public void testCompress() {
+        var entry = ZipArchiveWriter.compress("A", "A".repeat(1000).getBytes(StandardCharsets.UTF_8), Deflater.DEFAULT_COMPRESSION);
+        assertEquals(Deflater.DEFLATED, entry.method());
+        assertEquals(1000, entry.size());
+        assertTrue(entry.compressedBytes().length < 1000);
+        entry = ZipArchiveWriter.compress("B", "B".getBytes(StandardCharsets.UTF_8), Deflater.DEFAULT_COMPRESSION);
+        assertEquals(0, entry.method(), "The entry should be stored if it cannot be compressed.");
+        assertArrayEquals("B".getBytes(StandardCharsets.UTF_8), entry.compressedBytes());
+    }
+
+    @Test
+    public void testWrite() throws IOException {
+        LocalDateTime timestamp = LocalDateTime.of(2023, 4, 5, 6, 7, 8);
+        byte[] bytes = archive(timestamp);
+        assertArrayEquals(bytes, archive(timestamp), "The archive should be reproducible.");
+        List<String> names = new ArrayList<>();
+        try (var zipInputStream = new ZipInputStream(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8)) {
+            ZipEntry zipEntry;
+            while ((zipEntry = zipInputStream.getNextEntry()) != null) {
+                names.add(zipEntry.getName());
+                assertEquals(timestamp, zipEntry.getTimeLocal());
+                assertNull(zipEntry.getExtra());
+                String content = new String(zipInputStream.readAllBytes(), StandardCharsets.UTF_8);
+                switch (zipEntry.getName()) {
+                    case "a/A.java" -> assertEquals("class A {}\n".repeat(100), content);
+                    case "a/B.java" -> assertEquals("B", content);
+                    default -> assertEquals("", content);
+                }
+            }
+        }
+        assertEquals(List.of("a/A.java", "a/B.java", "a/\u00e9.java"), names);
+        assertThrows(IllegalArgumentException.class, () -> new ZipArchiveWriter(new ByteArrayOutputStream(), LocalDateTime.of(1970, 1, 1, 0, 0)));
+    }
+}
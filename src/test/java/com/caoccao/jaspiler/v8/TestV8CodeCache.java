@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2023-2025. caoccao.com Sam Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.caoccao.jaspiler.v8;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestV8CodeCache {
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testGetAndPut() throws IOException {
+        var codeCache = new V8CodeCache(directory.resolve("cache"), "11.3");
+        assertNull(codeCache.get("const a = 1;"));
+        assertFalse(codeCache.put("const a = 1;", new byte[0]));
+        assertTrue(codeCache.put("const a = 1;", new byte[]{1, 2, 3}));
+        assertArrayEquals(new byte[]{1, 2, 3}, codeCache.get("const a = 1;"));
+        assertNull(codeCache.get("const a = 2;"), "A changed script shouldn't hit.");
+        assertEquals(1, codeCache.getHitCount());
+        assertEquals(2, codeCache.getMissCount());
+        assertEquals(1, codeCache.getWrittenCount());
+        codeCache.reject("const a = 1;");
+        assertEquals(0, codeCache.getHitCount(), "A rejected hit should be counted as a miss.");
+        assertEquals(3, codeCache.getMissCount());
+        var upgradedCodeCache = new V8CodeCache(directory.resolve("cache"), "11.4");
+        assertNull(upgradedCodeCache.get("const a = 1;"), "An upgraded engine shouldn't hit.");
+        try (var stream = Files.list(directory.resolve("cache"))) {
+            assertEquals(1, stream.count(), "The temporary file shouldn't be left.");
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2023-2025. caoccao.com Sam Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.caoccao.jaspiler.v8;
+
+import com.caoccao.jaspiler.exceptions.JaspilerCheckedException;
+import com.caoccao.javet.enums.JSRuntimeType;
+import com.caoccao.javet.exceptions.JavetException;
+import com.caoccao.javet.interop.V8Runtime;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TestV8JaspilerAsyncTransformer {
+    @Test
+    public void testClose() throws JavetException, JaspilerCheckedException {
+        try (V8Runtime v8Runtime = V8JaspilerRuntimeFactory.create(JSRuntimeType.Node);
+             V8JaspilerConverter v8JaspilerConverter = new V8JaspilerConverter()) {
+            v8Runtime.setConverter(v8JaspilerConverter);
+            try (V8Jaspiler v8Jaspiler = new V8Jaspiler(new String[0], v8Runtime)) {
+                v8Runtime.getGlobalObject().set(V8Jaspiler.NAME, v8Jaspiler);
+                v8Runtime.getExecutor("""
+                        globalThis.result = 'pending';
+                        jaspiler.transform('package a; public class A {}', { fileName: 'A', sourceType: 'string' })
+                          .then(() => result = 'resolved', error => result = error.message);
+                        """).executeVoid();
+                // The transform is in flight until the event loop runs, so closing rejects it.
+                v8Jaspiler.close();
+                v8Runtime.await();
+                assertEquals(
+                        "Transform is aborted because jaspiler is closed.",
+                        v8Runtime.getGlobalObject().getString("result"));
+            } finally {
+                v8Runtime.getGlobalObject().delete(V8Jaspiler.NAME);
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2023-2025. caoccao.com Sam Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.caoccao.jaspiler.v8;
+
+import com.caoccao.javet.enums.JSRuntimeType;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TestV8JaspilerRuntimeFactory {
+    @Test
+    public void testDetect() throws IOException {
+        Map<String, JSRuntimeType> codeMap = Map.ofEntries(
+                Map.entry("const a = 1; // require('fs')", JSRuntimeType.V8),
+                Map.entry("const a = 'src/*';\nconst fs = require('fs');\nconst b = '*/';", JSRuntimeType.Node),
+                Map.entry("const a = /\\/*/;\nconst fs = require('fs');\nconst b = '*/';", JSRuntimeType.Node),
+                Map.entry("const a = `${'/*'}`;\nconst fs = require('fs');\n// */", JSRuntimeType.Node),
+                Map.entry("const a = b / 2; /* / */ const c = d / 3;", JSRuntimeType.V8),
+                Map.entry("jaspiler.transformSync('a');", JSRuntimeType.V8),
+                Map.entry("const { JTKind } = require('../jaspiler/jaspiler');", JSRuntimeType.V8),
+                Map.entry("// process is mentioned in a comment.\nconst a = 1;", JSRuntimeType.V8),
+                Map.entry("/* require('fs') */ const a = 1;", JSRuntimeType.V8),
+                Map.entry("const fs = require('fs');", JSRuntimeType.Node),
+                Map.entry("const name = 'fs';\nrequire(name);", JSRuntimeType.Node),
+                Map.entry("console.log(process.argv);", JSRuntimeType.Node),
+                Map.entry("setTimeout(() => {}, 1);", JSRuntimeType.Node),
+                Map.entry("import fs from 'fs';", JSRuntimeType.Node));
+        Path path = Files.createTempFile("jaspiler", ".js");
+        try {
+            for (var entry : codeMap.entrySet()) {
+                Files.writeString(path, entry.getKey());
+                assertEquals(entry.getValue(), V8JaspilerRuntimeFactory.detect(path.toFile()), entry.getKey());
+            }
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2023-2025. caoccao.com Sam Cao
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.caoccao.jaspiler.visiters;
+
+import com.caoccao.jaspiler.BaseTestSuite;
+import com.caoccao.jaspiler.contexts.JaspilerTransformContext;
+import com.sun.source.tree.IdentifierTree;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.VariableTree;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TestBaseJaspilerTransformScanner extends BaseTestSuite {
+    @Test
+    public void testSkip() throws IOException {
+        class TestTransformScanner extends BaseJaspilerTransformScanner<TestTransformScanner> {
+            private final List<String> names = new ArrayList<>();
+            private final boolean skipMethods;
+
+            TestTransformScanner(boolean skipMethods) {
+                this.skipMethods = skipMethods;
+            }
+
+            @Override
+            public TestTransformScanner visitIdentifier(IdentifierTree node, JaspilerTransformContext jaspilerTransformContext) {
+                names.add(node.getName().toString());
+                return super.visitIdentifier(node, jaspilerTransformContext);
+            }
+
+            @Override
+            public TestTransformScanner visitMethod(MethodTree node, JaspilerTransformContext jaspilerTransformContext) {
+                names.add(node.getName().toString());
+                if (skipMethods) {
+                    skip();
+                }
+                return super.visitMethod(node, jaspilerTransformContext);
+            }
+
+            @Override
+            public TestTransformScanner visitVariable(VariableTree node, JaspilerTransformContext jaspilerTransformContext) {
+                names.add(node.getName().toString());
+                return super.visitVariable(node, jaspilerTransformContext);
+            }
+        }
+        compiler.addJavaFileStringObject("A", """
+                public class A {
+                    private int a = b;
+                    public int c(int d) {
+                        return e;
+                    }
+                    public int f() {
+                        return g;
+                    }
+                    private int h = i;
+                }
+                """);
+        var transformScanner = new TestTransformScanner(false);
+        compiler.transform(transformScanner, null);
+        assertEquals(List.of("a", "b", "c", "d", "e", "f", "g", "h", "i"), transformScanner.names);
+        transformScanner = new TestTransformScanner(true);
+        compiler.transform(transformScanner, null);
+        assertEquals(List.of("a", "b", "c", "f", "h", "i"), transformScanner.names);
+    }
+}